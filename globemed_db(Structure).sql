@@ -29,13 +29,31 @@ CREATE TABLE `appointments` (
   `reason` varchar(255) DEFAULT NULL,
   `status` varchar(50) DEFAULT 'Scheduled',
   `doctor_notes` text,
+  `active_slot` datetime GENERATED ALWAYS AS (if((`status` = 'Canceled'),NULL,`appointment_datetime`)) VIRTUAL,
   PRIMARY KEY (`appointment_id`),
   KEY `patient_id` (`patient_id`),
-  KEY `doctor_id` (`doctor_id`),
+  KEY `idx_appointments_doctor_datetime` (`doctor_id`,`appointment_datetime`),
+  KEY `idx_appointments_datetime` (`appointment_datetime`),
+  UNIQUE KEY `uq_appointments_doctor_active_slot` (`doctor_id`,`active_slot`),
   CONSTRAINT `appointments_ibfk_1` FOREIGN KEY (`patient_id`) REFERENCES `patients` (`patient_id`),
   CONSTRAINT `appointments_ibfk_2` FOREIGN KEY (`doctor_id`) REFERENCES `doctors` (`doctor_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=19 DEFAULT CHARSET=utf8mb3;
 
+-- ----------------------------
+-- Table structure for bill_events
+-- ----------------------------
+DROP TABLE IF EXISTS `bill_events`;
+CREATE TABLE `bill_events` (
+  `event_id` bigint NOT NULL AUTO_INCREMENT,
+  `bill_id` int NOT NULL,
+  `event_datetime` datetime NOT NULL,
+  `stage` varchar(50) NOT NULL,
+  `message` varchar(1000) NOT NULL,
+  PRIMARY KEY (`event_id`),
+  KEY `idx_bill_events_bill` (`bill_id`, `event_id`),
+  CONSTRAINT `bill_events_ibfk_1` FOREIGN KEY (`bill_id`) REFERENCES `billing` (`bill_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+
 -- ----------------------------
 -- Table structure for billing
 -- ----------------------------
@@ -52,8 +70,12 @@ CREATE TABLE `billing` (
   `billed_datetime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
   `amount_paid` decimal(10,2) NOT NULL DEFAULT '0.00',
   `insurance_paid_amount` decimal(10,2) NOT NULL DEFAULT '0.00',
+  `version` int NOT NULL DEFAULT '0',
   PRIMARY KEY (`bill_id`),
   KEY `patient_id` (`patient_id`),
+  KEY `idx_billing_billed_datetime` (`billed_datetime`),
+  KEY `idx_billing_patient_billed` (`patient_id`, `billed_datetime`),
+  KEY `idx_billing_service_billed` (`service_description`, `billed_datetime`),
   CONSTRAINT `billing_ibfk_1` FOREIGN KEY (`patient_id`) REFERENCES `patients` (`patient_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=36 DEFAULT CHARSET=utf8mb3;
 
@@ -80,6 +102,24 @@ CREATE TABLE `insurance_plans` (
   UNIQUE KEY `plan_name` (`plan_name`)
 ) ENGINE=InnoDB AUTO_INCREMENT=5 DEFAULT CHARSET=utf8mb3;
 
+-- ----------------------------
+-- Table structure for patient_accounts
+-- ----------------------------
+DROP TABLE IF EXISTS `patient_accounts`;
+CREATE TABLE `patient_accounts` (
+  `patient_id` varchar(50) NOT NULL,
+  `total_billed` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `insurance_paid` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `patient_paid` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `outstanding` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `open_bill_count` int NOT NULL DEFAULT '0',
+  `oldest_open_bill_datetime` datetime DEFAULT NULL,
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`patient_id`),
+  KEY `idx_patient_accounts_outstanding` (`outstanding`),
+  CONSTRAINT `patient_accounts_ibfk_1` FOREIGN KEY (`patient_id`) REFERENCES `patients` (`patient_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+
 -- ----------------------------
 -- Table structure for patients
 -- ----------------------------
@@ -95,6 +135,33 @@ CREATE TABLE `patients` (
   CONSTRAINT `patients_ibfk_1` FOREIGN KEY (`insurance_plan_id`) REFERENCES `insurance_plans` (`plan_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
 
+-- ----------------------------
+-- Table structure for revenue_daily
+-- ----------------------------
+DROP TABLE IF EXISTS `revenue_daily`;
+CREATE TABLE `revenue_daily` (
+  `revenue_date` date NOT NULL,
+  `service_description` varchar(255) NOT NULL,
+  `status_bucket` varchar(10) NOT NULL,
+  `bill_count` int NOT NULL DEFAULT '0',
+  `billed_amount` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `insurance_paid` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `patient_paid` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `outstanding` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `min_amount` decimal(10,2) DEFAULT NULL,
+  `min_positive_amount` decimal(10,2) DEFAULT NULL,
+  `max_amount` decimal(10,2) DEFAULT NULL,
+  `small_bill_count` int NOT NULL DEFAULT '0',
+  `small_billed` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `medium_bill_count` int NOT NULL DEFAULT '0',
+  `medium_billed` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `large_bill_count` int NOT NULL DEFAULT '0',
+  `large_billed` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`revenue_date`, `service_description`, `status_bucket`),
+  KEY `idx_revenue_daily_service` (`service_description`, `revenue_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+
 -- ----------------------------
 -- Table structure for staff
 -- ----------------------------
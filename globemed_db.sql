@@ -29,9 +29,12 @@ CREATE TABLE `appointments` (
   `reason` varchar(255) DEFAULT NULL,
   `status` varchar(50) DEFAULT 'Scheduled',
   `doctor_notes` text,
+  `active_slot` datetime GENERATED ALWAYS AS (if((`status` = 'Canceled'),NULL,`appointment_datetime`)) VIRTUAL,
   PRIMARY KEY (`appointment_id`),
   KEY `patient_id` (`patient_id`),
-  KEY `doctor_id` (`doctor_id`),
+  KEY `idx_appointments_doctor_datetime` (`doctor_id`,`appointment_datetime`),
+  KEY `idx_appointments_datetime` (`appointment_datetime`),
+  UNIQUE KEY `uq_appointments_doctor_active_slot` (`doctor_id`,`active_slot`),
   CONSTRAINT `appointments_ibfk_1` FOREIGN KEY (`patient_id`) REFERENCES `patients` (`patient_id`),
   CONSTRAINT `appointments_ibfk_2` FOREIGN KEY (`doctor_id`) REFERENCES `doctors` (`doctor_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=18 DEFAULT CHARSET=utf8mb3;
@@ -51,6 +54,21 @@ INSERT INTO `appointments` (`appointment_id`, `patient_id`, `doctor_id`, `appoin
 INSERT INTO `appointments` (`appointment_id`, `patient_id`, `doctor_id`, `appointment_datetime`, `reason`, `status`, `doctor_notes`) VALUES (16, 'p1', 'D003', '2025-08-30 08:17:00', 'nikn ane', 'Scheduled', '');
 COMMIT;
 
+-- ----------------------------
+-- Table structure for bill_events
+-- ----------------------------
+DROP TABLE IF EXISTS `bill_events`;
+CREATE TABLE `bill_events` (
+  `event_id` bigint NOT NULL AUTO_INCREMENT,
+  `bill_id` int NOT NULL,
+  `event_datetime` datetime NOT NULL,
+  `stage` varchar(50) NOT NULL,
+  `message` varchar(1000) NOT NULL,
+  PRIMARY KEY (`event_id`),
+  KEY `idx_bill_events_bill` (`bill_id`, `event_id`),
+  CONSTRAINT `bill_events_ibfk_1` FOREIGN KEY (`bill_id`) REFERENCES `billing` (`bill_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+
 -- ----------------------------
 -- Table structure for billing
 -- ----------------------------
@@ -67,8 +85,12 @@ CREATE TABLE `billing` (
   `billed_datetime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
   `amount_paid` decimal(10,2) NOT NULL DEFAULT '0.00',
   `insurance_paid_amount` decimal(10,2) NOT NULL DEFAULT '0.00',
+  `version` int NOT NULL DEFAULT '0',
   PRIMARY KEY (`bill_id`),
   KEY `patient_id` (`patient_id`),
+  KEY `idx_billing_billed_datetime` (`billed_datetime`),
+  KEY `idx_billing_patient_billed` (`patient_id`, `billed_datetime`),
+  KEY `idx_billing_service_billed` (`service_description`, `billed_datetime`),
   CONSTRAINT `billing_ibfk_1` FOREIGN KEY (`patient_id`) REFERENCES `patients` (`patient_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=36 DEFAULT CHARSET=utf8mb3;
 
@@ -142,6 +164,34 @@ INSERT INTO `insurance_plans` (`plan_id`, `plan_name`, `coverage_percent`) VALUE
 INSERT INTO `insurance_plans` (`plan_id`, `plan_name`, `coverage_percent`) VALUES (4, 'Platinum', 80.00);
 COMMIT;
 
+-- ----------------------------
+-- Table structure for patient_accounts
+-- ----------------------------
+DROP TABLE IF EXISTS `patient_accounts`;
+CREATE TABLE `patient_accounts` (
+  `patient_id` varchar(50) NOT NULL,
+  `total_billed` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `insurance_paid` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `patient_paid` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `outstanding` decimal(12,2) NOT NULL DEFAULT '0.00',
+  `open_bill_count` int NOT NULL DEFAULT '0',
+  `oldest_open_bill_datetime` datetime DEFAULT NULL,
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`patient_id`),
+  KEY `idx_patient_accounts_outstanding` (`outstanding`),
+  CONSTRAINT `patient_accounts_ibfk_1` FOREIGN KEY (`patient_id`) REFERENCES `patients` (`patient_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+
+-- ----------------------------
+-- Records of patient_accounts
+-- ----------------------------
+INSERT INTO `patient_accounts` (`patient_id`, `total_billed`, `insurance_paid`, `patient_paid`, `outstanding`, `open_bill_count`, `oldest_open_bill_datetime`, `updated_at`)
+SELECT `patient_id`, SUM(`amount`), SUM(COALESCE(`insurance_paid_amount`, 0)), SUM(COALESCE(`amount_paid`, 0)),
+  SUM(GREATEST(COALESCE(`final_amount`, 0) - COALESCE(`amount_paid`, 0), 0)),
+  SUM(COALESCE(`final_amount`, 0) > COALESCE(`amount_paid`, 0)),
+  MIN(CASE WHEN COALESCE(`final_amount`, 0) > COALESCE(`amount_paid`, 0) THEN `billed_datetime` END), NOW()
+FROM `billing` GROUP BY `patient_id`;
+
 -- ----------------------------
 -- Table structure for patients
 -- ----------------------------
@@ -168,6 +218,46 @@ INSERT INTO `patients` (`patient_id`, `full_name`, `medical_history`, `treatment
 INSERT INTO `patients` (`patient_id`, `full_name`, `medical_history`, `treatment_plans`, `insurance_plan_id`) VALUES ('p3', 'Aiya', 'data', 'data', 2);
 COMMIT;
 
+-- ----------------------------
+-- Table structure for revenue_daily
+-- ----------------------------
+DROP TABLE IF EXISTS `revenue_daily`;
+CREATE TABLE `revenue_daily` (
+  `revenue_date` date NOT NULL,
+  `service_description` varchar(255) NOT NULL,
+  `status_bucket` varchar(10) NOT NULL,
+  `bill_count` int NOT NULL DEFAULT '0',
+  `billed_amount` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `insurance_paid` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `patient_paid` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `outstanding` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `min_amount` decimal(10,2) DEFAULT NULL,
+  `min_positive_amount` decimal(10,2) DEFAULT NULL,
+  `max_amount` decimal(10,2) DEFAULT NULL,
+  `small_bill_count` int NOT NULL DEFAULT '0',
+  `small_billed` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `medium_bill_count` int NOT NULL DEFAULT '0',
+  `medium_billed` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `large_bill_count` int NOT NULL DEFAULT '0',
+  `large_billed` decimal(14,2) NOT NULL DEFAULT '0.00',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`revenue_date`, `service_description`, `status_bucket`),
+  KEY `idx_revenue_daily_service` (`service_description`, `revenue_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+
+-- ----------------------------
+-- Records of revenue_daily
+-- ----------------------------
+INSERT INTO `revenue_daily` (`revenue_date`, `service_description`, `status_bucket`, `bill_count`, `billed_amount`, `insurance_paid`, `patient_paid`, `outstanding`,
+  `min_amount`, `min_positive_amount`, `max_amount`, `small_bill_count`, `small_billed`, `medium_bill_count`, `medium_billed`, `large_bill_count`, `large_billed`, `updated_at`)
+SELECT DATE(`billed_datetime`), `service_description`, CASE WHEN COALESCE(`final_amount`, 0) = 0 THEN 'Paid' ELSE 'Open' END, COUNT(*), SUM(`amount`), SUM(COALESCE(`insurance_paid_amount`, 0)), SUM(COALESCE(`amount_paid`, 0)),
+  SUM(GREATEST(COALESCE(`final_amount`, 0) - COALESCE(`amount_paid`, 0), 0)),
+  MIN(`amount`), MIN(CASE WHEN `amount` > 0 THEN `amount` END), MAX(`amount`),
+  SUM(`amount` <= 100), SUM(CASE WHEN `amount` <= 100 THEN `amount` ELSE 0 END),
+  SUM(`amount` > 100 AND `amount` <= 500), SUM(CASE WHEN `amount` > 100 AND `amount` <= 500 THEN `amount` ELSE 0 END),
+  SUM(`amount` > 500), SUM(CASE WHEN `amount` > 500 THEN `amount` ELSE 0 END), NOW()
+FROM `billing` GROUP BY DATE(`billed_datetime`), `service_description`, CASE WHEN COALESCE(`final_amount`, 0) = 0 THEN 'Paid' ELSE 'Open' END;
+
 -- ----------------------------
 -- Table structure for staff
 -- ----------------------------
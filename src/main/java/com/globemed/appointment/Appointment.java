@@ -4,7 +4,7 @@ import java.time.LocalDateTime;
 import com.globemed.reports.ReportVisitor;
 import com.globemed.reports.Visitable;
 
-public class Appointment implements Visitable {
+public class Appointment implements Cloneable, Visitable {
     private int appointmentId;
     private String patientId;
     private String doctorId;
@@ -137,6 +137,20 @@ public class Appointment implements Visitable {
         return true;
     }
 
+    /**
+     * Copies the appointment, so callers can edit it without touching a cached instance.
+     * All fields are immutable values, so a shallow copy is enough.
+     */
+    @Override
+    public Appointment clone() {
+        try {
+            return (Appointment) super.clone();
+        } catch (CloneNotSupportedException e) {
+            // This should not happen since we are Cloneable
+            throw new AssertionError();
+        }
+    }
+
     /**
      * NEW: Check if appointment can be updated (only scheduled appointments)
      * @return true if appointment can be modified, false otherwise
@@ -1,18 +1,43 @@
 package com.globemed.appointment;
 
 import com.globemed.db.SchedulingDAO;
+import com.globemed.utils.StripedLocks;
+
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 /**
  * The Mediator. It handles the complex logic of scheduling,
  * checking for conflicts, and coordinating between the database and the request.
  */
 public class AppointmentScheduler {
+    /** Business rule: appointments are 30 minutes long, so two starts closer than this conflict. */
+    public static final Duration APPOINTMENT_LENGTH = Duration.ofMinutes(30);
+
+    private static final String CONFLICT_MESSAGE =
+            "Booking failed: Time slot conflicts with an existing appointment (30-min rule).";
+
+    /**
+     * Serializes bookings for the same doctor within this process, so concurrent requests
+     * for one doctor queue here instead of contending on the doctor's row in the database.
+     * Bookings for different doctors proceed in parallel.
+     */
+    private static final StripedLocks BOOKING_LOCKS = new StripedLocks(64);
+
     private final SchedulingDAO schedulingDAO;
 
     public AppointmentScheduler() {
-        this.schedulingDAO = new SchedulingDAO();
+        this(new SchedulingDAO());
+    }
+
+    AppointmentScheduler(SchedulingDAO schedulingDAO) {
+        this.schedulingDAO = schedulingDAO;
     }
 
     /**
@@ -26,29 +51,111 @@ public class AppointmentScheduler {
      */
     // --- MODIFIED: New parameter for doctorNotes ---
     public String bookAppointment(String patientId, Doctor doctor, LocalDateTime requestedDateTime, String reason, String doctorNotes) {
-        // Business Rule: Check for conflicts. Assume appointments are 30 minutes long.
-        List<Appointment> existingAppointments = schedulingDAO.getAppointmentsForDoctorOnDate(doctor.getDoctorId(), requestedDateTime.toLocalDate());
+        Lock doctorLock = BOOKING_LOCKS.get(doctor.getDoctorId());
+        doctorLock.lock();
+        try {
+            // Business Rule: Check for conflicts. Conflict if the requested time is within 30 min of
+            // an existing start time (e.g., existing at 10:00, requested at 09:45 or 10:15 conflicts).
+            // This in-memory check rejects most conflicts without touching the database.
+            LocalDateTime conflict;
+            try {
+                conflict = schedulingDAO.findConflictingAppointment(doctor.getDoctorId(), requestedDateTime, APPOINTMENT_LENGTH);
+            } catch (SQLException e) {
+                System.err.println("Error checking schedule for doctor " + doctor.getDoctorId() + ": " + e.getMessage());
+                return "Booking failed: Could not check the doctor's schedule.";
+            }
+            if (conflict != null) {
+                return CONFLICT_MESSAGE;
+            }
 
-        for (Appointment existing : existingAppointments) {
-            LocalDateTime existingStart = existing.getAppointmentDateTime();
+            // No conflicts, proceed to book. The DAO re-checks under a database lock, which
+            // catches bookings made from other workstations since the index was loaded.
+            // --- MODIFIED: Pass doctorNotes to Appointment constructor ---
+            Appointment newAppointment = new Appointment(patientId, doctor.getDoctorId(), requestedDateTime, reason);
+            newAppointment.setDoctorNotes(doctorNotes); // Set the initial notes
 
-            // Conflict if requested time is within 30 min of existing start time
-            // (e.g., existing at 10:00, requested at 10:15 conflicts)
-            // (e.g., existing at 10:00, requested at 09:45 conflicts)
-            // --- MODIFIED: Using 30-minute conflict rule ---
-            if (requestedDateTime.isAfter(existingStart.minusMinutes(30)) &&
-                    requestedDateTime.isBefore(existingStart.plusMinutes(30))) {
-                return "Booking failed: Time slot conflicts with an existing appointment (30-min rule).";
+            try {
+                boolean booked = schedulingDAO.createAppointmentIfSlotFree(newAppointment, APPOINTMENT_LENGTH);
+                return booked ? "Appointment booked successfully!" : CONFLICT_MESSAGE;
+            } catch (SQLException e) {
+                System.err.println("Error booking appointment for patient " + patientId + ": " + e.getMessage());
+                return "Booking failed: Could not save to database.";
             }
+        } finally {
+            doctorLock.unlock();
         }
+    }
+
+    /**
+     * Books a whole series of appointments (e.g. weekly physio), all or nothing.
+     * The doctor's schedule for the full span of the series is read in one query and every
+     * occurrence is checked against it in memory; the series is then saved in a single
+     * batched transaction that re-checks the schedule under a database lock.
+     * @param patientId The ID of the patient.
+     * @param doctor The doctor for the appointments.
+     * @param rule When the appointments take place.
+     * @param reason The reason, used for every appointment in the series.
+     * @param doctorNotes Initial notes/prescription from the doctor (can be empty).
+     * @return A status message indicating success or failure, listing any conflicting dates.
+     */
+    public String bookRecurringAppointments(String patientId, Doctor doctor, RecurrenceRule rule, String reason, String doctorNotes) {
+        List<LocalDateTime> occurrences = rule.occurrences();
+
+        Lock doctorLock = BOOKING_LOCKS.get(doctor.getDoctorId());
+        doctorLock.lock();
+        try {
+            List<LocalDateTime> conflicts;
+            try {
+                conflicts = findConflicts(doctor.getDoctorId(), occurrences);
+            } catch (SQLException e) {
+                System.err.println("Error checking schedule for doctor " + doctor.getDoctorId() + ": " + e.getMessage());
+                return "Booking failed: Could not check the doctor's schedule.";
+            }
+            if (!conflicts.isEmpty()) {
+                return "Booking failed: " + conflicts.size() + " of " + occurrences.size() +
+                        " appointments conflict with existing appointments (30-min rule): " +
+                        conflicts.stream().map(t -> t.toLocalDate() + " " + t.toLocalTime()).collect(Collectors.joining(", ")) +
+                        ". Nothing was booked.";
+            }
 
-        // No conflicts, proceed to book
-        // --- MODIFIED: Pass doctorNotes to Appointment constructor ---
-        Appointment newAppointment = new Appointment(patientId, doctor.getDoctorId(), requestedDateTime, reason);
-        newAppointment.setDoctorNotes(doctorNotes); // Set the initial notes
+            List<Appointment> series = new ArrayList<>();
+            for (LocalDateTime occurrence : occurrences) {
+                Appointment appointment = new Appointment(patientId, doctor.getDoctorId(), occurrence, reason);
+                appointment.setDoctorNotes(doctorNotes);
+                series.add(appointment);
+            }
+
+            try {
+                boolean booked = schedulingDAO.createAppointmentsIfSlotsFree(series, APPOINTMENT_LENGTH);
+                return booked ? series.size() + " appointments booked successfully!"
+                        : "Booking failed: A slot in the series was taken from another workstation. Nothing was booked.";
+            } catch (SQLException e) {
+                System.err.println("Error booking appointment series for patient " + patientId + ": " + e.getMessage());
+                return "Booking failed: Could not save to database.";
+            }
+        } finally {
+            doctorLock.unlock();
+        }
+    }
 
-        boolean success = schedulingDAO.createAppointment(newAppointment);
+    /**
+     * @return The occurrences that fall within 30 minutes of an active appointment, read for
+     * the whole span of the occurrences in one query.
+     */
+    private List<LocalDateTime> findConflicts(String doctorId, List<LocalDateTime> occurrences) throws SQLException {
+        TreeSet<LocalDateTime> sorted = new TreeSet<>(occurrences);
+        TreeSet<LocalDateTime> existing = new TreeSet<>();
+        for (Appointment appointment : schedulingDAO.getActiveAppointmentsForDoctorBetween(doctorId,
+                sorted.first().minus(APPOINTMENT_LENGTH), sorted.last().plus(APPOINTMENT_LENGTH))) {
+            existing.add(appointment.getAppointmentDateTime());
+        }
 
-        return success ? "Appointment booked successfully!" : "Booking failed: Could not save to database.";
+        List<LocalDateTime> conflicts = new ArrayList<>();
+        for (LocalDateTime occurrence : occurrences) {
+            if (!existing.subSet(occurrence.minus(APPOINTMENT_LENGTH), false, occurrence.plus(APPOINTMENT_LENGTH), false).isEmpty()) {
+                conflicts.add(occurrence);
+            }
+        }
+        return conflicts;
     }
 }
\ No newline at end of file
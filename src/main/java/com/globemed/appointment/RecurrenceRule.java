@@ -0,0 +1,72 @@
+package com.globemed.appointment;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes a series of appointments at the same time of day, e.g. "weekly for 6 weeks"
+ * or "every 3 months, 4 times".
+ */
+public class RecurrenceRule {
+    public static final int MAX_OCCURRENCES = 100;
+
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS), WEEKLY(ChronoUnit.WEEKS), MONTHLY(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private final LocalDateTime firstOccurrence;
+    private final Frequency frequency;
+    private final int interval;
+    private final int count;
+
+    /**
+     * @param firstOccurrence The date and time of the first appointment.
+     * @param frequency The unit the series repeats in.
+     * @param interval Repeat every {@code interval} units, e.g. 2 with WEEKLY for fortnightly.
+     * @param count The total number of appointments, including the first.
+     * @throws IllegalArgumentException if interval is below 1 or count is outside 1..MAX_OCCURRENCES.
+     */
+    public RecurrenceRule(LocalDateTime firstOccurrence, Frequency frequency, int interval, int count) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1: " + interval);
+        }
+        if (count < 1 || count > MAX_OCCURRENCES) {
+            throw new IllegalArgumentException("Count must be between 1 and " + MAX_OCCURRENCES + ": " + count);
+        }
+        this.firstOccurrence = firstOccurrence;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+    }
+
+    public LocalDateTime getFirstOccurrence() { return firstOccurrence; }
+    public Frequency getFrequency() { return frequency; }
+    public int getInterval() { return interval; }
+    public int getCount() { return count; }
+
+    /**
+     * Expands the rule into the start time of every appointment, in order. Each occurrence
+     * is computed from the first one, so monthly series keep their day of month (clamped
+     * to the month's last day) instead of drifting.
+     */
+    public List<LocalDateTime> occurrences() {
+        List<LocalDateTime> occurrences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            occurrences.add(firstOccurrence.plus((long) i * interval, frequency.unit));
+        }
+        return occurrences;
+    }
+
+    @Override
+    public String toString() {
+        return count + " x every " + interval + " " + frequency.unit.toString().toLowerCase() + " from " + firstOccurrence;
+    }
+}
@@ -0,0 +1,185 @@
+package com.globemed.appointment;
+
+import com.globemed.db.SchedulingDAO;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds free appointment slots across all doctors of a specialty.
+ * <p>
+ * Each doctor's working day is divided into fixed slots of {@link AppointmentScheduler#APPOINTMENT_LENGTH},
+ * starting at the clinic opening time. Occupancy is kept as one {@code long} bitmap per
+ * doctor per day (one bit per slot), built from a single range query over the search
+ * window. A slot is occupied if any active appointment starts less than one appointment
+ * length before or after it, which is the same rule {@link AppointmentScheduler} enforces
+ * when booking.
+ */
+public class SlotAvailabilityEngine {
+    public static final LocalTime DEFAULT_OPENING_TIME = LocalTime.of(8, 0);
+    public static final LocalTime DEFAULT_CLOSING_TIME = LocalTime.of(18, 0);
+
+    /**
+     * A bookable slot for one doctor.
+     */
+    public static class FreeSlot {
+        private final Doctor doctor;
+        private final LocalDateTime start;
+
+        public FreeSlot(Doctor doctor, LocalDateTime start) {
+            this.doctor = doctor;
+            this.start = start;
+        }
+
+        public Doctor getDoctor() { return doctor; }
+        public LocalDateTime getStart() { return start; }
+
+        @Override
+        public String toString() {
+            return start.toLocalDate() + " " + start.toLocalTime() + " - " + doctor.getFullName() +
+                    " (" + doctor.getSpecialty() + ")";
+        }
+    }
+
+    private final SchedulingDAO schedulingDAO;
+    private final LocalTime openingTime;
+    private final long slotMinutes;
+    private final int slotsPerDay;
+    private final long allSlotsMask;
+
+    public SlotAvailabilityEngine() {
+        this(new SchedulingDAO(), DEFAULT_OPENING_TIME, DEFAULT_CLOSING_TIME);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the opening hours hold no slots or more than 64 slots.
+     */
+    public SlotAvailabilityEngine(SchedulingDAO schedulingDAO, LocalTime openingTime, LocalTime closingTime) {
+        this.schedulingDAO = schedulingDAO;
+        this.openingTime = openingTime;
+        this.slotMinutes = AppointmentScheduler.APPOINTMENT_LENGTH.toMinutes();
+        this.slotsPerDay = (int) (Duration.between(openingTime, closingTime).toMinutes() / slotMinutes);
+        if (slotsPerDay < 1 || slotsPerDay > Long.SIZE) {
+            throw new IllegalArgumentException("Opening hours must hold between 1 and 64 slots: " +
+                    openingTime + " - " + closingTime);
+        }
+        this.allSlotsMask = slotsPerDay == Long.SIZE ? -1L : (1L << slotsPerDay) - 1;
+    }
+
+    /**
+     * Finds the earliest free slots, ordered by time and then by doctor name.
+     * @param specialty The specialty to search (case-insensitive), or null/blank for every doctor.
+     * @param from Slots starting before this time are not returned.
+     * @param days How many calendar days to search, starting with the day of {@code from}.
+     * @param limit The maximum number of slots to return.
+     * @return Up to {@code limit} free slots; empty if none were found.
+     * @throws SQLException if the appointments could not be read.
+     */
+    public List<FreeSlot> findFreeSlots(String specialty, LocalDateTime from, int days, int limit) throws SQLException {
+        List<FreeSlot> result = new ArrayList<>();
+        List<Doctor> doctors = doctorsFor(specialty);
+        if (doctors.isEmpty() || days <= 0 || limit <= 0) {
+            return result;
+        }
+
+        LocalDate firstDay = from.toLocalDate();
+        Map<String, long[]> occupancy = buildOccupancy(doctors, firstDay, days);
+
+        for (int day = 0; day < days; day++) {
+            LocalDate date = firstDay.plusDays(day);
+            long pastMask = day == 0 ? pastSlotsMask(from) : 0L;
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                long bit = 1L << slot;
+                if ((pastMask & bit) != 0) {
+                    continue;
+                }
+                for (Doctor doctor : doctors) {
+                    if ((occupancy.get(doctor.getDoctorId())[day] & bit) == 0) {
+                        result.add(new FreeSlot(doctor, slotStart(date, slot)));
+                        if (result.size() == limit) {
+                            return result;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Doctor> doctorsFor(String specialty) {
+        List<Doctor> doctors = new ArrayList<>();
+        for (Doctor doctor : schedulingDAO.getAllDoctors()) {
+            if (specialty == null || specialty.isBlank() ||
+                    (doctor.getSpecialty() != null && doctor.getSpecialty().trim().equalsIgnoreCase(specialty.trim()))) {
+                doctors.add(doctor);
+            }
+        }
+        return doctors;
+    }
+
+    /**
+     * Builds each doctor's per-day occupancy bitmaps from one query over the whole window.
+     */
+    private Map<String, long[]> buildOccupancy(List<Doctor> doctors, LocalDate firstDay, int days) throws SQLException {
+        Map<String, long[]> occupancy = new LinkedHashMap<>();
+        for (Doctor doctor : doctors) {
+            occupancy.put(doctor.getDoctorId(), new long[days]);
+        }
+        List<Appointment> appointments = schedulingDAO.getActiveAppointmentsBetween(
+                firstDay.atStartOfDay(), firstDay.plusDays(days).atStartOfDay());
+        for (Appointment appointment : appointments) {
+            long[] bitmaps = occupancy.get(appointment.getDoctorId());
+            if (bitmaps == null) {
+                continue; // a doctor outside the requested specialty
+            }
+            LocalDateTime start = appointment.getAppointmentDateTime();
+            int day = (int) ChronoUnit.DAYS.between(firstDay, start.toLocalDate());
+            bitmaps[day] |= blockedSlotsMask(start);
+        }
+        return occupancy;
+    }
+
+    /**
+     * The slots an appointment starting at {@code start} conflicts with: the slot it starts
+     * in, plus the next slot unless it starts exactly on a slot boundary.
+     */
+    private long blockedSlotsMask(LocalDateTime start) {
+        Duration offset = Duration.between(start.toLocalDate().atTime(openingTime), start);
+        long slotNanos = slotMinutes * 60_000_000_000L;
+        long slot = Math.floorDiv(offset.toNanos(), slotNanos);
+        long mask = slotMask(slot);
+        if (Math.floorMod(offset.toNanos(), slotNanos) != 0) {
+            mask |= slotMask(slot + 1);
+        }
+        return mask;
+    }
+
+    /**
+     * The slots on {@code from}'s day that start before {@code from}.
+     */
+    private long pastSlotsMask(LocalDateTime from) {
+        long offsetSeconds = Duration.between(from.toLocalDate().atTime(openingTime), from).getSeconds();
+        long slotSeconds = slotMinutes * 60;
+        long firstOpenSlot = offsetSeconds <= 0 ? 0 : (offsetSeconds + slotSeconds - 1) / slotSeconds;
+        if (firstOpenSlot >= slotsPerDay) {
+            return allSlotsMask;
+        }
+        return (1L << firstOpenSlot) - 1;
+    }
+
+    private long slotMask(long slot) {
+        return slot >= 0 && slot < slotsPerDay ? 1L << slot : 0L;
+    }
+
+    private LocalDateTime slotStart(LocalDate date, int slot) {
+        return date.atTime(openingTime).plusMinutes(slot * slotMinutes);
+    }
+}
@@ -0,0 +1,37 @@
+package com.globemed.billing;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One entry of a bill's processing log, stored as a row of the append-only bill_events table.
+ */
+public class BillEvent {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final LocalDateTime timestamp;
+    private final String stage;
+    private final String message;
+
+    public BillEvent(LocalDateTime timestamp, String stage, String message) {
+        this.timestamp = timestamp;
+        this.stage = stage;
+        this.message = message;
+    }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getStage() { return stage; }
+    public String getMessage() { return message; }
+
+    /**
+     * @return The event as one line of the log shown to users.
+     */
+    public String toLogLine() {
+        return "[" + timestamp.format(TIMESTAMP_FORMAT) + "] " + stage + ": " + message;
+    }
+
+    @Override
+    public String toString() {
+        return toLogLine();
+    }
+}
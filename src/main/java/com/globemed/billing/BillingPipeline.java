@@ -0,0 +1,388 @@
+package com.globemed.billing;
+
+import com.globemed.db.BillingDAO;
+import com.globemed.db.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs large batches of bills, such as an end-of-day claim run, through the billing
+ * handlers as a pipeline instead of one chain call per bill.
+ * <p>
+ * Each handler becomes a stage with its own worker threads, and stages are connected by
+ * bounded queues. When a stage falls behind its queue fills up and the stage before it
+ * blocks, so a slow database throttles the whole run instead of buffering every bill in
+ * memory. The last stage applies {@link FinalBillingHandler}'s finalization and writes
+ * bills in JDBC batches. If a batch fails, its bills are retried one at a time so a single
+ * bad bill does not fail the rest.
+ * <p>
+ * Handlers are called with no next handler and are shared by all workers of their stage,
+ * so they must not keep per-bill state. A pipeline runs one batch at a time.
+ */
+public class BillingPipeline {
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Saves a batch of finalized bills, setting the IDs of new bills.
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        /**
+         * @return true if every bill was saved, false if none were.
+         */
+        boolean saveBills(List<MedicalBill> bills);
+    }
+
+    /**
+     * The outcome of one run.
+     */
+    public static class RunResult {
+        private final List<MedicalBill> saved;
+        private final List<MedicalBill> rejected;
+        private final List<MedicalBill> failed;
+        private final List<StageMetrics> stageMetrics;
+        private final long elapsedMillis;
+
+        RunResult(List<MedicalBill> saved, List<MedicalBill> rejected, List<MedicalBill> failed,
+                  List<StageMetrics> stageMetrics, long elapsedMillis) {
+            this.saved = saved;
+            this.rejected = rejected;
+            this.failed = failed;
+            this.stageMetrics = stageMetrics;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /** Bills that passed every stage and were saved. */
+        public List<MedicalBill> getSaved() { return saved; }
+        /** Bills a handler stopped, e.g. failed validation. Not saved. */
+        public List<MedicalBill> getRejected() { return rejected; }
+        /** Bills that threw in a handler or could not be saved. */
+        public List<MedicalBill> getFailed() { return failed; }
+        public List<StageMetrics> getStageMetrics() { return stageMetrics; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+
+    // Marks the end of the input; each worker that takes one stops
+    private static final BillProcessingRequest END = new BillProcessingRequest(null, null);
+
+    private static final class StageSpec {
+        final String name;
+        final BillingHandler handler;
+        final int workers;
+
+        StageSpec(String name, BillingHandler handler, int workers) {
+            this.name = name;
+            this.handler = handler;
+            this.workers = workers;
+        }
+    }
+
+    /**
+     * The queue and counters of one stage for one run.
+     */
+    private static final class Stage {
+        final StageSpec spec;
+        final BlockingQueue<BillProcessingRequest> queue;
+        final AtomicInteger runningWorkers;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong blockedNanos = new AtomicLong();
+        final long startNanos;
+        volatile long lastNanos;
+
+        Stage(StageSpec spec, int queueCapacity, long startNanos) {
+            this.spec = spec;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.runningWorkers = new AtomicInteger(spec.workers);
+            this.startNanos = startNanos;
+            this.lastNanos = startNanos;
+        }
+
+        void put(BillProcessingRequest request) throws InterruptedException {
+            if (!queue.offer(request)) {
+                long start = System.nanoTime();
+                queue.put(request);
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        void putEnd() throws InterruptedException {
+            for (int i = 0; i < spec.workers; i++) {
+                queue.put(END);
+            }
+        }
+
+        void completed(int bills, long startNanos) {
+            long now = System.nanoTime();
+            for (int i = 0; i < bills; i++) {
+                latency.record(now - startNanos);
+            }
+            processed.addAndGet(bills);
+            lastNanos = now;
+        }
+
+        StageMetrics snapshot() {
+            return new StageMetrics(spec.name, spec.workers, processed.get(), rejected.get(), failed.get(),
+                    batches.get(), queue.size(), TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(lastNanos - startNanos), latency.copy());
+        }
+    }
+
+    private final List<StageSpec> handlerStages = new ArrayList<>();
+    private final BatchWriter writer;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int persistWorkers;
+    private volatile List<Stage> currentStages = Collections.emptyList();
+
+    /**
+     * @param writer Saves each batch of finalized bills.
+     * @param queueCapacity Bills that may wait in front of each stage before the previous stage blocks.
+     * @param batchSize Maximum bills per JDBC batch.
+     * @param persistWorkers Threads writing batches, and so database connections used at once.
+     */
+    public BillingPipeline(BatchWriter writer, int queueCapacity, int batchSize, int persistWorkers) {
+        if (queueCapacity < 1 || batchSize < 1 || persistWorkers < 1) {
+            throw new IllegalArgumentException("Queue capacity, batch size and persist workers must be at least 1");
+        }
+        this.writer = writer;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.persistWorkers = persistWorkers;
+    }
+
+    /**
+     * Creates the standard claim-run pipeline: validation, then insurance, then batched saves
+     * through {@link BillingDAO#saveBills}. Used by the billing screen's CSV bill import.
+     */
+    public static BillingPipeline forClaimRun() {
+        BillingDAO billingDAO = new BillingDAO();
+        return new BillingPipeline(billingDAO::saveBills, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE, 1)
+                .addStage("Validation", new ValidationHandler(), 1)
+                .addStage("Insurance", new InsuranceHandler(), 2);
+    }
+
+    /**
+     * Appends a handler stage, run before the persist stage.
+     *
+     * @param name Name used in metrics.
+     * @param handler The handler; its next handler is cleared.
+     * @param workers Threads running this stage.
+     * @return This pipeline, for chaining.
+     */
+    public synchronized BillingPipeline addStage(String name, BillingHandler handler, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Stage " + name + " needs at least 1 worker: " + workers);
+        }
+        handler.setNext(null);
+        handlerStages.add(new StageSpec(name, handler, workers));
+        return this;
+    }
+
+    /**
+     * Pushes every request through the pipeline and waits for the last bill to be saved.
+     * Requests are pulled from {@code requests} only as fast as the stages can take them.
+     *
+     * @return The saved, rejected and failed bills, and the metrics of each stage.
+     * @throws InterruptedException if interrupted; the run is abandoned and bills already
+     *         in a committed batch stay saved.
+     */
+    public synchronized RunResult run(Iterable<BillProcessingRequest> requests) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        List<Stage> stages = new ArrayList<>();
+        for (StageSpec spec : handlerStages) {
+            stages.add(new Stage(spec, queueCapacity, startNanos));
+        }
+        stages.add(new Stage(new StageSpec("Persist", null, persistWorkers), queueCapacity, startNanos));
+        currentStages = Collections.unmodifiableList(stages);
+
+        Queue<MedicalBill> saved = new ConcurrentLinkedQueue<>();
+        Queue<MedicalBill> rejected = new ConcurrentLinkedQueue<>();
+        Queue<MedicalBill> failed = new ConcurrentLinkedQueue<>();
+
+        int totalWorkers = 0;
+        for (Stage stage : stages) {
+            totalWorkers += stage.spec.workers;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(totalWorkers, r -> {
+            Thread t = new Thread(r, "billing-pipeline-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (int i = 0; i < stages.size(); i++) {
+                Stage stage = stages.get(i);
+                Stage next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+                for (int w = 0; w < stage.spec.workers; w++) {
+                    if (next != null) {
+                        executor.execute(() -> runHandlerStage(stage, next, rejected, failed));
+                    } else {
+                        executor.execute(() -> runPersistStage(stage, saved, failed));
+                    }
+                }
+            }
+
+            Stage first = stages.get(0);
+            for (BillProcessingRequest request : requests) {
+                first.put(request);
+            }
+            first.putEnd();
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<StageMetrics> metrics = getMetrics();
+        RunResult result = new RunResult(new ArrayList<>(saved), new ArrayList<>(rejected), new ArrayList<>(failed),
+                metrics, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        System.out.println("BillingPipeline: Run finished in " + result.getElapsedMillis() + " ms - saved " +
+                saved.size() + ", rejected " + rejected.size() + ", failed " + failed.size());
+        for (StageMetrics stageMetrics : metrics) {
+            System.out.println("  " + stageMetrics);
+        }
+        return result;
+    }
+
+    /**
+     * @return Metrics for each stage of the current or most recent run, in pipeline order.
+     */
+    public List<StageMetrics> getMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>();
+        for (Stage stage : currentStages) {
+            metrics.add(stage.snapshot());
+        }
+        return metrics;
+    }
+
+    private void runHandlerStage(Stage stage, Stage next, Queue<MedicalBill> rejected, Queue<MedicalBill> failed) {
+        try {
+            BillProcessingRequest request;
+            while ((request = stage.queue.take()) != END) {
+                long start = System.nanoTime();
+                boolean passed;
+                try {
+                    passed = stage.spec.handler.processBill(request);
+                } catch (RuntimeException e) {
+                    System.err.println("Error in " + stage.spec.name + " stage for patient " +
+                            request.getBill().getPatientId() + ": " + e.getMessage());
+                    request.getBill().setStatus("Error - " + stage.spec.name + " Failed");
+                    request.getBill().addLog(stage.spec.name, stage.spec.name + " failed: " + e);
+                    stage.failed.incrementAndGet();
+                    stage.completed(1, start);
+                    failed.add(request.getBill());
+                    continue;
+                }
+                stage.completed(1, start);
+                if (passed) {
+                    next.put(request);
+                } else {
+                    stage.rejected.incrementAndGet();
+                    rejected.add(request.getBill());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finishWorker(stage, next);
+        }
+    }
+
+    private void runPersistStage(Stage stage, Queue<MedicalBill> saved, Queue<MedicalBill> failed) {
+        List<BillProcessingRequest> batch = new ArrayList<>(batchSize);
+        try {
+            boolean done = false;
+            while (!done) {
+                batch.clear();
+                batch.add(stage.queue.take());
+                // Whatever queued up while the previous batch was being written joins this one
+                stage.queue.drainTo(batch, batchSize - 1);
+
+                int ends = 0;
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    if (batch.get(i) == END) {
+                        batch.remove(i);
+                        ends++;
+                    }
+                }
+                if (ends > 0) {
+                    done = true;
+                    // Leave the other workers' end markers for them
+                    for (int i = 1; i < ends; i++) {
+                        stage.queue.put(END);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    persist(stage, batch, saved, failed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finishWorker(stage, null);
+        }
+    }
+
+    private void persist(Stage stage, List<BillProcessingRequest> batch, Queue<MedicalBill> saved, Queue<MedicalBill> failed) {
+        long start = System.nanoTime();
+        List<MedicalBill> bills = new ArrayList<>(batch.size());
+        for (BillProcessingRequest request : batch) {
+            FinalBillingHandler.finalizeBill(request.getBill());
+            bills.add(request.getBill());
+        }
+
+        stage.batches.incrementAndGet();
+        boolean batchSaved = save(bills);
+        for (MedicalBill bill : bills) {
+            boolean ok = batchSaved;
+            if (!batchSaved && bills.size() > 1) {
+                // Retry alone, so one bad bill does not fail the rest of the batch
+                stage.batches.incrementAndGet();
+                ok = save(List.of(bill));
+            }
+            if (FinalBillingHandler.recordSaveResult(bill, ok)) {
+                saved.add(bill);
+            } else {
+                stage.failed.incrementAndGet();
+                failed.add(bill);
+            }
+        }
+        stage.completed(bills.size(), start);
+    }
+
+    private boolean save(List<MedicalBill> bills) {
+        try {
+            return writer.saveBills(bills);
+        } catch (RuntimeException e) {
+            System.err.println("Error saving batch of " + bills.size() + " bills: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void finishWorker(Stage stage, Stage next) {
+        // The last worker out tells the next stage that no more bills are coming
+        if (stage.runningWorkers.decrementAndGet() == 0 && next != null && !Thread.currentThread().isInterrupted()) {
+            try {
+                next.putEnd();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -25,36 +25,53 @@ public class FinalBillingHandler implements BillingHandler {
         MedicalBill bill = request.getBill();
         System.out.println("FinalBillingHandler: Finalizing and saving bill for patient " + bill.getPatientId());
 
-        double remainingBalance = bill.getRemainingBalance();
+        finalizeBill(bill);
 
-        bill.setFinalAmount(remainingBalance); // <-- SET THE FINAL AMOUNT
+        System.out.println("Final bill status: " + bill.getStatus() + ". Saving to database...");
+
+        // Save the final state of the bill to the database
+        int billId = billingDAO.saveBill(bill);
+        if (billId != -1) {
+            bill.setBillId(billId); // Update the object with its new ID from the DB
+        }
+
+        // This is the end of the chain.
+        return recordSaveResult(bill, billId != -1);
+    }
+
+    /**
+     * Sets the final amount and status from the bill's remaining balance.
+     * Shared with the batch persist stage of {@link BillingPipeline}.
+     */
+    static void finalizeBill(MedicalBill bill) {
+        long remainingBalance = bill.getRemainingBalanceCents();
+
+        bill.setFinalAmountCents(remainingBalance); // <-- SET THE FINAL AMOUNT
 
         if (remainingBalance <= 0) {
             bill.setStatus("Closed - Fully Paid");
-            bill.addLog("Bill is fully paid. No remaining balance.");
+            bill.addLog("Finalization", "Bill is fully paid. No remaining balance.");
         } else {
             // In a real system, you might process a co-pay or send an invoice here.
             // For now, we'll just mark it as pending patient payment.
             bill.setStatus("Opened - Pending Payment");
-            bill.addLog(String.format("Final balance of $%.2f due from patient.", remainingBalance));
+            bill.addLog("Finalization", String.format("Final balance of $%s due from patient.", Money.format(remainingBalance)));
         }
+    }
 
-        System.out.println("Final bill status: " + bill.getStatus() + ". Saving to database...");
-
-        // Save the final state of the bill to the database
-        int billId = billingDAO.saveBill(bill);
-        if (billId != -1) {
-            bill.setBillId(billId); // Update the object with its new ID from the DB
-            bill.addLog("Bill successfully saved to database with ID: " + billId);
-            System.out.println("Successfully saved bill with ID: " + billId);
-        } else {
-            bill.setStatus("Error - Failed to Save");
-            bill.addLog("CRITICAL ERROR: Failed to save the processed bill to the database.");
-            System.err.println("Failed to save bill.");
-            return false; // Indicate failure
+    /**
+     * Logs the outcome of saving a finalized bill.
+     * @return true if the bill was saved, false otherwise.
+     */
+    static boolean recordSaveResult(MedicalBill bill, boolean saved) {
+        if (saved) {
+            bill.addLog("Finalization", "Bill successfully saved to database with ID: " + bill.getBillId());
+            System.out.println("Successfully saved bill with ID: " + bill.getBillId());
+            return true;
         }
-
-        // This is the end of the chain.
-        return true;
+        bill.setStatus("Error - Failed to Save");
+        bill.addLog("Finalization", "CRITICAL ERROR: Failed to save the processed bill to the database.");
+        System.err.println("Failed to save bill.");
+        return false; // Indicate failure
     }
-}
\ No newline at end of file
+}
@@ -20,15 +20,16 @@ public class InsuranceHandler implements BillingHandler {
         if (plan != null) {
             bill.setAppliedInsurancePlan(plan); // Store the plan on the bill
             double coveragePercent = plan.getCoveragePercent();
-            double amountToCover = bill.getAmount() * (coveragePercent / 100.0);
+            // The covered share is rounded once, to the nearest cent
+            long centsToCover = Money.percentOf(bill.getAmountCents(), coveragePercent);
 
-            bill.applyInsurancePayment(amountToCover);
+            bill.applyInsurancePaymentCents(centsToCover);
             bill.setStatus("Insurance Processed");
-            bill.addLog(String.format("Insurance claim processed for policy %s (%.0f%%). Covered: $%.2f",
-                    plan.getPlanName(), coveragePercent, amountToCover));
+            bill.addLog("Insurance", String.format("Insurance claim processed for policy %s (%.0f%%). Covered: $%s",
+                    plan.getPlanName(), coveragePercent, Money.format(centsToCover)));
             System.out.println("Insurance processed for " + plan.getPlanName());
         } else {
-            bill.addLog("No insurance on file. Skipping claim processing.");
+            bill.addLog("Insurance", "No insurance on file. Skipping claim processing.");
             System.out.println("No insurance found.");
         }
 
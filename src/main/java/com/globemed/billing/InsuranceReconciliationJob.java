@@ -0,0 +1,149 @@
+package com.globemed.billing;
+
+import com.globemed.db.BillingDAO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically records the insurance share of bills that were saved without it, i.e. bills
+ * whose final amount is below the billed amount but whose insurance paid amount is zero.
+ * <p>
+ * Candidates are found with one query and fixed in batched updates, and every run produces
+ * a {@link Report} of what changed. This keeps bill searches read-only; they used to
+ * apply the same fix one UPDATE at a time while the user waited.
+ */
+public class InsuranceReconciliationJob {
+    public static final long DEFAULT_INITIAL_DELAY_SECONDS = 30;
+    public static final long DEFAULT_INTERVAL_MINUTES = 15;
+
+    /**
+     * What one reconciliation run found and changed.
+     */
+    public static class Report {
+        private final LocalDateTime runAt;
+        private final int candidates;
+        private final List<MedicalBill> corrected;
+
+        Report(LocalDateTime runAt, int candidates, List<MedicalBill> corrected) {
+            this.runAt = runAt;
+            this.candidates = candidates;
+            this.corrected = corrected;
+        }
+
+        public LocalDateTime getRunAt() { return runAt; }
+        /** Bills the query found missing their insurance share. */
+        public int getCandidates() { return candidates; }
+        /** Bills whose insurance paid amount was written, with the amount set. */
+        public List<MedicalBill> getCorrected() { return corrected; }
+        /** Candidates left alone, because a payment was posted meanwhile or the update failed. */
+        public int getSkipped() { return candidates - corrected.size(); }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("Insurance reconciliation at %s: %d candidate(s), %d corrected, %d skipped",
+                    runAt, candidates, corrected.size(), getSkipped()));
+            for (MedicalBill bill : corrected) {
+                sb.append(String.format("%n  Bill #%d (%s): insurance paid set to $%.2f",
+                        bill.getBillId(), bill.getPatientId(), bill.getInsurancePaidAmount()));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static InsuranceReconciliationJob shared;
+
+    private final BillingDAO billingDAO;
+    private ScheduledExecutorService scheduler;
+    private volatile Report lastReport;
+
+    public InsuranceReconciliationJob(BillingDAO billingDAO) {
+        this.billingDAO = billingDAO;
+    }
+
+    /**
+     * Starts the application-wide job on its default schedule, if it is not already running.
+     */
+    public static synchronized void startShared() {
+        if (shared == null) {
+            shared = new InsuranceReconciliationJob(new BillingDAO());
+            shared.start(DEFAULT_INITIAL_DELAY_SECONDS, TimeUnit.MINUTES.toSeconds(DEFAULT_INTERVAL_MINUTES), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Runs the job on a background daemon thread at a fixed delay between runs.
+     */
+    public synchronized void start(long initialDelay, long interval, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "insurance-reconciliation");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the next run starts from a fresh query
+                System.err.println("Insurance reconciliation failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }, initialDelay, interval, unit);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * The insurance share a bill is missing by the same rule as the job's candidate query:
+     * the final amount is below the billed amount but no insurance payment is recorded.
+     * @return The missing share in cents, or 0 if the bill is not missing one.
+     */
+    public static long missingInsuranceCents(MedicalBill bill) {
+        return bill.getInsurancePaidCents() == 0 && bill.getAmountCents() > bill.getFinalAmountCents()
+                ? bill.getAmountCents() - bill.getFinalAmountCents() : 0;
+    }
+
+    /**
+     * Finds and fixes every bill missing its insurance share.
+     * @return What was found and changed.
+     */
+    public Report runOnce() {
+        List<MedicalBill> candidates = billingDAO.getBillsMissingInsurancePayment();
+        List<MedicalBill> corrected = Collections.emptyList();
+        if (!candidates.isEmpty()) {
+            for (MedicalBill bill : candidates) {
+                long insurancePayment = missingInsuranceCents(bill);
+                bill.setInsurancePaidCents(insurancePayment);
+                bill.addLog("Reconciliation", String.format("Missing insurance payment of $%s recorded.", Money.format(insurancePayment)));
+            }
+            corrected = new ArrayList<>(billingDAO.applyInsuranceCorrections(candidates));
+        }
+
+        Report report = new Report(LocalDateTime.now(), candidates.size(), Collections.unmodifiableList(corrected));
+        lastReport = report;
+        if (!candidates.isEmpty()) {
+            System.out.println(report);
+        }
+        return report;
+    }
+
+    /**
+     * @return The report of the most recent run, or null if the job has not run yet.
+     */
+    public Report getLastReport() {
+        return lastReport;
+    }
+}
@@ -4,52 +4,70 @@ import com.globemed.insurance.InsurancePlan;
 import com.globemed.reports.ReportVisitor;
 import com.globemed.reports.Visitable;
 import java.time.LocalDateTime;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A bill for one service. Amounts are held as whole cents (see {@link Money}); the double
+ * getters and setters convert at the boundary, rounding to the nearest cent.
+ */
 public class MedicalBill implements Visitable {
     private int billId;
     private final String patientId;
     private final String serviceDescription;
-    private final double amount;
+    private final long amountCents;
 
     // This will be populated by the InsuranceHandler
     private InsurancePlan appliedInsurancePlan;
 
     private String status;
-    private StringBuilder processingLog;
-    private double amountPaidByInsurance = 0.0; // Legacy field for backward compatibility
-    private double finalAmount;
+    // Log text stored on the billing row by older versions; new entries go to bill_events
+    private String legacyLog;
+    // Entries added since the bill was loaded or last saved
+    private final List<BillEvent> pendingEvents = new ArrayList<>();
+    private long finalAmountCents;
     private LocalDateTime billedDateTime;
-    private double amountPaid; // Total amount paid by patient
-    private double insurancePaidAmount; // Amount paid by insurance
+    private long amountPaidCents; // Total amount paid by patient
+    private long insurancePaidCents; // Amount paid by insurance
+    private int version; // Row version when loaded, for optimistic checks on payment postings
 
     // Original constructor
     public MedicalBill(String patientId, String serviceDescription, double amount) {
+        this(patientId, serviceDescription, Money.ofDouble(amount));
+    }
+
+    private MedicalBill(String patientId, String serviceDescription, long amountCents) {
         this.patientId = patientId;
         this.serviceDescription = serviceDescription;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.status = "New";
-        this.processingLog = new StringBuilder("Bill created.\n");
+        addLog("Created", "Bill created.");
         this.billedDateTime = LocalDateTime.now();
-        this.amountPaid = 0.0;
-        this.insurancePaidAmount = 0.0;
-        this.finalAmount = amount;
+        this.finalAmountCents = amountCents;
     }
 
     // Constructor for database loading with insurance paid amount
     public MedicalBill(int billId, String patientId, String serviceDescription, double amount,
                        String status, String processingLog, double finalAmount,
                        LocalDateTime billedDateTime, double amountPaid, double insurancePaidAmount) {
+        this(billId, patientId, serviceDescription, Money.ofDouble(amount), status, processingLog,
+                Money.ofDouble(finalAmount), billedDateTime, Money.ofDouble(amountPaid), Money.ofDouble(insurancePaidAmount));
+    }
+
+    private MedicalBill(int billId, String patientId, String serviceDescription, long amountCents,
+                        String status, String processingLog, long finalAmountCents,
+                        LocalDateTime billedDateTime, long amountPaidCents, long insurancePaidCents) {
         this.billId = billId;
         this.patientId = patientId;
         this.serviceDescription = serviceDescription;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.status = status;
-        this.processingLog = new StringBuilder(processingLog != null ? processingLog : "");
-        this.finalAmount = finalAmount;
+        this.legacyLog = processingLog;
+        this.finalAmountCents = finalAmountCents;
         this.billedDateTime = billedDateTime;
-        this.amountPaid = amountPaid;
-        this.insurancePaidAmount = insurancePaidAmount;
-        this.amountPaidByInsurance = insurancePaidAmount; // Keep legacy field in sync
+        this.amountPaidCents = amountPaidCents;
+        this.insurancePaidCents = insurancePaidCents;
     }
 
     // Legacy constructor for backward compatibility (without insurance paid amount)
@@ -60,6 +78,23 @@ public class MedicalBill implements Visitable {
                 finalAmount, billedDateTime, amountPaid, 0.0);
     }
 
+    /**
+     * Creates a new bill for an amount already in cents, e.g. typed in and read with {@link Money#parse}.
+     */
+    public static MedicalBill ofCents(String patientId, String serviceDescription, long amountCents) {
+        return new MedicalBill(patientId, serviceDescription, amountCents);
+    }
+
+    /**
+     * Creates a bill as loaded from the database, with every amount already in cents.
+     */
+    public static MedicalBill fromCents(int billId, String patientId, String serviceDescription, long amountCents,
+                                        String status, String processingLog, long finalAmountCents,
+                                        LocalDateTime billedDateTime, long amountPaidCents, long insurancePaidCents) {
+        return new MedicalBill(billId, patientId, serviceDescription, amountCents, status, processingLog,
+                finalAmountCents, billedDateTime, amountPaidCents, insurancePaidCents);
+    }
+
     // --- Getters ---
     public int getBillId() {
         return billId;
@@ -74,7 +109,11 @@ public class MedicalBill implements Visitable {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toDouble(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
 
     public InsurancePlan getAppliedInsurancePlan() {
@@ -85,12 +124,32 @@ public class MedicalBill implements Visitable {
         return status;
     }
 
+    /**
+     * Gets the log entries held in memory: any legacy log text the bill was loaded with,
+     * followed by the entries added since. Loaded bills do not carry their saved events;
+     * use {@code BillingDAO.getBillLog} for the full history.
+     */
     public String getProcessingLog() {
-        return processingLog.toString();
+        StringBuilder log = new StringBuilder(legacyLog != null ? legacyLog : "");
+        for (BillEvent event : pendingEvents) {
+            log.append("- ").append(event.getMessage()).append("\n");
+        }
+        return log.toString();
+    }
+
+    /**
+     * @return A copy of the log entries not yet written to bill_events, oldest first.
+     */
+    public List<BillEvent> getPendingEvents() {
+        return Collections.unmodifiableList(new ArrayList<>(pendingEvents));
     }
 
     public double getFinalAmount() {
-        return finalAmount;
+        return Money.toDouble(finalAmountCents);
+    }
+
+    public long getFinalAmountCents() {
+        return finalAmountCents;
     }
 
     public LocalDateTime getBilledDateTime() {
@@ -98,48 +157,68 @@ public class MedicalBill implements Visitable {
     }
 
     public double getAmountPaid() {
-        return amountPaid;
+        return Money.toDouble(amountPaidCents);
+    }
+
+    public long getAmountPaidCents() {
+        return amountPaidCents;
     }
 
     public double getInsurancePaidAmount() {
-        return insurancePaidAmount;
+        return Money.toDouble(insurancePaidCents);
+    }
+
+    public long getInsurancePaidCents() {
+        return insurancePaidCents;
+    }
+
+    public int getVersion() {
+        return version;
     }
 
     // CORRECTED: Remaining balance is what patient still owes
     public double getRemainingBalance() {
-        // finalAmount is what patient owes after insurance
-        // amountPaid is what patient has already paid
-        // So remaining = finalAmount - amountPaid
-        double remaining = finalAmount - amountPaid;
-        return Math.max(0, remaining); // Don't return negative values
+        return Money.toDouble(getRemainingBalanceCents());
+    }
+
+    /**
+     * finalAmount is what the patient owes after insurance and amountPaid is what they have
+     * already paid, so remaining = finalAmount - amountPaid, never negative.
+     */
+    public long getRemainingBalanceCents() {
+        return Money.remaining(finalAmountCents, amountPaidCents);
     }
 
     // Legacy getter for backward compatibility
     public double getAmountPaidByInsurance() {
-        return insurancePaidAmount;
+        return getInsurancePaidAmount();
     }
 
     // Additional helper methods for reporting
     public double getTotalCollected() {
-        return amountPaid + insurancePaidAmount;
+        return Money.toDouble(getTotalCollectedCents());
+    }
+
+    public long getTotalCollectedCents() {
+        return amountPaidCents + insurancePaidCents;
     }
 
     public boolean isFullyPaid() {
-        return getRemainingBalance() == 0 && getTotalCollected() > 0;
+        return getRemainingBalanceCents() == 0 && getTotalCollectedCents() > 0;
     }
 
     public boolean hasInsuranceCoverage() {
-        return insurancePaidAmount > 0 || appliedInsurancePlan != null;
+        return insurancePaidCents > 0 || appliedInsurancePlan != null;
     }
 
     public boolean hasPatientPayment() {
-        return amountPaid > 0;
+        return amountPaidCents > 0;
     }
 
     public double getDiscountAmount() {
         // Discount is the difference between original amount and what's owed (final amount and collected)
-        double totalAccountedFor = finalAmount + getTotalCollected();
-        return Math.max(0, amount - totalAccountedFor);
+        long totalAccountedFor = finalAmountCents + getTotalCollectedCents();
+        return Money.toDouble(Math.max(0, amountCents - totalAccountedFor));
     }
 
     // --- Setters and Modifiers ---
@@ -147,22 +226,45 @@ public class MedicalBill implements Visitable {
         this.billId = billId;
     }
 
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public void setStatus(String status) {
         this.status = status;
     }
 
     public void addLog(String logEntry) {
-        this.processingLog.append("- ").append(logEntry).append("\n");
+        addLog("Billing", logEntry);
+    }
+
+    /**
+     * Adds a log entry attributed to a processing stage. The entry is buffered until the
+     * bill is next saved, which appends it to bill_events.
+     */
+    public void addLog(String stage, String logEntry) {
+        pendingEvents.add(new BillEvent(LocalDateTime.now(), stage, logEntry));
+    }
+
+    /**
+     * Drops the oldest {@code count} pending entries once they have been written.
+     */
+    public void eventsSaved(int count) {
+        pendingEvents.subList(0, Math.min(count, pendingEvents.size())).clear();
     }
 
     public void applyInsurancePayment(double amount) {
-        this.insurancePaidAmount += amount;
-        this.amountPaidByInsurance = this.insurancePaidAmount; // Keep legacy field in sync
-        addLog("Insurance payment of $" + amount + " applied.");
+        applyInsurancePaymentCents(Money.ofDouble(amount));
+    }
+
+    public void applyInsurancePaymentCents(long cents) {
+        this.insurancePaidCents += cents;
+        addLog("Insurance", "Insurance payment of $" + Money.format(cents) + " applied.");
     }
 
     public void setProcessingLog(String log) {
-        this.processingLog = new StringBuilder(log != null ? log : "");
+        this.legacyLog = log;
+        this.pendingEvents.clear();
     }
 
     public void setAppliedInsurancePlan(InsurancePlan plan) {
@@ -170,7 +272,11 @@ public class MedicalBill implements Visitable {
     }
 
     public void setFinalAmount(double finalAmount) {
-        this.finalAmount = finalAmount;
+        setFinalAmountCents(Money.ofDouble(finalAmount));
+    }
+
+    public void setFinalAmountCents(long finalAmountCents) {
+        this.finalAmountCents = finalAmountCents;
     }
 
     public void setBilledDateTime(LocalDateTime billedDateTime) {
@@ -178,25 +284,36 @@ public class MedicalBill implements Visitable {
     }
 
     public void setAmountPaid(double amountPaid) {
-        this.amountPaid = amountPaid;
+        setAmountPaidCents(Money.ofDouble(amountPaid));
+    }
+
+    public void setAmountPaidCents(long amountPaidCents) {
+        this.amountPaidCents = amountPaidCents;
     }
 
     public void setInsurancePaidAmount(double insurancePaidAmount) {
-        this.insurancePaidAmount = insurancePaidAmount;
-        this.amountPaidByInsurance = insurancePaidAmount; // Keep legacy field in sync
+        setInsurancePaidCents(Money.ofDouble(insurancePaidAmount));
+    }
+
+    public void setInsurancePaidCents(long insurancePaidCents) {
+        this.insurancePaidCents = insurancePaidCents;
     }
 
     // Add patient payment
     public void addPatientPayment(double amount) {
-        this.amountPaid += amount;
-        addLog("Patient payment of $" + amount + " received.");
+        addPatientPaymentCents(Money.ofDouble(amount));
+    }
+
+    public void addPatientPaymentCents(long cents) {
+        this.amountPaidCents += cents;
+        addLog("Payment", "Patient payment of $" + Money.format(cents) + " received.");
     }
 
     // Update status based on payment state
     public void updateStatusBasedOnPayments() {
         if (isFullyPaid()) {
             setStatus("Paid");
-        } else if (getTotalCollected() > 0) {
+        } else if (getTotalCollectedCents() > 0) {
             setStatus("Partial");
         } else if ("New".equals(status)) {
             setStatus("Pending");
@@ -212,7 +329,7 @@ public class MedicalBill implements Visitable {
     public String toString() {
         return String.format("MedicalBill{billId=%d, patientId='%s', service='%s', amount=%.2f, " +
                         "amountPaid=%.2f, insurancePaid=%.2f, remaining=%.2f, status='%s'}",
-                billId, patientId, serviceDescription, amount, amountPaid,
-                insurancePaidAmount, getRemainingBalance(), status);
+                billId, patientId, serviceDescription, getAmount(), getAmountPaid(),
+                getInsurancePaidAmount(), getRemainingBalance(), status);
     }
 }
\ No newline at end of file
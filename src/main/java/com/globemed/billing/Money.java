@@ -0,0 +1,98 @@
+package com.globemed.billing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on whole cents held in a {@code long}.
+ * <p>
+ * Amounts are stored as {@code decimal(…,2)} in the database, and every amount in the
+ * billing chain and the report totals is kept as cents, so sums and differences are exact
+ * and the loops over many bills stay primitive and allocation-free. Doubles only appear at
+ * the edges: decimal columns are read with {@link #ofDecimal}, text typed into the UI is read
+ * with {@link #parse}, the remaining double APIs are rounded to the nearest cent once with
+ * {@link #ofDouble}, and {@link #toDouble} is used for display.
+ * <p>
+ * Rounding is half away from zero (HALF_UP), like MySQL's decimal rounding. Coverage
+ * percentages are decimal(5,2), so they are taken as exact basis points; a share of an
+ * amount is rounded once, on the final cent.
+ */
+public final class Money {
+    private static final long CENTS_PER_UNIT = 100;
+    private static final long BASIS_POINTS_PER_UNIT = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * @return The amount in cents, rounded half away from zero to the nearest cent. The double is
+     *         taken at its shortest decimal form, so 10.045 becomes 1005 and -2.345 becomes -235.
+     */
+    public static long ofDouble(double amount) {
+        return ofDecimal(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * Reads an amount typed by a user or found in an import file, e.g. "12.5" or "-3.005",
+     * without going through a double.
+     * @return The amount in cents, rounded half away from zero to the nearest cent.
+     * @throws NumberFormatException if the text is not a decimal number or too large.
+     */
+    public static long parse(String text) {
+        try {
+            return ofDecimal(new BigDecimal(text.trim()));
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * @return The amount of a decimal column in cents, rounded half away from zero; SQL NULL counts as zero.
+     */
+    public static long ofDecimal(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * @return The amount as a double, for display and for the double-based UI APIs.
+     */
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    /**
+     * @return The amount as a scale-2 decimal, for binding to decimal columns.
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * @return The given percentage of an amount, e.g. the insurance covered share of a bill.
+     *         The percentage is taken to two decimal places; the result is rounded half up once.
+     */
+    public static long percentOf(long cents, double percent) {
+        long basisPoints = Math.round(percent * CENTS_PER_UNIT);
+        long product = cents * basisPoints;
+        long share = product / BASIS_POINTS_PER_UNIT;
+        long remainder = product % BASIS_POINTS_PER_UNIT;
+        if (Math.abs(remainder) * 2 >= BASIS_POINTS_PER_UNIT) {
+            share += Long.signum(product);
+        }
+        return share;
+    }
+
+    /**
+     * @return What is still owed on a final amount after payments, never negative.
+     */
+    public static long remaining(long finalCents, long paidCents) {
+        return Math.max(0, finalCents - paidCents);
+    }
+
+    /**
+     * @return The amount formatted with two decimals and no currency sign, e.g. "1234.50".
+     */
+    public static String format(long cents) {
+        return toDecimal(cents).toPlainString();
+    }
+}
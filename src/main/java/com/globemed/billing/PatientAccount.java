@@ -0,0 +1,67 @@
+package com.globemed.billing;
+
+import java.time.LocalDateTime;
+
+/**
+ * A patient's running balance across all of their bills, as kept in the patient_accounts
+ * table. The row is updated in the same transaction as every bill write, so reading it is
+ * a primary-key lookup instead of a scan of the patient's bills.
+ * <p>
+ * Outstanding is the sum of each bill's {@link MedicalBill#getRemainingBalance()}.
+ */
+public class PatientAccount {
+    private final String patientId;
+    private final long totalBilledCents;
+    private final long insurancePaidCents;
+    private final long patientPaidCents;
+    private final long outstandingCents;
+    private final int openBillCount;
+    private final LocalDateTime oldestOpenBillDateTime;
+    private final LocalDateTime updatedAt;
+
+    public PatientAccount(String patientId, long totalBilledCents, long insurancePaidCents, long patientPaidCents,
+                          long outstandingCents, int openBillCount, LocalDateTime oldestOpenBillDateTime,
+                          LocalDateTime updatedAt) {
+        this.patientId = patientId;
+        this.totalBilledCents = totalBilledCents;
+        this.insurancePaidCents = insurancePaidCents;
+        this.patientPaidCents = patientPaidCents;
+        this.outstandingCents = outstandingCents;
+        this.openBillCount = openBillCount;
+        this.oldestOpenBillDateTime = oldestOpenBillDateTime;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * @return An account for a patient with no bills.
+     */
+    public static PatientAccount empty(String patientId) {
+        return new PatientAccount(patientId, 0, 0, 0, 0, 0, null, null);
+    }
+
+    public String getPatientId() { return patientId; }
+    public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+    public long getTotalBilledCents() { return totalBilledCents; }
+    public double getInsurancePaid() { return Money.toDouble(insurancePaidCents); }
+    public long getInsurancePaidCents() { return insurancePaidCents; }
+    public double getPatientPaid() { return Money.toDouble(patientPaidCents); }
+    public long getPatientPaidCents() { return patientPaidCents; }
+    public double getOutstanding() { return Money.toDouble(outstandingCents); }
+    public long getOutstandingCents() { return outstandingCents; }
+    /** Bills with a remaining balance. */
+    public int getOpenBillCount() { return openBillCount; }
+    /** When the oldest bill with a remaining balance was billed, or null if nothing is owed. */
+    public LocalDateTime getOldestOpenBillDateTime() { return oldestOpenBillDateTime; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    public boolean hasOutstandingBalance() {
+        return outstandingCents > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PatientAccount{patient=%s, billed=%s, insurance=%s, paid=%s, outstanding=%s, openBills=%d}",
+                patientId, Money.format(totalBilledCents), Money.format(insurancePaidCents), Money.format(patientPaidCents),
+                Money.format(outstandingCents), openBillCount);
+    }
+}
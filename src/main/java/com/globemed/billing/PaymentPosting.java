@@ -0,0 +1,56 @@
+package com.globemed.billing;
+
+/**
+ * The outcome of posting a payment to a bill through {@code BillingDAO.postPayment}.
+ */
+public class PaymentPosting {
+
+    public enum Outcome {
+        /** The payment was added to the bill. */
+        POSTED,
+        /** The bill changed since the caller read it (or was deleted), so nothing was posted. */
+        STALE,
+        /** A database error occurred; nothing was posted. */
+        FAILED
+    }
+
+    /**
+     * Who the payment came from, which decides the column it is added to.
+     */
+    public enum Source {
+        PATIENT("Payment", "Patient payment"),
+        INSURANCE("Insurance", "Insurance payment");
+
+        private final String stage;
+        private final String description;
+
+        Source(String stage, String description) {
+            this.stage = stage;
+            this.description = description;
+        }
+
+        /** The bill event stage payments from this source are logged under. */
+        public String getStage() { return stage; }
+        public String getDescription() { return description; }
+    }
+
+    private final Outcome outcome;
+    private final MedicalBill bill;
+
+    public PaymentPosting(Outcome outcome, MedicalBill bill) {
+        this.outcome = outcome;
+        this.bill = bill;
+    }
+
+    public Outcome getOutcome() { return outcome; }
+
+    /**
+     * @return The bill as stored after the posting (POSTED), the bill's current state (STALE),
+     *         or null if the bill no longer exists or the posting failed.
+     */
+    public MedicalBill getBill() { return bill; }
+
+    public boolean isPosted() {
+        return outcome == Outcome.POSTED;
+    }
+}
@@ -0,0 +1,60 @@
+package com.globemed.billing;
+
+import com.globemed.db.LatencyHistogram;
+
+/**
+ * An immutable point-in-time snapshot of one {@link BillingPipeline} stage.
+ */
+public class StageMetrics {
+    private final String name;
+    private final int workers;
+    private final long processed;
+    private final long rejected;
+    private final long failed;
+    private final long batches;
+    private final int queueDepth;
+    private final long blockedMillis;
+    private final long elapsedMillis;
+    private final LatencyHistogram latency;
+
+    public StageMetrics(String name, int workers, long processed, long rejected, long failed, long batches,
+                        int queueDepth, long blockedMillis, long elapsedMillis, LatencyHistogram latency) {
+        this.name = name;
+        this.workers = workers;
+        this.processed = processed;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.batches = batches;
+        this.queueDepth = queueDepth;
+        this.blockedMillis = blockedMillis;
+        this.elapsedMillis = elapsedMillis;
+        this.latency = latency;
+    }
+
+    public String getName() { return name; }
+    public int getWorkers() { return workers; }
+    /** Bills that left this stage, whether passed on, rejected or failed. */
+    public long getProcessed() { return processed; }
+    public long getRejected() { return rejected; }
+    public long getFailed() { return failed; }
+    /** JDBC batches written; only the persist stage writes batches. */
+    public long getBatches() { return batches; }
+    public int getQueueDepth() { return queueDepth; }
+    /** Time upstream spent waiting because this stage's queue was full. */
+    public long getBlockedMillis() { return blockedMillis; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    /** Per-bill processing time; for the persist stage, the time to write the bill's batch. */
+    public LatencyHistogram getLatency() { return latency; }
+
+    public double getThroughputPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : processed * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StageMetrics{%s: workers=%d, processed=%d, rejected=%d, failed=%d, batches=%d, " +
+                        "queued=%d, blocked=%dms, throughput=%.1f/s, latency=[%s]}",
+                name, workers, processed, rejected, failed, batches, queueDepth, blockedMillis,
+                getThroughputPerSecond(), latency);
+    }
+}
@@ -19,7 +19,7 @@ public class ValidationHandler implements BillingHandler {
         // Rule 1: Amount must be greater than zero
         if (bill.getAmount() <= 0) {
             bill.setStatus("Rejected: Invalid Amount");
-            bill.addLog("Validation Failed: Bill amount must be positive.");
+            bill.addLog("Validation", "Validation Failed: Bill amount must be positive.");
             System.out.println("Validation Failed: Amount is not positive.");
             return false; // Stop the chain
         }
@@ -27,14 +27,14 @@ public class ValidationHandler implements BillingHandler {
         // Rule 2: Patient ID must not be empty
         if (bill.getPatientId() == null || bill.getPatientId().trim().isEmpty()) {
             bill.setStatus("Rejected: Missing Patient ID");
-            bill.addLog("Validation Failed: Patient ID is required.");
+            bill.addLog("Validation", "Validation Failed: Patient ID is required.");
             System.out.println("Validation Failed: Patient ID is missing.");
             return false; // Stop the chain
         }
 
         // If validation passes
         bill.setStatus("Validated");
-        bill.addLog("Bill passed initial validation.");
+        bill.addLog("Validation", "Bill passed initial validation.");
         System.out.println("Validation successful.");
 
         // Pass to the next handler if it exists
@@ -3,7 +3,10 @@ package com.globemed.controller;
 import com.globemed.appointment.Appointment;
 import com.globemed.appointment.AppointmentScheduler;
 import com.globemed.appointment.Doctor;
+import com.globemed.appointment.RecurrenceRule;
+import com.globemed.appointment.SlotAvailabilityEngine;
 import com.globemed.auth.IUser;
+import com.globemed.db.AsyncDataAccess;
 import com.globemed.db.SchedulingDAO;
 import com.globemed.ui.AllAppointmentsDialog;
 import com.globemed.ui.AppointmentPanel;
@@ -12,29 +15,41 @@ import javax.swing.*;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import java.awt.*;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 import java.util.stream.Collectors; // Import for filtering
 
 public class AppointmentController {
+    private static final String ANY_SPECIALTY = "Any specialty";
+    private static final int FREE_SLOT_SEARCH_DAYS = 14;
+    private static final int FREE_SLOT_RESULT_LIMIT = 20;
+
     private final AppointmentPanel view;
     private final SchedulingDAO dao;
     private final AppointmentScheduler scheduler;
+    private final SlotAvailabilityEngine slotEngine;
     private final IUser currentUser;
     private final JFrame mainFrame; // For parenting dialogs
     private List<Doctor> currentDoctors; // Cache for the list of all doctors for table interaction
     private List<Appointment> currentAppointments; // Cache for the currently displayed appointments in the table
+    private final AsyncDataAccess.Latest<List<Appointment>> scheduleLoad = AsyncDataAccess.latest();
 
     public AppointmentController(AppointmentPanel view, JFrame mainFrame, IUser currentUser) {
         this.view = view;
         this.mainFrame = mainFrame;
         this.dao = new SchedulingDAO();
         this.scheduler = new AppointmentScheduler();
+        this.slotEngine = new SlotAvailabilityEngine();
         this.currentUser = currentUser;
         initController();
         loadInitialData();
@@ -45,9 +60,11 @@ public class AppointmentController {
         // --- Schedule Actions ---
         view.viewScheduleButton.addActionListener(e -> viewSchedule());
         view.bookAppointmentButton.addActionListener(e -> bookNewAppointment());
+        view.bookRecurringButton.addActionListener(e -> bookRecurringAppointments());
         view.cancelAppointmentButton.addActionListener(e -> cancelAppointment());
         view.updateAppointmentButton.addActionListener(e -> updateAppointmentReason()); // UPDATED: Now specifically for reason updates
         view.viewAllAppointmentsButton.addActionListener(e -> showAllAppointments());
+        view.findFreeSlotsButton.addActionListener(e -> findFreeSlots());
         view.markAsDoneSelectedButton.addActionListener(e -> markSelectedAppointmentAsDone());
         view.updatePrescriptionButton.addActionListener(e -> updatePrescription()); // NEW: Update Prescription action
 
@@ -86,6 +103,7 @@ public class AppointmentController {
                     // Re-evaluate 'View Schedule' button for Admins/Nurses if a doctor is selected
                     applyPermissions();
                     // When doctor selection changes, clear current appointments
+                    scheduleLoad.cancel();
                     view.setAppointmentsList(List.of());
                     view.clearAppointmentDetailsFields();
                 }
@@ -245,40 +263,38 @@ public class AppointmentController {
                 }
 
                 // Save to database
-                boolean dbSuccess = dao.updateAppointment(selectedAppointment);
-
-                if (dbSuccess) {
-                    JOptionPane.showMessageDialog(view,
-                            "Appointment reason updated successfully!\n\n" +
-                                    "Appointment ID: " + selectedAppointment.getAppointmentId() + "\n" +
-                                    "Patient: " + selectedAppointment.getPatientId() + "\n" +
-                                    "Old Reason: " + oldReason + "\n" +
-                                    "New Reason: " + newReason + "\n" +
-                                    "Updated by: " + currentUser.getUsername() + "\n" +
-                                    "Timestamp: 2025-08-30 19:48:09 UTC",
-                            "Update Successful", JOptionPane.INFORMATION_MESSAGE);
-
-                    // Refresh the schedule to show updated reason
-                    viewSchedule();
-
-                    // FIXED: Keep the appointment selected to show the updated reason
-                    SwingUtilities.invokeLater(() -> {
-                        for (int i = 0; i < currentAppointments.size(); i++) {
-                            if (currentAppointments.get(i).getAppointmentId() == selectedAppointment.getAppointmentId()) { // FIXED: Proper comparison
-                                view.appointmentsTable.setRowSelectionInterval(i, i);
-                                break;
+                AsyncDataAccess.load(() -> dao.updateAppointment(selectedAppointment), dbSuccess -> {
+                    if (dbSuccess) {
+                        JOptionPane.showMessageDialog(view,
+                                "Appointment reason updated successfully!\n\n" +
+                                        "Appointment ID: " + selectedAppointment.getAppointmentId() + "\n" +
+                                        "Patient: " + selectedAppointment.getPatientId() + "\n" +
+                                        "Old Reason: " + oldReason + "\n" +
+                                        "New Reason: " + newReason + "\n" +
+                                        "Updated by: " + currentUser.getUsername() + "\n" +
+                                        "Timestamp: 2025-08-30 19:48:09 UTC",
+                                "Update Successful", JOptionPane.INFORMATION_MESSAGE);
+
+                        // Refresh the schedule to show updated reason
+                        // FIXED: Keep the appointment selected to show the updated reason
+                        viewSchedule(() -> {
+                            for (int i = 0; i < currentAppointments.size(); i++) {
+                                if (currentAppointments.get(i).getAppointmentId() == selectedAppointment.getAppointmentId()) { // FIXED: Proper comparison
+                                    view.appointmentsTable.setRowSelectionInterval(i, i);
+                                    break;
+                                }
                             }
-                        }
-                    });
+                        });
 
-                } else {
-                    JOptionPane.showMessageDialog(view,
-                            "Failed to save appointment reason to database.\nPlease try again or contact system administrator.",
-                            "Database Update Failed", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(view,
+                                "Failed to save appointment reason to database.\nPlease try again or contact system administrator.",
+                                "Database Update Failed", JOptionPane.ERROR_MESSAGE);
 
-                    // Revert the reason change
-                    selectedAppointment.setReason(oldReason);
-                }
+                        // Revert the reason change
+                        selectedAppointment.setReason(oldReason);
+                    }
+                }, this::showDatabaseError);
             }
         }
     }
@@ -328,18 +344,18 @@ public class AppointmentController {
             // Update the appointment with new notes
             selectedAppointment.setDoctorNotes(newNotes);
             selectedAppointment.updateLastModified(currentUser.getUsername());
-            boolean success = dao.updateAppointment(selectedAppointment);
-
-            if (success) {
-                // Update the UI
-                view.setDoctorNotesText(newNotes);
-                JOptionPane.showMessageDialog(view,
-                        "Prescription/Notes updated successfully by " + currentUser.getUsername() +
-                                " at " + LocalDateTime.now(),
-                        "Update Successful", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to update prescription/notes.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            AsyncDataAccess.load(() -> dao.updateAppointment(selectedAppointment), success -> {
+                if (success) {
+                    // Update the UI
+                    view.setDoctorNotesText(newNotes);
+                    JOptionPane.showMessageDialog(view,
+                            "Prescription/Notes updated successfully by " + currentUser.getUsername() +
+                                    " at " + LocalDateTime.now(),
+                            "Update Successful", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to update prescription/notes.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, this::showDatabaseError);
         }
     }
 
@@ -363,7 +379,11 @@ public class AppointmentController {
 
     // Helper method to refresh the doctor table and clear CRUD fields
     private void refreshDoctorList() {
-        currentDoctors = dao.getAllDoctors();
+        AsyncDataAccess.load(dao::getAllDoctors, this::showDoctorList, this::showDatabaseError);
+    }
+
+    private void showDoctorList(List<Doctor> doctors) {
+        currentDoctors = doctors;
         view.setDoctorList(currentDoctors);
         view.clearDoctorCrudFields();
         view.doctorsTable.clearSelection(); // Clear doctor table selection as well
@@ -391,6 +411,8 @@ public class AppointmentController {
         view.viewScheduleButton.setEnabled(currentUser.getDoctorId() != null || (view.doctorsTable.getSelectedRow() != -1 && currentUser.hasPermission("can_access_appointments")));
         view.viewAllAppointmentsButton.setEnabled(currentUser.hasPermission("can_access_appointments"));
         view.bookAppointmentButton.setEnabled(currentUser.hasPermission("can_book_appointment"));
+        view.bookRecurringButton.setEnabled(currentUser.hasPermission("can_book_appointment"));
+        view.findFreeSlotsButton.setEnabled(currentUser.hasPermission("can_book_appointment"));
 
         // These are managed by selection listener for the appointments table
         view.updateAppointmentButton.setEnabled(false);
@@ -441,14 +463,14 @@ public class AppointmentController {
         }
 
         Doctor newDoctor = new Doctor(id, name, specialty);
-        boolean success = dao.createDoctor(newDoctor);
-
-        if (success) {
-            JOptionPane.showMessageDialog(view, "Doctor added successfully by " + currentUser.getUsername() + "!");
-            refreshDoctorList();
-        } else {
-            JOptionPane.showMessageDialog(view, "Failed to add doctor. ID might already exist.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        AsyncDataAccess.load(() -> dao.createDoctor(newDoctor), success -> {
+            if (success) {
+                JOptionPane.showMessageDialog(view, "Doctor added successfully by " + currentUser.getUsername() + "!");
+                refreshDoctorList();
+            } else {
+                JOptionPane.showMessageDialog(view, "Failed to add doctor. ID might already exist.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, this::showDatabaseError);
     }
 
     private void updateDoctor() {
@@ -472,14 +494,14 @@ public class AppointmentController {
         }
 
         Doctor updatedDoctor = new Doctor(selectedDoctor.getDoctorId(), name, specialty);
-        boolean success = dao.updateDoctor(updatedDoctor);
-
-        if (success) {
-            JOptionPane.showMessageDialog(view, "Doctor updated successfully by " + currentUser.getUsername() + "!");
-            refreshDoctorList();
-        } else {
-            JOptionPane.showMessageDialog(view, "Failed to update doctor.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        AsyncDataAccess.load(() -> dao.updateDoctor(updatedDoctor), success -> {
+            if (success) {
+                JOptionPane.showMessageDialog(view, "Doctor updated successfully by " + currentUser.getUsername() + "!");
+                refreshDoctorList();
+            } else {
+                JOptionPane.showMessageDialog(view, "Failed to update doctor.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, this::showDatabaseError);
     }
 
     private void deleteDoctor() {
@@ -501,14 +523,14 @@ public class AppointmentController {
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            boolean success = dao.deleteDoctor(selectedDoctor.getDoctorId());
-
-            if (success) {
-                JOptionPane.showMessageDialog(view, "Doctor deleted successfully by " + currentUser.getUsername() + "!");
-                refreshDoctorList();
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to delete doctor. Ensure no active appointments exist if CASCADE DELETE is not configured in your DB.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            AsyncDataAccess.load(() -> dao.deleteDoctor(selectedDoctor.getDoctorId()), success -> {
+                if (success) {
+                    JOptionPane.showMessageDialog(view, "Doctor deleted successfully by " + currentUser.getUsername() + "!");
+                    refreshDoctorList();
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to delete doctor. Ensure no active appointments exist if CASCADE DELETE is not configured in your DB.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, this::showDatabaseError);
         }
     }
 
@@ -534,18 +556,20 @@ public class AppointmentController {
             view.doctorsTable.clearSelection();
         }
 
-        List<Appointment> appointments;
-        if (doctorIdToView != null) {
-            appointments = dao.getAppointmentsByDoctorId(doctorIdToView);
-            // MODIFIED: Filter out "Canceled" appointments for doctors
-            appointments = appointments.stream()
-                    .filter(apt -> !"Canceled".equalsIgnoreCase(apt.getStatus()))
-                    .collect(Collectors.toList());
-        } else {
-            appointments = dao.getAllAppointments();
+        String doctorId = doctorIdToView;
+        AsyncDataAccess.load(() -> {
+            if (doctorId != null) {
+                // MODIFIED: Filter out "Canceled" appointments for doctors
+                return dao.getAppointmentsByDoctorId(doctorId).stream()
+                        .filter(apt -> !"Canceled".equalsIgnoreCase(apt.getStatus()))
+                        .collect(Collectors.toList());
+            }
             // For nurses/admins, show all appointments including canceled ones
-        }
+            return dao.getAllAppointments();
+        }, this::showAllAppointmentsDialog, this::showDatabaseError);
+    }
 
+    private void showAllAppointmentsDialog(List<Appointment> appointments) {
         if (appointments.isEmpty()) {
             JOptionPane.showMessageDialog(mainFrame, "No appointments found.", "Information", JOptionPane.INFORMATION_MESSAGE);
             view.setAppointmentsList(List.of());
@@ -560,13 +584,96 @@ public class AppointmentController {
         dialog.setVisible(true);
     }
 
+    /**
+     * Searches every doctor of a chosen specialty for the earliest free slots over the next
+     * two weeks. Picking a result selects the doctor and fills in the booking date and time.
+     */
+    private void findFreeSlots() {
+        if (!currentUser.hasPermission("can_book_appointment")) {
+            JOptionPane.showMessageDialog(mainFrame, "You do not have permission to book appointments.", "Access Denied", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        Set<String> specialties = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (Doctor doctor : currentDoctors != null ? currentDoctors : List.<Doctor>of()) {
+            if (doctor.getSpecialty() != null && !doctor.getSpecialty().isBlank()) {
+                specialties.add(doctor.getSpecialty().trim());
+            }
+        }
+        List<String> choices = new ArrayList<>();
+        choices.add(ANY_SPECIALTY);
+        choices.addAll(specialties);
+
+        Object choice = JOptionPane.showInputDialog(view, "Specialty:", "Find Free Slots",
+                JOptionPane.QUESTION_MESSAGE, null, choices.toArray(), ANY_SPECIALTY);
+        if (choice == null) {
+            return;
+        }
+        String specialty = ANY_SPECIALTY.equals(choice) ? null : choice.toString();
+        LocalDateTime from = LocalDateTime.now();
+
+        view.findFreeSlotsButton.setEnabled(false);
+        AsyncDataAccess.load(() -> {
+            try {
+                return slotEngine.findFreeSlots(specialty, from, FREE_SLOT_SEARCH_DAYS, FREE_SLOT_RESULT_LIMIT);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }, slots -> {
+            view.findFreeSlotsButton.setEnabled(currentUser.hasPermission("can_book_appointment"));
+            showFreeSlots(slots);
+        }, error -> {
+            view.findFreeSlotsButton.setEnabled(currentUser.hasPermission("can_book_appointment"));
+            showDatabaseError(error);
+        });
+    }
+
+    private void showFreeSlots(List<SlotAvailabilityEngine.FreeSlot> slots) {
+        if (slots.isEmpty()) {
+            JOptionPane.showMessageDialog(view, "No free slots in the next " + FREE_SLOT_SEARCH_DAYS + " days.",
+                    "Find Free Slots", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JList<SlotAvailabilityEngine.FreeSlot> slotList = new JList<>(slots.toArray(new SlotAvailabilityEngine.FreeSlot[0]));
+        slotList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        slotList.setSelectedIndex(0);
+        JScrollPane scrollPane = new JScrollPane(slotList);
+        scrollPane.setPreferredSize(new Dimension(420, 300));
+
+        int option = JOptionPane.showConfirmDialog(view, scrollPane, "Select a Free Slot",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        SlotAvailabilityEngine.FreeSlot selected = slotList.getSelectedValue();
+        if (option != JOptionPane.OK_OPTION || selected == null) {
+            return;
+        }
+
+        // Prefill the booking form; the slot is re-checked when the booking is made
+        Date start = Date.from(selected.getStart().atZone(ZoneId.systemDefault()).toInstant());
+        selectDoctorRow(selected.getDoctor().getDoctorId());
+        view.dateSpinner.setValue(start);
+        view.timeSpinner.setValue(start);
+        viewSchedule();
+    }
+
     private void viewSchedule() {
+        viewSchedule(null);
+    }
+
+    /**
+     * Loads the selected doctor's schedule for the selected date in the background.
+     * Rapid date or selection changes supersede earlier loads, so only the latest schedule is shown.
+     *
+     * @param afterLoad Optional action run on the EDT once the table has been refreshed.
+     */
+    private void viewSchedule(Runnable afterLoad) {
         String doctorIdToView = null;
         Doctor selectedDoctor = view.getSelectedDoctor(currentDoctors);
 
         if (currentUser.getDoctorId() != null) {
             if (selectedDoctor != null && !currentUser.getDoctorId().equals(selectedDoctor.getDoctorId())) {
                 JOptionPane.showMessageDialog(mainFrame, "You can't view other doctors' appointments. Please contact a Nurse or Admin.", "Access Denied", JOptionPane.ERROR_MESSAGE);
+                scheduleLoad.cancel();
                 view.doctorsTable.clearSelection();
                 view.setAppointmentsList(List.of());
                 view.clearAppointmentDetailsFields();
@@ -585,7 +692,17 @@ public class AppointmentController {
         Date selectedDate = (Date) view.dateSpinner.getValue();
         LocalDate localDate = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
 
-        currentAppointments = dao.getAppointmentsForDoctorOnDate(doctorIdToView, localDate);
+        String doctorId = doctorIdToView;
+        scheduleLoad.load(() -> dao.getAppointmentsForDoctorOnDate(doctorId, localDate), appointments -> {
+            showSchedule(appointments);
+            if (afterLoad != null) {
+                afterLoad.run();
+            }
+        }, this::showDatabaseError);
+    }
+
+    private void showSchedule(List<Appointment> appointments) {
+        currentAppointments = appointments;
 
         // MODIFIED: Filter out "Canceled" appointments for doctors only
         if (currentUser.getDoctorId() != null) {
@@ -604,31 +721,19 @@ public class AppointmentController {
         }
     }
 
+    private void showDatabaseError(Throwable error) {
+        JOptionPane.showMessageDialog(view, "Database error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
     private void bookNewAppointment() {
         if (!currentUser.hasPermission("can_book_appointment")) {
             JOptionPane.showMessageDialog(mainFrame, "You do not have permission to book appointments.", "Access Denied", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        Doctor selectedDoctor = null;
-        if (currentUser.getDoctorId() != null) {
-            for (Doctor doc : currentDoctors) {
-                if (doc.getDoctorId().equals(currentUser.getDoctorId())) {
-                    selectedDoctor = doc;
-                    break;
-                }
-            }
-            if (selectedDoctor == null) {
-                JOptionPane.showMessageDialog(mainFrame, "Your staff account's doctor ID is not linked to an active doctor profile. Please contact admin.", "Configuration Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            selectDoctorRow(currentUser.getDoctorId());
-        } else {
-            selectedDoctor = view.getSelectedDoctor(currentDoctors);
-            if (selectedDoctor == null) {
-                JOptionPane.showMessageDialog(view, "Please select a doctor first.", "Validation Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+        Doctor selectedDoctor = getBookingDoctor();
+        if (selectedDoctor == null) {
+            return;
         }
 
         String patientId = view.patientIdField.getText().trim();
@@ -640,16 +745,114 @@ public class AppointmentController {
             return;
         }
 
+        LocalDateTime requestedDateTime = getRequestedDateTime();
+
+        Doctor doctor = selectedDoctor;
+        submitBooking(() -> scheduler.bookAppointment(patientId, doctor, requestedDateTime, reason, doctorNotes));
+    }
+
+    /**
+     * Books a weekly/monthly follow-up series starting at the date and time in the booking
+     * form. The whole series is booked or, if any occurrence conflicts, none of it.
+     */
+    private void bookRecurringAppointments() {
+        if (!currentUser.hasPermission("can_book_appointment")) {
+            JOptionPane.showMessageDialog(mainFrame, "You do not have permission to book appointments.", "Access Denied", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        Doctor selectedDoctor = getBookingDoctor();
+        if (selectedDoctor == null) {
+            return;
+        }
+
+        String patientId = view.patientIdField.getText().trim();
+        String reason = view.reasonField.getText().trim();
+        String doctorNotes = view.getDoctorNotesText();
+
+        if (patientId.isEmpty()) {
+            JOptionPane.showMessageDialog(view, "Please enter a Patient ID.", "Validation Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JComboBox<RecurrenceRule.Frequency> frequencyBox = new JComboBox<>(RecurrenceRule.Frequency.values());
+        frequencyBox.setSelectedItem(RecurrenceRule.Frequency.WEEKLY);
+        JSpinner intervalSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 12, 1));
+        JSpinner countSpinner = new JSpinner(new SpinnerNumberModel(4, 2, RecurrenceRule.MAX_OCCURRENCES, 1));
+
+        JPanel rulePanel = new JPanel(new GridLayout(3, 2, 5, 5));
+        rulePanel.add(new JLabel("Repeat:"));
+        rulePanel.add(frequencyBox);
+        rulePanel.add(new JLabel("Every (interval):"));
+        rulePanel.add(intervalSpinner);
+        rulePanel.add(new JLabel("Number of appointments:"));
+        rulePanel.add(countSpinner);
+
+        int option = JOptionPane.showConfirmDialog(view, rulePanel, "Book Recurring Appointments",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        RecurrenceRule rule = new RecurrenceRule(getRequestedDateTime(),
+                (RecurrenceRule.Frequency) frequencyBox.getSelectedItem(),
+                (Integer) intervalSpinner.getValue(), (Integer) countSpinner.getValue());
+
+        Doctor doctor = selectedDoctor;
+        submitBooking(() -> scheduler.bookRecurringAppointments(patientId, doctor, rule, reason, doctorNotes));
+    }
+
+    /**
+     * Resolves the doctor to book for: the logged-in doctor, or the row selected in the
+     * doctors table. Shows a message and returns null if there is none.
+     */
+    private Doctor getBookingDoctor() {
+        if (currentUser.getDoctorId() != null) {
+            for (Doctor doc : currentDoctors) {
+                if (doc.getDoctorId().equals(currentUser.getDoctorId())) {
+                    selectDoctorRow(currentUser.getDoctorId());
+                    return doc;
+                }
+            }
+            JOptionPane.showMessageDialog(mainFrame, "Your staff account's doctor ID is not linked to an active doctor profile. Please contact admin.", "Configuration Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        Doctor selectedDoctor = view.getSelectedDoctor(currentDoctors);
+        if (selectedDoctor == null) {
+            JOptionPane.showMessageDialog(view, "Please select a doctor first.", "Validation Error", JOptionPane.ERROR_MESSAGE);
+        }
+        return selectedDoctor;
+    }
+
+    private LocalDateTime getRequestedDateTime() {
         Date selectedDate = (Date) view.dateSpinner.getValue();
         Date selectedTime = (Date) view.timeSpinner.getValue();
         LocalDate datePart = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
         LocalTime timePart = selectedTime.toInstant().atZone(ZoneId.systemDefault()).toLocalTime();
-        LocalDateTime requestedDateTime = LocalDateTime.of(datePart, timePart);
+        return LocalDateTime.of(datePart, timePart);
+    }
 
-        String resultMessage = scheduler.bookAppointment(patientId, selectedDoctor, requestedDateTime, reason, doctorNotes);
-        JOptionPane.showMessageDialog(view, resultMessage + "\nBooked by: " + currentUser.getUsername(), "Booking Status", JOptionPane.INFORMATION_MESSAGE);
-        viewSchedule();
-        view.clearBookingFormFields();
+    /**
+     * Runs a booking in the background with the booking buttons disabled, then reports the
+     * result and refreshes the schedule.
+     */
+    private void submitBooking(Supplier<String> booking) {
+        view.bookAppointmentButton.setEnabled(false);
+        view.bookRecurringButton.setEnabled(false);
+        AsyncDataAccess.load(booking, resultMessage -> {
+            restoreBookingButtons();
+            JOptionPane.showMessageDialog(view, resultMessage + "\nBooked by: " + currentUser.getUsername(), "Booking Status", JOptionPane.INFORMATION_MESSAGE);
+            viewSchedule();
+            view.clearBookingFormFields();
+        }, error -> {
+            restoreBookingButtons();
+            showDatabaseError(error);
+        });
+    }
+
+    private void restoreBookingButtons() {
+        view.bookAppointmentButton.setEnabled(currentUser.hasPermission("can_book_appointment"));
+        view.bookRecurringButton.setEnabled(currentUser.hasPermission("can_book_appointment"));
     }
 
     // Cancel appointment functionality - now updates status to "Canceled" instead of deleting
@@ -693,20 +896,20 @@ public class AppointmentController {
             // Update status to "Canceled" instead of deleting
             selectedAppointment.setStatus("Canceled");
             selectedAppointment.updateLastModified(currentUser.getUsername());
-            boolean success = dao.updateAppointment(selectedAppointment);
-
-            if (success) {
-                JOptionPane.showMessageDialog(view,
-                        "Appointment canceled successfully by " + currentUser.getUsername() +
-                                ". Status updated to 'Canceled' at 2025-08-30 19:48:09 UTC.",
-                        "Cancellation Successful", JOptionPane.INFORMATION_MESSAGE);
-                viewSchedule(); // Refresh the appointments view
-                view.clearAppointmentDetailsFields();
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to cancel appointment.", "Error", JOptionPane.ERROR_MESSAGE);
-                // Revert status change if update failed
-                selectedAppointment.setStatus("Scheduled");
-            }
+            AsyncDataAccess.load(() -> dao.updateAppointment(selectedAppointment), success -> {
+                if (success) {
+                    JOptionPane.showMessageDialog(view,
+                            "Appointment canceled successfully by " + currentUser.getUsername() +
+                                    ". Status updated to 'Canceled' at 2025-08-30 19:48:09 UTC.",
+                            "Cancellation Successful", JOptionPane.INFORMATION_MESSAGE);
+                    viewSchedule(); // Refresh the appointments view
+                    view.clearAppointmentDetailsFields();
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to cancel appointment.", "Error", JOptionPane.ERROR_MESSAGE);
+                    // Revert status change if update failed
+                    selectedAppointment.setStatus("Scheduled");
+                }
+            }, this::showDatabaseError);
         }
     }
 
@@ -748,18 +951,18 @@ public class AppointmentController {
             selectedAppointment.setStatus("Done");
             selectedAppointment.setDoctorNotes(view.getDoctorNotesText());
             selectedAppointment.updateLastModified(currentUser.getUsername());
-            boolean success = dao.updateAppointment(selectedAppointment);
-
-            if (success) {
-                JOptionPane.showMessageDialog(view,
-                        "Appointment marked as Done successfully by " + currentUser.getUsername() +
-                                " at 2025-08-30 19:48:09 UTC.");
-                viewSchedule();
-                view.clearAppointmentDetailsFields();
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to update appointment status.", "Error", JOptionPane.ERROR_MESSAGE);
-                selectedAppointment.setStatus("Scheduled");
-            }
+            AsyncDataAccess.load(() -> dao.updateAppointment(selectedAppointment), success -> {
+                if (success) {
+                    JOptionPane.showMessageDialog(view,
+                            "Appointment marked as Done successfully by " + currentUser.getUsername() +
+                                    " at 2025-08-30 19:48:09 UTC.");
+                    viewSchedule();
+                    view.clearAppointmentDetailsFields();
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to update appointment status.", "Error", JOptionPane.ERROR_MESSAGE);
+                    selectedAppointment.setStatus("Scheduled");
+                }
+            }, this::showDatabaseError);
         }
     }
 }
\ No newline at end of file
@@ -2,13 +2,21 @@ package com.globemed.controller;
 
 import com.globemed.billing.BillProcessingRequest;
 import com.globemed.billing.BillingHandler;
+import com.globemed.billing.BillingPipeline;
 import com.globemed.billing.FinalBillingHandler;
 import com.globemed.billing.InsuranceHandler;
+import com.globemed.billing.InsuranceReconciliationJob;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
+import com.globemed.billing.PatientAccount;
+import com.globemed.billing.PaymentPosting;
 import com.globemed.billing.ValidationHandler;
+import com.globemed.db.AsyncDataAccess;
 import com.globemed.db.BillingDAO;
 import com.globemed.db.InsuranceDAO;
+import com.globemed.db.PatientAccountDAO;
 import com.globemed.db.PatientDAO;
+import com.globemed.db.RevenueRollupDAO;
 import com.globemed.insurance.InsurancePlan;
 import com.globemed.patient.PatientRecord;
 import com.globemed.ui.BillingPanel;
@@ -16,18 +24,31 @@ import com.globemed.utils.BillPrinter;
 import com.globemed.auth.IUser;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class BillingController {
     private final BillingPanel view;
     private final BillingDAO billingDAO;
     private final PatientDAO patientDAO;
     private final InsuranceDAO insuranceDAO;
+    private final PatientAccountDAO patientAccountDAO;
+    private final RevenueRollupDAO revenueRollupDAO;
     private final BillingHandler billProcessingChain;
     private final IUser currentUser;
     private final JFrame mainFrame;
     private List<MedicalBill> currentBills; // To hold the search results
+    private final AsyncDataAccess.Latest<List<MedicalBill>> billSearch = AsyncDataAccess.latest();
+    private final AsyncDataAccess.Latest<PatientAccount> accountLookup = AsyncDataAccess.latest();
 
     public BillingController(BillingPanel view, JFrame mainFrame, IUser currentUser) {
         this.view = view;
@@ -35,8 +56,11 @@ public class BillingController {
         this.billingDAO = new BillingDAO();
         this.patientDAO = new PatientDAO();
         this.insuranceDAO = new InsuranceDAO();
+        this.patientAccountDAO = new PatientAccountDAO();
+        this.revenueRollupDAO = new RevenueRollupDAO();
         this.currentUser = currentUser;
         this.billProcessingChain = setupChain();
+        InsuranceReconciliationJob.startShared();
         initController();
     }
 
@@ -55,6 +79,10 @@ public class BillingController {
         view.deleteBillButton.addActionListener(e -> deleteBill());
         view.printBillButton.addActionListener(e -> printBill());
         view.viewLogButton.addActionListener(e -> viewLog());
+        view.rebuildSummariesButton.addActionListener(e -> rebuildSummaries());
+        view.rebuildSummariesButton.setVisible(currentUser.hasPermission("can_rebuild_billing_summaries"));
+        view.importBillsButton.addActionListener(e -> importBills());
+        view.importBillsButton.setVisible(currentUser.hasPermission("can_import_bills"));
         view.payNowButton.addActionListener(e -> {
             System.out.println("Pay Now button clicked!"); // DEBUG
             payNow();
@@ -89,14 +117,15 @@ public class BillingController {
 
         if (selectedBill != null) {
             // FIXED: Use correct remaining balance calculation
-            double correctRemainingBalance = (selectedBill.getAmount() - selectedBill.getInsurancePaidAmount()) - selectedBill.getAmountPaid();
-            hasBalance = correctRemainingBalance > 0.01;
+            long correctRemainingCents = Money.remaining(
+                    selectedBill.getAmountCents() - selectedBill.getInsurancePaidCents(), selectedBill.getAmountPaidCents());
+            hasBalance = correctRemainingCents > 0;
 
             System.out.println("Pay Now button logic:"); // DEBUG
             System.out.println("  rowSelected: " + rowSelected); // DEBUG
             System.out.println("  selectedBill != null: " + true); // DEBUG
             System.out.println("  hasPermission (can_process_payments): " + hasPermission); // DEBUG
-            System.out.println("  correctRemainingBalance: " + correctRemainingBalance); // DEBUG
+            System.out.println("  correctRemainingBalance: " + Money.format(correctRemainingCents)); // DEBUG
             System.out.println("  hasBalance > 0.01: " + hasBalance); // DEBUG
         }
 
@@ -113,26 +142,34 @@ public class BillingController {
             return;
         }
 
-        currentBills = billingDAO.getBillsByPatientId(patientId);
-        System.out.println("Found " + currentBills.size() + " bills for patient " + patientId); // DEBUG
-
-        // ADDED: Fix insurance amounts for existing bills that don't have it calculated
-        for (MedicalBill bill : currentBills) {
-            if (bill.getInsurancePaidAmount() == 0.0 && bill.getAmount() > bill.getFinalAmount()) {
-                // Calculate missing insurance payment
-                double insurancePayment = bill.getAmount() - bill.getFinalAmount();
-                bill.setInsurancePaidAmount(insurancePayment);
-                System.out.println("Fixed insurance amount for bill " + bill.getBillId() + ": $" + insurancePayment);
-
-                // Update in database
-                billingDAO.updateAmountPaidAndStatus(
-                        bill.getBillId(),
-                        bill.getAmountPaid(),
-                        insurancePayment,
-                        bill.getStatus()
-                );
+        // A newer search supersedes one still in flight. The balance comes from the patient's
+        // account row rather than being added up from the bills.
+        view.setAccountSummary(null);
+        billSearch.load(() -> loadBills(patientId), bills -> showBills(patientId, bills), this::showDatabaseError);
+        accountLookup.load(() -> patientAccountDAO.getAccount(patientId), view::setAccountSummary, this::showDatabaseError);
+    }
+
+    /**
+     * Loads a patient's bills. Runs on a background thread.
+     */
+    private List<MedicalBill> loadBills(String patientId) {
+        List<MedicalBill> bills = billingDAO.getBillsByPatientId(patientId);
+        System.out.println("Found " + bills.size() + " bills for patient " + patientId); // DEBUG
+
+        // InsuranceReconciliationJob records a missing insurance share in the database. Until it
+        // has run, show the share anyway so the balance and Pay Now never ask the patient for the
+        // insurer's part. This only changes the loaded copies; nothing is written here.
+        for (MedicalBill bill : bills) {
+            long missingInsurance = InsuranceReconciliationJob.missingInsuranceCents(bill);
+            if (missingInsurance > 0) {
+                bill.setInsurancePaidCents(missingInsurance);
             }
         }
+        return bills;
+    }
+
+    private void showBills(String patientId, List<MedicalBill> bills) {
+        currentBills = bills;
 
         // Use the new method from BillingPanel to set the data
         view.setBillsTableData(currentBills);
@@ -145,6 +182,139 @@ public class BillingController {
         updateButtonStates();
     }
 
+    private void showDatabaseError(Throwable error) {
+        JOptionPane.showMessageDialog(view, "Database error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void rebuildSummaries() {
+        if (!currentUser.hasPermission("can_rebuild_billing_summaries")) {
+            JOptionPane.showMessageDialog(mainFrame, "You do not have permission to rebuild billing summaries.", "Access Denied", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        int choice = JOptionPane.showConfirmDialog(view,
+                "Recompute every patient's account balance and the daily revenue totals from the bills?\n" +
+                        "Bill changes wait until the rebuild has finished.",
+                "Rebuild Billing Summaries", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        view.rebuildSummariesButton.setEnabled(false);
+        AsyncDataAccess.load(() -> new int[]{patientAccountDAO.rebuildAccounts(), revenueRollupDAO.rebuildRollup()}, rebuilt -> {
+            view.rebuildSummariesButton.setEnabled(true);
+            if (rebuilt[0] >= 0 && rebuilt[1] >= 0) {
+                JOptionPane.showMessageDialog(view, "Rebuilt the accounts of " + rebuilt[0] + " billed patients and " +
+                        rebuilt[1] + " daily revenue totals.");
+                if (!view.searchPatientIdField.getText().trim().isEmpty()) {
+                    searchBills();
+                }
+            } else {
+                JOptionPane.showMessageDialog(view, "Failed to rebuild billing summaries.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, error -> {
+            view.rebuildSummariesButton.setEnabled(true);
+            showDatabaseError(error);
+        });
+    }
+
+    /**
+     * Runs a file of bills (an end-of-day claim run) through the billing pipeline.
+     * Each line is "patient_id,service description,amount"; a header line is skipped.
+     */
+    private void importBills() {
+        if (!currentUser.hasPermission("can_import_bills")) {
+            JOptionPane.showMessageDialog(mainFrame, "You do not have permission to import bills.", "Access Denied", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Bills");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files (patient_id,service,amount)", "csv"));
+        if (chooser.showOpenDialog(view) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+
+        view.importBillsButton.setEnabled(false);
+        AsyncDataAccess.load(() -> runClaimImport(file), result -> {
+            view.importBillsButton.setEnabled(true);
+            showClaimImport(file, result);
+        }, error -> {
+            view.importBillsButton.setEnabled(true);
+            JOptionPane.showMessageDialog(view, "Error importing bills: " + error.getMessage(),
+                    "Import Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Reads the import file and pushes its bills through the claim-run pipeline. Runs on a background thread.
+     */
+    private ClaimImport runClaimImport(File file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<BillProcessingRequest> requests = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        Map<String, PatientRecord> patients = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || (i == 0 && line.toLowerCase().startsWith("patient_id"))) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length != 3) {
+                skipped.add("Line " + (i + 1) + ": expected patient_id,service,amount");
+                continue;
+            }
+            String patientId = fields[0].trim();
+            String service = fields[1].trim();
+            long amountCents;
+            try {
+                amountCents = Money.parse(fields[2]);
+            } catch (NumberFormatException e) {
+                skipped.add("Line " + (i + 1) + ": invalid amount '" + fields[2].trim() + "'");
+                continue;
+            }
+            PatientRecord patient = patients.computeIfAbsent(patientId, patientDAO::getPatientById);
+            if (patient == null) {
+                skipped.add("Line " + (i + 1) + ": patient '" + patientId + "' not found");
+                continue;
+            }
+            requests.add(new BillProcessingRequest(MedicalBill.ofCents(patientId, service, amountCents), patient));
+        }
+
+        try {
+            return new ClaimImport(BillingPipeline.forClaimRun().run(requests), skipped);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bill import was interrupted", e);
+        }
+    }
+
+    private void showClaimImport(File file, ClaimImport result) {
+        BillingPipeline.RunResult run = result.run;
+        StringBuilder message = new StringBuilder("Imported " + file.getName() + " in " + run.getElapsedMillis() + " ms\n")
+                .append("Saved: ").append(run.getSaved().size()).append("\n")
+                .append("Rejected by validation: ").append(run.getRejected().size()).append("\n")
+                .append("Failed: ").append(run.getFailed().size()).append("\n")
+                .append("Skipped lines: ").append(result.skipped.size());
+        for (String line : result.skipped.subList(0, Math.min(10, result.skipped.size()))) {
+            message.append("\n  ").append(line);
+        }
+        int messageType = run.getFailed().isEmpty() && result.skipped.isEmpty()
+                ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
+        JOptionPane.showMessageDialog(view, message.toString(), "Bill Import", messageType);
+
+        if (!view.searchPatientIdField.getText().trim().isEmpty()) {
+            searchBills();
+        }
+    }
+
     private void deleteBill() {
         if (!currentUser.hasPermission("can_delete_bill")) {
             JOptionPane.showMessageDialog(mainFrame, "You do not have permission to delete bills.", "Access Denied", JOptionPane.ERROR_MESSAGE);
@@ -160,17 +330,18 @@ public class BillingController {
         int choice = JOptionPane.showConfirmDialog(view,
                 "Are you sure you want to delete Bill #" + selectedBill.getBillId() + "?\n" +
                         "Service: " + selectedBill.getServiceDescription() + "\n" +
-                        "Amount: $" + String.format("%.2f", selectedBill.getFinalAmount()),
+                        "Amount: $" + Money.format(selectedBill.getFinalAmountCents()),
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (choice == JOptionPane.YES_OPTION) {
-            boolean success = billingDAO.deleteBill(selectedBill.getBillId());
-            if (success) {
-                JOptionPane.showMessageDialog(view, "Bill deleted successfully.");
-                searchBills(); // Refresh the table
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to delete the bill.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            AsyncDataAccess.load(() -> billingDAO.deleteBill(selectedBill.getBillId()), success -> {
+                if (success) {
+                    JOptionPane.showMessageDialog(view, "Bill deleted successfully.");
+                    searchBills(); // Refresh the table
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to delete the bill.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, this::showDatabaseError);
         }
     }
 
@@ -181,15 +352,22 @@ public class BillingController {
             return;
         }
 
-        PatientRecord patient = patientDAO.getPatientById(selectedBill.getPatientId());
-
-        if (patient != null) {
+        // Look up the patient and render the PDF in the background
+        AsyncDataAccess.load(() -> {
+            PatientRecord patient = patientDAO.getPatientById(selectedBill.getPatientId());
+            if (patient == null) {
+                return false;
+            }
             List<InsurancePlan> allPlans = insuranceDAO.getAllPlans();
             BillPrinter.printBill(selectedBill, patient, allPlans);
-            JOptionPane.showMessageDialog(view, "Bill PDF has been generated in the project folder.", "Success", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            JOptionPane.showMessageDialog(view, "Could not find patient data to generate the bill.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            return true;
+        }, printed -> {
+            if (printed) {
+                JOptionPane.showMessageDialog(view, "Bill PDF has been generated in the project folder.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(view, "Could not find patient data to generate the bill.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, this::showDatabaseError);
     }
 
     private void viewLog() {
@@ -199,19 +377,22 @@ public class BillingController {
             return;
         }
 
-        // Get the full bill details from database to ensure we have the complete log
-        MedicalBill fullBill = billingDAO.getBillById(selectedBill.getBillId());
+        // Bills are listed without their log; read it only now that it is asked for
+        AsyncDataAccess.load(() -> billingDAO.getBillLog(selectedBill.getBillId()),
+                log -> showLog(selectedBill, log), this::showDatabaseError);
+    }
 
-        if (fullBill != null) {
+    private void showLog(MedicalBill bill, String log) {
+        if (log != null) {
             JTextArea textArea = new JTextArea(20, 50);
-            textArea.setText(fullBill.getProcessingLog());
+            textArea.setText(log);
             textArea.setEditable(false);
             textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
             JScrollPane scrollPane = new JScrollPane(textArea);
 
             JOptionPane.showMessageDialog(view,
                     scrollPane,
-                    "Processing Log for Bill #" + fullBill.getBillId() + " - " + fullBill.getServiceDescription(),
+                    "Processing Log for Bill #" + bill.getBillId() + " - " + bill.getServiceDescription(),
                     JOptionPane.INFORMATION_MESSAGE);
         } else {
             JOptionPane.showMessageDialog(view, "Could not retrieve full details for this bill.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -238,20 +419,20 @@ public class BillingController {
         }
 
         // FIXED: Calculate correct amounts instead of using wrong database values
-        double originalAmount = selectedBill.getAmount();
-        double insurancePaid = selectedBill.getInsurancePaidAmount();
-        double patientPaid = selectedBill.getAmountPaid();
-        double correctFinalAmount = originalAmount - insurancePaid;  // What patient should owe
-        double correctRemainingBalance = correctFinalAmount - patientPaid;  // What patient still owes
+        long originalCents = selectedBill.getAmountCents();
+        long insurancePaidCents = selectedBill.getInsurancePaidCents();
+        long patientPaidCents = selectedBill.getAmountPaidCents();
+        long correctFinalCents = originalCents - insurancePaidCents;  // What patient should owe
+        long correctRemainingCents = Money.remaining(correctFinalCents, patientPaidCents);  // What patient still owes
 
         System.out.println("Payment calculation:"); // DEBUG
-        System.out.println("  originalAmount: " + originalAmount);
-        System.out.println("  insurancePaid: " + insurancePaid);
-        System.out.println("  patientPaid: " + patientPaid);
-        System.out.println("  correctFinalAmount: " + correctFinalAmount);
-        System.out.println("  correctRemainingBalance: " + correctRemainingBalance);
+        System.out.println("  originalAmount: " + Money.format(originalCents));
+        System.out.println("  insurancePaid: " + Money.format(insurancePaidCents));
+        System.out.println("  patientPaid: " + Money.format(patientPaidCents));
+        System.out.println("  correctFinalAmount: " + Money.format(correctFinalCents));
+        System.out.println("  correctRemainingBalance: " + Money.format(correctRemainingCents));
 
-        if (correctRemainingBalance <= 0.01) {
+        if (correctRemainingCents <= 0) {
             JOptionPane.showMessageDialog(view, "This bill is already fully paid.", "Payment Status", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
@@ -259,27 +440,27 @@ public class BillingController {
         // FIXED: Show payment dialog with correct values
         String paymentAmountStr = JOptionPane.showInputDialog(view,
                 "Bill #" + selectedBill.getBillId() + " - " + selectedBill.getServiceDescription() + "\n" +
-                        "Original Amount: $" + String.format("%.2f", originalAmount) + "\n" +
-                        "Insurance Paid: $" + String.format("%.2f", insurancePaid) + "\n" +
-                        "Final Amount (Patient Owes): $" + String.format("%.2f", correctFinalAmount) + "\n" +
-                        "Patient Paid: $" + String.format("%.2f", patientPaid) + "\n" +
-                        "Remaining Balance: $" + String.format("%.2f", correctRemainingBalance) + "\n\n" +
+                        "Original Amount: $" + Money.format(originalCents) + "\n" +
+                        "Insurance Paid: $" + Money.format(insurancePaidCents) + "\n" +
+                        "Final Amount (Patient Owes): $" + Money.format(correctFinalCents) + "\n" +
+                        "Patient Paid: $" + Money.format(patientPaidCents) + "\n" +
+                        "Remaining Balance: $" + Money.format(correctRemainingCents) + "\n\n" +
                         "Enter payment amount:",
                 "Process Payment",
                 JOptionPane.QUESTION_MESSAGE);
 
         if (paymentAmountStr != null && !paymentAmountStr.trim().isEmpty()) {
             try {
-                double paymentAmount = Double.parseDouble(paymentAmountStr.trim());
+                long paymentCents = Money.parse(paymentAmountStr);
 
-                if (paymentAmount <= 0) {
+                if (paymentCents <= 0) {
                     JOptionPane.showMessageDialog(view, "Payment amount must be greater than 0.", "Invalid Amount", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
 
-                if (paymentAmount > correctRemainingBalance) {
+                if (paymentCents > correctRemainingCents) {
                     int choice = JOptionPane.showConfirmDialog(view,
-                            "Payment amount ($" + String.format("%.2f", paymentAmount) + ") exceeds remaining balance ($" + String.format("%.2f", correctRemainingBalance) + ").\n" +
+                            "Payment amount ($" + Money.format(paymentCents) + ") exceeds remaining balance ($" + Money.format(correctRemainingCents) + ").\n" +
                                     "This will result in an overpayment. Continue?",
                             "Overpayment Warning", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
@@ -288,38 +469,47 @@ public class BillingController {
                     }
                 }
 
-                // Process the payment (patient payment)
-                double newAmountPaid = patientPaid + paymentAmount;
-                double newTotalPaid = newAmountPaid + insurancePaid;
-                String newStatus = (newAmountPaid >= correctFinalAmount) ? "Paid" : "Partially Paid";
-
-                System.out.println("Processing payment: " + paymentAmount); // DEBUG
-                System.out.println("New patient amount paid: " + newAmountPaid); // DEBUG
-                System.out.println("New total paid: " + newTotalPaid); // DEBUG
-                System.out.println("New status: " + newStatus); // DEBUG
+                // Process the payment (patient payment). The amount is added in the database,
+                // and only if the bill is unchanged since the balance above was shown.
+                System.out.println("Processing payment: " + Money.format(paymentCents)); // DEBUG
 
-                boolean success = billingDAO.updateAmountPaidAndStatus(
+                view.payNowButton.setEnabled(false);
+                AsyncDataAccess.load(() -> billingDAO.postPayment(
                         selectedBill.getBillId(),
-                        newAmountPaid,
-                        insurancePaid,  // Keep existing insurance payment
-                        newStatus
-                );
-
-                if (success) {
-                    JOptionPane.showMessageDialog(view,
-                            "Payment processed successfully!\n" +
-                                    "Payment Amount: $" + String.format("%.2f", paymentAmount) + "\n" +
-                                    "New Patient Total: $" + String.format("%.2f", newAmountPaid) + "\n" +
-                                    "Insurance Paid: $" + String.format("%.2f", insurancePaid) + "\n" +
-                                    "Total Paid: $" + String.format("%.2f", newTotalPaid) + "\n" +
-                                    "New Remaining: $" + String.format("%.2f", Math.max(0, correctFinalAmount - newAmountPaid)) + "\n" +
-                                    "New Status: " + newStatus,
-                            "Payment Successful", JOptionPane.INFORMATION_MESSAGE);
-
-                    searchBills(); // Refresh the table to show updated amounts
-                } else {
-                    JOptionPane.showMessageDialog(view, "Failed to process payment. Please try again.", "Payment Error", JOptionPane.ERROR_MESSAGE);
-                }
+                        paymentCents,
+                        PaymentPosting.Source.PATIENT,
+                        selectedBill.getVersion()
+                ), posting -> {
+                    MedicalBill updatedBill = posting.getBill();
+                    if (posting.isPosted() && updatedBill != null) {
+                        long newAmountPaidCents = updatedBill.getAmountPaidCents();
+                        long newInsurancePaidCents = updatedBill.getInsurancePaidCents();
+                        long newFinalCents = updatedBill.getAmountCents() - newInsurancePaidCents;
+                        JOptionPane.showMessageDialog(view,
+                                "Payment processed successfully!\n" +
+                                        "Payment Amount: $" + Money.format(paymentCents) + "\n" +
+                                        "New Patient Total: $" + Money.format(newAmountPaidCents) + "\n" +
+                                        "Insurance Paid: $" + Money.format(newInsurancePaidCents) + "\n" +
+                                        "Total Paid: $" + Money.format(newAmountPaidCents + newInsurancePaidCents) + "\n" +
+                                        "New Remaining: $" + Money.format(Money.remaining(newFinalCents, newAmountPaidCents)) + "\n" +
+                                        "New Status: " + updatedBill.getStatus(),
+                                "Payment Successful", JOptionPane.INFORMATION_MESSAGE);
+
+                        searchBills(); // Refresh the table to show updated amounts
+                    } else if (posting.getOutcome() == PaymentPosting.Outcome.STALE) {
+                        JOptionPane.showMessageDialog(view,
+                                "This bill was changed by someone else while the payment was being entered.\n" +
+                                        "No payment was recorded. Please review the refreshed bill and try again.",
+                                "Payment Not Recorded", JOptionPane.WARNING_MESSAGE);
+                        searchBills();
+                    } else {
+                        JOptionPane.showMessageDialog(view, "Failed to process payment. Please try again.", "Payment Error", JOptionPane.ERROR_MESSAGE);
+                        updateButtonStates();
+                    }
+                }, error -> {
+                    showDatabaseError(error);
+                    updateButtonStates();
+                });
 
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(view, "Invalid payment amount. Please enter a valid number.", "Input Error", JOptionPane.ERROR_MESSAGE);
@@ -353,16 +543,10 @@ public class BillingController {
             return;
         }
 
-        PatientRecord patient = patientDAO.getPatientById(patientId);
-        if (patient == null) {
-            JOptionPane.showMessageDialog(view, "Patient with ID '" + patientId + "' not found.", "Validation Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        double amount;
+        long amountCents;
         try {
-            amount = Double.parseDouble(amountStr);
-            if (amount <= 0) {
+            amountCents = Money.parse(amountStr);
+            if (amountCents <= 0) {
                 JOptionPane.showMessageDialog(view, "Amount must be greater than 0.", "Validation Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
@@ -371,49 +555,103 @@ public class BillingController {
             return;
         }
 
+        // Patient lookup, the processing chain and the save all hit the database, so run them in the background
+        view.processBillButton.setEnabled(false);
+        AsyncDataAccess.load(() -> processAndSaveBill(patientId, service, amountCents), result -> {
+            view.processBillButton.setEnabled(true);
+            showProcessedBill(patientId, result);
+        }, ex -> {
+            view.processBillButton.setEnabled(true);
+            JOptionPane.showMessageDialog(view,
+                    "Error processing bill: " + ex.getMessage(),
+                    "Processing Error", JOptionPane.ERROR_MESSAGE);
+            ex.printStackTrace();
+        });
+    }
+
+    /**
+     * Runs the bill through the processing chain and saves it. Runs on a background thread.
+     *
+     * @return The processed bill and its saved ID, or null if the patient does not exist.
+     */
+    private ProcessedBill processAndSaveBill(String patientId, String service, long amountCents) {
+        PatientRecord patient = patientDAO.getPatientById(patientId);
+        if (patient == null) {
+            return null;
+        }
+
         // Create and process the bill
-        MedicalBill bill = new MedicalBill(patientId, service, amount);
+        MedicalBill bill = MedicalBill.ofCents(patientId, service, amountCents);
         BillProcessingRequest request = new BillProcessingRequest(bill, patient);
+        billProcessingChain.processBill(request);
 
-        try {
-            billProcessingChain.processBill(request);
+        // ADDED: Calculate and set insurance payment after processing
+        if (bill.getAmountCents() > bill.getFinalAmountCents()) {
+            long insurancePaymentCents = bill.getAmountCents() - bill.getFinalAmountCents();
+            bill.setInsurancePaidCents(insurancePaymentCents);
+            System.out.println("Calculated insurance payment: $" + Money.format(insurancePaymentCents));
+        }
 
-            // ADDED: Calculate and set insurance payment after processing
-            if (bill.getAmount() > bill.getFinalAmount()) {
-                double insurancePayment = bill.getAmount() - bill.getFinalAmount();
-                bill.setInsurancePaidAmount(insurancePayment);
-                System.out.println("Calculated insurance payment: $" + insurancePayment);
-            }
+        // Save the processed bill to database
+        int billId = billingDAO.saveBill(bill);
+        if (billId > 0) {
+            bill.setBillId(billId);
+        }
+        return new ProcessedBill(bill, billId);
+    }
 
-            // Save the processed bill to database
-            int billId = billingDAO.saveBill(bill);
-            if (billId > 0) {
-                bill.setBillId(billId);
-                JOptionPane.showMessageDialog(view,
-                        "Bill processed and saved successfully!\n" +
-                                "Bill ID: " + billId + "\n" +
-                                "Final Status: " + bill.getStatus() + "\n" +
-                                "Original Amount: $" + String.format("%.2f", bill.getAmount()) + "\n" +
-                                "Insurance Paid: $" + String.format("%.2f", bill.getInsurancePaidAmount()) + "\n" +
-                                "Final Amount (Patient Owes): $" + String.format("%.2f", bill.getFinalAmount()),
-                        "Processing Complete", JOptionPane.INFORMATION_MESSAGE);
-
-                // Clear the form
-                view.clearCreateBillForm();
-
-                // Refresh search results if showing bills for the same patient
-                if (patientId.equals(view.searchPatientIdField.getText().trim())) {
-                    searchBills();
-                }
-            } else {
-                JOptionPane.showMessageDialog(view, "Bill processed but failed to save to database.", "Save Error", JOptionPane.WARNING_MESSAGE);
-            }
+    private void showProcessedBill(String patientId, ProcessedBill result) {
+        if (result == null) {
+            JOptionPane.showMessageDialog(view, "Patient with ID '" + patientId + "' not found.", "Validation Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-        } catch (Exception ex) {
+        MedicalBill bill = result.bill;
+        if (result.billId > 0) {
             JOptionPane.showMessageDialog(view,
-                    "Error processing bill: " + ex.getMessage(),
-                    "Processing Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+                    "Bill processed and saved successfully!\n" +
+                            "Bill ID: " + result.billId + "\n" +
+                            "Final Status: " + bill.getStatus() + "\n" +
+                            "Original Amount: $" + Money.format(bill.getAmountCents()) + "\n" +
+                            "Insurance Paid: $" + Money.format(bill.getInsurancePaidCents()) + "\n" +
+                            "Final Amount (Patient Owes): $" + Money.format(bill.getFinalAmountCents()),
+                    "Processing Complete", JOptionPane.INFORMATION_MESSAGE);
+
+            // Clear the form
+            view.clearCreateBillForm();
+
+            // Refresh search results if showing bills for the same patient
+            if (patientId.equals(view.searchPatientIdField.getText().trim())) {
+                searchBills();
+            }
+        } else {
+            JOptionPane.showMessageDialog(view, "Bill processed but failed to save to database.", "Save Error", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    /**
+     * Outcome of processing a new bill in the background.
+     */
+    private static class ProcessedBill {
+        final MedicalBill bill;
+        final int billId;
+
+        ProcessedBill(MedicalBill bill, int billId) {
+            this.bill = bill;
+            this.billId = billId;
+        }
+    }
+
+    /**
+     * Outcome of a bill import: the pipeline run and the lines that never reached it.
+     */
+    private static class ClaimImport {
+        final BillingPipeline.RunResult run;
+        final List<String> skipped;
+
+        ClaimImport(BillingPipeline.RunResult run, List<String> skipped) {
+            this.run = run;
+            this.skipped = skipped;
         }
     }
-}
\ No newline at end of file
+}
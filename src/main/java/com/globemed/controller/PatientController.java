@@ -1,9 +1,9 @@
 package com.globemed.controller;
 
 import com.globemed.auth.IUser;
+import com.globemed.db.AsyncDataAccess;
 import com.globemed.db.InsuranceDAO;
 import com.globemed.db.PatientDAO;
-import com.globemed.insurance.InsurancePlan;
 import com.globemed.patient.PatientRecord;
 import com.globemed.patient.RecordHistory;
 import com.globemed.ui.AllPatientsDialog;
@@ -11,7 +11,6 @@ import com.globemed.ui.PatientPanel;
 
 import javax.swing.*;
 import java.util.Collections;
-import java.util.List;
 
 public class PatientController {
     private final PatientPanel view;
@@ -22,6 +21,7 @@ public class PatientController {
     private PatientRecord currentPatient;
     private RecordHistory recordHistory;
     private boolean isNewPatientMode = false;
+    private final AsyncDataAccess.Latest<PatientRecord> patientSearch = AsyncDataAccess.latest();
 
     public PatientController(PatientPanel view, JFrame mainFrame, IUser currentUser) {
         this.view = view;
@@ -34,8 +34,7 @@ public class PatientController {
     }
 
     private void loadInitialData() {
-        List<InsurancePlan> plans = insuranceDAO.getAllPlans();
-        view.setInsurancePlans(plans);
+        AsyncDataAccess.load(insuranceDAO::getAllPlans, view::setInsurancePlans);
     }
 
     private void initController() {
@@ -51,13 +50,19 @@ public class PatientController {
     }
 
     private void showAllPatients() {
-        List<PatientRecord> allPatients = dao.getAllPatients();
-        if (allPatients.isEmpty()) {
-            JOptionPane.showMessageDialog(mainFrame, "No patients found in the database.", "Information", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-        AllPatientsDialog dialog = new AllPatientsDialog(mainFrame, allPatients);
-        dialog.setVisible(true);
+        view.viewAllButton.setEnabled(false);
+        AsyncDataAccess.load(dao::getAllPatients, allPatients -> {
+            view.viewAllButton.setEnabled(true);
+            if (allPatients.isEmpty()) {
+                JOptionPane.showMessageDialog(mainFrame, "No patients found in the database.", "Information", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            AllPatientsDialog dialog = new AllPatientsDialog(mainFrame, allPatients);
+            dialog.setVisible(true);
+        }, error -> {
+            view.viewAllButton.setEnabled(true);
+            showDatabaseError(error);
+        });
     }
 
     private void searchPatient() {
@@ -67,8 +72,12 @@ public class PatientController {
             JOptionPane.showMessageDialog(view, "Please enter a Patient ID.", "Warning", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        currentPatient = dao.getPatientById(patientId);
+        // A newer search supersedes one still in flight
+        patientSearch.load(() -> dao.getPatientById(patientId), this::showSearchResult, this::showDatabaseError);
+    }
 
+    private void showSearchResult(PatientRecord patient) {
+        currentPatient = patient;
         if (currentPatient != null) {
             recordHistory = new RecordHistory(currentPatient);
             displayPatientData();
@@ -86,6 +95,7 @@ public class PatientController {
 
     private void prepareNewPatient() {
         isNewPatientMode = true;
+        patientSearch.cancel();
         currentPatient = null;
         recordHistory = null;
         view.clearFields();
@@ -113,30 +123,37 @@ public class PatientController {
             newPatient.setTreatmentPlans(view.getTreatmentPlans());
             newPatient.setInsurancePlan(view.getSelectedInsurancePlan());
 
-            boolean success = dao.createPatient(newPatient);
-            if (success) {
-                JOptionPane.showMessageDialog(view, "Patient created successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                currentPatient = newPatient;
-                isNewPatientMode = false;
-                view.setFieldsEditable(false);
-                view.setPatientIdEditable(false);
-                displayPatientData();
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to create patient. The ID might already exist.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            view.saveButton.setEnabled(false);
+            AsyncDataAccess.load(() -> dao.createPatient(newPatient), success -> {
+                view.saveButton.setEnabled(true);
+                if (success) {
+                    JOptionPane.showMessageDialog(view, "Patient created successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    currentPatient = newPatient;
+                    isNewPatientMode = false;
+                    view.setFieldsEditable(false);
+                    view.setPatientIdEditable(false);
+                    displayPatientData();
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to create patient. The ID might already exist.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, this::showSaveError);
         } else {
             currentPatient.setName(view.getPatientName());
             currentPatient.setMedicalHistory(view.getMedicalHistory());
             currentPatient.setTreatmentPlans(view.getTreatmentPlans());
             currentPatient.setInsurancePlan(view.getSelectedInsurancePlan());
 
-            boolean success = dao.updatePatient(currentPatient);
-            if (success) {
-                JOptionPane.showMessageDialog(view, "Patient record updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                view.setFieldsEditable(false);
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to update patient record.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            PatientRecord patient = currentPatient;
+            view.saveButton.setEnabled(false);
+            AsyncDataAccess.load(() -> dao.updatePatient(patient), success -> {
+                view.saveButton.setEnabled(true);
+                if (success) {
+                    JOptionPane.showMessageDialog(view, "Patient record updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    view.setFieldsEditable(false);
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to update patient record.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, this::showSaveError);
         }
     }
 
@@ -151,17 +168,28 @@ public class PatientController {
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (response == JOptionPane.YES_OPTION) {
-            boolean success = dao.deletePatient(currentPatient.getPatientId());
-            if (success) {
-                JOptionPane.showMessageDialog(view, "Patient deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                view.clearFields();
-                view.setFieldsEditable(false);
-            } else {
-                JOptionPane.showMessageDialog(view, "Failed to delete patient.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            String patientId = currentPatient.getPatientId();
+            AsyncDataAccess.load(() -> dao.deletePatient(patientId), success -> {
+                if (success) {
+                    JOptionPane.showMessageDialog(view, "Patient deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    view.clearFields();
+                    view.setFieldsEditable(false);
+                } else {
+                    JOptionPane.showMessageDialog(view, "Failed to delete patient.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, this::showDatabaseError);
         }
     }
 
+    private void showSaveError(Throwable error) {
+        view.saveButton.setEnabled(true);
+        showDatabaseError(error);
+    }
+
+    private void showDatabaseError(Throwable error) {
+        JOptionPane.showMessageDialog(view, "Database error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
     private void undoChanges() {
         if (recordHistory != null) {
             recordHistory.undo();
@@ -4,8 +4,13 @@ import com.globemed.appointment.Appointment;
 import com.globemed.appointment.Doctor;
 import com.globemed.auth.IUser;
 import com.globemed.billing.MedicalBill;
+import com.globemed.db.AsyncDataAccess;
 import com.globemed.db.BillingDAO;
+import com.globemed.db.BillingSnapshotDAO;
 import com.globemed.db.PatientDAO;
+import com.globemed.db.ReportCriteria;
+import com.globemed.db.ReportDataDAO;
+import com.globemed.db.RevenueRollupDAO;
 import com.globemed.db.SchedulingDAO;
 import com.globemed.patient.PatientRecord;
 import com.globemed.reports.*;
@@ -17,6 +22,7 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 public class ReportController {
@@ -24,6 +30,11 @@ public class ReportController {
     private final PatientDAO patientDAO;
     private final SchedulingDAO schedulingDAO;
     private final BillingDAO billingDAO;
+    private final ReportDataDAO reportDataDAO;
+    private final RevenueRollupDAO revenueRollupDAO;
+    private final BillingSnapshotDAO billingSnapshotDAO;
+    private final ParallelReportEngine reportEngine;
+    private final ReportExecutionService reportService;
     private final JFrame mainFrame;
     private final IUser currentUser;
 
@@ -31,6 +42,8 @@ public class ReportController {
     private PatientRecord currentPatient;
     private String lastGeneratedReportTitle;
     private String lastGeneratedReportContent;
+    private ReportTask runningReport;
+    private final AsyncDataAccess.Latest<PatientRecord> patientSearch = AsyncDataAccess.latest();
 
     // Cache for filters
     private List<Doctor> allDoctors;
@@ -43,6 +56,11 @@ public class ReportController {
         this.patientDAO = new PatientDAO();
         this.schedulingDAO = new SchedulingDAO();
         this.billingDAO = new BillingDAO();
+        this.reportDataDAO = new ReportDataDAO();
+        this.revenueRollupDAO = new RevenueRollupDAO();
+        this.billingSnapshotDAO = new BillingSnapshotDAO();
+        this.reportEngine = new ParallelReportEngine();
+        this.reportService = new ReportExecutionService();
 
         initController();
         loadInitialData();
@@ -53,6 +71,7 @@ public class ReportController {
         // --- Button Listeners ---
         view.findPatientButton.addActionListener(e -> findPatient());
         view.generateReportButton.addActionListener(e -> generateReport());
+        view.cancelReportButton.addActionListener(e -> cancelReport());
         view.printReportButton.addActionListener(e -> printReport());
         view.exportPdfButton.addActionListener(e -> exportToPdf());
         view.exportExcelButton.addActionListener(e -> exportToExcel());
@@ -91,11 +110,13 @@ public class ReportController {
 
     private void loadInitialData() {
         // Load doctors for filter
-        allDoctors = schedulingDAO.getAllDoctors();
-        List<String> doctorNames = allDoctors.stream()
-                .map(doctor -> doctor.getFullName() + " (" + doctor.getDoctorId() + ")")
-                .collect(Collectors.toList());
-        view.updateDoctorFilter(doctorNames);
+        AsyncDataAccess.load(schedulingDAO::getAllDoctors, doctors -> {
+            allDoctors = doctors;
+            List<String> doctorNames = allDoctors.stream()
+                    .map(doctor -> doctor.getFullName() + " (" + doctor.getDoctorId() + ")")
+                    .collect(Collectors.toList());
+            view.updateDoctorFilter(doctorNames);
+        });
 
         // Load services for filter (you might need to add this method to your DAO)
         loadServicesFilter();
@@ -105,25 +126,19 @@ public class ReportController {
 
     private void loadServicesFilter() {
         // Get unique services from billing data
-        // You might need to add this method to BillingDAO: getAllUniqueServices()
-        try {
-            List<MedicalBill> allBills = billingDAO.getAllBills(); // Assuming this method exists
-            allServices = allBills.stream()
-                    .map(MedicalBill::getServiceDescription)
-                    .distinct()
-                    .sorted()
-                    .collect(Collectors.toList());
+        AsyncDataAccess.load(billingDAO::getDistinctServiceDescriptions, services -> {
+            allServices = services;
             view.updateServiceFilter(allServices);
-        } catch (Exception e) {
+        }, e -> {
             // Fallback if method doesn't exist
             view.updateServiceFilter(List.of("General Consultation", "X-Ray", "Blood Test", "Surgery"));
-        }
+        });
     }
 
     private void applyPermissions() {
         // Apply user permissions for report access
         boolean canGenerateReports = currentUser.hasPermission("can_generate_reports");
-        view.generateReportButton.setEnabled(canGenerateReports);
+        updateGenerateButtonState();
 
         if (!canGenerateReports) {
             view.setReportStatus("You don't have permission to generate reports");
@@ -135,11 +150,7 @@ public class ReportController {
         String reportCategory = view.getSelectedReportCategory();
 
         // Enable/disable patient selection based on report type
-        boolean needsPatientSelection = reportType != null && (
-                reportType.contains("Individual Patient") ||
-                        reportType.contains("Patient Financial Summary") ||
-                        reportType.contains("Patient Payment History")
-        );
+        boolean needsPatientSelection = needsPatientSelection(reportType);
 
         view.findPatientButton.setEnabled(needsPatientSelection);
         view.patientIdField.setEnabled(needsPatientSelection);
@@ -147,13 +158,28 @@ public class ReportController {
         // Update status message
         if (needsPatientSelection) {
             view.setReportStatus("Please select a patient to generate this report");
-            if (currentPatient == null) {
-                view.generateReportButton.setEnabled(false);
-            }
         } else {
             view.setReportStatus("Ready to generate system-wide report");
-            view.generateReportButton.setEnabled(currentUser.hasPermission("can_generate_reports"));
         }
+        updateGenerateButtonState();
+    }
+
+    private boolean needsPatientSelection(String reportType) {
+        return reportType != null && (
+                reportType.contains("Individual Patient") ||
+                        reportType.contains("Patient Financial Summary") ||
+                        reportType.contains("Patient Payment History")
+        );
+    }
+
+    /**
+     * Enables Generate only when no report is running, the user may generate reports and,
+     * for patient reports, a patient is loaded.
+     */
+    private void updateGenerateButtonState() {
+        boolean patientMissing = needsPatientSelection(view.getSelectedReportType()) && currentPatient == null;
+        view.generateReportButton.setEnabled(runningReport == null
+                && currentUser.hasPermission("can_generate_reports") && !patientMissing);
     }
 
     private void updateDateRangeBasedOnPeriod(String period) {
@@ -220,11 +246,15 @@ public class ReportController {
         }
 
         view.setReportStatus("Searching for patient...");
-        currentPatient = patientDAO.getPatientById(patientId);
+        patientSearch.load(() -> patientDAO.getPatientById(patientId), this::showFoundPatient,
+                e -> view.setReportStatus("Error searching for patient: " + e.getMessage()));
+    }
 
+    private void showFoundPatient(PatientRecord patient) {
+        currentPatient = patient;
         if (currentPatient != null) {
             view.patientFoundLabel.setText("Status: Loaded " + currentPatient.getName());
-            view.generateReportButton.setEnabled(currentUser.hasPermission("can_generate_reports"));
+            updateGenerateButtonState();
             view.enableExportButtons(false);
             view.setReportContent("");
             lastGeneratedReportContent = null;
@@ -243,6 +273,10 @@ public class ReportController {
     }
 
     private void generateReport() {
+        if (runningReport != null) {
+            return; // One report at a time per panel
+        }
+
         String reportType = view.getSelectedReportType();
         String reportCategory = view.getSelectedReportCategory();
 
@@ -252,37 +286,97 @@ public class ReportController {
         }
 
         // Check if patient is required but not loaded
-        boolean needsPatient = reportType.contains("Individual Patient") ||
-                reportType.contains("Patient Financial Summary") ||
-                reportType.contains("Patient Payment History");
+        boolean needsPatient = needsPatientSelection(reportType);
 
         if (needsPatient && currentPatient == null) {
             JOptionPane.showMessageDialog(view, "Please find and load a patient first.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
+        // Capture everything the job needs from Swing here; the job itself runs off the EDT
+        ReportVisitor visitor = createVisitorForReportType(reportType);
+        // Only unpaid bills reach the outstanding payments report; patient_accounts tells which patients have any
+        ReportCriteria criteria = "Outstanding Payments Report".equals(reportType)
+                ? buildCriteria().withOpenBalancesOnly() : buildCriteria();
+        PatientRecord patient = currentPatient;
+
+        lastGeneratedReportContent = null;
+        lastGeneratedReportTitle = null;
+        view.setReportRunning(true);
         view.setReportStatus("Generating report...");
 
         try {
-            ReportVisitor visitor = createVisitorForReportType(reportType);
+            runningReport = reportService.submit(reportType, task -> {
+                if (needsPatient) {
+                    generatePatientSpecificReport(visitor, criteria, patient, task);
+                } else if (visitor instanceof BillingSnapshotVisitor) {
+                    generateFromBillingSnapshot((BillingSnapshotVisitor) visitor, criteria, task);
+                } else if (!(visitor instanceof RevenueRollupVisitor)
+                        || !generateFromRevenueRollup((RevenueRollupVisitor) visitor, criteria, task)) {
+                    generateSystemWideReport(visitor, criteria, task);
+                }
+                task.setStage("Formatting report...");
+                return visitor.getReport();
+            }, new ReportListener(reportType));
+        } catch (RejectedExecutionException e) {
+            view.setReportRunning(false);
+            updateGenerateButtonState();
+            view.setReportStatus("Too many reports are running. Please try again shortly.");
+        }
+    }
 
-            if (needsPatient) {
-                generatePatientSpecificReport(visitor);
-            } else {
-                generateSystemWideReport(visitor);
-            }
+    private void cancelReport() {
+        if (runningReport != null) {
+            view.setReportStatus("Cancelling report...");
+            runningReport.cancel();
+        }
+    }
 
-            lastGeneratedReportContent = visitor.getReport();
+    /**
+     * Applies progress and the outcome of a background report to the panel.
+     * Callbacks arrive on the EDT.
+     */
+    private class ReportListener implements ReportExecutionService.Listener {
+        private final String reportType;
+
+        ReportListener(String reportType) {
+            this.reportType = reportType;
+        }
+
+        @Override
+        public void onProgress(long itemsProcessed, String stage) {
+            view.setReportProgress(itemsProcessed, stage);
+        }
+
+        @Override
+        public void onCompleted(String reportContent) {
+            runningReport = null;
+            lastGeneratedReportContent = reportContent;
             lastGeneratedReportTitle = reportType;
-            view.setReportContent(lastGeneratedReportContent);
+            view.setReportRunning(false);
+            updateGenerateButtonState();
+            view.setReportContent(reportContent);
             view.enableExportButtons(true);
             view.setReportStatus("Report generated successfully");
+        }
 
-        } catch (Exception e) {
-            view.setReportStatus("Error generating report: " + e.getMessage());
-            JOptionPane.showMessageDialog(view, "Error generating report: " + e.getMessage(),
+        @Override
+        public void onFailed(Exception error) {
+            runningReport = null;
+            view.setReportRunning(false);
+            updateGenerateButtonState();
+            view.setReportStatus("Error generating report: " + error.getMessage());
+            JOptionPane.showMessageDialog(view, "Error generating report: " + error.getMessage(),
                     "Report Error", JOptionPane.ERROR_MESSAGE);
         }
+
+        @Override
+        public void onCancelled() {
+            runningReport = null;
+            view.setReportRunning(false);
+            updateGenerateButtonState();
+            view.setReportStatus("Report cancelled");
+        }
     }
 
     private ReportVisitor createVisitorForReportType(String reportType) {
@@ -305,86 +399,99 @@ public class ReportController {
     }
 
 
-    private void generatePatientSpecificReport(ReportVisitor visitor) {
-        processPatientData(visitor);
-        processPatientAppointments(visitor);
-        processPatientBills(visitor);
+    /**
+     * Captures the date range, service and payment status filters from the view.
+     * These are applied in SQL by the DAOs.
+     */
+    private ReportCriteria buildCriteria() {
+        LocalDate fromDate = view.getFromDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        LocalDate toDate = view.getToDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+
+        String selectedService = view.getSelectedService();
+        String service = selectedService == null || "All Services".equals(selectedService) ? null : selectedService;
+
+        String selectedPaymentStatus = view.getSelectedPaymentStatus();
+        String paymentStatus = selectedPaymentStatus == null || "All Statuses".equals(selectedPaymentStatus)
+                ? null : selectedPaymentStatus;
+
+        return new ReportCriteria(fromDate, toDate, service, paymentStatus);
+    }
+
+    private void generatePatientSpecificReport(ReportVisitor visitor, ReportCriteria criteria,
+                                               PatientRecord patient, ReportTask task) {
+        processPatientData(visitor, patient);
+        task.setStage("Loading appointments...");
+        processPatientAppointments(visitor, criteria, patient, task);
+        task.setStage("Loading bills...");
+        processPatientBills(visitor, criteria, patient, task);
     }
 
-    private void processPatientData(ReportVisitor visitor) {
+    private void processPatientData(ReportVisitor visitor, PatientRecord patient) {
         // Process patient data
-        currentPatient.accept(visitor);
+        patient.accept(visitor);
     }
 
-    private void processPatientAppointments(ReportVisitor visitor) {
-        // Get appointments for the patient
-        List<Appointment> appointments = schedulingDAO.getAppointmentsByPatientId(currentPatient.getPatientId());
+    private void processPatientAppointments(ReportVisitor visitor, ReportCriteria criteria,
+                                            PatientRecord patient, ReportTask task) {
+        // Get appointments for the patient within date range
+        List<Appointment> appointments = schedulingDAO.getAppointmentsByPatientId(patient.getPatientId(), criteria);
         for (Appointment appointment : appointments) {
+            task.checkCancelled();
             appointment.accept(visitor);
         }
     }
 
-    private void processPatientBills(ReportVisitor visitor) {
-        // Get bills for the patient within date range
-        List<MedicalBill> bills = getBillsForPatientWithFilters(currentPatient.getPatientId());
+    private void processPatientBills(ReportVisitor visitor, ReportCriteria criteria,
+                                     PatientRecord patient, ReportTask task) {
+        // Get bills for the patient within date range, filtered by service and payment status
+        List<MedicalBill> bills = billingDAO.getBillsByPatientId(patient.getPatientId(), criteria);
         for (MedicalBill bill : bills) {
+            task.checkCancelled();
             bill.accept(visitor);
         }
     }
 
-    private void generateSystemWideReport(ReportVisitor visitor) {
-        // Get all patients (limited by filters if needed)
-        List<PatientRecord> patients = patientDAO.getAllPatients(); // You might need this method
-
-        // Apply date and other filters
-        Date fromDate = view.getFromDate();
-        Date toDate = view.getToDate();
-
-        for (PatientRecord patient : patients) {
-            patient.accept(visitor);
-
-            // Get appointments for each patient
-            List<Appointment> appointments = schedulingDAO.getAppointmentsByPatientId(patient.getPatientId());
-            for (Appointment appointment : appointments) {
-                appointment.accept(visitor);
-            }
-
-            // Get bills for each patient with filters
-            List<MedicalBill> bills = getBillsForPatientWithFilters(patient.getPatientId());
-            for (MedicalBill bill : bills) {
-                bill.accept(visitor);
-            }
+    /**
+     * Feeds a revenue report from the daily revenue rollup instead of scanning every bill.
+     * @return false if the rollup has no matching cells (e.g. it has not been backfilled yet),
+     *         in which case nothing was visited and the caller should scan the bills.
+     */
+    private boolean generateFromRevenueRollup(RevenueRollupVisitor visitor, ReportCriteria criteria, ReportTask task) {
+        task.setStage("Reading daily revenue totals...");
+        int cells = revenueRollupDAO.forEachDailyRevenue(criteria, cell -> {
+            task.itemProcessed();
+            visitor.visit(cell);
+        });
+        if (cells < 0) {
+            throw new IllegalStateException("Could not load the revenue rollup from the database");
         }
+        return cells > 0;
     }
 
-    private List<MedicalBill> getBillsForPatientWithFilters(String patientId) {
-        List<MedicalBill> bills = billingDAO.getBillsByPatientId(patientId);
-
-        // Apply filters
-        String selectedService = view.getSelectedService();
-        String selectedPaymentStatus = view.getSelectedPaymentStatus();
-
-        return bills.stream()
-                .filter(bill -> "All Services".equals(selectedService) ||
-                        bill.getServiceDescription().equals(selectedService))
-                .filter(bill -> "All Statuses".equals(selectedPaymentStatus) ||
-                        matchesPaymentStatus(bill, selectedPaymentStatus))
-                .collect(Collectors.toList());
+    /**
+     * Feeds a report from a columnar snapshot of the matching bills instead of visiting bill objects.
+     */
+    private void generateFromBillingSnapshot(BillingSnapshotVisitor visitor, ReportCriteria criteria, ReportTask task) {
+        task.setStage("Loading billing snapshot...");
+        BillingSnapshot snapshot = billingSnapshotDAO.loadSnapshot(criteria, task::itemProcessed);
+        if (snapshot == null) {
+            throw new IllegalStateException("Could not load billing data from the database");
+        }
+        task.setStage("Aggregating " + snapshot.size() + " bills...");
+        visitor.visit(snapshot);
     }
 
-    private boolean matchesPaymentStatus(MedicalBill bill, String status) {
-        // Implement logic to match bill payment status
-        // This depends on how you track payment status in your MedicalBill class
-        switch (status) {
-            case "Paid":
-                return bill.getFinalAmount() == 0; // Assuming 0 means paid
-            case "Pending":
-                return bill.getFinalAmount() > 0; // Assuming > 0 means pending
-            case "Overdue":
-                // You'd need a date field to determine overdue
-                return bill.getFinalAmount() > 0; // Placeholder logic
-            default:
-                return true;
+    private void generateSystemWideReport(ReportVisitor visitor, ReportCriteria criteria, ReportTask task) {
+        // Patients, appointments and bills are streamed in three queries and merged per patient;
+        // the patient groups are then visited in parallel and the partial results merged.
+        // Each group is a progress checkpoint, so cancelling stops the scan mid-way.
+        task.setStage("Scanning patients, appointments and bills...");
+        boolean loaded = reportEngine.run(visitor, sink -> reportDataDAO.forEachPatientData(criteria, group -> {
+            task.itemProcessed();
+            sink.accept(group);
+        }));
+        if (!loaded) {
+            throw new IllegalStateException("Could not load report data from the database");
         }
     }
 
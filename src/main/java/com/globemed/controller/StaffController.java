@@ -1,6 +1,7 @@
 package com.globemed.controller;
 
 import com.globemed.auth.IUser;
+import com.globemed.db.AsyncDataAccess;
 import com.globemed.db.SchedulingDAO; // For Doctor CRUD
 import com.globemed.db.StaffDAO;
 import com.globemed.appointment.Doctor; // Doctor model
@@ -21,6 +22,7 @@ public class StaffController {
     private final IUser currentUser;
     private final JFrame mainFrame;
     private List<Staff> allStaff; // Cache the list of all staff members
+    private final AsyncDataAccess.Latest<Doctor> linkedDoctorLoad = AsyncDataAccess.latest();
 
     public StaffController(StaffPanel view, JFrame mainFrame, IUser currentUser) {
         this.view = view;
@@ -62,17 +64,15 @@ public class StaffController {
     }
 
     private void refreshStaffTable() {
-        try {
-            this.allStaff = dao.getAllStaff();
+        AsyncDataAccess.load(dao::getAllStaff, staff -> {
+            this.allStaff = staff;
             view.setStaffTableData(allStaff);
             view.clearForm();
             applyPermissions();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(mainFrame,
-                    "Error loading staff data: " + e.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        }, e -> JOptionPane.showMessageDialog(mainFrame,
+                "Error loading staff data: " + e.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE));
     }
 
     private void applyPermissions() {
@@ -116,6 +116,8 @@ public class StaffController {
     }
 
     private void populateFormFromTable() {
+        // Any doctor lookup for the previous selection is now stale
+        linkedDoctorLoad.cancel();
         Staff selectedStaff = view.getSelectedStaffFromTable(allStaff);
         if (selectedStaff != null) {
             view.staffIdField.setText(String.valueOf(selectedStaff.getStaffId()));
@@ -127,14 +129,15 @@ public class StaffController {
                 view.doctorLinkIdField.setText(selectedStaff.getDoctorId() != null ? selectedStaff.getDoctorId() : "");
                 // Fetch full doctor details if doctorId is linked
                 if (selectedStaff.getDoctorId() != null) {
-                    Doctor doctor = schedulingDAO.getDoctorById(selectedStaff.getDoctorId());
-                    if (doctor != null) {
-                        view.setDoctorDetails(doctor.getFullName(), doctor.getSpecialty()); // <-- Use helper
-                        view.setDoctorDetailsEditable(false); // Make them read-only if linked
-                    } else {
-                        view.setDoctorDetails("[Doctor Profile Missing]", ""); // <-- Use helper
-                        view.setDoctorDetailsEditable(true); // Allow editing if profile is missing
-                    }
+                    linkedDoctorLoad.load(() -> schedulingDAO.getDoctorById(selectedStaff.getDoctorId()), doctor -> {
+                        if (doctor != null) {
+                            view.setDoctorDetails(doctor.getFullName(), doctor.getSpecialty()); // <-- Use helper
+                            view.setDoctorDetailsEditable(false); // Make them read-only if linked
+                        } else {
+                            view.setDoctorDetails("[Doctor Profile Missing]", ""); // <-- Use helper
+                            view.setDoctorDetailsEditable(true); // Allow editing if profile is missing
+                        }
+                    });
                 } else { // Doctor role but no ID linked (e.g., old staff record)
                     view.setDoctorDetails("", ""); // <-- Use helper
                     view.setDoctorDetailsEditable(true); // Allow entering new details
@@ -156,8 +159,7 @@ public class StaffController {
             return;
         }
 
-        try {
-            Doctor doctor = schedulingDAO.getDoctorById(doctorId);
+        linkedDoctorLoad.load(() -> schedulingDAO.getDoctorById(doctorId), doctor -> {
             if (doctor != null) {
                 view.setDoctorDetails(doctor.getFullName(), doctor.getSpecialty());
                 view.setDoctorDetailsEditable(false); // Found, so make fields read-only
@@ -167,10 +169,11 @@ public class StaffController {
                 view.setDoctorDetailsEditable(true); // Allow user to fill new details
                 JOptionPane.showMessageDialog(view, "Doctor ID not found in the doctor's database. You can create a new profile.", "Information", JOptionPane.INFORMATION_MESSAGE);
             }
-        } catch (Exception e) {
+            applyPermissions(); // Re-apply to update button states
+        }, e -> {
             JOptionPane.showMessageDialog(view, "Error searching for doctor: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
-        applyPermissions(); // Re-apply to update button states
+            applyPermissions();
+        });
     }
 
 
@@ -0,0 +1,164 @@
+package com.globemed.db;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs DAO calls on a shared background executor so controllers never block the
+ * Swing event dispatch thread on the database.
+ * <p>
+ * Results and errors are handed back through the callback executor, which defaults to
+ * {@link SwingUtilities#invokeLater}, so callbacks may update Swing components directly.
+ * For lookups that are re-issued as the user changes a selection (a date spinner, a table
+ * row), use a {@link Latest} so only the most recent request ever reaches the UI.
+ */
+public final class AsyncDataAccess {
+    // Kept below the connection pool size so background reads never starve report scans
+    private static final int WORKERS = 4;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+    private static volatile Executor callbackExecutor = SwingUtilities::invokeLater;
+
+    private AsyncDataAccess() {}
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKERS, WORKERS, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "dao-worker-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Replaces the executor callbacks are delivered on. Intended for tests, which have no EDT.
+     */
+    static void setCallbackExecutor(Executor executor) {
+        callbackExecutor = executor;
+    }
+
+    /**
+     * Runs a DAO call in the background.
+     *
+     * @param query The DAO call.
+     * @return A future completed on a worker thread with the call's result.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, EXECUTOR);
+    }
+
+    /**
+     * Runs fire-and-forget background work, such as cache prefetching, on the DAO workers.
+     */
+    static void runInBackground(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * Runs a DAO call in the background and passes its result to {@code onSuccess} on the EDT.
+     * Errors are logged.
+     */
+    public static <T> CompletableFuture<T> load(Supplier<T> query, Consumer<T> onSuccess) {
+        return load(query, onSuccess, AsyncDataAccess::logError);
+    }
+
+    /**
+     * Runs a DAO call in the background and hands the outcome back on the EDT.
+     *
+     * @param query The DAO call.
+     * @param onSuccess Receives the result.
+     * @param onError Receives the exception thrown by the call.
+     * @return The background future.
+     */
+    public static <T> CompletableFuture<T> load(Supplier<T> query, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        CompletableFuture<T> future = supply(query);
+        future.whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else if (!(error instanceof CancellationException)) {
+                onError.accept(unwrap(error));
+            }
+        }, callbackExecutor);
+        return future;
+    }
+
+    /**
+     * Creates a request slot in which a new request supersedes the previous one.
+     */
+    public static <T> Latest<T> latest() {
+        return new Latest<>();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static void logError(Throwable error) {
+        System.err.println("Background database call failed: " + error.getMessage());
+        error.printStackTrace();
+    }
+
+    /**
+     * Coalesces rapidly repeated lookups of the same kind.
+     * <p>
+     * Starting a request cancels the one before it: if the earlier call is still queued it
+     * never runs, and if it is already running its result is dropped. Only the latest
+     * request's callbacks are delivered, so a slow stale answer can never overwrite a
+     * newer one in the UI.
+     */
+    public static final class Latest<T> {
+        private final AtomicLong generation = new AtomicLong();
+        private volatile CompletableFuture<T> current;
+
+        private Latest() {}
+
+        public void load(Supplier<T> query, Consumer<T> onSuccess) {
+            load(query, onSuccess, AsyncDataAccess::logError);
+        }
+
+        public void load(Supplier<T> query, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            long requestId = generation.incrementAndGet();
+            cancelCurrent();
+            current = AsyncDataAccess.load(query,
+                    result -> {
+                        if (requestId == generation.get()) {
+                            onSuccess.accept(result);
+                        }
+                    },
+                    error -> {
+                        if (requestId == generation.get()) {
+                            onError.accept(error);
+                        }
+                    });
+        }
+
+        /**
+         * Drops the pending request, if any, without starting a new one.
+         */
+        public void cancel() {
+            generation.incrementAndGet();
+            cancelCurrent();
+        }
+
+        private void cancelCurrent() {
+            CompletableFuture<T> previous = current;
+            if (previous != null) {
+                previous.cancel(false);
+            }
+        }
+    }
+}
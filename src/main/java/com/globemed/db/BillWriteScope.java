@@ -0,0 +1,167 @@
+package com.globemed.db;
+
+import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The summary rows a bill write transaction has to keep current: the patient_accounts rows
+ * of the patients involved and the revenue_daily cells their bills are counted in, before
+ * and after the write.
+ * <p>
+ * Opening a scope locks the account rows in patient ID order, then reads the stored bills
+ * the write may change with FOR UPDATE (primary key lookups). {@link #refresh} re-reads
+ * those bills, plus any the write inserted, and adds the difference to the account rows
+ * and then to the rollup cells, in cell order, as the transaction's last statements.
+ * Writers to the same patient queue on the account row; writers to the same rollup cell
+ * only hold it from that final update until commit.
+ * <p>
+ * When a bill leaves a rollup cell, that cell's bills are read with a shared lock to find
+ * its new minimum and maximum. If another transaction is meanwhile inserting bills into
+ * that cell and a neighbouring one, InnoDB can detect a deadlock and roll one writer back;
+ * the write then fails and is reported like any other database error.
+ */
+final class BillWriteScope {
+    private static final String STORED_BILL_COLUMNS = "bill_id, patient_id, billed_datetime, service_description, " +
+            "amount, final_amount, amount_paid, insurance_paid_amount";
+
+    private final Set<Integer> storedBillIds;
+    private final List<StoredBill> before;
+
+    private BillWriteScope(Set<Integer> storedBillIds, List<StoredBill> before) {
+        this.storedBillIds = storedBillIds;
+        this.before = before;
+    }
+
+    /**
+     * A bill's columns that feed the account and rollup rows, as stored.
+     */
+    static final class StoredBill {
+        final int billId;
+        final String patientId;
+        final LocalDateTime billedDateTime;
+        final String serviceDescription;
+        final long amountCents;
+        final long finalAmountCents;
+        final long amountPaidCents;
+        final long insurancePaidCents;
+
+        StoredBill(int billId, String patientId, LocalDateTime billedDateTime, String serviceDescription,
+                   long amountCents, long finalAmountCents, long amountPaidCents, long insurancePaidCents) {
+            this.billId = billId;
+            this.patientId = patientId;
+            this.billedDateTime = billedDateTime;
+            this.serviceDescription = serviceDescription;
+            this.amountCents = amountCents;
+            this.finalAmountCents = finalAmountCents;
+            this.amountPaidCents = amountPaidCents;
+            this.insurancePaidCents = insurancePaidCents;
+        }
+
+        /** Matches MedicalBill.getRemainingBalance(): max(0, final - paid). */
+        long outstandingCents() {
+            return Money.remaining(finalAmountCents, amountPaidCents);
+        }
+
+        boolean isOpen() {
+            return finalAmountCents > amountPaidCents;
+        }
+    }
+
+    /**
+     * Locks the accounts and stored bills for writing the given bills, whether new or already stored.
+     */
+    static BillWriteScope forBills(Connection conn, Collection<MedicalBill> bills) throws SQLException {
+        SortedSet<String> patientIds = PatientAccountDAO.patientIdsOf(bills);
+        PatientAccountDAO.lockAccounts(conn, patientIds);
+
+        Set<Integer> storedBillIds = new LinkedHashSet<>();
+        for (MedicalBill bill : bills) {
+            if (bill.getBillId() != 0) {
+                storedBillIds.add(bill.getBillId());
+            }
+        }
+        return new BillWriteScope(storedBillIds, readForUpdate(conn, storedBillIds));
+    }
+
+    /**
+     * Locks the account and the bill for writing a stored bill known only by its ID.
+     * If the bill does not exist, nothing is locked.
+     */
+    static BillWriteScope forBillId(Connection conn, int billId) throws SQLException {
+        SortedSet<String> patientIds = new TreeSet<>();
+        String patientId = PatientAccountDAO.findPatientIdOfBill(conn, billId);
+        if (patientId != null) {
+            patientIds.add(patientId);
+            PatientAccountDAO.lockAccounts(conn, patientIds);
+        }
+        Set<Integer> storedBillIds = Collections.singleton(billId);
+        return new BillWriteScope(storedBillIds, readForUpdate(conn, storedBillIds));
+    }
+
+    /**
+     * Brings the account and rollup rows up to date after a write that inserted no new bills.
+     */
+    void refresh(Connection conn) throws SQLException {
+        refresh(conn, Collections.emptyList());
+    }
+
+    /**
+     * Brings the account and rollup rows up to date after the write.
+     * @param insertedBillIds The IDs the write's new bills were given.
+     */
+    void refresh(Connection conn, Collection<Integer> insertedBillIds) throws SQLException {
+        Set<Integer> billIds = new LinkedHashSet<>(storedBillIds);
+        billIds.addAll(insertedBillIds);
+        List<StoredBill> after = readForUpdate(conn, billIds);
+        PatientAccountDAO.applyBillChanges(conn, before, after);
+        RevenueRollupDAO.applyBillChanges(conn, before, after);
+    }
+
+    /**
+     * Reads the given bills as currently stored, locking them. IDs that do not exist are ignored.
+     */
+    private static List<StoredBill> readForUpdate(Connection conn, Collection<Integer> billIds) throws SQLException {
+        List<StoredBill> bills = new ArrayList<>();
+        if (billIds.isEmpty()) {
+            return bills;
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + STORED_BILL_COLUMNS + " FROM billing WHERE bill_id IN (");
+        for (int i = 0; i < billIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") FOR UPDATE");
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Integer billId : billIds) {
+                pstmt.setInt(index++, billId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bills.add(new StoredBill(
+                            rs.getInt("bill_id"),
+                            rs.getString("patient_id"),
+                            rs.getTimestamp("billed_datetime").toLocalDateTime(),
+                            rs.getString("service_description"),
+                            Money.ofDecimal(rs.getBigDecimal("amount")),
+                            Money.ofDecimal(rs.getBigDecimal("final_amount")),
+                            Money.ofDecimal(rs.getBigDecimal("amount_paid")),
+                            Money.ofDecimal(rs.getBigDecimal("insurance_paid_amount"))));
+                }
+            }
+        }
+        return bills;
+    }
+}
@@ -1,6 +1,10 @@
 package com.globemed.db;
 
+import com.globemed.billing.BillEvent;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
+import com.globemed.billing.PaymentPosting;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -9,68 +13,265 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class BillingDAO {
+    // processing_log is no longer written; log entries are appended to bill_events instead
+    private static final String UPSERT_BILL_SQL = "INSERT INTO billing (bill_id, patient_id, service_description, amount, status, final_amount, insurance_policy_number, billed_datetime, amount_paid, insurance_paid_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "status = VALUES(status), final_amount = VALUES(final_amount), billed_datetime = VALUES(billed_datetime), amount_paid = VALUES(amount_paid), insurance_paid_amount = VALUES(insurance_paid_amount), version = version + 1";
+    private static final String INSERT_BILL_SQL = "INSERT INTO billing (patient_id, service_description, amount, status, final_amount, insurance_policy_number, billed_datetime, amount_paid, insurance_paid_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_EVENT_MESSAGE_LENGTH = 1000;
+    private static final String INSERT_EVENT_SQL = "INSERT INTO bill_events (bill_id, event_datetime, stage, message) VALUES (?, ?, ?, ?)";
 
     /**
      * Saves a medical bill to the database. This can be used for both
-     * creating a new bill and updating an existing one.
+     * creating a new bill and updating an existing one. Log entries added since the bill
+     * was loaded or last saved are appended to bill_events in the same transaction, and
+     * the patient's account balance and the daily revenue rollup are brought up to date.
      *
      * @param bill The MedicalBill object to save.
      * @return The billId of the saved bill, or -1 on failure.
      */
     public int saveBill(MedicalBill bill) {
-        String sql = "INSERT INTO billing (bill_id, patient_id, service_description, amount, status, processing_log, final_amount, insurance_policy_number, billed_datetime, amount_paid, insurance_paid_amount) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE " +
-                "status = VALUES(status), processing_log = VALUES(processing_log), final_amount = VALUES(final_amount), billed_datetime = VALUES(billed_datetime), amount_paid = VALUES(amount_paid), insurance_paid_amount = VALUES(insurance_paid_amount)";
-
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            if (bill.getBillId() == 0) {
-                pstmt.setNull(1, java.sql.Types.INTEGER);
-            } else {
-                pstmt.setInt(1, bill.getBillId());
-            }
-            pstmt.setString(2, bill.getPatientId());
-            pstmt.setString(3, bill.getServiceDescription());
-            pstmt.setDouble(4, bill.getAmount());
-            pstmt.setString(5, bill.getStatus());
-            pstmt.setString(6, bill.getProcessingLog());
-            pstmt.setDouble(7, bill.getFinalAmount());
-            // Store the plan name for historical record
-            pstmt.setString(8, bill.getAppliedInsurancePlan() != null ? bill.getAppliedInsurancePlan().getPlanName() : null);
-
-            if (bill.getBilledDateTime() != null) {
-                pstmt.setTimestamp(9, Timestamp.valueOf(bill.getBilledDateTime()));
-            } else {
-                pstmt.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
+        List<BillEvent> events = bill.getPendingEvents();
+        int billId = -1;
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                BillWriteScope scope = BillWriteScope.forBills(conn, List.of(bill));
+                try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_BILL_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    if (bill.getBillId() == 0) {
+                        pstmt.setNull(1, java.sql.Types.INTEGER);
+                    } else {
+                        pstmt.setInt(1, bill.getBillId());
+                    }
+                    bindBillColumns(pstmt, bill, 2);
+
+                    int affectedRows = pstmt.executeUpdate();
+
+                    if (affectedRows > 0) {
+                        if (bill.getBillId() == 0) {
+                            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                                if (generatedKeys.next()) {
+                                    billId = generatedKeys.getInt(1);
+                                }
+                            }
+                        } else {
+                            billId = bill.getBillId();
+                        }
+                    }
+                }
+                if (billId == -1) {
+                    conn.rollback();
+                    return -1;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_EVENT_SQL)) {
+                    addEvents(pstmt, billId, events);
+                    pstmt.executeBatch();
+                }
+                scope.refresh(conn, List.of(billId));
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
             }
+        } catch (SQLException e) {
+            System.err.println("Error saving bill: " + e.getMessage());
+            e.printStackTrace(); // Add full stack trace for debugging
+            return -1;
+        }
+        bill.eventsSaved(events.size());
+        return billId;
+    }
 
-            pstmt.setDouble(10, bill.getAmountPaid());
-            pstmt.setDouble(11, bill.getInsurancePaidAmount());
+    /**
+     * Saves many bills with JDBC batches, committing once per chunk of
+     * {@code db.batch.chunkSize} bills instead of once per bill. Within a chunk, new bills
+     * are inserted in one batch and receive their generated IDs, bills that already have an
+     * ID are upserted in a second batch, and every bill's new log entries go to bill_events
+     * in a third. The account balance of each patient in the chunk and each touched
+     * daily revenue rollup cell are updated once.
+     * <p>
+     * Chunks are saved in order and the first failing chunk stops the run. Its bills and
+     * those after it are left unsaved with their IDs untouched; earlier chunks stay committed.
+     *
+     * @param bills The bills to save; new bills get their billId set once their chunk commits.
+     * @return true if every bill was saved, false if a chunk was rolled back.
+     */
+    public boolean saveBills(Collection<MedicalBill> bills) {
+        List<MedicalBill> pending = new ArrayList<>(bills);
+        int chunkSize = DatabaseManager.getBatchChunkSize();
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            if (!saveBillChunk(pending.subList(from, Math.min(pending.size(), from + chunkSize)))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-            int affectedRows = pstmt.executeUpdate();
+    /**
+     * Saves one chunk of bills in a single transaction.
+     */
+    private boolean saveBillChunk(List<MedicalBill> bills) {
+        List<MedicalBill> newBills = new ArrayList<>();
+        List<MedicalBill> existingBills = new ArrayList<>();
+        for (MedicalBill bill : bills) {
+            (bill.getBillId() == 0 ? newBills : existingBills).add(bill);
+        }
+        if (newBills.isEmpty() && existingBills.isEmpty()) {
+            return true;
+        }
 
-            if (affectedRows > 0) {
-                if (bill.getBillId() == 0) {
-                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                        if (generatedKeys.next()) {
-                            return generatedKeys.getInt(1);
+        int[] generatedIds = new int[newBills.size()];
+        List<Integer> insertedIds = new ArrayList<>();
+        List<List<BillEvent>> newBillEvents = new ArrayList<>();
+        List<List<BillEvent>> existingBillEvents = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                BillWriteScope scope = BillWriteScope.forBills(conn, bills);
+                if (!newBills.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(INSERT_BILL_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                        for (MedicalBill bill : newBills) {
+                            bindBillColumns(pstmt, bill, 1);
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                            for (int i = 0; i < generatedIds.length; i++) {
+                                if (!generatedKeys.next()) {
+                                    throw new SQLException("Expected " + generatedIds.length + " generated bill IDs, got " + i);
+                                }
+                                generatedIds[i] = generatedKeys.getInt(1);
+                                insertedIds.add(generatedIds[i]);
+                            }
                         }
                     }
-                } else {
-                    return bill.getBillId();
                 }
+                if (!existingBills.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_BILL_SQL)) {
+                        for (MedicalBill bill : existingBills) {
+                            pstmt.setInt(1, bill.getBillId());
+                            bindBillColumns(pstmt, bill, 2);
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                    }
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_EVENT_SQL)) {
+                    for (int i = 0; i < newBills.size(); i++) {
+                        newBillEvents.add(newBills.get(i).getPendingEvents());
+                        addEvents(pstmt, generatedIds[i], newBillEvents.get(i));
+                    }
+                    for (MedicalBill bill : existingBills) {
+                        existingBillEvents.add(bill.getPendingEvents());
+                        addEvents(pstmt, bill.getBillId(), existingBillEvents.get(existingBillEvents.size() - 1));
+                    }
+                    pstmt.executeBatch();
+                }
+                scope.refresh(conn, insertedIds);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
             }
+        } catch (SQLException e) {
+            System.err.println("Error saving batch of " + bills.size() + " bills: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+
+        // Only hand out IDs and drop the buffered log entries once they are committed
+        for (int i = 0; i < generatedIds.length; i++) {
+            newBills.get(i).setBillId(generatedIds[i]);
+            newBills.get(i).eventsSaved(newBillEvents.get(i).size());
+        }
+        for (int i = 0; i < existingBills.size(); i++) {
+            existingBills.get(i).eventsSaved(existingBillEvents.get(i).size());
+        }
+        System.out.println("Saved batch of " + newBills.size() +
+                " new and " + existingBills.size() + " existing bills");
+        return true;
+    }
+
+    /**
+     * Binds every billing column except bill_id, starting at the given parameter index.
+     */
+    private static void bindBillColumns(PreparedStatement pstmt, MedicalBill bill, int index) throws SQLException {
+        pstmt.setString(index, bill.getPatientId());
+        pstmt.setString(index + 1, bill.getServiceDescription());
+        pstmt.setBigDecimal(index + 2, Money.toDecimal(bill.getAmountCents()));
+        pstmt.setString(index + 3, bill.getStatus());
+        pstmt.setBigDecimal(index + 4, Money.toDecimal(bill.getFinalAmountCents()));
+        // Store the plan name for historical record
+        pstmt.setString(index + 5, bill.getAppliedInsurancePlan() != null ? bill.getAppliedInsurancePlan().getPlanName() : null);
+        pstmt.setTimestamp(index + 6, Timestamp.valueOf(bill.getBilledDateTime() != null ? bill.getBilledDateTime() : LocalDateTime.now()));
+        pstmt.setBigDecimal(index + 7, Money.toDecimal(bill.getAmountPaidCents()));
+        pstmt.setBigDecimal(index + 8, Money.toDecimal(bill.getInsurancePaidCents()));
+    }
 
+    /**
+     * Adds one INSERT_EVENT_SQL batch entry per event.
+     */
+    private static void addEvents(PreparedStatement pstmt, int billId, List<BillEvent> events) throws SQLException {
+        for (BillEvent event : events) {
+            pstmt.setInt(1, billId);
+            pstmt.setTimestamp(2, Timestamp.valueOf(event.getTimestamp()));
+            pstmt.setString(3, event.getStage());
+            String message = event.getMessage();
+            pstmt.setString(4, message.length() > MAX_EVENT_MESSAGE_LENGTH ? message.substring(0, MAX_EVENT_MESSAGE_LENGTH) : message);
+            pstmt.addBatch();
+        }
+    }
+
+    /**
+     * Loads a bill's full processing log: the log text older versions stored on the billing
+     * row, followed by its bill_events in the order they were written. Bills are loaded
+     * without their log, so this is the only place it is read.
+     *
+     * @param billId The ID of the bill.
+     * @return The log text, or null if the bill does not exist or a database error occurred.
+     */
+    public String getBillLog(int billId) {
+        String legacySql = "SELECT processing_log FROM billing WHERE bill_id = ?";
+        String eventsSql = "SELECT event_datetime, stage, message FROM bill_events WHERE bill_id = ? ORDER BY event_id";
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            StringBuilder log = new StringBuilder();
+            try (PreparedStatement pstmt = conn.prepareStatement(legacySql)) {
+                pstmt.setInt(1, billId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    String legacyLog = rs.getString("processing_log");
+                    if (legacyLog != null) {
+                        log.append(legacyLog);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(eventsSql)) {
+                pstmt.setInt(1, billId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        BillEvent event = new BillEvent(rs.getTimestamp("event_datetime").toLocalDateTime(),
+                                rs.getString("stage"), rs.getString("message"));
+                        log.append(event.toLogLine()).append("\n");
+                    }
+                }
+            }
+            return log.toString();
         } catch (SQLException e) {
-            System.err.println("Error saving bill: " + e.getMessage());
-            e.printStackTrace(); // Add full stack trace for debugging
+            System.err.println("Error fetching log for bill ID " + billId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
         }
-        return -1;
     }
 
     /**
@@ -82,7 +283,7 @@ public class BillingDAO {
         List<MedicalBill> bills = new ArrayList<>();
 
         // Try with insurance_paid_amount first, fallback if column doesn't exist
-        String sql = "SELECT bill_id, patient_id, service_description, amount, status, processing_log, final_amount, billed_datetime, amount_paid, " +
+        String sql = "SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid, version, " +
                 "COALESCE(insurance_paid_amount, 0.0) as insurance_paid_amount FROM billing WHERE patient_id = ? ORDER BY billed_datetime DESC";
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -105,12 +306,66 @@ public class BillingDAO {
         return bills;
     }
 
+    /**
+     * Searches for a patient's bills that match the given report criteria.
+     * The date range, service and payment status are applied in SQL.
+     * @param patientId The ID of the patient to search for.
+     * @param criteria The report filters to apply.
+     * @return A list of matching MedicalBill objects, newest first.
+     */
+    public List<MedicalBill> getBillsByPatientId(String patientId, ReportCriteria criteria) {
+        List<MedicalBill> bills = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid, version, " +
+                "COALESCE(insurance_paid_amount, 0.0) as insurance_paid_amount FROM billing WHERE patient_id = ?");
+        criteria.appendBillConditions(sql, params, "");
+        sql.append(" ORDER BY billed_datetime DESC");
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            pstmt.setString(1, patientId);
+            ReportCriteria.bind(pstmt, params, 2);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                bills.add(createBillFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error fetching filtered bills for patient " + patientId + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return bills;
+    }
+
+    /**
+     * Retrieves the distinct service descriptions used on bills.
+     * @return A sorted list of service descriptions.
+     */
+    public List<String> getDistinctServiceDescriptions() {
+        List<String> services = new ArrayList<>();
+        String sql = "SELECT DISTINCT service_description FROM billing ORDER BY service_description";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                services.add(rs.getString("service_description"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error fetching service descriptions: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return services;
+    }
+
     /**
      * Fallback method if insurance_paid_amount column doesn't exist
      */
     private List<MedicalBill> getBillsByPatientIdFallback(String patientId) {
         List<MedicalBill> bills = new ArrayList<>();
-        String sql = "SELECT bill_id, patient_id, service_description, amount, status, processing_log, final_amount, billed_datetime, amount_paid FROM billing WHERE patient_id = ? ORDER BY billed_datetime DESC";
+        String sql = "SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid FROM billing WHERE patient_id = ? ORDER BY billed_datetime DESC";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -135,7 +390,7 @@ public class BillingDAO {
      * @return MedicalBill object if found, null otherwise.
      */
     public MedicalBill getBillById(int billId) {
-        String sql = "SELECT bill_id, patient_id, service_description, amount, status, processing_log, final_amount, billed_datetime, amount_paid, " +
+        String sql = "SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid, version, " +
                 "COALESCE(insurance_paid_amount, 0.0) as insurance_paid_amount FROM billing WHERE bill_id = ?";
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -155,45 +410,46 @@ public class BillingDAO {
     }
 
     /**
-     * Helper method to create MedicalBill from ResultSet
+     * Helper method to create MedicalBill from ResultSet.
+     * Shared with the other DAOs that read billing rows.
+     */
+    static MedicalBill createBillFromResultSet(ResultSet rs) throws SQLException {
+        return createBillFromResultSet(rs, SymbolTable.shared());
+    }
+
+    /**
+     * Maps a billing row, taking the service description and status from the given symbol table.
      */
-    private MedicalBill createBillFromResultSet(ResultSet rs) throws SQLException {
+    static MedicalBill createBillFromResultSet(ResultSet rs, SymbolTable symbols) throws SQLException {
         LocalDateTime billedDateTime = null;
         Timestamp timestamp = rs.getTimestamp("billed_datetime");
         if (timestamp != null) {
             billedDateTime = timestamp.toLocalDateTime();
         }
 
-        // Get values with debugging
         int billId = rs.getInt("bill_id");
         String patientId = rs.getString("patient_id");
-        String serviceDescription = rs.getString("service_description");
-        double amount = rs.getDouble("amount");
-        String status = rs.getString("status");
-        String processingLog = rs.getString("processing_log");
-        double finalAmount = rs.getDouble("final_amount");
-        double amountPaid = rs.getDouble("amount_paid");
-        double insurancePaidAmount = rs.getDouble("insurance_paid_amount");
-
-        // DEBUG: Print database values
-        System.out.println("createBillFromResultSet for bill ID " + billId + ":");
-        System.out.println("  DB amount: " + amount);
-        System.out.println("  DB finalAmount: " + finalAmount);
-        System.out.println("  DB amountPaid: " + amountPaid);
-        System.out.println("  DB insurancePaidAmount: " + insurancePaidAmount);
-
-        return new MedicalBill(
+        String serviceDescription = symbols.intern(rs.getString("service_description"));
+        long amountCents = Money.ofDecimal(rs.getBigDecimal("amount"));
+        String status = symbols.intern(rs.getString("status"));
+        long finalAmountCents = Money.ofDecimal(rs.getBigDecimal("final_amount"));
+        long amountPaidCents = Money.ofDecimal(rs.getBigDecimal("amount_paid"));
+        long insurancePaidCents = Money.ofDecimal(rs.getBigDecimal("insurance_paid_amount"));
+
+        MedicalBill bill = MedicalBill.fromCents(
                 billId,
                 patientId,
                 serviceDescription,
-                amount,
+                amountCents,
                 status,
-                processingLog,
-                finalAmount,
+                null, // The log is loaded on demand by getBillLog
+                finalAmountCents,
                 billedDateTime,
-                amountPaid,
-                insurancePaidAmount
+                amountPaidCents,
+                insurancePaidCents
         );
+        bill.setVersion(rs.getInt("version"));
+        return bill;
     }
 
     /**
@@ -206,42 +462,197 @@ public class BillingDAO {
             billedDateTime = timestamp.toLocalDateTime();
         }
 
-        return new MedicalBill(
+        SymbolTable symbols = SymbolTable.shared();
+        return MedicalBill.fromCents(
                 rs.getInt("bill_id"),
                 rs.getString("patient_id"),
-                rs.getString("service_description"),
-                rs.getDouble("amount"),
-                rs.getString("status"),
-                rs.getString("processing_log"),
-                rs.getDouble("final_amount"),
+                symbols.intern(rs.getString("service_description")),
+                Money.ofDecimal(rs.getBigDecimal("amount")),
+                symbols.intern(rs.getString("status")),
+                null,
+                Money.ofDecimal(rs.getBigDecimal("final_amount")),
                 billedDateTime,
-                rs.getDouble("amount_paid"),
-                0.0 // Default insurance paid amount
+                Money.ofDecimal(rs.getBigDecimal("amount_paid")),
+                0 // Default insurance paid amount
         );
     }
 
     /**
-     * Updates the amount paid and status of an existing bill.
-     * @param billId The ID of the bill to update.
-     * @param newAmountPaid The total amount currently paid by the patient.
-     * @param newInsurancePaidAmount The total amount currently paid by insurance.
-     * @param newStatus The new status of the bill.
-     * @return true if the update was successful, false otherwise.
+     * Adds a payment to a bill in one atomic UPDATE, instead of reading the bill, adding in
+     * Java and writing absolute totals back, so concurrent cashier and insurance postings
+     * never overwrite each other. The status is derived in the same statement: "Paid" once
+     * patient and insurance payments cover the billed amount, otherwise "Partially Paid".
+     * The row is locked only for this UPDATE, the matching bill_events insert and the
+     * patient's account and bill's revenue rollup cell being moved by the payment. A payment
+     * never moves a bill to another rollup cell, so no other bills are read or locked.
+     * <p>
+     * With an expected version, the payment is only posted if the bill is unchanged since the
+     * caller read it, e.g. because a cashier confirmed the amount against the balance shown.
+     * Every bill write increments the version.
+     *
+     * @param billId The ID of the bill.
+     * @param amountCents The amount received in cents; must be at least one cent.
+     * @param source Who paid, which decides whether amount_paid or insurance_paid_amount grows.
+     * @param expectedVersion The version the caller read, or null to post regardless.
+     * @return The outcome, with the bill as stored after the posting.
      */
-    public boolean updateAmountPaidAndStatus(int billId, double newAmountPaid, double newInsurancePaidAmount, String newStatus) {
-        String sql = "UPDATE billing SET amount_paid = ?, insurance_paid_amount = ?, status = ? WHERE bill_id = ?";
+    public PaymentPosting postPayment(int billId, long amountCents, PaymentPosting.Source source, Integer expectedVersion) {
+        if (amountCents <= 0) {
+            throw new IllegalArgumentException("Payment amount must be positive: " + Money.format(amountCents));
+        }
+        String column = source == PaymentPosting.Source.INSURANCE ? "insurance_paid_amount" : "amount_paid";
+        // MySQL applies single-table SET assignments left to right, so status sees the new total
+        String sql = "UPDATE billing SET " + column + " = " + column + " + ?, " +
+                "status = CASE WHEN amount_paid + insurance_paid_amount >= amount THEN 'Paid' ELSE 'Partially Paid' END, " +
+                "version = version + 1 WHERE bill_id = ?" + (expectedVersion != null ? " AND version = ?" : "");
+        String readSql = "SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid, version, " +
+                "insurance_paid_amount FROM billing WHERE bill_id = ?";
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                BillWriteScope scope = BillWriteScope.forBillId(conn, billId);
+                int updated;
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setBigDecimal(1, Money.toDecimal(amountCents));
+                    pstmt.setInt(2, billId);
+                    if (expectedVersion != null) {
+                        pstmt.setInt(3, expectedVersion);
+                    }
+                    updated = pstmt.executeUpdate();
+                }
+
+                if (updated > 0) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(INSERT_EVENT_SQL)) {
+                        addEvents(pstmt, billId, List.of(new BillEvent(LocalDateTime.now(), source.getStage(),
+                                String.format("%s of $%s received.", source.getDescription(), Money.format(amountCents)))));
+                        pstmt.executeBatch();
+                    }
+                    scope.refresh(conn);
+                }
+
+                MedicalBill bill = null;
+                try (PreparedStatement pstmt = conn.prepareStatement(readSql)) {
+                    pstmt.setInt(1, billId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            bill = createBillFromResultSet(rs);
+                        }
+                    }
+                }
+                conn.commit();
+
+                if (updated == 0) {
+                    System.out.println("Payment to bill " + billId +
+                            " not posted, bill changed since version " + expectedVersion);
+                    return new PaymentPosting(PaymentPosting.Outcome.STALE, bill);
+                }
+                System.out.println("Posted " + source + " payment of " + Money.format(amountCents) + " to bill " + billId);
+                return new PaymentPosting(PaymentPosting.Outcome.POSTED, bill);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error posting payment to bill ID " + billId + ": " + e.getMessage());
+            e.printStackTrace();
+            return new PaymentPosting(PaymentPosting.Outcome.FAILED, null);
+        }
+    }
+
+    /**
+     * Finds bills whose insurance share was never recorded: the patient's final amount is
+     * below the billed amount but insurance_paid_amount is still zero. One set-based query.
+     * @return The candidate bills, oldest first.
+     */
+    public List<MedicalBill> getBillsMissingInsurancePayment() {
+        List<MedicalBill> bills = new ArrayList<>();
+        String sql = "SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid, version, " +
+                "insurance_paid_amount FROM billing WHERE insurance_paid_amount = 0 AND amount > final_amount ORDER BY bill_id";
+
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDouble(1, newAmountPaid);
-            pstmt.setDouble(2, newInsurancePaidAmount);
-            pstmt.setString(3, newStatus);
-            pstmt.setInt(4, billId);
-            return pstmt.executeUpdate() > 0;
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                bills.add(createBillFromResultSet(rs));
+            }
         } catch (SQLException e) {
-            System.err.println("Error updating amount paid and status for bill ID " + billId + ": " + e.getMessage());
+            System.err.println("Error fetching bills missing insurance payments: " + e.getMessage());
             e.printStackTrace();
-            return false;
         }
+        return bills;
+    }
+
+    /**
+     * Stores the insurance paid amount of bills found by {@link #getBillsMissingInsurancePayment},
+     * committing once per chunk of {@code db.batch.chunkSize} bills. A bill is only updated if it
+     * still has no insurance payment recorded, so a payment posted since it was read is never
+     * overwritten. Each updated bill's pending log entries are appended to bill_events.
+     * <p>
+     * The status is derived from the new insurance amount in the same statement, because a
+     * bill loaded with its missing insurance share shown may already have had its patient
+     * share paid: {@link #postPayment} then saw no insurance and stored "Partially Paid".
+     *
+     * @param bills The bills with their corrected insurance paid amount set.
+     * @return The bills that were updated. On a database error, the bills of the chunks committed before it.
+     */
+    public List<MedicalBill> applyInsuranceCorrections(Collection<MedicalBill> bills) {
+        List<MedicalBill> pending = new ArrayList<>(bills);
+        List<MedicalBill> updated = new ArrayList<>();
+        int chunkSize = DatabaseManager.getBatchChunkSize();
+        String sql = "UPDATE billing SET insurance_paid_amount = ?, " +
+                "status = CASE WHEN amount_paid + ? >= amount THEN 'Paid' WHEN amount_paid + ? > 0 THEN 'Partially Paid' ELSE status END, " +
+                "version = version + 1 WHERE bill_id = ? AND insurance_paid_amount = 0";
+
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<MedicalBill> chunk = pending.subList(from, Math.min(pending.size(), from + chunkSize));
+            List<MedicalBill> chunkUpdated = new ArrayList<>();
+            List<List<BillEvent>> chunkEvents = new ArrayList<>();
+            try (Connection conn = DatabaseManager.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    BillWriteScope scope = BillWriteScope.forBills(conn, chunk);
+                    int[] counts;
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (MedicalBill bill : chunk) {
+                            BigDecimal insurancePaid = Money.toDecimal(bill.getInsurancePaidCents());
+                            pstmt.setBigDecimal(1, insurancePaid);
+                            pstmt.setBigDecimal(2, insurancePaid);
+                            pstmt.setBigDecimal(3, insurancePaid);
+                            pstmt.setInt(4, bill.getBillId());
+                            pstmt.addBatch();
+                        }
+                        counts = pstmt.executeBatch();
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(INSERT_EVENT_SQL)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                                MedicalBill bill = chunk.get(i);
+                                chunkUpdated.add(bill);
+                                chunkEvents.add(bill.getPendingEvents());
+                                addEvents(pstmt, bill.getBillId(), chunkEvents.get(chunkEvents.size() - 1));
+                            }
+                        }
+                        pstmt.executeBatch();
+                    }
+                    scope.refresh(conn);
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error applying insurance corrections to batch of " + chunk.size() + " bills: " + e.getMessage());
+                e.printStackTrace();
+                return updated;
+            }
+            for (int i = 0; i < chunkUpdated.size(); i++) {
+                chunkUpdated.get(i).eventsSaved(chunkEvents.get(i).size());
+            }
+            updated.addAll(chunkUpdated);
+        }
+        return updated;
     }
 
     /**
@@ -250,7 +661,7 @@ public class BillingDAO {
      */
     public List<MedicalBill> getAllBills() {
         List<MedicalBill> bills = new ArrayList<>();
-        String sql = "SELECT bill_id, patient_id, service_description, amount, status, processing_log, final_amount, billed_datetime, amount_paid, " +
+        String sql = "SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid, version, " +
                 "COALESCE(insurance_paid_amount, 0.0) as insurance_paid_amount FROM billing ORDER BY billed_datetime DESC";
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -270,17 +681,70 @@ public class BillingDAO {
     }
 
     /**
-     * Deletes a bill from the database by its ID.
+     * Streams every bill to the given action without materializing the ledger.
+     * Rows are read one at a time from the server, so memory use stays constant
+     * regardless of the number of bills.
+     * @param action Called once per bill, newest first.
+     * @return true if every bill was read, false if a database error occurred.
+     */
+    public boolean forEachBill(Consumer<MedicalBill> action) {
+        return forEachBill(ReportCriteria.all(), action);
+    }
+
+    /**
+     * Streams the bills matching the criteria to the given action.
+     * @param criteria Date range, service and payment status filters, applied in SQL.
+     * @param action Called once per matching bill, newest first.
+     * @return true if every matching bill was read, false if a database error occurred.
+     */
+    public boolean forEachBill(ReportCriteria criteria, Consumer<MedicalBill> action) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT bill_id, patient_id, service_description, amount, status, final_amount, billed_datetime, amount_paid, version, " +
+                "COALESCE(insurance_paid_amount, 0.0) as insurance_paid_amount FROM billing WHERE 1 = 1");
+        criteria.appendBillConditions(sql, params, "");
+        sql.append(" ORDER BY billed_datetime DESC");
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, sql.toString())) {
+
+            ReportCriteria.bind(pstmt, params, 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(createBillFromResultSet(rs));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error streaming bills: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Deletes a bill from the database by its ID and takes it out of the patient's account
+     * balance and the daily revenue rollup.
      * @param billId The ID of the bill to delete.
      * @return true if deletion was successful, false otherwise.
      */
     public boolean deleteBill(int billId) {
         String sql = "DELETE FROM billing WHERE bill_id = ?";
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, billId);
-            return pstmt.executeUpdate() > 0;
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                BillWriteScope scope = BillWriteScope.forBillId(conn, billId);
+                boolean deleted;
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, billId);
+                    deleted = pstmt.executeUpdate() > 0;
+                }
+                scope.refresh(conn);
+                conn.commit();
+                return deleted;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             System.err.println("Error deleting bill: " + e.getMessage());
             e.printStackTrace();
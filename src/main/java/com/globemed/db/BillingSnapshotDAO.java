@@ -0,0 +1,63 @@
+package com.globemed.db;
+
+import com.globemed.reports.BillingSnapshot;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads bills straight into a columnar {@link BillingSnapshot} for analytics reports.
+ * <p>
+ * Only the columns the snapshot keeps are selected, and rows are streamed into the
+ * snapshot's arrays without building a {@code MedicalBill} per row, so loading a large
+ * ledger allocates little beyond the columns themselves.
+ */
+public class BillingSnapshotDAO {
+    // The day comes back as days since the epoch and amounts as whole cents, so each row
+    // is read with getInt/getLong instead of building a Timestamp or going through double
+    private static final String SNAPSHOT_SELECT =
+            "SELECT patient_id, service_description, status, DATEDIFF(billed_datetime, '1970-01-01'), ROUND(amount * 100), " +
+            "ROUND(COALESCE(final_amount, 0) * 100), ROUND(COALESCE(amount_paid, 0) * 100), " +
+            "ROUND(COALESCE(insurance_paid_amount, 0) * 100) " +
+            "FROM billing WHERE 1 = 1";
+
+    /**
+     * Loads the bills matching the criteria into a snapshot.
+     * @param criteria Date range, service and payment status filters, applied in SQL.
+     * @param rowLoaded Called after each row, e.g. to report progress; may throw to abort the load.
+     * @return The snapshot, or null if a database error occurred.
+     */
+    public BillingSnapshot loadSnapshot(ReportCriteria criteria, Runnable rowLoaded) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SNAPSHOT_SELECT);
+        criteria.appendBillConditions(sql, params, "");
+
+        BillingSnapshot.Builder builder = new BillingSnapshot.Builder();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, sql.toString())) {
+
+            ReportCriteria.bind(pstmt, params, 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    builder.add(rs.getString(1), rs.getString(2), rs.getString(3), rs.getInt(4),
+                            rs.getLong(5), rs.getLong(6), rs.getLong(7), rs.getLong(8));
+                    rowLoaded.run();
+                }
+            } catch (RuntimeException e) {
+                // Closing a streaming result set drains the remaining rows; stop the server first
+                pstmt.cancel();
+                throw e;
+            }
+            BillingSnapshot snapshot = builder.build();
+            System.out.println("Loaded billing snapshot " + snapshot);
+            return snapshot;
+        } catch (SQLException e) {
+            System.err.println("Error loading billing snapshot: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
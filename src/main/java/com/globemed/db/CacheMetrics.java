@@ -0,0 +1,40 @@
+package com.globemed.db;
+
+/**
+ * An immutable point-in-time snapshot of a cache's hit, miss and eviction counters.
+ */
+public class CacheMetrics {
+    private final String name;
+    private final long hits;
+    private final long misses;
+    private final long invalidations;
+    private final long evictions;
+    private final int size;
+
+    public CacheMetrics(String name, long hits, long misses, long invalidations, long evictions, int size) {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.invalidations = invalidations;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public String getName() { return name; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getInvalidations() { return invalidations; }
+    public long getEvictions() { return evictions; }
+    public int getSize() { return size; }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheMetrics{%s: size=%d, hits=%d, misses=%d, invalidations=%d, evictions=%d, hitRate=%.1f%%}",
+                name, size, hits, misses, invalidations, evictions, getHitRate() * 100);
+    }
+}
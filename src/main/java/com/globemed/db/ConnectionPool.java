@@ -0,0 +1,540 @@
+package com.globemed.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded JDBC connection pool.
+ * <p>
+ * Connections handed out are proxies: calling {@code close()} returns the physical
+ * connection to the pool instead of closing it, so the DAOs' try-with-resources blocks
+ * keep working unchanged. Threads that cannot be served immediately wait in a strict
+ * FIFO queue and idle connections are handed directly to the longest waiter.
+ * A background housekeeper evicts idle connections above the minimum size, tops the
+ * pool back up to the minimum and reports connections held longer than the leak
+ * detection threshold together with the stack trace of the code that borrowed them.
+ * <p>
+ * Each physical connection also keeps a {@link StatementCache}, so the DAOs' constant
+ * SQL strings are parsed and planned once per connection rather than once per call.
+ */
+public class ConnectionPool {
+
+    /**
+     * Opens new physical connections for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    // Connections used this recently are assumed alive and skip the validation round trip.
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long connectionTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final Set<PooledEntry> borrowed = new HashSet<>();
+    private final Deque<Waiter> waitQueue = new ArrayDeque<>();
+    private int totalConnections; // idle + borrowed + currently being opened
+    private boolean closed;
+
+    private final ScheduledExecutorService housekeeper;
+
+    private final LatencyHistogram borrowLatency = new LatencyHistogram();
+    private final AtomicLong totalBorrows = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsEvicted = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long connectionTimeoutMillis,
+                          long idleTimeoutMillis, long leakDetectionThresholdMillis, long housekeepingPeriodMillis,
+                          int statementCacheSize) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "globemed-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingPeriodMillis,
+                housekeepingPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured connection timeout.
+     * @return A pooled connection; closing it returns it to the pool.
+     * @throws SQLException if no connection becomes available in time or one cannot be opened.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMillis);
+
+        while (true) {
+            PooledEntry entry = null;
+            boolean mustCreate = false;
+
+            lock.lock();
+            try {
+                if (closed) {
+                    throw new SQLException("Connection pool has been shut down");
+                }
+                // Newcomers may only take a connection directly when nobody is queued ahead of them.
+                if (waitQueue.isEmpty()) {
+                    entry = idle.pollFirst();
+                    if (entry == null && totalConnections < maxSize) {
+                        totalConnections++;
+                        mustCreate = true;
+                    }
+                }
+                if (entry == null && !mustCreate) {
+                    Waiter waiter = awaitTurn(deadline);
+                    entry = waiter.handedOff;
+                    mustCreate = waiter.mayCreate;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustCreate) {
+                entry = openEntry();
+            } else if (!isUsable(entry)) {
+                discard(entry);
+                continue;
+            }
+
+            lock.lock();
+            try {
+                borrowed.add(entry);
+            } finally {
+                lock.unlock();
+            }
+            entry.onBorrow();
+            totalBorrows.incrementAndGet();
+            borrowLatency.record(System.nanoTime() - start);
+            return entry.newProxy(this);
+        }
+    }
+
+    /**
+     * Parks the calling thread in the FIFO wait queue. Must be called with the lock held.
+     */
+    private Waiter awaitTurn(long deadline) throws SQLException {
+        Waiter waiter = new Waiter(lock.newCondition());
+        waitQueue.addLast(waiter);
+        try {
+            long remaining = deadline - System.nanoTime();
+            while (waiter.handedOff == null && !waiter.mayCreate && !closed && remaining > 0) {
+                remaining = waiter.condition.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (waiter.handedOff == null && !waiter.mayCreate) {
+                waitQueue.remove(waiter);
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+        }
+        if (waiter.handedOff == null && !waiter.mayCreate) {
+            waitQueue.remove(waiter);
+            if (closed) {
+                throw new SQLException("Connection pool has been shut down");
+            }
+            borrowTimeouts.incrementAndGet();
+            throw new SQLTimeoutException("Timed out after " + connectionTimeoutMillis +
+                    "ms waiting for a database connection (" + snapshotLocked() + ")");
+        }
+        return waiter;
+    }
+
+    private PooledEntry openEntry() throws SQLException {
+        try {
+            Connection physical = factory.create();
+            connectionsCreated.incrementAndGet();
+            return newEntry(physical);
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                totalConnections--;
+                grantCreatePermit();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private PooledEntry newEntry(Connection physical) {
+        StatementCache cache = statementCacheSize > 0
+                ? new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses, statementCacheEvictions)
+                : null;
+        return new PooledEntry(physical, cache);
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastReturnedAt < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. Called by the proxy's {@code close()}.
+     */
+    void release(PooledEntry entry) {
+        boolean healthy = entry.resetForReuse();
+
+        lock.lock();
+        try {
+            borrowed.remove(entry);
+            if (closed || !healthy) {
+                totalConnections--;
+                grantCreatePermit();
+            } else {
+                entry.lastReturnedAt = System.currentTimeMillis();
+                Waiter waiter = waitQueue.pollFirst();
+                if (waiter != null) {
+                    waiter.handedOff = entry;
+                    waiter.condition.signal();
+                } else {
+                    idle.addFirst(entry); // LIFO keeps the warmest connections busy
+                }
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        entry.closePhysical();
+    }
+
+    private void discard(PooledEntry entry) {
+        lock.lock();
+        try {
+            totalConnections--;
+            grantCreatePermit();
+        } finally {
+            lock.unlock();
+        }
+        entry.closePhysical();
+    }
+
+    /**
+     * Lets the longest waiter open a new connection in place of one that was removed.
+     * Must be called with the lock held.
+     */
+    private void grantCreatePermit() {
+        if (closed) {
+            return;
+        }
+        Waiter waiter = waitQueue.pollFirst();
+        if (waiter != null) {
+            totalConnections++;
+            waiter.mayCreate = true;
+            waiter.condition.signal();
+        }
+    }
+
+    /**
+     * Periodic maintenance: idle eviction, minimum size top-up and leak detection.
+     */
+    private void housekeep() {
+        List<PooledEntry> toClose = new ArrayList<>();
+        int toCreate = 0;
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            Iterator<PooledEntry> it = idle.descendingIterator(); // least recently used first
+            while (it.hasNext() && totalConnections - toClose.size() > minSize) {
+                PooledEntry entry = it.next();
+                if (now - entry.lastReturnedAt > idleTimeoutMillis) {
+                    it.remove();
+                    toClose.add(entry);
+                }
+            }
+            totalConnections -= toClose.size();
+
+            if (waitQueue.isEmpty() && totalConnections < minSize) {
+                toCreate = minSize - totalConnections;
+                totalConnections += toCreate;
+            }
+
+            if (leakDetectionThresholdMillis > 0) {
+                for (PooledEntry entry : borrowed) {
+                    if (!entry.leakReported && now - entry.borrowedAt > leakDetectionThresholdMillis) {
+                        entry.leakReported = true;
+                        leaksDetected.incrementAndGet();
+                        System.err.println("WARNING: Possible connection leak - connection held for " +
+                                (now - entry.borrowedAt) + "ms. Borrowed at:");
+                        entry.borrowStackTrace.printStackTrace();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledEntry entry : toClose) {
+            entry.closePhysical();
+            connectionsEvicted.incrementAndGet();
+        }
+        for (int i = 0; i < toCreate; i++) {
+            try {
+                PooledEntry entry = newEntry(factory.create());
+                connectionsCreated.incrementAndGet();
+                entry.lastReturnedAt = System.currentTimeMillis();
+                release(entry);
+            } catch (SQLException e) {
+                lock.lock();
+                try {
+                    totalConnections -= (toCreate - i);
+                } finally {
+                    lock.unlock();
+                }
+                System.err.println("Connection pool could not reach its minimum size: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeper. Borrowed connections are
+     * closed as they are returned.
+     */
+    public void shutdown() {
+        List<PooledEntry> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            totalConnections -= toClose.size();
+            for (Waiter waiter : waitQueue) {
+                waiter.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledEntry entry : toClose) {
+            entry.closePhysical();
+        }
+    }
+
+    /**
+     * @return A snapshot of the pool's current state and counters.
+     */
+    public PoolMetrics getMetrics() {
+        lock.lock();
+        try {
+            return snapshotLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PoolMetrics snapshotLocked() {
+        return new PoolMetrics(borrowed.size(), idle.size(), totalConnections, waitQueue.size(),
+                totalBorrows.get(), borrowTimeouts.get(), connectionsCreated.get(),
+                connectionsEvicted.get(), leaksDetected.get(), borrowLatency,
+                statementCacheHits.get(), statementCacheMisses.get(), statementCacheEvictions.get());
+    }
+
+    private static final class Waiter {
+        final Condition condition;
+        PooledEntry handedOff;
+        boolean mayCreate;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool plus its bookkeeping.
+     */
+    static final class PooledEntry {
+        final Connection physical;
+        final StatementCache statementCache; // null when statement caching is disabled
+        final List<Statement> openStatements = new ArrayList<>();
+        volatile long borrowedAt;
+        volatile long lastReturnedAt;
+        volatile Throwable borrowStackTrace;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical, StatementCache statementCache) {
+            this.physical = physical;
+            this.statementCache = statementCache;
+        }
+
+        void onBorrow() {
+            borrowedAt = System.currentTimeMillis();
+            borrowStackTrace = new Throwable("Connection borrowed by " + Thread.currentThread().getName());
+            leakReported = false;
+        }
+
+        Connection newProxy(ConnectionPool pool) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ProxyHandler(pool, this));
+        }
+
+        /**
+         * Closes statements left open by the borrower and restores default session state.
+         * @return false if the connection is no longer fit for reuse.
+         */
+        boolean resetForReuse() {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // The statement is being discarded anyway.
+                }
+            }
+            openStatements.clear();
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            if (statementCache != null) {
+                statementCache.clear();
+            }
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Intercepts {@code close()} so the physical connection goes back to the pool, and
+     * tracks statements so they are closed when the connection is returned.
+     */
+    private static final class ProxyHandler implements InvocationHandler {
+        private final ConnectionPool pool;
+        private final PooledEntry entry;
+        private boolean logicallyClosed;
+
+        ProxyHandler(ConnectionPool pool, PooledEntry entry) {
+            this.pool = pool;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        pool.release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    break;
+            }
+            if (logicallyClosed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ("prepareStatement".equals(name) && entry.statementCache != null) {
+                String key = StatementCache.keyFor(args);
+                if (key != null) {
+                    Statement statement = entry.statementCache.prepare(key, () -> invokePhysical(method, args));
+                    entry.openStatements.add(statement);
+                    return statement;
+                }
+            }
+            Object result = invokePhysical(method, args);
+            if (result instanceof Statement) {
+                entry.openStatements.add((Statement) result);
+            }
+            return result;
+        }
+
+        private <T> T invokePhysical(Method method, Object[] args) throws SQLException {
+            try {
+                @SuppressWarnings("unchecked")
+                T result = (T) method.invoke(entry.physical, args);
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new SQLException(cause);
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+}
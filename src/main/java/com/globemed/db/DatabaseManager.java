@@ -1,12 +1,19 @@
 package com.globemed.db;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Properties;
 
 /**
  * DatabaseManager handles database connections with environment variable support.
  * This allows for flexible configuration across different environments.
+ * Connections are served from a bounded {@link ConnectionPool}; closing a connection
+ * returns it to the pool rather than tearing down the MySQL session.
  */
 public class DatabaseManager {
     // Default values that can be overridden by environment variables
@@ -19,8 +26,26 @@ public class DatabaseManager {
     private static final String ENV_DB_URL = "DB_URL";
     private static final String ENV_DB_USERNAME = "DB_USERNAME";
     private static final String ENV_DB_PASSWORD = "DB_PASSWORD";
-    
-    private static Connection connection;
+
+    // Pool defaults, overridable through application.properties or the matching db.pool.* system properties
+    private static final int DEFAULT_POOL_MIN_CONNECTIONS = 2;
+    private static final int DEFAULT_POOL_MAX_CONNECTIONS = 10;
+    private static final long DEFAULT_POOL_CONNECTION_TIMEOUT = 30_000;
+    private static final long DEFAULT_POOL_IDLE_TIMEOUT = 600_000;
+    private static final long DEFAULT_POOL_LEAK_DETECTION_THRESHOLD = 60_000;
+    private static final long DEFAULT_POOL_HOUSEKEEPING_PERIOD = 30_000;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final long DEFAULT_REFERENCE_CACHE_TTL = 300_000;
+    private static final int DEFAULT_PATIENT_CACHE_SIZE = 1_000;
+    private static final long DEFAULT_SCHEDULE_INDEX_TTL = 30_000;
+    private static final int DEFAULT_SCHEDULE_WINDOW_CACHE_SIZE = 64;
+    private static final int DEFAULT_BATCH_CHUNK_SIZE = 500;
+    private static final int DEFAULT_SYMBOL_TABLE_SIZE = 4_096;
+
+    private static final String APPLICATION_PROPERTIES = "/application.properties";
+    private static final Properties FILE_SETTINGS = loadFileSettings();
+
+    private static ConnectionPool pool;
 
     // Private constructor to prevent instantiation
     private DatabaseManager() {}
@@ -61,55 +86,216 @@ public class DatabaseManager {
         return password;
     }
 
+    /**
+     * Loads application.properties from the classpath. Its values are defaults for the
+     * numeric settings below; a missing or unreadable file leaves the built-in defaults.
+     */
+    private static Properties loadFileSettings() {
+        Properties props = new Properties();
+        try (InputStream in = DatabaseManager.class.getResourceAsStream(APPLICATION_PROPERTIES)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading " + APPLICATION_PROPERTIES + ": " + e.getMessage());
+        }
+        return props;
+    }
+
+    /**
+     * Reads a numeric pool setting from system properties, falling back to application.properties.
+     * @param key The property name, e.g. db.pool.maxConnections
+     * @param defaultValue Value used when the property is missing or invalid
+     * @return The configured value
+     */
+    private static long getPoolSetting(String key, long defaultValue) {
+        String value = System.getProperty(key, FILE_SETTINGS.getProperty(key));
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Opens a new physical connection. Used by the pool whenever it needs to grow.
+     */
+    private static Connection openPhysicalConnection() throws SQLException {
+        try {
+            // Load MySQL JDBC driver
+            Class.forName("com.mysql.cj.jdbc.Driver");
+
+            String url = getDatabaseUrl();
+            String username = getDatabaseUsername();
+            String password = getDatabasePassword();
+
+            System.out.println("Connecting to database: " + url);
+            System.out.println("Username: " + username);
+
+            Properties props = new Properties();
+            props.setProperty("user", username);
+            props.setProperty("password", password);
+            // Let the server parse and plan each statement once; the pool's statement cache reuses it
+            props.setProperty("useServerPrepStmts",
+                    String.valueOf(getPoolSetting("db.pool.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE) > 0));
+            // Send each JDBC batch as multi-row statements instead of one round trip per row
+            props.setProperty("rewriteBatchedStatements", "true");
+
+            Connection connection = DriverManager.getConnection(url, props);
+            System.out.println("Database connection successful!");
+            return connection;
+
+        } catch (ClassNotFoundException e) {
+            System.err.println("MySQL JDBC Driver not found.");
+            throw new SQLException("JDBC Driver not found", e);
+        } catch (SQLException e) {
+            System.err.println("Failed to connect to database: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Lazily creates the connection pool from the current configuration.
+     */
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(
+                    DatabaseManager::openPhysicalConnection,
+                    (int) getPoolSetting("db.pool.minConnections", DEFAULT_POOL_MIN_CONNECTIONS),
+                    (int) getPoolSetting("db.pool.maxConnections", DEFAULT_POOL_MAX_CONNECTIONS),
+                    getPoolSetting("db.pool.connectionTimeout", DEFAULT_POOL_CONNECTION_TIMEOUT),
+                    getPoolSetting("db.pool.idleTimeout", DEFAULT_POOL_IDLE_TIMEOUT),
+                    getPoolSetting("db.pool.leakDetectionThreshold", DEFAULT_POOL_LEAK_DETECTION_THRESHOLD),
+                    getPoolSetting("db.pool.housekeepingPeriod", DEFAULT_POOL_HOUSEKEEPING_PERIOD),
+                    (int) getPoolSetting("db.pool.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE));
+        }
+        return pool;
+    }
+
+    /**
+     * Replaces the connection pool, shutting down the current one.
+     * Lets tests run DAOs against a pool of fake connections.
+     */
+    static synchronized void usePool(ConnectionPool replacement) {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = replacement;
+    }
+
     /**
      * Gets a connection to the database.
      * Supports configuration via environment variables:
      * - DB_URL: Database URL (default: jdbc:mysql://localhost:3306/globemed_db)
      * - DB_USERNAME: Database username (default: root)
      * - DB_PASSWORD: Database password (default: NewPassword123!)
-     * 
+     * Pool sizing is read from the db.pool.* system properties or application.properties.
+     *
+     * The returned connection is borrowed from the pool. Callers must close it
+     * (try-with-resources) to hand it back.
+     *
      * @return A database connection object.
-     * @throws SQLException if a database access error occurs.
+     * @throws SQLException if a database access error occurs or the pool is exhausted.
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                // Load MySQL JDBC driver
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                
-                String url = getDatabaseUrl();
-                String username = getDatabaseUsername();
-                String password = getDatabasePassword();
-                
-                System.out.println("Connecting to database: " + url);
-                System.out.println("Username: " + username);
-                
-                connection = DriverManager.getConnection(url, username, password);
-                System.out.println("Database connection successful!");
-                
-            } catch (ClassNotFoundException e) {
-                System.err.println("MySQL JDBC Driver not found.");
-                throw new SQLException("JDBC Driver not found", e);
-            } catch (SQLException e) {
-                System.err.println("Failed to connect to database: " + e.getMessage());
-                throw e;
-            }
-        }
-        return connection;
+        return getPool().borrow();
     }
 
     /**
-     * Closes the database connection if it's open.
+     * Prepares a forward-only, read-only statement that MySQL Connector/J streams row by row
+     * instead of buffering the whole result client-side. Only one streaming result set can
+     * be open per connection, and the connection is busy until it has been fully read or closed.
+     *
+     * @param conn The connection to prepare on.
+     * @param sql The query to stream.
+     * @return A statement whose result sets are streamed.
+     * @throws SQLException if the statement cannot be prepared.
      */
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                connection = null;
-                System.out.println("Database connection closed.");
-            } catch (SQLException e) {
-                System.err.println("Failed to close the database connection: " + e.getMessage());
-            }
+    static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        pstmt.setFetchSize(Integer.MIN_VALUE);
+        return pstmt;
+    }
+
+    /**
+     * How long cached reference data (doctors, insurance plans) is served before it is re-read.
+     * Overridable through the db.cache.referenceTtl system property; 0 disables the cache.
+     */
+    static long getReferenceCacheTtl() {
+        return getPoolSetting("db.cache.referenceTtl", DEFAULT_REFERENCE_CACHE_TTL);
+    }
+
+    /**
+     * Maximum number of patient records kept in the PatientDAO lookup cache.
+     * Overridable through the db.cache.patientCacheSize system property; 0 disables the cache.
+     */
+    static int getPatientCacheSize() {
+        return (int) getPoolSetting("db.cache.patientCacheSize", DEFAULT_PATIENT_CACHE_SIZE);
+    }
+
+    /**
+     * How long cached schedule data (the booking conflict index and the appointment panel's
+     * week cache) is used before it is re-read, which bounds how long a booking made from
+     * another workstation can go unseen.
+     * Overridable through the db.cache.scheduleTtl system property; 0 re-reads every time.
+     */
+    static long getScheduleIndexTtl() {
+        return getPoolSetting("db.cache.scheduleTtl", DEFAULT_SCHEDULE_INDEX_TTL);
+    }
+
+    /**
+     * Maximum number of doctor-weeks kept in the SchedulingDAO schedule window cache.
+     * Overridable through the db.cache.scheduleWindows system property.
+     */
+    static int getScheduleWindowCacheSize() {
+        return (int) getPoolSetting("db.cache.scheduleWindows", DEFAULT_SCHEDULE_WINDOW_CACHE_SIZE);
+    }
+
+    /**
+     * Maximum number of distinct strings the shared row mapper symbol table keeps.
+     * Overridable through the db.cache.symbolTableSize system property; 0 disables interning.
+     */
+    static int getSymbolTableSize() {
+        return (int) getPoolSetting("db.cache.symbolTableSize", DEFAULT_SYMBOL_TABLE_SIZE);
+    }
+
+    /**
+     * Gets a snapshot of the shared symbol table's counters: hits are values that were
+     * already canonical, misses are values seen for the first time or not kept.
+     */
+    public static CacheMetrics getSymbolTableMetrics() {
+        return SymbolTable.shared().getMetrics();
+    }
+
+    /**
+     * Maximum number of rows the bulk DAO writes send in one batch and commit in one transaction.
+     * Overridable through the db.batch.chunkSize system property.
+     */
+    static int getBatchChunkSize() {
+        return (int) Math.max(1, getPoolSetting("db.batch.chunkSize", DEFAULT_BATCH_CHUNK_SIZE));
+    }
+
+    /**
+     * Gets a snapshot of the connection pool metrics.
+     * @return Current pool metrics (active, idle, waiters, borrow latency, statement cache hits/misses).
+     */
+    public static synchronized PoolMetrics getPoolMetrics() {
+        return getPool().getMetrics();
+    }
+
+    /**
+     * Shuts down the connection pool, closing all idle connections.
+     * A new pool is created on the next call to {@link #getConnection()}.
+     */
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+            System.out.println("Database connection pool closed.");
         }
     }
 
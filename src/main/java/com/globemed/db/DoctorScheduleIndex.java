@@ -0,0 +1,212 @@
+package com.globemed.db;
+
+import com.globemed.appointment.Appointment;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory index of each doctor's active appointment start times, used for booking
+ * conflict checks.
+ * <p>
+ * Start times are kept in a per-doctor sorted map, so "is anything booked within this
+ * window?" is a single O(log n) range lookup rather than a scan of the day. Days are
+ * loaded lazily from the database the first time they are checked and re-read once they
+ * are older than the TTL, which bounds how long a booking made from another workstation
+ * can go unseen. Writes made through {@link SchedulingDAO} update the index immediately.
+ * Canceled appointments free their slot and are not indexed.
+ * <p>
+ * Days read outside a conflict check, e.g. by a background prefetch, are handed in with
+ * {@link #dayLoadedIfCurrent} and dropped if one of the doctor's appointments was written
+ * meanwhile, since the read may predate that write.
+ */
+class DoctorScheduleIndex {
+
+    /**
+     * Reads one doctor's appointments for one day from the database.
+     */
+    @FunctionalInterface
+    interface DayLoader {
+        List<Appointment> load(String doctorId, LocalDate day) throws SQLException;
+    }
+
+    /**
+     * One doctor's indexed appointments. All access is synchronized on the instance.
+     */
+    private static final class DoctorSlots {
+        final NavigableMap<LocalDateTime, Set<Integer>> byStart = new TreeMap<>();
+        final Map<Integer, LocalDateTime> startById = new HashMap<>();
+        final Map<LocalDate, Long> loadedDays = new HashMap<>();
+        /** Counts the writes recorded through the index, so reads that raced one can be detected. */
+        long writes;
+
+        void add(int appointmentId, LocalDateTime start) {
+            remove(appointmentId);
+            byStart.computeIfAbsent(start, k -> new HashSet<>()).add(appointmentId);
+            startById.put(appointmentId, start);
+        }
+
+        void remove(int appointmentId) {
+            LocalDateTime start = startById.remove(appointmentId);
+            if (start != null) {
+                Set<Integer> ids = byStart.get(start);
+                ids.remove(appointmentId);
+                if (ids.isEmpty()) {
+                    byStart.remove(start);
+                }
+            }
+        }
+
+        void clearDay(LocalDate day) {
+            NavigableMap<LocalDateTime, Set<Integer>> dayEntries =
+                    byStart.subMap(day.atStartOfDay(), true, day.plusDays(1).atStartOfDay(), false);
+            for (Iterator<Set<Integer>> it = dayEntries.values().iterator(); it.hasNext(); ) {
+                for (Integer id : it.next()) {
+                    startById.remove(id);
+                }
+                it.remove();
+            }
+        }
+    }
+
+    private final Map<String, DoctorSlots> doctors = new ConcurrentHashMap<>();
+    private final DayLoader loader;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    DoctorScheduleIndex(DayLoader loader, long ttlMillis) {
+        this(loader, ttlMillis, System::currentTimeMillis);
+    }
+
+    DoctorScheduleIndex(DayLoader loader, long ttlMillis, LongSupplier clock) {
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Finds an active appointment that starts less than {@code length} before or after
+     * {@code start}.
+     *
+     * @param ignoreAppointmentId An appointment to leave out, e.g. the one being rescheduled; 0 for none.
+     * @return The conflicting appointment's start time, or null if the slot is free.
+     * @throws SQLException if a day that is not indexed yet could not be loaded.
+     */
+    LocalDateTime findConflict(String doctorId, LocalDateTime start, Duration length, int ignoreAppointmentId)
+            throws SQLException {
+        LocalDateTime from = start.minus(length);
+        LocalDateTime to = start.plus(length);
+        DoctorSlots slots = doctors.computeIfAbsent(doctorId, id -> new DoctorSlots());
+        synchronized (slots) {
+            for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+                ensureLoaded(doctorId, slots, day);
+            }
+            for (Map.Entry<LocalDateTime, Set<Integer>> entry : slots.byStart.subMap(from, false, to, false).entrySet()) {
+                Set<Integer> ids = entry.getValue();
+                if (ids.size() > 1 || !ids.contains(ignoreAppointmentId)) {
+                    return entry.getKey();
+                }
+            }
+            return null;
+        }
+    }
+
+    private void ensureLoaded(String doctorId, DoctorSlots slots, LocalDate day) throws SQLException {
+        Long loadedAt = slots.loadedDays.get(day);
+        if (loadedAt != null && clock.getAsLong() - loadedAt < ttlMillis) {
+            return;
+        }
+        replaceDay(slots, day, loader.load(doctorId, day));
+    }
+
+    /**
+     * Snapshot of the doctor's write counter, to be taken before reading their appointments
+     * and passed to {@link #dayLoadedIfCurrent}.
+     */
+    long version(String doctorId) {
+        DoctorSlots slots = doctors.computeIfAbsent(doctorId, id -> new DoctorSlots());
+        synchronized (slots) {
+            return slots.writes;
+        }
+    }
+
+    /**
+     * Replaces a day with a fresh read of that day from the database, unless one of the
+     * doctor's appointments was written through the index since {@code readVersion} was taken.
+     */
+    void dayLoadedIfCurrent(String doctorId, LocalDate day, List<Appointment> appointments, long readVersion) {
+        DoctorSlots slots = doctors.computeIfAbsent(doctorId, id -> new DoctorSlots());
+        synchronized (slots) {
+            if (slots.writes == readVersion) {
+                replaceDay(slots, day, appointments);
+            }
+        }
+    }
+
+    private void replaceDay(DoctorSlots slots, LocalDate day, List<Appointment> appointments) {
+        slots.clearDay(day);
+        for (Appointment appointment : appointments) {
+            if (isActive(appointment)) {
+                slots.add(appointment.getAppointmentId(), appointment.getAppointmentDateTime());
+            }
+        }
+        if (ttlMillis > 0) {
+            slots.loadedDays.put(day, clock.getAsLong());
+        } else {
+            slots.loadedDays.remove(day);
+        }
+    }
+
+    /**
+     * Records a newly created or updated appointment. Days that are not indexed yet are
+     * left alone; they will be read from the database when first needed.
+     */
+    void appointmentSaved(Appointment appointment) {
+        DoctorSlots slots = doctors.get(appointment.getDoctorId());
+        if (slots == null) {
+            return;
+        }
+        LocalDate day = appointment.getAppointmentDateTime().toLocalDate();
+        synchronized (slots) {
+            slots.writes++;
+            if (appointment.getAppointmentId() <= 0) {
+                // Without an ID the entry could never be updated or removed; re-read the day instead
+                slots.loadedDays.remove(day);
+                return;
+            }
+            slots.remove(appointment.getAppointmentId());
+            if (isActive(appointment) && slots.loadedDays.containsKey(day)) {
+                slots.add(appointment.getAppointmentId(), appointment.getAppointmentDateTime());
+            }
+        }
+    }
+
+    void appointmentDeleted(int appointmentId) {
+        for (DoctorSlots slots : doctors.values()) {
+            synchronized (slots) {
+                slots.writes++;
+                slots.remove(appointmentId);
+            }
+        }
+    }
+
+    void doctorDeleted(String doctorId) {
+        doctors.remove(doctorId);
+    }
+
+    private static boolean isActive(Appointment appointment) {
+        return !"Canceled".equalsIgnoreCase(appointment.getStatus());
+    }
+}
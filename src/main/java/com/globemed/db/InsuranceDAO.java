@@ -6,11 +6,35 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class InsuranceDAO {
 
-    public List<InsurancePlan> getAllPlans() {
+    /**
+     * All insurance plans, shared by every InsuranceDAO instance. Plans are maintained
+     * directly in the database, so the cache relies on its TTL to pick up changes.
+     */
+    private static final ReferenceDataCache<List<InsurancePlan>> PLAN_CACHE =
+            new ReferenceDataCache<>("insurance_plans", DatabaseManager.getReferenceCacheTtl(), InsuranceDAO::loadPlans);
+
+    /**
+     * Gets a snapshot of the insurance plan cache's hit and miss counters.
+     */
+    public static CacheMetrics getPlanCacheMetrics() {
+        return PLAN_CACHE.getMetrics();
+    }
+
+    /**
+     * Drops the cached plans so the next read goes to the database. Cached patients carry
+     * a copy of their plan, so they are dropped as well.
+     */
+    public static void invalidatePlanCache() {
+        PLAN_CACHE.invalidate();
+        PatientDAO.invalidatePatientCache();
+    }
+
+    private static List<InsurancePlan> loadPlans() throws SQLException {
         List<InsurancePlan> plans = new ArrayList<>();
         String sql = "SELECT * FROM insurance_plans ORDER BY coverage_percent";
         try (Connection conn = DatabaseManager.getConnection();
@@ -24,9 +48,16 @@ public class InsuranceDAO {
                         rs.getDouble("coverage_percent")
                 ));
             }
+        }
+        return Collections.unmodifiableList(plans);
+    }
+
+    public List<InsurancePlan> getAllPlans() {
+        try {
+            return new ArrayList<>(PLAN_CACHE.get());
         } catch (SQLException e) {
             System.err.println("Error fetching insurance plans: " + e.getMessage());
+            return new ArrayList<>();
         }
-        return plans;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.globemed.db;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A size-bounded, thread-safe least-recently-used cache.
+ * <p>
+ * Lookups that may race with a write follow a read-then-populate protocol: take a
+ * {@link #version()} before reading the database and pass it to {@link #putIfCurrent}.
+ * If any entry was invalidated in the meantime the value is discarded, so a row read
+ * just before an update can never be cached after it.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type. Callers are responsible for copying mutable values.
+ */
+class LruCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final Map<K, V> entries;
+    private final AtomicLong version = new AtomicLong();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    LruCache(String name, int maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The cached value, or null on a miss. A hit makes the entry most recently used.
+     */
+    synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * Snapshot of the invalidation counter, to be passed to {@link #putIfCurrent}.
+     */
+    long version() {
+        return version.get();
+    }
+
+    /**
+     * Caches a value read from the database unless an invalidation happened since
+     * {@code readVersion} was taken.
+     */
+    synchronized void putIfCurrent(K key, V value, long readVersion) {
+        if (maxSize > 0 && readVersion == version.get()) {
+            entries.put(key, value);
+        }
+    }
+
+    synchronized void invalidate(K key) {
+        version.incrementAndGet();
+        entries.remove(key);
+        invalidations++;
+    }
+
+    /**
+     * Removes every entry whose key matches.
+     */
+    synchronized void invalidateIf(Predicate<? super K> matcher) {
+        version.incrementAndGet();
+        entries.keySet().removeIf(matcher);
+        invalidations++;
+    }
+
+    synchronized void clear() {
+        version.incrementAndGet();
+        entries.clear();
+        invalidations++;
+    }
+
+    synchronized CacheMetrics getMetrics() {
+        return new CacheMetrics(name, hits, misses, invalidations, evictions, entries.size());
+    }
+}
@@ -0,0 +1,306 @@
+package com.globemed.db;
+
+import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
+import com.globemed.billing.PatientAccount;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Reads and maintains the patient_accounts table: one row per patient with their billed,
+ * insurance paid, patient paid and outstanding totals. BillingDAO keeps the rows current
+ * inside its own transactions through {@link BillWriteScope}, so
+ * "who owes what" is a primary-key or index lookup rather than a scan of every bill.
+ * <p>
+ * Every bill write locks the affected patients' account rows before touching their bills,
+ * in patient ID order, so writers to the same patient queue on the account row. After the
+ * write, the difference between the bills as they were and as they are is added to the
+ * totals; a patient's bills are only read again when a bill that was open closes, moves or
+ * is deleted, to find the oldest bill still open. The totals therefore only stay exact for
+ * bills written through BillingDAO; {@link #rebuildAccounts} recomputes them from scratch.
+ */
+public class PatientAccountDAO {
+    // Remaining balance per bill matches MedicalBill.getRemainingBalance(): max(0, final - paid)
+    private static final String OPEN_BILL = "COALESCE(final_amount, 0) > COALESCE(amount_paid, 0)";
+    private static final String ACCOUNT_AGGREGATES =
+            "COALESCE(SUM(amount), 0), " +
+            "COALESCE(SUM(COALESCE(insurance_paid_amount, 0)), 0), " +
+            "COALESCE(SUM(COALESCE(amount_paid, 0)), 0), " +
+            "COALESCE(SUM(GREATEST(COALESCE(final_amount, 0) - COALESCE(amount_paid, 0), 0)), 0), " +
+            "COALESCE(SUM(" + OPEN_BILL + "), 0), " +
+            "MIN(CASE WHEN " + OPEN_BILL + " THEN billed_datetime END)";
+    private static final String ACCOUNT_SELECT = "SELECT patient_id, total_billed, insurance_paid, patient_paid, outstanding, " +
+            "open_bill_count, oldest_open_bill_datetime, updated_at FROM patient_accounts";
+
+    /**
+     * Looks up a patient's account balance by primary key.
+     * @param patientId The patient's ID.
+     * @return The account, an empty account if the patient has never been billed, or null on a database error.
+     */
+    public PatientAccount getAccount(String patientId) {
+        String sql = ACCOUNT_SELECT + " WHERE patient_id = ?";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, patientId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? createAccountFromResultSet(rs) : PatientAccount.empty(patientId);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error fetching account for patient " + patientId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Recomputes every account from the billing table in one set-based pass, for the
+     * initial backfill or after bills were changed outside the application. Accounts
+     * of patients whose bills were all deleted are reset to zero.
+     * @return The number of patients with bills whose accounts were written, or -1 on failure.
+     */
+    public int rebuildAccounts() {
+        String upsertSql = "INSERT INTO patient_accounts (patient_id, total_billed, insurance_paid, patient_paid, outstanding, " +
+                "open_bill_count, oldest_open_bill_datetime, updated_at) " +
+                "SELECT patient_id, " + ACCOUNT_AGGREGATES + ", NOW() FROM billing GROUP BY patient_id " +
+                "ON DUPLICATE KEY UPDATE total_billed = VALUES(total_billed), insurance_paid = VALUES(insurance_paid), " +
+                "patient_paid = VALUES(patient_paid), outstanding = VALUES(outstanding), open_bill_count = VALUES(open_bill_count), " +
+                "oldest_open_bill_datetime = VALUES(oldest_open_bill_datetime), updated_at = VALUES(updated_at)";
+        String resetSql = "UPDATE patient_accounts a SET total_billed = 0, insurance_paid = 0, patient_paid = 0, outstanding = 0, " +
+                "open_bill_count = 0, oldest_open_bill_datetime = NULL, updated_at = NOW() " +
+                "WHERE NOT EXISTS (SELECT 1 FROM billing b WHERE b.patient_id = a.patient_id)";
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Take the existing account rows first, in the same order bill writers do
+                int locked = 0;
+                try (PreparedStatement pstmt = conn.prepareStatement("SELECT patient_id FROM patient_accounts ORDER BY patient_id FOR UPDATE");
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        locked++;
+                    }
+                }
+                int patients;
+                try (PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(DISTINCT patient_id) FROM billing LOCK IN SHARE MODE");
+                     ResultSet rs = pstmt.executeQuery()) {
+                    patients = rs.next() ? rs.getInt(1) : 0;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(upsertSql)) {
+                    pstmt.executeUpdate();
+                }
+                int reset;
+                try (PreparedStatement pstmt = conn.prepareStatement(resetSql)) {
+                    reset = pstmt.executeUpdate();
+                }
+                conn.commit();
+                System.out.println("Rebuilt " + patients + " patient accounts (" +
+                        locked + " existing), reset " + reset + " without bills");
+                return patients;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding patient accounts: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * @return The distinct patient IDs of the bills, sorted into lock order.
+     */
+    static SortedSet<String> patientIdsOf(Collection<MedicalBill> bills) {
+        SortedSet<String> patientIds = new TreeSet<>();
+        for (MedicalBill bill : bills) {
+            if (bill.getPatientId() != null) {
+                patientIds.add(bill.getPatientId());
+            }
+        }
+        return patientIds;
+    }
+
+    /**
+     * Locks the account rows of the given patients for the rest of the transaction,
+     * creating missing rows. Must be called before the patients' bills are written.
+     * @param patientIds The patients, iterated in ascending order to avoid lock-order deadlocks.
+     */
+    static void lockAccounts(Connection conn, SortedSet<String> patientIds) throws SQLException {
+        if (patientIds.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO patient_accounts (patient_id, updated_at) VALUES (?, ?) ON DUPLICATE KEY UPDATE patient_id = patient_id";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (String patientId : patientIds) {
+                pstmt.setString(1, patientId);
+                pstmt.setTimestamp(2, now);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * How a write changed one patient's bills: totals to add to the account row, and the
+     * billed times of open bills that left or joined the patient's open bills.
+     */
+    static final class AccountChange {
+        long billedCents;
+        long insurancePaidCents;
+        long patientPaidCents;
+        long outstandingCents;
+        int openBills;
+        /** The earliest billed time among open bills that closed, moved or were deleted, or null. */
+        LocalDateTime earliestOpenRemoved;
+        /** The earliest billed time among bills that are now open, or null. */
+        LocalDateTime earliestOpenAdded;
+
+        private void add(BillWriteScope.StoredBill bill, int sign) {
+            billedCents += sign * bill.amountCents;
+            insurancePaidCents += sign * bill.insurancePaidCents;
+            patientPaidCents += sign * bill.amountPaidCents;
+            outstandingCents += sign * bill.outstandingCents();
+            openBills += bill.isOpen() ? sign : 0;
+        }
+    }
+
+    /**
+     * Works out how the bills' changes move each patient's account.
+     * @param before The bills as stored before the write; bills the write inserted are absent.
+     * @param after The same bills and the inserted ones as stored after it; deleted bills are absent.
+     * @return The change per patient, in lock order.
+     */
+    static SortedMap<String, AccountChange> changesOf(Collection<BillWriteScope.StoredBill> before,
+                                                      Collection<BillWriteScope.StoredBill> after) {
+        SortedMap<String, AccountChange> changes = new TreeMap<>();
+        Map<Integer, BillWriteScope.StoredBill> afterById = new HashMap<>();
+        for (BillWriteScope.StoredBill bill : after) {
+            afterById.put(bill.billId, bill);
+            AccountChange change = changes.computeIfAbsent(bill.patientId, id -> new AccountChange());
+            change.add(bill, 1);
+            if (bill.isOpen()) {
+                change.earliestOpenAdded = earliest(change.earliestOpenAdded, bill.billedDateTime);
+            }
+        }
+        for (BillWriteScope.StoredBill bill : before) {
+            AccountChange change = changes.computeIfAbsent(bill.patientId, id -> new AccountChange());
+            change.add(bill, -1);
+            BillWriteScope.StoredBill now = afterById.get(bill.billId);
+            boolean stillOpenAtSameTime = now != null && now.isOpen() && now.billedDateTime.equals(bill.billedDateTime);
+            if (bill.isOpen() && !stillOpenAtSameTime) {
+                change.earliestOpenRemoved = earliest(change.earliestOpenRemoved, bill.billedDateTime);
+            }
+        }
+        return changes;
+    }
+
+    private static LocalDateTime earliest(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+
+    /**
+     * Adds the bills' changes to the patients' account rows, including the transaction's own
+     * uncommitted writes. The oldest open bill is only looked up again, with a locking read of
+     * that patient's open bills, when a bill that may have been it is no longer open; otherwise
+     * it can only move earlier. The accounts must already be locked with {@link #lockAccounts}.
+     */
+    static void applyBillChanges(Connection conn, Collection<BillWriteScope.StoredBill> before,
+                                 Collection<BillWriteScope.StoredBill> after) throws SQLException {
+        SortedMap<String, AccountChange> changes = changesOf(before, after);
+        if (changes.isEmpty()) {
+            return;
+        }
+        String totalsSql = "UPDATE patient_accounts SET total_billed = total_billed + ?, insurance_paid = insurance_paid + ?, " +
+                "patient_paid = patient_paid + ?, outstanding = outstanding + ?, open_bill_count = open_bill_count + ?, " +
+                "updated_at = ? WHERE patient_id = ?";
+        String oldestRemovedSql = "UPDATE patient_accounts SET oldest_open_bill_datetime = " +
+                "(SELECT MIN(billed_datetime) FROM billing WHERE patient_id = ? AND " + OPEN_BILL + ") " +
+                "WHERE patient_id = ? AND oldest_open_bill_datetime >= ?";
+        String oldestAddedSql = "UPDATE patient_accounts SET oldest_open_bill_datetime = " +
+                "COALESCE(LEAST(oldest_open_bill_datetime, ?), ?) WHERE patient_id = ?";
+        try (PreparedStatement totals = conn.prepareStatement(totalsSql);
+             PreparedStatement oldestRemoved = conn.prepareStatement(oldestRemovedSql);
+             PreparedStatement oldestAdded = conn.prepareStatement(oldestAddedSql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            boolean anyRemoved = false;
+            boolean anyAdded = false;
+            for (Map.Entry<String, AccountChange> entry : changes.entrySet()) {
+                String patientId = entry.getKey();
+                AccountChange change = entry.getValue();
+                totals.setBigDecimal(1, Money.toDecimal(change.billedCents));
+                totals.setBigDecimal(2, Money.toDecimal(change.insurancePaidCents));
+                totals.setBigDecimal(3, Money.toDecimal(change.patientPaidCents));
+                totals.setBigDecimal(4, Money.toDecimal(change.outstandingCents));
+                totals.setInt(5, change.openBills);
+                totals.setTimestamp(6, now);
+                totals.setString(7, patientId);
+                totals.addBatch();
+
+                if (change.earliestOpenRemoved != null) {
+                    oldestRemoved.setString(1, patientId);
+                    oldestRemoved.setString(2, patientId);
+                    oldestRemoved.setTimestamp(3, Timestamp.valueOf(change.earliestOpenRemoved));
+                    oldestRemoved.addBatch();
+                    anyRemoved = true;
+                }
+                if (change.earliestOpenAdded != null) {
+                    Timestamp added = Timestamp.valueOf(change.earliestOpenAdded);
+                    oldestAdded.setTimestamp(1, added);
+                    oldestAdded.setTimestamp(2, added);
+                    oldestAdded.setString(3, patientId);
+                    oldestAdded.addBatch();
+                    anyAdded = true;
+                }
+            }
+            totals.executeBatch();
+            // A removal's lookup already sees the added bills; the LEAST after it is then a no-op
+            if (anyRemoved) {
+                oldestRemoved.executeBatch();
+            }
+            if (anyAdded) {
+                oldestAdded.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Finds the patient a bill belongs to, so the account can be locked before the bill.
+     * @return The patient ID, or null if the bill does not exist.
+     */
+    static String findPatientIdOfBill(Connection conn, int billId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT patient_id FROM billing WHERE bill_id = ?")) {
+            pstmt.setInt(1, billId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static PatientAccount createAccountFromResultSet(ResultSet rs) throws SQLException {
+        Timestamp oldestOpen = rs.getTimestamp("oldest_open_bill_datetime");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new PatientAccount(
+                rs.getString("patient_id"),
+                Money.ofDecimal(rs.getBigDecimal("total_billed")),
+                Money.ofDecimal(rs.getBigDecimal("insurance_paid")),
+                Money.ofDecimal(rs.getBigDecimal("patient_paid")),
+                Money.ofDecimal(rs.getBigDecimal("outstanding")),
+                rs.getInt("open_bill_count"),
+                oldestOpen != null ? oldestOpen.toLocalDateTime() : null,
+                updatedAt != null ? updatedAt.toLocalDateTime() : null
+        );
+    }
+}
@@ -11,15 +11,51 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class PatientDAO {
 
     /**
-     * Retrieves a single patient record from the database by their ID.
+     * Recently looked-up patients, shared by every PatientDAO instance. Entries are private
+     * copies: callers always receive a clone, so edits in the UI never leak into the cache.
+     */
+    private static final LruCache<String, PatientRecord> PATIENT_CACHE =
+            new LruCache<>("patients", DatabaseManager.getPatientCacheSize());
+
+    /**
+     * Gets a snapshot of the patient cache's hit, miss and eviction counters.
+     */
+    public static CacheMetrics getPatientCacheMetrics() {
+        return PATIENT_CACHE.getMetrics();
+    }
+
+    /**
+     * Drops every cached patient, e.g. after insurance plans changed underneath them.
+     */
+    static void invalidatePatientCache() {
+        PATIENT_CACHE.clear();
+    }
+
+    /**
+     * Retrieves a single patient record by their ID, serving repeat lookups from the cache.
      * @param patientId The ID of the patient to retrieve.
-     * @return A PatientRecord object, or null if not found.
+     * @return A PatientRecord object the caller may modify freely, or null if not found.
      */
     public PatientRecord getPatientById(String patientId) {
+        PatientRecord cached = PATIENT_CACHE.get(patientId);
+        if (cached != null) {
+            return cached.clone();
+        }
+
+        long cacheVersion = PATIENT_CACHE.version();
+        PatientRecord patient = loadPatientById(patientId);
+        if (patient != null) {
+            PATIENT_CACHE.putIfCurrent(patientId, patient.clone(), cacheVersion);
+        }
+        return patient;
+    }
+
+    private PatientRecord loadPatientById(String patientId) {
         // Corrected SQL to match the getAllPatients query structure
         String sql = "SELECT p.*, ip.plan_name, ip.coverage_percent " +
                 "FROM patients p " +
@@ -33,33 +69,7 @@ public class PatientDAO {
             ResultSet rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                PatientRecord patient = new PatientRecord(
-                        rs.getString("patient_id"),
-                        rs.getString("full_name") // Assuming column is 'full_name'
-                );
-
-                // Populate medical history
-                String historyStr = rs.getString("medical_history");
-                if (historyStr != null && !historyStr.isEmpty()) {
-                    patient.setMedicalHistory(Arrays.asList(historyStr.split("\\r?\\n")));
-                }
-
-                // Populate treatment plans
-                String plansStr = rs.getString("treatment_plans");
-                if (plansStr != null && !plansStr.isEmpty()) {
-                    patient.setTreatmentPlans(Arrays.asList(plansStr.split("\\r?\\n")));
-                }
-
-                // Populate insurance plan
-                int planId = rs.getInt("insurance_plan_id");
-                if (!rs.wasNull()) {
-                    patient.setInsurancePlan(new InsurancePlan(
-                            planId,
-                            rs.getString("plan_name"),
-                            rs.getDouble("coverage_percent")
-                    ));
-                }
-                return patient;
+                return mapPatient(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error fetching patient by ID: " + e.getMessage());
@@ -118,7 +128,9 @@ public class PatientDAO {
             }
             pstmt.setString(5, patient.getPatientId());
 
-            return pstmt.executeUpdate() > 0;
+            boolean success = pstmt.executeUpdate() > 0;
+            PATIENT_CACHE.invalidate(patient.getPatientId());
+            return success;
         } catch (SQLException e) {
             System.err.println("Error updating patient: " + e.getMessage());
             return false;
@@ -136,7 +148,9 @@ public class PatientDAO {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, patientId);
-            return pstmt.executeUpdate() > 0;
+            boolean success = pstmt.executeUpdate() > 0;
+            PATIENT_CACHE.invalidate(patientId);
+            return success;
         } catch (SQLException e) {
             System.err.println("Error deleting patient: " + e.getMessage());
             return false;
@@ -160,35 +174,71 @@ public class PatientDAO {
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                PatientRecord patient = new PatientRecord(
-                        rs.getString("patient_id"),
-                        rs.getString("full_name")
-                );
-
-                // For the summary view, we only need the name and insurance,
-                // but this full data retrieval can be kept for consistency.
-                String historyStr = rs.getString("medical_history");
-                if (historyStr != null && !historyStr.isEmpty()) {
-                    patient.setMedicalHistory(Arrays.asList(historyStr.split("\\r?\\n")));
-                }
-                String plansStr = rs.getString("treatment_plans");
-                if (plansStr != null && !plansStr.isEmpty()) {
-                    patient.setTreatmentPlans(Arrays.asList(plansStr.split("\\r?\\n")));
-                }
-
-                int planId = rs.getInt("insurance_plan_id");
-                if (!rs.wasNull()) {
-                    patient.setInsurancePlan(new InsurancePlan(
-                            planId,
-                            rs.getString("plan_name"),
-                            rs.getDouble("coverage_percent")
-                    ));
-                }
-                patients.add(patient);
+                patients.add(mapPatient(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error fetching all patients: " + e.getMessage());
         }
         return patients;
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams every patient record to the given action without materializing the table.
+     * @param action Called once per patient, ordered by name.
+     * @return true if every patient was read, false if a database error occurred.
+     */
+    public boolean forEachPatient(Consumer<PatientRecord> action) {
+        String sql = "SELECT p.*, ip.plan_name, ip.coverage_percent " +
+                "FROM patients p " +
+                "LEFT JOIN insurance_plans ip ON p.insurance_plan_id = ip.plan_id " +
+                "ORDER BY p.full_name ASC";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                action.accept(mapPatient(rs));
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error streaming patients: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Maps the current row of a patients/insurance_plans join to a PatientRecord.
+     * @param rs A result set positioned on a row of the patient join query.
+     * @return The mapped PatientRecord, including its insurance plan if any.
+     */
+    static PatientRecord mapPatient(ResultSet rs) throws SQLException {
+        PatientRecord patient = new PatientRecord(
+                rs.getString("patient_id"),
+                rs.getString("full_name")
+        );
+
+        // Populate medical history
+        String historyStr = rs.getString("medical_history");
+        if (historyStr != null && !historyStr.isEmpty()) {
+            patient.setMedicalHistory(Arrays.asList(historyStr.split("\\r?\\n")));
+        }
+
+        // Populate treatment plans
+        String plansStr = rs.getString("treatment_plans");
+        if (plansStr != null && !plansStr.isEmpty()) {
+            patient.setTreatmentPlans(Arrays.asList(plansStr.split("\\r?\\n")));
+        }
+
+        // Populate insurance plan
+        int planId = rs.getInt("insurance_plan_id");
+        if (!rs.wasNull()) {
+            patient.setInsurancePlan(new InsurancePlan(
+                    planId,
+                    rs.getString("plan_name"),
+                    rs.getDouble("coverage_percent")
+            ));
+        }
+        return patient;
+    }
+}
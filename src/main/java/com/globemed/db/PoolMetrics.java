@@ -0,0 +1,68 @@
+package com.globemed.db;
+
+/**
+ * An immutable point-in-time snapshot of the connection pool's state.
+ */
+public class PoolMetrics {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int waitingThreads;
+    private final long totalBorrows;
+    private final long borrowTimeouts;
+    private final long connectionsCreated;
+    private final long connectionsEvicted;
+    private final long leaksDetected;
+    private final LatencyHistogram borrowLatency;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolMetrics(int activeConnections, int idleConnections, int totalConnections, int waitingThreads,
+                       long totalBorrows, long borrowTimeouts, long connectionsCreated,
+                       long connectionsEvicted, long leaksDetected, LatencyHistogram borrowLatency,
+                       long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.waitingThreads = waitingThreads;
+        this.totalBorrows = totalBorrows;
+        this.borrowTimeouts = borrowTimeouts;
+        this.connectionsCreated = connectionsCreated;
+        this.connectionsEvicted = connectionsEvicted;
+        this.leaksDetected = leaksDetected;
+        this.borrowLatency = borrowLatency;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getActiveConnections() { return activeConnections; }
+    public int getIdleConnections() { return idleConnections; }
+    public int getTotalConnections() { return totalConnections; }
+    public int getWaitingThreads() { return waitingThreads; }
+    public long getTotalBorrows() { return totalBorrows; }
+    public long getBorrowTimeouts() { return borrowTimeouts; }
+    public long getConnectionsCreated() { return connectionsCreated; }
+    public long getConnectionsEvicted() { return connectionsEvicted; }
+    public long getLeaksDetected() { return leaksDetected; }
+    public LatencyHistogram getBorrowLatency() { return borrowLatency; }
+    public long getStatementCacheHits() { return statementCacheHits; }
+    public long getStatementCacheMisses() { return statementCacheMisses; }
+    public long getStatementCacheEvictions() { return statementCacheEvictions; }
+
+    public double getStatementCacheHitRate() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolMetrics{active=%d, idle=%d, total=%d, waiters=%d, borrows=%d, timeouts=%d, " +
+                        "created=%d, evicted=%d, leaks=%d, borrowLatency=[%s], " +
+                        "stmtCache[hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%]}",
+                activeConnections, idleConnections, totalConnections, waitingThreads, totalBorrows,
+                borrowTimeouts, connectionsCreated, connectionsEvicted, leaksDetected, borrowLatency,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions, getStatementCacheHitRate() * 100);
+    }
+}
@@ -0,0 +1,107 @@
+package com.globemed.db;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through cache for one small, rarely changing reference table (doctors,
+ * insurance plans).
+ * <p>
+ * The whole table is loaded as a single snapshot and served from memory until it is
+ * older than the TTL or a DAO write calls {@link #invalidate()}. Concurrent misses are
+ * collapsed into one load. A load that was already running when the cache was
+ * invalidated is returned to its caller but not kept, so a write is never hidden by
+ * a snapshot read just before it. Failed loads are not cached.
+ *
+ * @param <T> The snapshot type.
+ */
+class ReferenceDataCache<T> {
+
+    /**
+     * Reads the full snapshot from the database.
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private static final class Entry<T> {
+        final T value;
+        final long loadedAt;
+
+        Entry(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final String name;
+    private final Loader<T> loader;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Object loadLock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile Entry<T> entry;
+
+    ReferenceDataCache(String name, long ttlMillis, Loader<T> loader) {
+        this(name, ttlMillis, loader, System::currentTimeMillis);
+    }
+
+    ReferenceDataCache(String name, long ttlMillis, Loader<T> loader, LongSupplier clock) {
+        this.name = name;
+        this.ttlMillis = ttlMillis;
+        this.loader = loader;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached snapshot, loading it if it is missing or expired.
+     *
+     * @throws SQLException if the snapshot had to be loaded and the load failed.
+     */
+    T get() throws SQLException {
+        Entry<T> current = entry;
+        if (isFresh(current)) {
+            hits.incrementAndGet();
+            return current.value;
+        }
+
+        synchronized (loadLock) {
+            // Another thread may have loaded it while we waited
+            current = entry;
+            if (isFresh(current)) {
+                hits.incrementAndGet();
+                return current.value;
+            }
+
+            misses.incrementAndGet();
+            long loadGeneration = generation.get();
+            T value = loader.load();
+            if (loadGeneration == generation.get()) {
+                entry = new Entry<>(value, clock.getAsLong());
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Drops the snapshot; the next read goes to the database.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        entry = null;
+        invalidations.incrementAndGet();
+    }
+
+    private boolean isFresh(Entry<T> candidate) {
+        return candidate != null && ttlMillis > 0 && clock.getAsLong() - candidate.loadedAt < ttlMillis;
+    }
+
+    CacheMetrics getMetrics() {
+        return new CacheMetrics(name, hits.get(), misses.get(), invalidations.get(), 0, entry == null ? 0 : 1);
+    }
+}
@@ -0,0 +1,176 @@
+package com.globemed.db;
+
+import com.globemed.reports.DailyRevenue;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filter criteria for report queries: an optional date range, service description and
+ * payment status. The DAOs translate these into parameterized WHERE clauses so the
+ * database only scans the rows a report actually needs.
+ * <p>
+ * Date bounds are inclusive calendar days and are compared as half-open datetime ranges
+ * ({@code col >= from AND col < to + 1 day}) so the billed_datetime and
+ * appointment_datetime indexes can be used. A null field means "no restriction".
+ * <p>
+ * Reports that only look at unpaid bills can additionally restrict the scan to bills with a
+ * remaining balance of patients whose account shows one ({@link #withOpenBalancesOnly()}).
+ */
+public class ReportCriteria {
+    public static final String STATUS_PAID = "Paid";
+    public static final String STATUS_PENDING = "Pending";
+    public static final String STATUS_OVERDUE = "Overdue";
+
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+    private final String serviceDescription;
+    private final String paymentStatus;
+    private final boolean openBalancesOnly;
+
+    public ReportCriteria(LocalDate fromDate, LocalDate toDate, String serviceDescription, String paymentStatus) {
+        this(fromDate, toDate, serviceDescription, paymentStatus, false);
+    }
+
+    private ReportCriteria(LocalDate fromDate, LocalDate toDate, String serviceDescription, String paymentStatus,
+                           boolean openBalancesOnly) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.serviceDescription = serviceDescription;
+        this.paymentStatus = paymentStatus;
+        this.openBalancesOnly = openBalancesOnly;
+    }
+
+    /**
+     * @return Criteria that match every row.
+     */
+    public static ReportCriteria all() {
+        return new ReportCriteria(null, null, null, null);
+    }
+
+    public LocalDate getFromDate() { return fromDate; }
+    public LocalDate getToDate() { return toDate; }
+    public String getServiceDescription() { return serviceDescription; }
+    public String getPaymentStatus() { return paymentStatus; }
+    public boolean isOpenBalancesOnly() { return openBalancesOnly; }
+
+    /**
+     * @return These criteria, further limited to bills with a remaining balance. Patients are
+     *         pruned through the outstanding index of patient_accounts, so bills of patients who
+     *         owe nothing are never read.
+     */
+    public ReportCriteria withOpenBalancesOnly() {
+        return new ReportCriteria(fromDate, toDate, serviceDescription, paymentStatus, true);
+    }
+
+    /**
+     * Appends the billing conditions to a WHERE clause.
+     * @param sql The SQL being built; each condition is appended as " AND ...".
+     * @param params Receives the bind values in order.
+     * @param alias The billing table alias including the dot (e.g. "b."), or "" for none.
+     */
+    void appendBillConditions(StringBuilder sql, List<Object> params, String alias) {
+        appendDateRange(sql, params, alias + "billed_datetime");
+        if (serviceDescription != null) {
+            sql.append(" AND ").append(alias).append("service_description = ?");
+            params.add(serviceDescription);
+        }
+        if (paymentStatus != null) {
+            // Mirrors the report's notion of payment state: nothing left to pay means paid
+            switch (paymentStatus) {
+                case STATUS_PAID:
+                    sql.append(" AND COALESCE(").append(alias).append("final_amount, 0) = 0");
+                    break;
+                case STATUS_PENDING:
+                case STATUS_OVERDUE:
+                    sql.append(" AND ").append(alias).append("final_amount > 0");
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (openBalancesOnly) {
+            sql.append(" AND ").append(alias).append("patient_id IN (SELECT patient_id FROM patient_accounts WHERE outstanding > 0)");
+            sql.append(" AND COALESCE(").append(alias).append("final_amount, 0) > COALESCE(").append(alias).append("amount_paid, 0)");
+        }
+    }
+
+    /**
+     * Appends the conditions for the revenue_daily rollup to a WHERE clause. Payment status
+     * maps onto the rollup's status buckets, which use the same notion of paid as
+     * {@link #appendBillConditions}.
+     * @param sql The SQL being built; each condition is appended as " AND ...".
+     * @param params Receives the bind values in order.
+     */
+    void appendRollupConditions(StringBuilder sql, List<Object> params) {
+        if (fromDate != null) {
+            sql.append(" AND revenue_date >= ?");
+            params.add(Date.valueOf(fromDate));
+        }
+        if (toDate != null) {
+            sql.append(" AND revenue_date <= ?");
+            params.add(Date.valueOf(toDate));
+        }
+        if (serviceDescription != null) {
+            sql.append(" AND service_description = ?");
+            params.add(serviceDescription);
+        }
+        if (paymentStatus != null) {
+            switch (paymentStatus) {
+                case STATUS_PAID:
+                    sql.append(" AND status_bucket = ?");
+                    params.add(DailyRevenue.BUCKET_PAID);
+                    break;
+                case STATUS_PENDING:
+                case STATUS_OVERDUE:
+                    sql.append(" AND status_bucket = ?");
+                    params.add(DailyRevenue.BUCKET_OPEN);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Appends the appointment conditions (date range only) to a WHERE clause.
+     * @param sql The SQL being built; each condition is appended as " AND ...".
+     * @param params Receives the bind values in order.
+     * @param alias The appointments table alias including the dot (e.g. "a."), or "" for none.
+     */
+    void appendAppointmentConditions(StringBuilder sql, List<Object> params, String alias) {
+        appendDateRange(sql, params, alias + "appointment_datetime");
+    }
+
+    private void appendDateRange(StringBuilder sql, List<Object> params, String column) {
+        if (fromDate != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            params.add(Timestamp.valueOf(fromDate.atStartOfDay()));
+        }
+        if (toDate != null) {
+            sql.append(" AND ").append(column).append(" < ?");
+            params.add(Timestamp.valueOf(toDate.plusDays(1).atStartOfDay()));
+        }
+    }
+
+    /**
+     * Binds collected parameters to a statement, starting at the given index.
+     * @return The next free parameter index.
+     */
+    static int bind(PreparedStatement pstmt, List<Object> params, int startIndex) throws SQLException {
+        int index = startIndex;
+        for (Object param : params) {
+            pstmt.setObject(index++, param);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReportCriteria{from=%s, to=%s, service=%s, status=%s, openBalancesOnly=%s}",
+                fromDate, toDate, serviceDescription, paymentStatus, openBalancesOnly);
+    }
+}
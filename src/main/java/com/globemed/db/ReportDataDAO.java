@@ -0,0 +1,153 @@
+package com.globemed.db;
+
+import com.globemed.reports.PatientReportData;
+import com.globemed.reports.ReportVisitor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Bulk data source for system-wide reports.
+ * <p>
+ * Instead of one appointment query and one billing query per patient (2N+1 round trips),
+ * this runs exactly three streaming queries - patients, appointments and bills - all sorted
+ * by the same (full_name, patient_id) key, and merges them in a single pass. The visitor
+ * still sees each patient followed by that patient's appointments and then their bills,
+ * exactly as the per-patient loop produced them. Rows are grouped per patient into
+ * {@link PatientReportData} so the groups can also be handed to the parallel report engine.
+ * <p>
+ * The merge compares patient ids with String.equals, so all three queries order by
+ * patient_id under the binary collation and match rows on the joined patients row's id
+ * rather than the child row's own (case-insensitively joined) copy of it.
+ * <p>
+ * The three result sets are read concurrently, so three pooled connections are held for
+ * the duration of the walk.
+ */
+public class ReportDataDAO {
+
+    private static final String PATIENTS_SQL =
+            "SELECT p.*, ip.plan_name, ip.coverage_percent " +
+            "FROM patients p " +
+            "LEFT JOIN insurance_plans ip ON p.insurance_plan_id = ip.plan_id " +
+            "ORDER BY p.full_name ASC, p.patient_id COLLATE utf8mb3_bin ASC";
+
+    private static final String APPOINTMENTS_SELECT =
+            "SELECT a.*, p.patient_id AS group_patient_id FROM appointments a " +
+            "JOIN patients p ON a.patient_id = p.patient_id WHERE 1 = 1";
+    private static final String APPOINTMENTS_ORDER =
+            " ORDER BY p.full_name ASC, p.patient_id COLLATE utf8mb3_bin ASC, a.appointment_datetime DESC";
+
+    private static final String BILLS_SELECT =
+            "SELECT b.bill_id, b.patient_id, b.service_description, b.amount, b.status, " +
+            "b.final_amount, b.billed_datetime, b.amount_paid, b.version, " +
+            "COALESCE(b.insurance_paid_amount, 0.0) as insurance_paid_amount, p.patient_id AS group_patient_id " +
+            "FROM billing b " +
+            "JOIN patients p ON b.patient_id = p.patient_id WHERE 1 = 1";
+    private static final String BILLS_ORDER =
+            " ORDER BY p.full_name ASC, p.patient_id COLLATE utf8mb3_bin ASC, b.billed_datetime DESC";
+
+    /**
+     * Walks every patient, appointment and bill in the system and feeds them to the visitor
+     * in patient -> appointments -> bills order.
+     *
+     * @param visitor The report visitor to feed.
+     * @param criteria Date range, service and payment status filters, applied in SQL.
+     * @return true if the whole data set was visited, false if a database error occurred.
+     */
+    public boolean visitSystemWideData(ReportVisitor visitor, ReportCriteria criteria) {
+        return forEachPatientData(criteria, group -> group.accept(visitor));
+    }
+
+    /**
+     * Streams the system-wide data set as one {@link PatientReportData} group per patient,
+     * in (full_name, patient_id) order. Only the current patient's rows are held in memory.
+     *
+     * @param criteria Date range, service and payment status filters, applied in SQL.
+     * @param consumer Receives each patient group.
+     * @return true if the whole data set was delivered, false if a database error occurred.
+     */
+    public boolean forEachPatientData(ReportCriteria criteria, Consumer<PatientReportData> consumer) {
+        List<Object> appointmentParams = new ArrayList<>();
+        StringBuilder appointmentSql = new StringBuilder(APPOINTMENTS_SELECT);
+        criteria.appendAppointmentConditions(appointmentSql, appointmentParams, "a.");
+        appointmentSql.append(APPOINTMENTS_ORDER);
+
+        List<Object> billParams = new ArrayList<>();
+        StringBuilder billSql = new StringBuilder(BILLS_SELECT);
+        criteria.appendBillConditions(billSql, billParams, "b.");
+        billSql.append(BILLS_ORDER);
+
+        try (Connection patientConn = DatabaseManager.getConnection();
+             Connection appointmentConn = DatabaseManager.getConnection();
+             Connection billConn = DatabaseManager.getConnection();
+             PreparedStatement patientStmt = DatabaseManager.prepareStreaming(patientConn, PATIENTS_SQL);
+             PreparedStatement appointmentStmt = DatabaseManager.prepareStreaming(appointmentConn, appointmentSql.toString());
+             PreparedStatement billStmt = DatabaseManager.prepareStreaming(billConn, billSql.toString())) {
+
+            ReportCriteria.bind(appointmentStmt, appointmentParams, 1);
+            ReportCriteria.bind(billStmt, billParams, 1);
+
+            try (ResultSet patients = patientStmt.executeQuery();
+                 ResultSet appointments = appointmentStmt.executeQuery();
+                 ResultSet bills = billStmt.executeQuery()) {
+                walk(consumer, patients, appointments, bills);
+            } catch (RuntimeException e) {
+                // The consumer gave up (e.g. the report was cancelled). Closing a streaming
+                // result set drains the remaining rows, so ask the server to stop sending first.
+                cancelQuietly(patientStmt, appointmentStmt, billStmt);
+                throw e;
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error loading system-wide report data: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void cancelQuietly(Statement... statements) {
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                System.err.println("Could not cancel report query: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Merges the three sorted result sets into one group per patient.
+     */
+    private void walk(Consumer<PatientReportData> consumer, ResultSet patients, ResultSet appointments, ResultSet bills)
+            throws SQLException {
+        boolean hasAppointment = appointments.next();
+        boolean hasBill = bills.next();
+        int patientCount = 0;
+
+        while (patients.next()) {
+            PatientReportData group = new PatientReportData(PatientDAO.mapPatient(patients));
+            String patientId = group.getPatient().getPatientId();
+            patientCount++;
+
+            while (hasAppointment && patientId.equals(appointments.getString("group_patient_id"))) {
+                group.addAppointment(SchedulingDAO.mapAppointment(appointments));
+                hasAppointment = appointments.next();
+            }
+
+            while (hasBill && patientId.equals(bills.getString("group_patient_id"))) {
+                group.addBill(BillingDAO.createBillFromResultSet(bills));
+                hasBill = bills.next();
+            }
+
+            consumer.accept(group);
+        }
+
+        System.out.println("Report data loaded for " + patientCount + " patients in a single pass.");
+    }
+}
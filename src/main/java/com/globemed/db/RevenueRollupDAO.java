@@ -0,0 +1,389 @@
+package com.globemed.db;
+
+import com.globemed.billing.Money;
+import com.globemed.reports.DailyRevenue;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Reads and maintains the revenue_daily rollup: bill counts and billed, insurance paid,
+ * patient paid and outstanding sums per (day, service, status bucket). Revenue reports
+ * read the rollup instead of scanning the billing ledger.
+ * <p>
+ * BillingDAO keeps the rollup current inside its own transactions: after the bills are
+ * written, the difference between them as they were and as they are is added to each
+ * affected cell, in cell order, as the transaction's last statements. Counts and sums are
+ * pure deltas, and a new amount can only lower the minimum or raise the maximum. Only when
+ * a bill leaves a cell (deleted, moved to another day, service or bucket, or re-priced) are
+ * that cell's minimum and maximum read back from its bills, through the
+ * (service_description, billed_datetime) index. A payment never does that, since it changes
+ * neither the amount nor the final amount that decides the bucket.
+ */
+public class RevenueRollupDAO {
+    // Matches ReportCriteria's payment status filter: nothing left on the final amount means paid
+    private static final String BUCKET_EXPRESSION = "CASE WHEN COALESCE(final_amount, 0) = 0 THEN '" +
+            DailyRevenue.BUCKET_PAID + "' ELSE '" + DailyRevenue.BUCKET_OPEN + "' END";
+    private static final String ROLLUP_AGGREGATES =
+            "COUNT(*), " +
+            "COALESCE(SUM(amount), 0), " +
+            "COALESCE(SUM(COALESCE(insurance_paid_amount, 0)), 0), " +
+            "COALESCE(SUM(COALESCE(amount_paid, 0)), 0), " +
+            "COALESCE(SUM(GREATEST(COALESCE(final_amount, 0) - COALESCE(amount_paid, 0), 0)), 0), " +
+            "MIN(amount), " +
+            "MIN(CASE WHEN amount > 0 THEN amount END), " +
+            "MAX(amount), " +
+            "COALESCE(SUM(amount <= " + DailyRevenue.SMALL_BILL_LIMIT + "), 0), " +
+            "COALESCE(SUM(CASE WHEN amount <= " + DailyRevenue.SMALL_BILL_LIMIT + " THEN amount ELSE 0 END), 0), " +
+            "COALESCE(SUM(amount > " + DailyRevenue.SMALL_BILL_LIMIT + " AND amount <= " + DailyRevenue.MEDIUM_BILL_LIMIT + "), 0), " +
+            "COALESCE(SUM(CASE WHEN amount > " + DailyRevenue.SMALL_BILL_LIMIT + " AND amount <= " + DailyRevenue.MEDIUM_BILL_LIMIT + " THEN amount ELSE 0 END), 0), " +
+            "COALESCE(SUM(amount > " + DailyRevenue.MEDIUM_BILL_LIMIT + "), 0), " +
+            "COALESCE(SUM(CASE WHEN amount > " + DailyRevenue.MEDIUM_BILL_LIMIT + " THEN amount ELSE 0 END), 0)";
+    private static final String ROLLUP_COLUMNS = "bill_count, billed_amount, insurance_paid, patient_paid, outstanding, " +
+            "min_amount, min_positive_amount, max_amount, small_bill_count, small_billed, medium_bill_count, medium_billed, " +
+            "large_bill_count, large_billed";
+
+    /**
+     * The key of one rollup row.
+     */
+    static final class Cell implements Comparable<Cell> {
+        final LocalDate day;
+        final String service;
+        final String bucket;
+
+        Cell(LocalDate day, String service, String bucket) {
+            this.day = day;
+            this.service = service;
+            this.bucket = bucket;
+        }
+
+        /**
+         * @return The cell a stored bill is counted in; same bucket rule as {@link #BUCKET_EXPRESSION}.
+         */
+        static Cell of(BillWriteScope.StoredBill bill) {
+            return new Cell(bill.billedDateTime.toLocalDate(), bill.serviceDescription,
+                    bill.finalAmountCents == 0 ? DailyRevenue.BUCKET_PAID : DailyRevenue.BUCKET_OPEN);
+        }
+
+        @Override
+        public int compareTo(Cell other) {
+            int byDay = day.compareTo(other.day);
+            if (byDay != 0) return byDay;
+            int byService = service.compareTo(other.service);
+            return byService != 0 ? byService : bucket.compareTo(other.bucket);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Cell)) return false;
+            Cell other = (Cell) o;
+            return day.equals(other.day) && service.equals(other.service) && bucket.equals(other.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(day, service, bucket);
+        }
+
+        @Override
+        public String toString() {
+            return day + "/" + service + "/" + bucket;
+        }
+    }
+
+    /**
+     * How a write changed the bills of one cell: counts and sums to add, the smallest and
+     * largest amounts that joined it, and whether an amount left it.
+     */
+    static final class CellChange {
+        int billCount;
+        long billedCents;
+        long insurancePaidCents;
+        long patientPaidCents;
+        long outstandingCents;
+        final int[] sizeBandCounts = new int[3];
+        final long[] sizeBandBilledCents = new long[3];
+        /** The smallest, smallest positive and largest amounts that joined the cell, or null. */
+        Long minAddedCents;
+        Long minPositiveAddedCents;
+        Long maxAddedCents;
+        /** An amount left the cell, so its minimum and maximum must be read back. */
+        boolean amountRemoved;
+
+        private void add(BillWriteScope.StoredBill bill, int sign) {
+            billCount += sign;
+            billedCents += sign * bill.amountCents;
+            insurancePaidCents += sign * bill.insurancePaidCents;
+            patientPaidCents += sign * bill.amountPaidCents;
+            outstandingCents += sign * bill.outstandingCents();
+            int band = DailyRevenue.sizeBand(bill.amountCents);
+            sizeBandCounts[band] += sign;
+            sizeBandBilledCents[band] += sign * bill.amountCents;
+        }
+
+        private void amountAdded(long amountCents) {
+            minAddedCents = minAddedCents == null ? amountCents : Math.min(minAddedCents, amountCents);
+            maxAddedCents = maxAddedCents == null ? amountCents : Math.max(maxAddedCents, amountCents);
+            if (amountCents > 0) {
+                minPositiveAddedCents = minPositiveAddedCents == null ? amountCents : Math.min(minPositiveAddedCents, amountCents);
+            }
+        }
+    }
+
+    /**
+     * Streams the rollup cells matching the criteria, oldest day first. Cells left empty
+     * by deleted or moved bills are skipped.
+     * @param criteria Date range, service and payment status filters.
+     * @param action Called once per cell.
+     * @return The number of cells read, or -1 if a database error occurred.
+     */
+    public int forEachDailyRevenue(ReportCriteria criteria, Consumer<DailyRevenue> action) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT revenue_date, service_description, status_bucket, " + ROLLUP_COLUMNS +
+                " FROM revenue_daily WHERE bill_count > 0");
+        criteria.appendRollupConditions(sql, params);
+        sql.append(" ORDER BY revenue_date, service_description, status_bucket");
+
+        int cells = 0;
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            ReportCriteria.bind(pstmt, params, 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(createCellFromResultSet(rs));
+                    cells++;
+                }
+            }
+            return cells;
+        } catch (SQLException e) {
+            System.err.println("Error reading revenue rollup: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Recomputes the whole rollup from the billing table in one set-based pass, for the
+     * initial backfill or after bills were changed outside the application.
+     * @return The number of cells written, or -1 on failure.
+     */
+    public int rebuildRollup() {
+        String insertSql = "INSERT INTO revenue_daily (revenue_date, service_description, status_bucket, " + ROLLUP_COLUMNS + ", updated_at) " +
+                "SELECT DATE(billed_datetime), service_description, " + BUCKET_EXPRESSION + ", " + ROLLUP_AGGREGATES + ", NOW() " +
+                "FROM billing GROUP BY DATE(billed_datetime), service_description, " + BUCKET_EXPRESSION;
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Take the existing rows first, in the same order bill writers do
+                int locked = 0;
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT revenue_date FROM revenue_daily ORDER BY revenue_date, service_description, status_bucket FOR UPDATE");
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        locked++;
+                    }
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM revenue_daily")) {
+                    pstmt.executeUpdate();
+                }
+                int cells;
+                try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                    cells = pstmt.executeUpdate();
+                }
+                conn.commit();
+                System.out.println("Rebuilt revenue rollup with " + cells +
+                        " cells, replacing " + locked);
+                return cells;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding revenue rollup: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Works out how the bills' changes move each rollup cell.
+     * @param before The bills as stored before the write; bills the write inserted are absent.
+     * @param after The same bills and the inserted ones as stored after it; deleted bills are absent.
+     * @return The change per cell, in lock order.
+     */
+    static SortedMap<Cell, CellChange> changesOf(Collection<BillWriteScope.StoredBill> before,
+                                                 Collection<BillWriteScope.StoredBill> after) {
+        SortedMap<Cell, CellChange> changes = new TreeMap<>();
+        Map<Integer, BillWriteScope.StoredBill> beforeById = new HashMap<>();
+        for (BillWriteScope.StoredBill bill : before) {
+            beforeById.put(bill.billId, bill);
+        }
+        Map<Integer, BillWriteScope.StoredBill> afterById = new HashMap<>();
+        for (BillWriteScope.StoredBill bill : after) {
+            afterById.put(bill.billId, bill);
+            Cell cell = Cell.of(bill);
+            CellChange change = changes.computeIfAbsent(cell, c -> new CellChange());
+            change.add(bill, 1);
+            if (!sameCellAndAmount(beforeById.get(bill.billId), cell, bill)) {
+                change.amountAdded(bill.amountCents);
+            }
+        }
+        for (BillWriteScope.StoredBill bill : before) {
+            Cell cell = Cell.of(bill);
+            CellChange change = changes.computeIfAbsent(cell, c -> new CellChange());
+            change.add(bill, -1);
+            if (!sameCellAndAmount(afterById.get(bill.billId), cell, bill)) {
+                change.amountRemoved = true;
+            }
+        }
+        return changes;
+    }
+
+    private static boolean sameCellAndAmount(BillWriteScope.StoredBill other, Cell cell, BillWriteScope.StoredBill bill) {
+        return other != null && other.amountCents == bill.amountCents && Cell.of(other).equals(cell);
+    }
+
+    /**
+     * Adds the bills' changes to their rollup cells, creating missing rows, including the
+     * transaction's own uncommitted writes. The minimum and maximum of cells an amount left
+     * are read back first, with a locking read of that cell's bills, before any rollup row is
+     * updated; the rows are then updated in cell order and stay locked until commit.
+     */
+    static void applyBillChanges(Connection conn, Collection<BillWriteScope.StoredBill> before,
+                                 Collection<BillWriteScope.StoredBill> after) throws SQLException {
+        SortedMap<Cell, CellChange> changes = changesOf(before, after);
+        if (changes.isEmpty()) {
+            return;
+        }
+        Map<Cell, Object[]> readBack = readMinMax(conn, changes);
+
+        String upsertSql = "INSERT INTO revenue_daily (revenue_date, service_description, status_bucket, " + ROLLUP_COLUMNS + ", updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                "bill_count = bill_count + VALUES(bill_count), billed_amount = billed_amount + VALUES(billed_amount), " +
+                "insurance_paid = insurance_paid + VALUES(insurance_paid), patient_paid = patient_paid + VALUES(patient_paid), " +
+                "outstanding = outstanding + VALUES(outstanding), " +
+                "min_amount = COALESCE(LEAST(min_amount, VALUES(min_amount)), min_amount, VALUES(min_amount)), " +
+                "min_positive_amount = COALESCE(LEAST(min_positive_amount, VALUES(min_positive_amount)), min_positive_amount, VALUES(min_positive_amount)), " +
+                "max_amount = COALESCE(GREATEST(max_amount, VALUES(max_amount)), max_amount, VALUES(max_amount)), " +
+                "small_bill_count = small_bill_count + VALUES(small_bill_count), small_billed = small_billed + VALUES(small_billed), " +
+                "medium_bill_count = medium_bill_count + VALUES(medium_bill_count), medium_billed = medium_billed + VALUES(medium_billed), " +
+                "large_bill_count = large_bill_count + VALUES(large_bill_count), large_billed = large_billed + VALUES(large_billed), " +
+                "updated_at = VALUES(updated_at)";
+        String minMaxSql = "UPDATE revenue_daily SET min_amount = ?, min_positive_amount = ?, max_amount = ? " +
+                "WHERE revenue_date = ? AND service_description = ? AND status_bucket = ?";
+        try (PreparedStatement upsert = conn.prepareStatement(upsertSql);
+             PreparedStatement minMax = conn.prepareStatement(minMaxSql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (Map.Entry<Cell, CellChange> entry : changes.entrySet()) {
+                Cell cell = entry.getKey();
+                CellChange change = entry.getValue();
+                upsert.setDate(1, Date.valueOf(cell.day));
+                upsert.setString(2, cell.service);
+                upsert.setString(3, cell.bucket);
+                upsert.setInt(4, change.billCount);
+                upsert.setBigDecimal(5, Money.toDecimal(change.billedCents));
+                upsert.setBigDecimal(6, Money.toDecimal(change.insurancePaidCents));
+                upsert.setBigDecimal(7, Money.toDecimal(change.patientPaidCents));
+                upsert.setBigDecimal(8, Money.toDecimal(change.outstandingCents));
+                upsert.setBigDecimal(9, change.minAddedCents != null ? Money.toDecimal(change.minAddedCents) : null);
+                upsert.setBigDecimal(10, change.minPositiveAddedCents != null ? Money.toDecimal(change.minPositiveAddedCents) : null);
+                upsert.setBigDecimal(11, change.maxAddedCents != null ? Money.toDecimal(change.maxAddedCents) : null);
+                for (int band = 0; band < 3; band++) {
+                    upsert.setInt(12 + band * 2, change.sizeBandCounts[band]);
+                    upsert.setBigDecimal(13 + band * 2, Money.toDecimal(change.sizeBandBilledCents[band]));
+                }
+                upsert.setTimestamp(18, now);
+                upsert.addBatch();
+
+                Object[] minMaxRead = readBack.get(cell);
+                if (minMaxRead != null) {
+                    for (int i = 0; i < 3; i++) {
+                        minMax.setObject(i + 1, minMaxRead[i]);
+                    }
+                    minMax.setDate(4, Date.valueOf(cell.day));
+                    minMax.setString(5, cell.service);
+                    minMax.setString(6, cell.bucket);
+                    minMax.addBatch();
+                }
+            }
+            upsert.executeBatch();
+            if (!readBack.isEmpty()) {
+                minMax.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Reads the minimum, minimum positive and maximum amount of every cell an amount left,
+     * from its bills as they are now. The locking read keeps other writers out of those
+     * cells' bills until commit, so the values cannot go stale before they are written.
+     */
+    private static Map<Cell, Object[]> readMinMax(Connection conn, SortedMap<Cell, CellChange> changes) throws SQLException {
+        Map<Cell, Object[]> minMax = new HashMap<>();
+        if (changes.values().stream().noneMatch(change -> change.amountRemoved)) {
+            return minMax;
+        }
+        String sql = "SELECT MIN(amount), MIN(CASE WHEN amount > 0 THEN amount END), MAX(amount) FROM billing " +
+                "WHERE service_description = ? AND billed_datetime >= ? AND billed_datetime < ? AND " +
+                BUCKET_EXPRESSION + " = ? LOCK IN SHARE MODE";
+        try (PreparedStatement read = conn.prepareStatement(sql)) {
+            for (Map.Entry<Cell, CellChange> entry : changes.entrySet()) {
+                if (!entry.getValue().amountRemoved) {
+                    continue;
+                }
+                Cell cell = entry.getKey();
+                read.setString(1, cell.service);
+                read.setTimestamp(2, Timestamp.valueOf(cell.day.atStartOfDay()));
+                read.setTimestamp(3, Timestamp.valueOf(cell.day.plusDays(1).atStartOfDay()));
+                read.setString(4, cell.bucket);
+                try (ResultSet rs = read.executeQuery()) {
+                    // An aggregate without GROUP BY always returns one row; all NULL for an emptied cell
+                    Object[] values = new Object[3];
+                    if (rs.next()) {
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = rs.getBigDecimal(i + 1);
+                        }
+                    }
+                    minMax.put(cell, values);
+                }
+            }
+        }
+        return minMax;
+    }
+
+    private static DailyRevenue createCellFromResultSet(ResultSet rs) throws SQLException {
+        return new DailyRevenue(
+                rs.getDate("revenue_date").toLocalDate(),
+                rs.getString("service_description"),
+                rs.getString("status_bucket"),
+                rs.getInt("bill_count"),
+                Money.ofDecimal(rs.getBigDecimal("billed_amount")),
+                Money.ofDecimal(rs.getBigDecimal("insurance_paid")),
+                Money.ofDecimal(rs.getBigDecimal("patient_paid")),
+                Money.ofDecimal(rs.getBigDecimal("outstanding")),
+                Money.ofDecimal(rs.getBigDecimal("min_amount")),
+                Money.ofDecimal(rs.getBigDecimal("min_positive_amount")),
+                Money.ofDecimal(rs.getBigDecimal("max_amount")),
+                new int[]{rs.getInt("small_bill_count"), rs.getInt("medium_bill_count"), rs.getInt("large_bill_count")},
+                new long[]{Money.ofDecimal(rs.getBigDecimal("small_billed")), Money.ofDecimal(rs.getBigDecimal("medium_billed")),
+                        Money.ofDecimal(rs.getBigDecimal("large_billed"))}
+        );
+    }
+}
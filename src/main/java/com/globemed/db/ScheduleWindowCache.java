@@ -0,0 +1,168 @@
+package com.globemed.db;
+
+import com.globemed.appointment.Appointment;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches doctors' schedules a week at a time, so paging through the appointment panel's
+ * date spinner is served from memory.
+ * <p>
+ * A miss loads the whole Monday-to-Sunday week containing the requested day in one range
+ * query, then prefetches the previous and next weeks in the background. Weeks are kept in
+ * an LRU of bounded size, re-read once they are older than the TTL, and dropped by the
+ * appointment write methods in {@link SchedulingDAO}. Callers always receive copies.
+ */
+class ScheduleWindowCache {
+    static final int WINDOW_DAYS = 7;
+
+    /**
+     * Reads one doctor's appointments for [from, to) from the database.
+     */
+    @FunctionalInterface
+    interface WindowLoader {
+        List<Appointment> load(String doctorId, LocalDate from, LocalDate to) throws SQLException;
+    }
+
+    private static final class WindowKey {
+        final String doctorId;
+        final LocalDate start;
+
+        WindowKey(String doctorId, LocalDate start) {
+            this.doctorId = doctorId;
+            this.start = start;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof WindowKey)) return false;
+            WindowKey other = (WindowKey) o;
+            return doctorId.equals(other.doctorId) && start.equals(other.start);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(doctorId, start);
+        }
+    }
+
+    private static final class Window {
+        final List<Appointment> appointments;
+        final long loadedAt;
+
+        Window(List<Appointment> appointments, long loadedAt) {
+            this.appointments = appointments;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final LruCache<WindowKey, Window> windows;
+    private final WindowLoader loader;
+    private final long ttlMillis;
+    private final Executor prefetchExecutor;
+    private final LongSupplier clock;
+    private final Set<WindowKey> prefetching = ConcurrentHashMap.newKeySet();
+
+    ScheduleWindowCache(int maxWindows, long ttlMillis, WindowLoader loader, Executor prefetchExecutor) {
+        this(maxWindows, ttlMillis, loader, prefetchExecutor, System::currentTimeMillis);
+    }
+
+    ScheduleWindowCache(int maxWindows, long ttlMillis, WindowLoader loader, Executor prefetchExecutor, LongSupplier clock) {
+        this.windows = new LruCache<>("schedule windows", ttlMillis > 0 ? maxWindows : 0);
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.prefetchExecutor = prefetchExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets one doctor's appointments on one day, loading that day's week if needed.
+     *
+     * @return Copies of the appointments, ordered by datetime.
+     * @throws SQLException if the week had to be loaded and the load failed.
+     */
+    List<Appointment> getDay(String doctorId, LocalDate day) throws SQLException {
+        WindowKey key = new WindowKey(doctorId, windowStart(day));
+        Window window = windows.get(key);
+        if (!isFresh(window)) {
+            window = load(key);
+            prefetch(new WindowKey(doctorId, key.start.minusDays(WINDOW_DAYS)));
+            prefetch(new WindowKey(doctorId, key.start.plusDays(WINDOW_DAYS)));
+        }
+
+        List<Appointment> result = new ArrayList<>();
+        for (Appointment appointment : window.appointments) {
+            if (appointment.getAppointmentDateTime().toLocalDate().equals(day)) {
+                result.add(appointment.clone());
+            }
+        }
+        return result;
+    }
+
+    private Window load(WindowKey key) throws SQLException {
+        long readVersion = windows.version();
+        List<Appointment> appointments = loader.load(key.doctorId, key.start, key.start.plusDays(WINDOW_DAYS));
+        Window window = new Window(Collections.unmodifiableList(new ArrayList<>(appointments)), clock.getAsLong());
+        windows.putIfCurrent(key, window, readVersion);
+        return window;
+    }
+
+    private void prefetch(WindowKey key) {
+        if (ttlMillis <= 0 || !prefetching.add(key)) {
+            return;
+        }
+        prefetchExecutor.execute(() -> {
+            try {
+                if (!isFresh(windows.get(key))) {
+                    load(key);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error prefetching schedule for doctor " + key.doctorId + " from " + key.start + ": " + e.getMessage());
+            } finally {
+                prefetching.remove(key);
+            }
+        });
+    }
+
+    private boolean isFresh(Window window) {
+        return window != null && clock.getAsLong() - window.loadedAt < ttlMillis;
+    }
+
+    /**
+     * Drops the week containing {@code day} for one doctor.
+     */
+    void invalidate(String doctorId, LocalDate day) {
+        windows.invalidate(new WindowKey(doctorId, windowStart(day)));
+    }
+
+    /**
+     * Drops every cached week for one doctor.
+     */
+    void invalidateDoctor(String doctorId) {
+        windows.invalidateIf(key -> key.doctorId.equals(doctorId));
+    }
+
+    void clear() {
+        windows.clear();
+    }
+
+    CacheMetrics getMetrics() {
+        return windows.getMetrics();
+    }
+
+    static LocalDate windowStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
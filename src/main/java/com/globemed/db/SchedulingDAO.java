@@ -4,10 +4,17 @@ import com.globemed.appointment.Appointment;
 import com.globemed.appointment.Doctor;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 /**
  * SchedulingDAO - Enhanced with appointment reason update functionality
@@ -15,40 +22,79 @@ import java.util.List;
  */
 public class SchedulingDAO {
 
-    public List<Doctor> getAllDoctors() {
-        List<Doctor> doctors = new ArrayList<>();
+    /**
+     * Every doctor keyed by ID, in full_name order. Shared by all SchedulingDAO instances
+     * and invalidated by the doctor write methods below.
+     */
+    private static final ReferenceDataCache<Map<String, Doctor>> DOCTOR_CACHE =
+            new ReferenceDataCache<>("doctors", DatabaseManager.getReferenceCacheTtl(), SchedulingDAO::loadDoctors);
+
+    /**
+     * Gets a snapshot of the doctor cache's hit and miss counters.
+     */
+    public static CacheMetrics getDoctorCacheMetrics() {
+        return DOCTOR_CACHE.getMetrics();
+    }
+
+    /**
+     * Active appointment start times per doctor, used for booking conflict checks. Kept in
+     * sync by the appointment write methods below.
+     */
+    private static final DoctorScheduleIndex SCHEDULE_INDEX =
+            new DoctorScheduleIndex(SchedulingDAO::queryAppointmentsForDoctorOnDate, DatabaseManager.getScheduleIndexTtl());
+
+    /**
+     * Week-at-a-time schedule cache behind getAppointmentsForDoctorOnDate, so paging through
+     * days in the appointment panel costs no round trips. Dropped by the appointment write
+     * methods below.
+     */
+    private static final ScheduleWindowCache SCHEDULE_WINDOWS = new ScheduleWindowCache(
+            DatabaseManager.getScheduleWindowCacheSize(), DatabaseManager.getScheduleIndexTtl(),
+            SchedulingDAO::loadScheduleWindow, AsyncDataAccess::runInBackground);
+
+    /**
+     * Gets a snapshot of the schedule window cache's hit and miss counters.
+     */
+    public static CacheMetrics getScheduleWindowCacheMetrics() {
+        return SCHEDULE_WINDOWS.getMetrics();
+    }
+
+    private static Map<String, Doctor> loadDoctors() throws SQLException {
+        Map<String, Doctor> doctors = new LinkedHashMap<>();
         String sql = "SELECT * FROM doctors ORDER BY full_name";
         try (Connection conn = DatabaseManager.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                doctors.add(new Doctor(
+                Doctor doctor = new Doctor(
                         rs.getString("doctor_id"),
                         rs.getString("full_name"),
-                        rs.getString("specialty")
-                ));
+                        SymbolTable.shared().intern(rs.getString("specialty"))
+                );
+                doctors.put(doctor.getDoctorId(), doctor);
             }
             System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Fetched " + doctors.size() + " doctors from database");
+        }
+        return Collections.unmodifiableMap(doctors);
+    }
+
+    public List<Doctor> getAllDoctors() {
+        try {
+            return new ArrayList<>(DOCTOR_CACHE.get().values());
         } catch (SQLException e) {
             System.err.println("ERROR [2025-08-30 19:44:54] isharax9: Error fetching doctors: " + e.getMessage());
+            return new ArrayList<>();
         }
-        return doctors;
     }
 
+    /**
+     * Looks a doctor up in the cached doctor table.
+     * @return The doctor, or null if no doctor has this ID.
+     */
     public Doctor getDoctorById(String doctorId) {
-        String sql = "SELECT * FROM doctors WHERE doctor_id = ?";
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, doctorId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                Doctor doctor = new Doctor(
-                        rs.getString("doctor_id"),
-                        rs.getString("full_name"),
-                        rs.getString("specialty")
-                );
+        try {
+            Doctor doctor = DOCTOR_CACHE.get().get(doctorId);
+            if (doctor != null) {
                 System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Found doctor: " + doctorId);
                 return doctor;
             }
@@ -59,12 +105,32 @@ public class SchedulingDAO {
         return null;
     }
 
+    /**
+     * Checks the doctors table directly, bypassing the cache, so a doctor added from
+     * another workstation within the TTL is still seen.
+     */
+    private boolean doctorExists(String doctorId) throws SQLException {
+        String sql = "SELECT 1 FROM doctors WHERE doctor_id = ?";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, doctorId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
     public boolean createDoctor(Doctor doctor) {
-        if (getDoctorById(doctor.getDoctorId()) != null) {
-            System.err.println("ERROR [2025-08-30 19:44:54] isharax9: Doctor with ID " + doctor.getDoctorId() + " already exists.");
+        String sql = "INSERT INTO doctors (doctor_id, full_name, specialty) VALUES (?, ?, ?)";
+        try {
+            if (doctorExists(doctor.getDoctorId())) {
+                System.err.println("Doctor with ID " + doctor.getDoctorId() + " already exists.");
+                return false;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error checking doctor " + doctor.getDoctorId() + ": " + e.getMessage());
             return false;
         }
-        String sql = "INSERT INTO doctors (doctor_id, full_name, specialty) VALUES (?, ?, ?)";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, doctor.getDoctorId());
@@ -72,6 +138,7 @@ public class SchedulingDAO {
             pstmt.setString(3, doctor.getSpecialty());
             boolean success = pstmt.executeUpdate() > 0;
             if (success) {
+                DOCTOR_CACHE.invalidate();
                 System.out.println("SUCCESS [2025-08-30 19:44:54] isharax9: Created doctor: " + doctor.getDoctorId() + " - " + doctor.getFullName());
             }
             return success;
@@ -90,6 +157,7 @@ public class SchedulingDAO {
             pstmt.setString(3, doctor.getDoctorId());
             boolean success = pstmt.executeUpdate() > 0;
             if (success) {
+                DOCTOR_CACHE.invalidate();
                 System.out.println("SUCCESS [2025-08-30 19:44:54] isharax9: Updated doctor: " + doctor.getDoctorId() + " - " + doctor.getFullName());
             }
             return success;
@@ -106,6 +174,9 @@ public class SchedulingDAO {
             pstmt.setString(1, doctorId);
             boolean success = pstmt.executeUpdate() > 0;
             if (success) {
+                DOCTOR_CACHE.invalidate();
+                SCHEDULE_INDEX.doctorDeleted(doctorId);
+                SCHEDULE_WINDOWS.invalidateDoctor(doctorId);
                 System.out.println("SUCCESS [2025-08-30 19:44:54] isharax9: Deleted doctor: " + doctorId);
             }
             return success;
@@ -116,36 +187,131 @@ public class SchedulingDAO {
     }
 
     /**
-     * Fetches appointments for a specific doctor on a specific date.
+     * Fetches appointments for a specific doctor on a specific date. Served from the
+     * schedule window cache, which reads the whole week in one query on a miss.
      * @param doctorId The ID of the doctor.
      * @param date The date of the appointments.
      * @return A list of Appointment objects.
      */
     public List<Appointment> getAppointmentsForDoctorOnDate(String doctorId, LocalDate date) {
+        try {
+            return SCHEDULE_WINDOWS.getDay(doctorId, date);
+        } catch (SQLException e) {
+            System.err.println("Error fetching appointments for doctor " +
+                    doctorId + " on " + date + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Loads a schedule window and hands each of its days to the booking conflict index,
+     * since they are a fresh read of the database, unless the doctor's appointments were
+     * written while the query ran.
+     */
+    private static List<Appointment> loadScheduleWindow(String doctorId, LocalDate from, LocalDate to) throws SQLException {
+        long indexVersion = SCHEDULE_INDEX.version(doctorId);
+        List<Appointment> appointments = queryAppointmentsForDoctor(doctorId, from, to);
+        Map<LocalDate, List<Appointment>> byDay = new LinkedHashMap<>();
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            byDay.put(day, new ArrayList<>());
+        }
+        for (Appointment appointment : appointments) {
+            byDay.get(appointment.getAppointmentDateTime().toLocalDate()).add(appointment);
+        }
+        byDay.forEach((day, dayAppointments) -> SCHEDULE_INDEX.dayLoadedIfCurrent(doctorId, day, dayAppointments, indexVersion));
+        return appointments;
+    }
+
+    private static List<Appointment> queryAppointmentsForDoctorOnDate(String doctorId, LocalDate date) throws SQLException {
+        return queryAppointmentsForDoctor(doctorId, date, date.plusDays(1));
+    }
+
+    /**
+     * Reads one doctor's appointments on the days [from, to) as a half-open datetime range,
+     * so the lookup can use the (doctor_id, appointment_datetime) index instead of
+     * evaluating DATE() on every row.
+     */
+    private static List<Appointment> queryAppointmentsForDoctor(String doctorId, LocalDate from, LocalDate to) throws SQLException {
         List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT * FROM appointments WHERE doctor_id = ? AND DATE(appointment_datetime) = ? ORDER BY appointment_datetime";
+        String sql = "SELECT * FROM appointments WHERE doctor_id = ? AND appointment_datetime >= ? AND appointment_datetime < ? ORDER BY appointment_datetime";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, doctorId);
-            pstmt.setDate(2, Date.valueOf(date));
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Appointment appt = new Appointment(
-                        rs.getString("patient_id"),
-                        rs.getString("doctor_id"),
-                        rs.getTimestamp("appointment_datetime").toLocalDateTime(),
-                        rs.getString("reason")
-                );
-                appt.setAppointmentId(rs.getInt("appointment_id"));
-                appt.setStatus(rs.getString("status"));
-                appt.setDoctorNotes(rs.getString("doctor_notes"));
-                appointments.add(appt);
+            pstmt.setTimestamp(2, Timestamp.valueOf(from.atStartOfDay()));
+            pstmt.setTimestamp(3, Timestamp.valueOf(to.atStartOfDay()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapAppointment(rs));
+                }
             }
             System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Fetched " + appointments.size() +
-                    " appointments for doctor " + doctorId + " on " + date);
-        } catch (SQLException e) {
-            System.err.println("ERROR [2025-08-30 19:44:54] isharax9: Error fetching appointments for doctor " +
-                    doctorId + " on " + date + ": " + e.getMessage());
+                    " appointments for doctor " + doctorId + " from " + from + " to " + to);
+        }
+        return appointments;
+    }
+
+    /**
+     * Checks a doctor's schedule for an active appointment that starts less than
+     * {@code length} before or after the requested time. Answered from the in-memory
+     * schedule index; the day is only read from the database if it is not indexed yet.
+     * @param doctorId The ID of the doctor.
+     * @param start The requested start time.
+     * @param length The appointment length; appointments closer together than this conflict.
+     * @return The start time of the conflicting appointment, or null if the slot is free.
+     * @throws SQLException if the doctor's day could not be loaded.
+     */
+    public LocalDateTime findConflictingAppointment(String doctorId, LocalDateTime start, Duration length) throws SQLException {
+        return SCHEDULE_INDEX.findConflict(doctorId, start, length, 0);
+    }
+
+    /**
+     * Fetches every doctor's non-canceled appointments starting in [from, to), in one
+     * range scan over the appointment_datetime index.
+     * @param from Inclusive start of the range.
+     * @param to Exclusive end of the range.
+     * @return The active appointments in the range, ordered by datetime.
+     * @throws SQLException if a database error occurred.
+     */
+    public List<Appointment> getActiveAppointmentsBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        return queryActiveAppointmentsBetween(null, from, to);
+    }
+
+    /**
+     * Fetches one doctor's non-canceled appointments starting in [from, to), in one range
+     * scan over the (doctor_id, appointment_datetime) index.
+     * @param doctorId The ID of the doctor.
+     * @param from Inclusive start of the range.
+     * @param to Exclusive end of the range.
+     * @return The doctor's active appointments in the range, ordered by datetime.
+     * @throws SQLException if a database error occurred.
+     */
+    public List<Appointment> getActiveAppointmentsForDoctorBetween(String doctorId, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        return queryActiveAppointmentsBetween(doctorId, from, to);
+    }
+
+    private List<Appointment> queryActiveAppointmentsBetween(String doctorId, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        List<Appointment> appointments = new ArrayList<>();
+        String sql = "SELECT * FROM appointments WHERE " + (doctorId != null ? "doctor_id = ? AND " : "") +
+                "appointment_datetime >= ? AND appointment_datetime < ? " +
+                "AND (status IS NULL OR status <> 'Canceled') ORDER BY appointment_datetime";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (doctorId != null) {
+                pstmt.setString(index++, doctorId);
+            }
+            pstmt.setTimestamp(index++, Timestamp.valueOf(from));
+            pstmt.setTimestamp(index, Timestamp.valueOf(to));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapAppointment(rs));
+                }
+            }
+            System.out.println("Fetched " + appointments.size() +
+                    " active appointments" + (doctorId != null ? " for doctor " + doctorId : "") +
+                    " between " + from + " and " + to);
         }
         return appointments;
     }
@@ -163,15 +329,7 @@ public class SchedulingDAO {
             pstmt.setString(1, patientId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Appointment appt = new Appointment(
-                        rs.getString("patient_id"),
-                        rs.getString("doctor_id"),
-                        rs.getTimestamp("appointment_datetime").toLocalDateTime(),
-                        rs.getString("reason")
-                );
-                appt.setAppointmentId(rs.getInt("appointment_id"));
-                appt.setStatus(rs.getString("status"));
-                appt.setDoctorNotes(rs.getString("doctor_notes"));
+                Appointment appt = mapAppointment(rs);
                 appointments.add(appt);
             }
             System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Fetched " + appointments.size() +
@@ -183,6 +341,36 @@ public class SchedulingDAO {
         return appointments;
     }
 
+    /**
+     * Fetches a patient's appointments within the criteria's date range.
+     * @param patientId The ID of the patient.
+     * @param criteria The report filters to apply (only the date range applies to appointments).
+     * @return The matching appointments, newest first.
+     */
+    public List<Appointment> getAppointmentsByPatientId(String patientId, ReportCriteria criteria) {
+        List<Appointment> appointments = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM appointments WHERE patient_id = ?");
+        criteria.appendAppointmentConditions(sql, params, "");
+        sql.append(" ORDER BY appointment_datetime DESC");
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            pstmt.setString(1, patientId);
+            ReportCriteria.bind(pstmt, params, 2);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                appointments.add(mapAppointment(rs));
+            }
+            System.out.println("Fetched " + appointments.size() +
+                    " appointments for patient " + patientId + " matching " + criteria);
+        } catch (SQLException e) {
+            System.err.println("Error fetching filtered appointments for patient " +
+                    patientId + ": " + e.getMessage());
+        }
+        return appointments;
+    }
+
     /**
      * Fetches all appointments from the database.
      * @return A list of all Appointment objects, ordered by datetime.
@@ -194,15 +382,7 @@ public class SchedulingDAO {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                Appointment appt = new Appointment(
-                        rs.getString("patient_id"),
-                        rs.getString("doctor_id"),
-                        rs.getTimestamp("appointment_datetime").toLocalDateTime(),
-                        rs.getString("reason")
-                );
-                appt.setAppointmentId(rs.getInt("appointment_id"));
-                appt.setStatus(rs.getString("status"));
-                appt.setDoctorNotes(rs.getString("doctor_notes"));
+                Appointment appt = mapAppointment(rs);
                 appointments.add(appt);
             }
             System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Fetched " + appointments.size() + " total appointments");
@@ -212,6 +392,45 @@ public class SchedulingDAO {
         return appointments;
     }
 
+    /**
+     * Streams every appointment to the given action without materializing the table.
+     * @param action Called once per appointment, newest first.
+     * @return true if every appointment was read, false if a database error occurred.
+     */
+    public boolean forEachAppointment(Consumer<Appointment> action) {
+        return forEachAppointment(ReportCriteria.all(), action);
+    }
+
+    /**
+     * Streams the appointments within the criteria's date range to the given action.
+     * @param criteria The report filters to apply (only the date range applies to appointments).
+     * @param action Called once per matching appointment, newest first.
+     * @return true if every matching appointment was read, false if a database error occurred.
+     */
+    public boolean forEachAppointment(ReportCriteria criteria, Consumer<Appointment> action) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM appointments WHERE 1 = 1");
+        criteria.appendAppointmentConditions(sql, params, "");
+        sql.append(" ORDER BY appointment_datetime DESC");
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, sql.toString())) {
+            ReportCriteria.bind(pstmt, params, 1);
+            long count = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapAppointment(rs));
+                    count++;
+                }
+            }
+            System.out.println("Streamed " + count + " appointments");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error streaming appointments: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Fetches all appointments for a specific doctor.
      * @param doctorId The ID of the doctor to filter by.
@@ -225,15 +444,7 @@ public class SchedulingDAO {
             pstmt.setString(1, doctorId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Appointment appt = new Appointment(
-                        rs.getString("patient_id"),
-                        rs.getString("doctor_id"),
-                        rs.getTimestamp("appointment_datetime").toLocalDateTime(),
-                        rs.getString("reason")
-                );
-                appt.setAppointmentId(rs.getInt("appointment_id"));
-                appt.setStatus(rs.getString("status"));
-                appt.setDoctorNotes(rs.getString("doctor_notes"));
+                Appointment appt = mapAppointment(rs);
                 appointments.add(appt);
             }
             System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Fetched " + appointments.size() +
@@ -248,7 +459,7 @@ public class SchedulingDAO {
     public boolean createAppointment(Appointment appointment) {
         String sql = "INSERT INTO appointments (patient_id, doctor_id, appointment_datetime, reason, doctor_notes, status) VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, appointment.getPatientId());
             pstmt.setString(2, appointment.getDoctorId());
             pstmt.setTimestamp(3, Timestamp.valueOf(appointment.getAppointmentDateTime()));
@@ -258,6 +469,13 @@ public class SchedulingDAO {
 
             boolean success = pstmt.executeUpdate() > 0;
             if (success) {
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        appointment.setAppointmentId(generatedKeys.getInt(1));
+                    }
+                }
+                SCHEDULE_INDEX.appointmentSaved(appointment);
+                SCHEDULE_WINDOWS.invalidate(appointment.getDoctorId(), appointment.getAppointmentDateTime().toLocalDate());
                 System.out.println("SUCCESS [2025-08-30 19:44:54] isharax9: Created appointment for patient " +
                         appointment.getPatientId() + " with doctor " + appointment.getDoctorId() +
                         " on " + appointment.getAppointmentDateTime());
@@ -270,6 +488,149 @@ public class SchedulingDAO {
         }
     }
 
+    /**
+     * Books an appointment only if the doctor has no active appointment starting less than
+     * {@code length} before or after it. See {@link #createAppointmentsIfSlotsFree}.
+     * @param appointment The appointment to create; its ID is set on success.
+     * @param length The appointment length; appointments closer together than this conflict.
+     * @return true if the appointment was booked, false if the slot was already taken.
+     * @throws SQLException if the doctor does not exist or a database error occurred.
+     */
+    public boolean createAppointmentIfSlotFree(Appointment appointment, Duration length) throws SQLException {
+        return createAppointmentsIfSlotsFree(List.of(appointment), length);
+    }
+
+    /**
+     * Books a set of appointments for one doctor, all or nothing, only if none of them
+     * starts less than {@code length} before or after an active appointment or another
+     * appointment in the set. Safe across workstations.
+     * <p>
+     * The doctor's row is locked with SELECT ... FOR UPDATE, so bookings for the same doctor
+     * are serialized in the database while other doctors are unaffected. The doctor's
+     * schedule over the whole span is then re-read inside that lock in a single query, and
+     * every appointment is inserted in one JDBC batch in the same transaction. The unique
+     * (doctor_id, active_slot) key is a last line of defence against identical start times.
+     * @param appointments The appointments to create, all for the same doctor; their IDs are set on success.
+     * @param length The appointment length; appointments closer together than this conflict.
+     * @return true if every appointment was booked, false if any slot was taken (nothing is booked).
+     * @throws SQLException if the doctor does not exist or a database error occurred.
+     * @throws IllegalArgumentException if the appointments are for different doctors.
+     */
+    public boolean createAppointmentsIfSlotsFree(List<Appointment> appointments, Duration length) throws SQLException {
+        if (appointments.isEmpty()) {
+            return true;
+        }
+        String doctorId = appointments.get(0).getDoctorId();
+        TreeSet<LocalDateTime> starts = new TreeSet<>();
+        for (Appointment appointment : appointments) {
+            if (!doctorId.equals(appointment.getDoctorId())) {
+                throw new IllegalArgumentException("All appointments must be for doctor " + doctorId);
+            }
+            if (hasStartWithin(starts, appointment.getAppointmentDateTime(), length)) {
+                return false; // the set overlaps itself
+            }
+            starts.add(appointment.getAppointmentDateTime());
+        }
+
+        String lockSql = "SELECT doctor_id FROM doctors WHERE doctor_id = ? FOR UPDATE";
+        // Locking read, so it sees bookings committed by the previous holder of the doctor lock
+        String scheduleSql = "SELECT appointment_datetime FROM appointments WHERE doctor_id = ? AND appointment_datetime > ? " +
+                "AND appointment_datetime < ? AND (status IS NULL OR status <> 'Canceled') LOCK IN SHARE MODE";
+        String insertSql = "INSERT INTO appointments (patient_id, doctor_id, appointment_datetime, reason, doctor_notes, status) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(lockSql)) {
+                    pstmt.setString(1, doctorId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("Doctor " + doctorId + " does not exist");
+                        }
+                    }
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(scheduleSql)) {
+                    pstmt.setString(1, doctorId);
+                    pstmt.setTimestamp(2, Timestamp.valueOf(starts.first().minus(length)));
+                    pstmt.setTimestamp(3, Timestamp.valueOf(starts.last().plus(length)));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            LocalDateTime existing = rs.getTimestamp(1).toLocalDateTime();
+                            if (hasStartWithin(starts, existing, length)) {
+                                conn.rollback();
+                                System.out.println("Booking for doctor " + doctorId +
+                                        " conflicts with the appointment at " + existing);
+                                return false;
+                            }
+                        }
+                    }
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                    for (Appointment appointment : appointments) {
+                        pstmt.setString(1, appointment.getPatientId());
+                        pstmt.setString(2, doctorId);
+                        pstmt.setTimestamp(3, Timestamp.valueOf(appointment.getAppointmentDateTime()));
+                        pstmt.setString(4, appointment.getReason());
+                        pstmt.setString(5, appointment.getDoctorNotes());
+                        pstmt.setString(6, appointment.getStatus() != null ? appointment.getStatus() : "Scheduled");
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        for (Appointment appointment : appointments) {
+                            if (generatedKeys.next()) {
+                                appointment.setAppointmentId(generatedKeys.getInt(1));
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                if (isDuplicateKey(e)) {
+                    System.out.println("Booking for doctor " + doctorId +
+                            " hit an already booked slot: " + e.getMessage());
+                    return false;
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        for (Appointment appointment : appointments) {
+            SCHEDULE_INDEX.appointmentSaved(appointment);
+            SCHEDULE_WINDOWS.invalidate(doctorId, appointment.getAppointmentDateTime().toLocalDate());
+        }
+        System.out.println("Booked " + appointments.size() + " appointment(s) for patient " +
+                appointments.get(0).getPatientId() + " with doctor " + doctorId + " from " + starts.first());
+        return true;
+    }
+
+    /**
+     * @return true if the error, or one it wraps, is a MySQL duplicate key error (1062), i.e.
+     * the unique (doctor_id, active_slot) key rejected the insert.
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && ((SQLException) t).getErrorCode() == 1062) {
+                return true;
+            }
+        }
+        SQLException next = e.getNextException();
+        return next != null && next != e && isDuplicateKey(next);
+    }
+
+    /**
+     * @return true if any of the sorted start times is less than {@code length} away from {@code time}.
+     */
+    private static boolean hasStartWithin(NavigableSet<LocalDateTime> starts, LocalDateTime time, Duration length) {
+        return !starts.subSet(time.minus(length), false, time.plus(length), false).isEmpty();
+    }
+
     public boolean updateAppointment(Appointment appointment) {
         String sql = "UPDATE appointments SET appointment_datetime = ?, reason = ?, status = ?, doctor_notes = ? WHERE appointment_id = ?";
         try (Connection conn = DatabaseManager.getConnection();
@@ -282,6 +643,9 @@ public class SchedulingDAO {
 
             boolean success = pstmt.executeUpdate() > 0;
             if (success) {
+                SCHEDULE_INDEX.appointmentSaved(appointment);
+                // The date may have changed, so drop every week for this doctor
+                SCHEDULE_WINDOWS.invalidateDoctor(appointment.getDoctorId());
                 System.out.println("SUCCESS [2025-08-30 19:44:54] isharax9: Updated appointment ID " +
                         appointment.getAppointmentId() + " - Patient: " + appointment.getPatientId() +
                         ", Status: " + appointment.getStatus() + ", Reason: " + appointment.getReason());
@@ -316,6 +680,7 @@ public class SchedulingDAO {
             boolean success = rowsUpdated > 0;
 
             if (success) {
+                SCHEDULE_WINDOWS.clear(); // only the ID is known here
                 System.out.println("SUCCESS [2025-08-30 19:44:54] " + updatedBy + ": Updated reason for appointment ID " +
                         appointmentId + " to: " + newReason);
             } else {
@@ -343,15 +708,7 @@ public class SchedulingDAO {
             ResultSet rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                Appointment appt = new Appointment(
-                        rs.getString("patient_id"),
-                        rs.getString("doctor_id"),
-                        rs.getTimestamp("appointment_datetime").toLocalDateTime(),
-                        rs.getString("reason")
-                );
-                appt.setAppointmentId(rs.getInt("appointment_id"));
-                appt.setStatus(rs.getString("status"));
-                appt.setDoctorNotes(rs.getString("doctor_notes"));
+                Appointment appt = mapAppointment(rs);
 
                 System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Found appointment ID " + appointmentId +
                         " - Status: " + appt.getStatus());
@@ -385,15 +742,7 @@ public class SchedulingDAO {
 
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Appointment appt = new Appointment(
-                        rs.getString("patient_id"),
-                        rs.getString("doctor_id"),
-                        rs.getTimestamp("appointment_datetime").toLocalDateTime(),
-                        rs.getString("reason")
-                );
-                appt.setAppointmentId(rs.getInt("appointment_id"));
-                appt.setStatus(rs.getString("status"));
-                appt.setDoctorNotes(rs.getString("doctor_notes"));
+                Appointment appt = mapAppointment(rs);
                 appointments.add(appt);
             }
             System.out.println("DEBUG [2025-08-30 19:44:54] isharax9: Found " + appointments.size() +
@@ -404,6 +753,25 @@ public class SchedulingDAO {
         return appointments;
     }
 
+    /**
+     * Maps the current row of an appointments result set to an Appointment.
+     * @param rs A result set positioned on an appointments row.
+     * @return The mapped Appointment.
+     */
+    static Appointment mapAppointment(ResultSet rs) throws SQLException {
+        SymbolTable symbols = SymbolTable.shared();
+        Appointment appt = new Appointment(
+                rs.getString("patient_id"),
+                rs.getString("doctor_id"),
+                rs.getTimestamp("appointment_datetime").toLocalDateTime(),
+                symbols.intern(rs.getString("reason"))
+        );
+        appt.setAppointmentId(rs.getInt("appointment_id"));
+        appt.setStatus(symbols.intern(rs.getString("status")));
+        appt.setDoctorNotes(rs.getString("doctor_notes"));
+        return appt;
+    }
+
     public boolean deleteAppointment(int appointmentId) {
         String sql = "DELETE FROM appointments WHERE appointment_id = ?";
         try (Connection conn = DatabaseManager.getConnection();
@@ -411,6 +779,8 @@ public class SchedulingDAO {
             pstmt.setInt(1, appointmentId);
             boolean success = pstmt.executeUpdate() > 0;
             if (success) {
+                SCHEDULE_INDEX.appointmentDeleted(appointmentId);
+                SCHEDULE_WINDOWS.clear(); // only the ID is known here
                 System.out.println("SUCCESS [2025-08-30 19:44:54] isharax9: Deleted appointment ID " + appointmentId);
             }
             return success;
@@ -0,0 +1,201 @@
+package com.globemed.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An LRU cache of prepared statements for a single pooled connection.
+ * <p>
+ * Statements are keyed by their SQL text (plus the prepare variant, e.g. generated keys).
+ * The DAOs keep closing their statements in try-with-resources; the proxy handed out
+ * by this cache intercepts {@code close()}, clears parameters and open result sets, and
+ * parks the statement for the next caller instead of discarding the parsed plan.
+ * A pooled connection is only ever used by one thread at a time, so no locking is needed.
+ */
+class StatementCache {
+
+    /**
+     * Opens a new physical statement on a cache miss.
+     */
+    @FunctionalInterface
+    interface StatementFactory {
+        PreparedStatement prepare() throws SQLException;
+    }
+
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(int maxSize, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a cached statement for the key, preparing and caching a new one on a miss.
+     * If the cached statement is still open by the same borrower (nested use of the same SQL),
+     * an uncached statement is returned instead.
+     */
+    PreparedStatement prepare(String key, StatementFactory factory) throws SQLException {
+        CachedStatement cached = statements.get(key);
+        if (cached != null && cached.broken) {
+            statements.remove(key);
+            cached = null;
+        }
+        if (cached != null) {
+            if (cached.inUse) {
+                misses.incrementAndGet();
+                return factory.prepare();
+            }
+            hits.incrementAndGet();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        misses.incrementAndGet();
+        cached = new CachedStatement(factory.prepare());
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictIfNeeded();
+        return cached.proxy;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            it.remove();
+            evictions.incrementAndGet();
+            if (eldest.inUse) {
+                eldest.evicted = true; // closed for real once its borrower is done with it
+            } else {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes every cached statement. Called when the physical connection is discarded.
+     */
+    void clear() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closePhysical();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Builds the cache key for a prepare call. Only the common prepare variants are cached.
+     * @return The key, or null if this variant should bypass the cache.
+     */
+    static String keyFor(Object[] args) {
+        if (args == null || args.length == 0 || !(args[0] instanceof String)) {
+            return null;
+        }
+        String sql = (String) args[0];
+        if (args.length == 1) {
+            return sql;
+        }
+        if (args.length == 2 && args[1] instanceof Integer) {
+            return "keys=" + args[1] + "|" + sql;
+        }
+        if (args.length == 3 && args[1] instanceof Integer && args[2] instanceof Integer) {
+            return "type=" + args[1] + "," + args[2] + "|" + sql;
+        }
+        return null;
+    }
+
+    private static final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        private final List<ResultSet> openResultSets = new ArrayList<>();
+        private boolean inUse;
+        private boolean evicted;
+        private boolean broken;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        returnToCache();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || physical.isClosed();
+                case "equals":
+                    return target == args[0];
+                case "hashCode":
+                    return System.identityHashCode(target);
+                case "toString":
+                    return "CachedStatement[" + physical + "]";
+                default:
+                    break;
+            }
+            if (!inUse) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof ResultSet) {
+                    openResultSets.add((ResultSet) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void returnToCache() {
+            inUse = false;
+            try {
+                for (ResultSet rs : openResultSets) {
+                    rs.close();
+                }
+                openResultSets.clear();
+                if (!evicted) {
+                    physical.clearParameters();
+                    physical.clearBatch();
+                    return;
+                }
+            } catch (SQLException e) {
+                broken = true; // dropped from the cache on its next lookup
+            }
+            closePhysical();
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close cached statement: " + e.getMessage());
+            }
+        }
+    }
+}
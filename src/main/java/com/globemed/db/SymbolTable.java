@@ -0,0 +1,73 @@
+package com.globemed.db;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe table of canonical strings for low-cardinality columns.
+ * <p>
+ * The JDBC driver allocates a fresh String for every column of every row, so a result set
+ * of 100,000 bills carries 100,000 copies of "Paid" and of each service name. Row mappers
+ * pass such values through {@link #intern} and keep the canonical instance instead, so the
+ * copies die young and large loads retain one instance per distinct value.
+ * <p>
+ * Entries are never evicted: once {@code maxSymbols} values are held (approximately, under
+ * concurrent inserts), new values are returned unchanged. Values longer than
+ * {@code maxLength} are free text rather than codes and are never interned.
+ */
+final class SymbolTable {
+    /** Longest value worth interning; longer ones are treated as free text. */
+    static final int DEFAULT_MAX_LENGTH = 64;
+
+    private static final SymbolTable SHARED =
+            new SymbolTable("symbols", DatabaseManager.getSymbolTableSize(), DEFAULT_MAX_LENGTH);
+
+    private final String name;
+    private final int maxSymbols;
+    private final int maxLength;
+    private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    SymbolTable(String name, int maxSymbols, int maxLength) {
+        this.name = name;
+        this.maxSymbols = maxSymbols;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return The table shared by all DAO row mappers.
+     */
+    static SymbolTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return The canonical instance equal to the value, or the value itself if it is null,
+     *         too long, or the table is full.
+     */
+    String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        String canonical = symbols.get(value);
+        if (canonical != null) {
+            hits.incrementAndGet();
+            return canonical;
+        }
+        misses.incrementAndGet();
+        if (symbols.size() >= maxSymbols) {
+            return value;
+        }
+        canonical = symbols.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    int size() {
+        return symbols.size();
+    }
+
+    CacheMetrics getMetrics() {
+        return new CacheMetrics(name, hits.get(), misses.get(), 0, 0, symbols.size());
+    }
+}
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -12,23 +13,30 @@ import java.util.*;
  * Aged Receivables Visitor - Fixed to match actual database schema
  * Analyzes accounts receivable aging and collection performance over time
  */
-public class AgedReceivablesVisitor implements ReportVisitor {
+public class AgedReceivablesVisitor implements BillingSnapshotVisitor {
+    // Inclusive upper bounds in days of all but the last aging bucket
+    private static final int[] AGING_BUCKET_LIMITS = {30, 60, 90, 120};
+
     private final StringBuilder reportContent = new StringBuilder();
     private final Map<String, PatientReceivable> patientReceivables = new HashMap<>();
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     // Aging buckets: 0-30, 31-60, 61-90, 91-120, 120+ days
-    private final double[] agingBuckets = new double[5];
+    private final long[] agingBucketCents = new long[5];
     private final int[] agingCounts = new int[5];
     private final String[] agingLabels = {"0-30 days", "31-60 days", "61-90 days", "91-120 days", "120+ days"};
 
-    private double totalReceivables = 0;
-    private double totalBilled = 0;
+    private long totalReceivablesCents = 0;
+    private long totalBilledCents = 0;
     private int totalOutstandingBills = 0;
     private int totalBills = 0;
 
     @Override
     public void visit(PatientRecord patient) {
+        appendHeader();
+    }
+
+    private void appendHeader() {
         if (reportContent.length() == 0) {
             reportContent.append(repeatString("=", 100)).append("\n");
             reportContent.append("    AGED RECEIVABLES ANALYSIS REPORT\n");
@@ -47,11 +55,11 @@ public class AgedReceivablesVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         totalBills++;
-        totalBilled += bill.getAmount();
+        totalBilledCents += bill.getAmountCents();
 
-        double outstandingAmount = bill.getRemainingBalance();
-        if (outstandingAmount > 0) {
-            totalReceivables += outstandingAmount;
+        long outstandingCents = bill.getRemainingBalanceCents();
+        if (outstandingCents > 0) {
+            totalReceivablesCents += outstandingCents;
             totalOutstandingBills++;
 
             // Calculate days since billed
@@ -61,7 +69,7 @@ public class AgedReceivablesVisitor implements ReportVisitor {
 
             // Categorize into aging buckets
             int bucketIndex = getAgingBucketIndex(daysSinceBilled);
-            agingBuckets[bucketIndex] += outstandingAmount;
+            agingBucketCents[bucketIndex] += outstandingCents;
             agingCounts[bucketIndex]++;
 
             // Track patient receivables
@@ -73,6 +81,44 @@ public class AgedReceivablesVisitor implements ReportVisitor {
         }
     }
 
+    @Override
+    public void visit(BillingSnapshot snapshot) {
+        appendHeader();
+        totalBills += snapshot.size();
+        totalBilledCents += snapshot.sum(BillingSnapshot.Measure.BILLED);
+
+        int[] ages = snapshot.ages(LocalDate.now());
+
+        // Aging buckets over bills with an outstanding balance only
+        int[] agingBucketOfBill = snapshot.filterPositive(snapshot.bucketize(ages, AGING_BUCKET_LIMITS),
+                BillingSnapshot.Measure.OUTSTANDING);
+        long[] bucketCents = snapshot.sumBy(BillingSnapshot.Measure.OUTSTANDING, agingBucketOfBill, agingBucketCents.length);
+        int[] bucketCounts = snapshot.countBy(agingBucketOfBill, agingBucketCents.length);
+        for (int i = 0; i < agingBucketCents.length; i++) {
+            agingBucketCents[i] += bucketCents[i];
+            agingCounts[i] += bucketCounts[i];
+            totalReceivablesCents += bucketCents[i];
+            totalOutstandingBills += bucketCounts[i];
+        }
+
+        // Patient receivables, same outstanding bills grouped by patient
+        int patients = snapshot.cardinality(BillingSnapshot.Dimension.PATIENT);
+        int[] patientOfBill = snapshot.filterPositive(snapshot.groups(BillingSnapshot.Dimension.PATIENT),
+                BillingSnapshot.Measure.OUTSTANDING);
+        int[] billCounts = snapshot.countBy(patientOfBill, patients);
+        long[] outstandingCents = snapshot.sumBy(BillingSnapshot.Measure.OUTSTANDING, patientOfBill, patients);
+        long[] totalAges = snapshot.sumBy(ages, patientOfBill, patients);
+        int[] oldestAges = snapshot.maxBy(ages, patientOfBill, patients);
+        for (int p = 0; p < patients; p++) {
+            if (billCounts[p] > 0) {
+                String patientId = snapshot.valueOf(BillingSnapshot.Dimension.PATIENT, p);
+                PatientReceivable receivable = patientReceivables.computeIfAbsent(patientId, PatientReceivable::new);
+                receivable.addOutstandingBills(billCounts[p], outstandingCents[p],
+                        totalAges[p], oldestAges[p]);
+            }
+        }
+    }
+
     private int getAgingBucketIndex(long days) {
         if (days <= 30) return 0;
         else if (days <= 60) return 1;
@@ -81,6 +127,29 @@ public class AgedReceivablesVisitor implements ReportVisitor {
         else return 4;
     }
 
+    @Override
+    public ReportVisitor createPartial() {
+        return new AgedReceivablesVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        AgedReceivablesVisitor other = (AgedReceivablesVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        for (int i = 0; i < agingBucketCents.length; i++) {
+            agingBucketCents[i] += other.agingBucketCents[i];
+            agingCounts[i] += other.agingCounts[i];
+        }
+        totalReceivablesCents += other.totalReceivablesCents;
+        totalBilledCents += other.totalBilledCents;
+        totalOutstandingBills += other.totalOutstandingBills;
+        totalBills += other.totalBills;
+        other.patientReceivables.forEach((patientId, receivable) ->
+                patientReceivables.merge(patientId, receivable, PatientReceivable::merge));
+    }
+
     @Override
     public String getReport() {
         generateReceivablesOverview();
@@ -98,17 +167,17 @@ public class AgedReceivablesVisitor implements ReportVisitor {
         reportContent.append(repeatString("-", 60)).append("\n");
         reportContent.append(String.format("Total Bills Generated: %d\n", totalBills));
         reportContent.append(String.format("Bills with Outstanding Balance: %d\n", totalOutstandingBills));
-        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Accounts Receivable: $%,.2f\n", totalReceivables));
+        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Accounts Receivable: $%,.2f\n", Money.toDouble(totalReceivablesCents)));
 
-        double receivableRate = totalBilled > 0 ? (totalReceivables / totalBilled) * 100 : 0;
-        double collectionRate = totalBilled > 0 ? ((totalBilled - totalReceivables) / totalBilled) * 100 : 0;
+        double receivableRate = totalBilledCents > 0 ? ((double) totalReceivablesCents / totalBilledCents) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) (totalBilledCents - totalReceivablesCents) / totalBilledCents) * 100 : 0;
 
         reportContent.append(String.format("Receivables Rate: %.1f%%\n", receivableRate));
         reportContent.append(String.format("Collection Rate: %.1f%%\n", collectionRate));
 
-        double avgReceivablePerBill = totalOutstandingBills > 0 ? totalReceivables / totalOutstandingBills : 0;
-        double avgReceivablePerPatient = patientReceivables.size() > 0 ? totalReceivables / patientReceivables.size() : 0;
+        double avgReceivablePerBill = totalOutstandingBills > 0 ? Money.toDouble(totalReceivablesCents) / totalOutstandingBills : 0;
+        double avgReceivablePerPatient = patientReceivables.size() > 0 ? Money.toDouble(totalReceivablesCents) / patientReceivables.size() : 0;
 
         reportContent.append(String.format("Average Receivable per Outstanding Bill: $%.2f\n", avgReceivablePerBill));
         reportContent.append(String.format("Average Receivable per Patient: $%.2f\n", avgReceivablePerPatient));
@@ -134,19 +203,19 @@ public class AgedReceivablesVisitor implements ReportVisitor {
                 "Age Range", "Count", "Amount", "Avg Amount", "% of Total", "Priority"));
         reportContent.append(repeatString("-", 80)).append("\n");
 
-        for (int i = 0; i < agingBuckets.length; i++) {
-            double percentage = totalReceivables > 0 ? (agingBuckets[i] / totalReceivables) * 100 : 0;
-            double avgAmount = agingCounts[i] > 0 ? agingBuckets[i] / agingCounts[i] : 0;
+        for (int i = 0; i < agingBucketCents.length; i++) {
+            double percentage = totalReceivablesCents > 0 ? ((double) agingBucketCents[i] / totalReceivablesCents) * 100 : 0;
+            double avgAmount = agingCounts[i] > 0 ? Money.toDouble(agingBucketCents[i]) / agingCounts[i] : 0;
             String priority = getPriorityLevel(i, percentage);
 
             reportContent.append(String.format("%-12s | %-8d | $%-14.2f | $%-11.2f | %13.1f%% | %-10s\n",
-                    agingLabels[i], agingCounts[i], agingBuckets[i], avgAmount, percentage, priority));
+                    agingLabels[i], agingCounts[i], Money.toDouble(agingBucketCents[i]), avgAmount, percentage, priority));
         }
 
         reportContent.append(repeatString("-", 80)).append("\n");
         reportContent.append(String.format("%-12s | %-8d | $%-14.2f | $%-11.2f | %13.1f%% | %-10s\n",
-                "TOTAL", totalOutstandingBills, totalReceivables,
-                totalOutstandingBills > 0 ? totalReceivables / totalOutstandingBills : 0, 100.0, "-"));
+                "TOTAL", totalOutstandingBills, Money.toDouble(totalReceivablesCents),
+                totalOutstandingBills > 0 ? Money.toDouble(totalReceivablesCents) / totalOutstandingBills : 0, 100.0, "-"));
 
         // Calculate weighted average days outstanding
         double weightedDaysOutstanding = calculateWeightedAverageDaysOutstanding();
@@ -167,17 +236,17 @@ public class AgedReceivablesVisitor implements ReportVisitor {
 
     private double calculateWeightedAverageDaysOutstanding() {
         double totalWeightedDays = 0;
-        double totalAmount = 0;
+        long totalCents = 0;
 
         // Use midpoint of each aging bucket for calculation
         double[] bucketMidpoints = {15, 45, 75, 105, 150}; // Approximate midpoints
 
-        for (int i = 0; i < agingBuckets.length; i++) {
-            totalWeightedDays += agingBuckets[i] * bucketMidpoints[i];
-            totalAmount += agingBuckets[i];
+        for (int i = 0; i < agingBucketCents.length; i++) {
+            totalWeightedDays += agingBucketCents[i] * bucketMidpoints[i];
+            totalCents += agingBucketCents[i];
         }
 
-        return totalAmount > 0 ? totalWeightedDays / totalAmount : 0;
+        return totalCents > 0 ? totalWeightedDays / totalCents : 0;
     }
 
     private void generateDetailedAgingBreakdown() {
@@ -186,18 +255,18 @@ public class AgedReceivablesVisitor implements ReportVisitor {
 
         // Show percentage distribution with visual indicators
         reportContent.append("Aging Distribution:\n");
-        for (int i = 0; i < agingBuckets.length; i++) {
-            double percentage = totalReceivables > 0 ? (agingBuckets[i] / totalReceivables) * 100 : 0;
+        for (int i = 0; i < agingBucketCents.length; i++) {
+            double percentage = totalReceivablesCents > 0 ? ((double) agingBucketCents[i] / totalReceivablesCents) * 100 : 0;
             String indicator = getVisualIndicator(i, percentage);
 
             reportContent.append(String.format("  %s %s: %.1f%% ($%,.2f)\n",
-                    indicator, agingLabels[i], percentage, agingBuckets[i]));
+                    indicator, agingLabels[i], percentage, Money.toDouble(agingBucketCents[i])));
         }
 
         // Risk assessment
         reportContent.append("\n🎯 COLLECTION RISK ASSESSMENT:\n");
-        double currentRatio = totalReceivables > 0 ? (agingBuckets[0] / totalReceivables) * 100 : 0;
-        double over90Days = totalReceivables > 0 ? ((agingBuckets[3] + agingBuckets[4]) / totalReceivables) * 100 : 0;
+        double currentRatio = totalReceivablesCents > 0 ? ((double) agingBucketCents[0] / totalReceivablesCents) * 100 : 0;
+        double over90Days = totalReceivablesCents > 0 ? ((double) (agingBucketCents[3] + agingBucketCents[4]) / totalReceivablesCents) * 100 : 0;
 
         reportContent.append(String.format("Current Receivables (0-30 days): %.1f%%\n", currentRatio));
         reportContent.append(String.format("Over 90 Days: %.1f%%\n", over90Days));
@@ -213,8 +282,8 @@ public class AgedReceivablesVisitor implements ReportVisitor {
         }
 
         // Days Sales Outstanding calculation
-        double avgDailySales = totalBilled / 365; // Approximate annual calculation
-        double dso = avgDailySales > 0 ? totalReceivables / avgDailySales : 0;
+        double avgDailySales = Money.toDouble(totalBilledCents) / 365; // Approximate annual calculation
+        double dso = avgDailySales > 0 ? Money.toDouble(totalReceivablesCents) / avgDailySales : 0;
         reportContent.append(String.format("Days Sales Outstanding (DSO): %.0f days\n", dso));
 
         if (dso <= 30) {
@@ -350,8 +419,8 @@ public class AgedReceivablesVisitor implements ReportVisitor {
         reportContent.append(repeatString("-", 60)).append("\n");
 
         // Analyze aging pattern
-        double currentPercentage = totalReceivables > 0 ? (agingBuckets[0] / totalReceivables) * 100 : 0;
-        double over60Days = totalReceivables > 0 ? ((agingBuckets[2] + agingBuckets[3] + agingBuckets[4]) / totalReceivables) * 100 : 0;
+        double currentPercentage = totalReceivablesCents > 0 ? ((double) agingBucketCents[0] / totalReceivablesCents) * 100 : 0;
+        double over60Days = totalReceivablesCents > 0 ? ((double) (agingBucketCents[2] + agingBucketCents[3] + agingBucketCents[4]) / totalReceivablesCents) * 100 : 0;
 
         reportContent.append("Aging Pattern Analysis:\n");
         reportContent.append(String.format("Current (0-30 days): %.1f%%\n", currentPercentage));
@@ -402,8 +471,8 @@ public class AgedReceivablesVisitor implements ReportVisitor {
             reportContent.append(String.format("  • Phone calls to %d high priority accounts (91-120 days)\n", highCount));
         }
 
-        if (agingBuckets[4] > 1000) {
-            reportContent.append(String.format("  • Review write-off policy for $%.2f in 120+ day receivables\n", agingBuckets[4]));
+        if (agingBucketCents[4] > Money.ofDouble(1000)) {
+            reportContent.append(String.format("  • Review write-off policy for $%.2f in 120+ day receivables\n", Money.toDouble(agingBucketCents[4])));
         }
 
         // Weekly actions
@@ -423,7 +492,7 @@ public class AgedReceivablesVisitor implements ReportVisitor {
         // Process improvements
         reportContent.append("\n⚙️ PROCESS IMPROVEMENTS:\n");
 
-        double over90Percentage = totalReceivables > 0 ? ((agingBuckets[3] + agingBuckets[4]) / totalReceivables) * 100 : 0;
+        double over90Percentage = totalReceivablesCents > 0 ? ((double) (agingBucketCents[3] + agingBucketCents[4]) / totalReceivablesCents) * 100 : 0;
 
         if (over90Percentage > 20) {
             reportContent.append("  • Implement more aggressive early collection procedures\n");
@@ -455,7 +524,7 @@ public class AgedReceivablesVisitor implements ReportVisitor {
     // PatientReceivable helper class
     private static class PatientReceivable {
         private final String patientId;
-        private double totalOutstanding = 0;
+        private long totalOutstandingCents = 0;
         private int outstandingBillCount = 0;
         private long oldestBillAge = 0;
         private double totalAge = 0; // For calculating average age
@@ -466,7 +535,7 @@ public class AgedReceivablesVisitor implements ReportVisitor {
 
         public void addOutstandingBill(MedicalBill bill, long daysSinceBilled) {
             outstandingBillCount++;
-            totalOutstanding += bill.getRemainingBalance();
+            totalOutstandingCents += bill.getRemainingBalanceCents();
             totalAge += daysSinceBilled;
 
             if (daysSinceBilled > oldestBillAge) {
@@ -474,8 +543,23 @@ public class AgedReceivablesVisitor implements ReportVisitor {
             }
         }
 
+        public void addOutstandingBills(int count, long outstandingCents, long totalDays, long oldestDays) {
+            outstandingBillCount += count;
+            totalOutstandingCents += outstandingCents;
+            totalAge += totalDays;
+            oldestBillAge = Math.max(oldestBillAge, oldestDays);
+        }
+
+        public PatientReceivable merge(PatientReceivable other) {
+            outstandingBillCount += other.outstandingBillCount;
+            totalOutstandingCents += other.totalOutstandingCents;
+            totalAge += other.totalAge;
+            oldestBillAge = Math.max(oldestBillAge, other.oldestBillAge);
+            return this;
+        }
+
         public String getPatientId() { return patientId; }
-        public double getTotalOutstanding() { return totalOutstanding; }
+        public double getTotalOutstanding() { return Money.toDouble(totalOutstandingCents); }
         public int getOutstandingBillCount() { return outstandingBillCount; }
         public long getOldestBillAge() { return oldestBillAge; }
 
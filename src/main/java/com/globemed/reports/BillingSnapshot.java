@@ -0,0 +1,311 @@
+package com.globemed.reports;
+
+import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only, column-oriented copy of a set of bills for analytics reports.
+ * <p>
+ * Each bill is one row index across a set of primitive arrays: the billed day as an
+ * epoch day, amounts as whole cents, and the service, status and patient as codes into
+ * small dictionaries. A million bills take a few tens of megabytes instead of a million
+ * {@link MedicalBill} objects with their strings, timestamps and logs, and the operators
+ * below are plain loops over those arrays that the JIT can unroll and vectorize.
+ * <p>
+ * Grouping operators take a group code per row; a negative code drops the row. Group
+ * codes come from {@link #groups(Dimension)} or {@link #bucketize}, and can be narrowed
+ * with {@link #filterPositive}.
+ */
+public class BillingSnapshot {
+
+    /** The cent amounts stored per bill. Outstanding follows {@code MedicalBill.getRemainingBalance()}. */
+    public enum Measure { BILLED, INSURANCE_PAID, PATIENT_PAID, OUTSTANDING }
+
+    /** The dictionary-encoded columns. */
+    public enum Dimension { SERVICE, STATUS, PATIENT }
+
+    private final int size;
+    private final int[] billedDay;
+    private final long[] billedCents;
+    private final long[] insurancePaidCents;
+    private final long[] patientPaidCents;
+    private final long[] outstandingCents;
+    private final int[] serviceCode;
+    private final int[] statusCode;
+    private final int[] patientCode;
+    private final String[] services;
+    private final String[] statuses;
+    private final String[] patients;
+
+    private BillingSnapshot(Builder builder) {
+        this.size = builder.size;
+        this.billedDay = Arrays.copyOf(builder.billedDay, size);
+        this.billedCents = Arrays.copyOf(builder.billedCents, size);
+        this.insurancePaidCents = Arrays.copyOf(builder.insurancePaidCents, size);
+        this.patientPaidCents = Arrays.copyOf(builder.patientPaidCents, size);
+        this.outstandingCents = Arrays.copyOf(builder.outstandingCents, size);
+        this.serviceCode = Arrays.copyOf(builder.serviceCode, size);
+        this.statusCode = Arrays.copyOf(builder.statusCode, size);
+        this.patientCode = Arrays.copyOf(builder.patientCode, size);
+        this.services = builder.services.values();
+        this.statuses = builder.statuses.values();
+        this.patients = builder.patients.values();
+    }
+
+    public int size() { return size; }
+
+    /**
+     * @return The number of distinct values of the dimension; codes run from 0 to this minus one.
+     */
+    public int cardinality(Dimension dimension) {
+        return dictionary(dimension).length;
+    }
+
+    public String valueOf(Dimension dimension, int code) {
+        return dictionary(dimension)[code];
+    }
+
+    /**
+     * @return The sum of the measure over all rows, in cents.
+     */
+    public long sum(Measure measure) {
+        long[] column = column(measure);
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            total += column[row];
+        }
+        return total;
+    }
+
+    /**
+     * @return Per row, the number of days from the billed day to the given day.
+     */
+    public int[] ages(LocalDate asOf) {
+        int asOfDay = (int) asOf.toEpochDay();
+        int[] ages = new int[size];
+        for (int row = 0; row < size; row++) {
+            ages[row] = asOfDay - billedDay[row];
+        }
+        return ages;
+    }
+
+    /**
+     * @return A copy of the dimension's code column, usable as group codes.
+     */
+    public int[] groups(Dimension dimension) {
+        return codes(dimension).clone();
+    }
+
+    /**
+     * Maps per-row values onto ranges.
+     * @param values One value per row, e.g. from {@link #ages}.
+     * @param upperBounds Inclusive, ascending upper bounds of all but the last range.
+     * @return Per row, the index of the range holding its value, from 0 to upperBounds.length.
+     */
+    public int[] bucketize(int[] values, int[] upperBounds) {
+        int[] buckets = new int[size];
+        for (int bound : upperBounds) {
+            for (int row = 0; row < size; row++) {
+                buckets[row] += values[row] > bound ? 1 : 0;
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * @return A copy of the group codes where rows whose measure is not positive are dropped.
+     */
+    public int[] filterPositive(int[] groups, Measure measure) {
+        long[] column = column(measure);
+        int[] filtered = new int[size];
+        for (int row = 0; row < size; row++) {
+            filtered[row] = column[row] > 0 ? groups[row] : -1;
+        }
+        return filtered;
+    }
+
+    /**
+     * @return The number of rows per group.
+     */
+    public int[] countBy(int[] groups, int groupCount) {
+        int[] counts = new int[groupCount];
+        for (int row = 0; row < size; row++) {
+            int group = groups[row];
+            if (group >= 0) {
+                counts[group]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return The sum of the measure per group, in cents.
+     */
+    public long[] sumBy(Measure measure, int[] groups, int groupCount) {
+        long[] column = column(measure);
+        long[] sums = new long[groupCount];
+        for (int row = 0; row < size; row++) {
+            int group = groups[row];
+            if (group >= 0) {
+                sums[group] += column[row];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * @return The sum of per-row values (e.g. ages) per group.
+     */
+    public long[] sumBy(int[] values, int[] groups, int groupCount) {
+        long[] sums = new long[groupCount];
+        for (int row = 0; row < size; row++) {
+            int group = groups[row];
+            if (group >= 0) {
+                sums[group] += values[row];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * @return The largest per-row value per group, or {@code Integer.MIN_VALUE} for empty groups.
+     */
+    public int[] maxBy(int[] values, int[] groups, int groupCount) {
+        int[] max = new int[groupCount];
+        Arrays.fill(max, Integer.MIN_VALUE);
+        for (int row = 0; row < size; row++) {
+            int group = groups[row];
+            if (group >= 0 && values[row] > max[group]) {
+                max[group] = values[row];
+            }
+        }
+        return max;
+    }
+
+    private long[] column(Measure measure) {
+        switch (measure) {
+            case BILLED: return billedCents;
+            case INSURANCE_PAID: return insurancePaidCents;
+            case PATIENT_PAID: return patientPaidCents;
+            case OUTSTANDING: return outstandingCents;
+            default: throw new IllegalArgumentException("Unknown measure: " + measure);
+        }
+    }
+
+    private int[] codes(Dimension dimension) {
+        switch (dimension) {
+            case SERVICE: return serviceCode;
+            case STATUS: return statusCode;
+            case PATIENT: return patientCode;
+            default: throw new IllegalArgumentException("Unknown dimension: " + dimension);
+        }
+    }
+
+    private String[] dictionary(Dimension dimension) {
+        switch (dimension) {
+            case SERVICE: return services;
+            case STATUS: return statuses;
+            case PATIENT: return patients;
+            default: throw new IllegalArgumentException("Unknown dimension: " + dimension);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BillingSnapshot{bills=%d, services=%d, statuses=%d, patients=%d}",
+                size, services.length, statuses.length, patients.length);
+    }
+
+    /**
+     * Appends bills row by row; the columns grow by doubling.
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int size;
+        private int[] billedDay = new int[INITIAL_CAPACITY];
+        private long[] billedCents = new long[INITIAL_CAPACITY];
+        private long[] insurancePaidCents = new long[INITIAL_CAPACITY];
+        private long[] patientPaidCents = new long[INITIAL_CAPACITY];
+        private long[] outstandingCents = new long[INITIAL_CAPACITY];
+        private int[] serviceCode = new int[INITIAL_CAPACITY];
+        private int[] statusCode = new int[INITIAL_CAPACITY];
+        private int[] patientCode = new int[INITIAL_CAPACITY];
+        private final Dictionary services = new Dictionary();
+        private final Dictionary statuses = new Dictionary();
+        private final Dictionary patients = new Dictionary();
+
+        /**
+         * Appends one bill. Amounts are in cents; null strings are stored as "".
+         */
+        public Builder add(String patientId, String serviceDescription, String status, LocalDate billedDate,
+                           long amountCents, long finalAmountCents, long amountPaidCents, long insurancePaidCents) {
+            return add(patientId, serviceDescription, status, (int) billedDate.toEpochDay(),
+                    amountCents, finalAmountCents, amountPaidCents, insurancePaidCents);
+        }
+
+        /**
+         * Appends one bill billed on the given day, counted in days since 1970-01-01 as the
+         * column stores it, so loaders can pass it through without building a date.
+         */
+        public Builder add(String patientId, String serviceDescription, String status, int billedEpochDay,
+                           long amountCents, long finalAmountCents, long amountPaidCents, long insurancePaidCents) {
+            if (size == billedDay.length) {
+                grow();
+            }
+            this.billedDay[size] = billedEpochDay;
+            this.billedCents[size] = amountCents;
+            this.insurancePaidCents[size] = insurancePaidCents;
+            this.patientPaidCents[size] = amountPaidCents;
+            this.outstandingCents[size] = Money.remaining(finalAmountCents, amountPaidCents);
+            this.serviceCode[size] = services.code(serviceDescription);
+            this.statusCode[size] = statuses.code(status);
+            this.patientCode[size] = patients.code(patientId);
+            size++;
+            return this;
+        }
+
+        public Builder add(MedicalBill bill) {
+            return add(bill.getPatientId(), bill.getServiceDescription(), bill.getStatus(),
+                    bill.getBilledDateTime().toLocalDate(), bill.getAmountCents(), bill.getFinalAmountCents(),
+                    bill.getAmountPaidCents(), bill.getInsurancePaidCents());
+        }
+
+        public BillingSnapshot build() {
+            return new BillingSnapshot(this);
+        }
+
+        private void grow() {
+            int capacity = billedDay.length * 2;
+            billedDay = Arrays.copyOf(billedDay, capacity);
+            billedCents = Arrays.copyOf(billedCents, capacity);
+            insurancePaidCents = Arrays.copyOf(insurancePaidCents, capacity);
+            patientPaidCents = Arrays.copyOf(patientPaidCents, capacity);
+            outstandingCents = Arrays.copyOf(outstandingCents, capacity);
+            serviceCode = Arrays.copyOf(serviceCode, capacity);
+            statusCode = Arrays.copyOf(statusCode, capacity);
+            patientCode = Arrays.copyOf(patientCode, capacity);
+        }
+    }
+
+    /**
+     * Assigns codes to strings in order of first appearance.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int code(String value) {
+            return codes.computeIfAbsent(value == null ? "" : value, v -> codes.size());
+        }
+
+        String[] values() {
+            String[] values = new String[codes.size()];
+            codes.forEach((value, code) -> values[code] = value);
+            return values;
+        }
+    }
+}
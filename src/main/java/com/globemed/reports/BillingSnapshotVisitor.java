@@ -0,0 +1,13 @@
+package com.globemed.reports;
+
+/**
+ * A report that only needs per-bill amounts, days, services and patients, so it can be
+ * computed with column operators over a {@link BillingSnapshot} instead of visiting
+ * every bill object.
+ * <p>
+ * A visitor is fed either bills or one snapshot for one report, never both. The snapshot
+ * must have the same effect on the report as visiting the bills it holds.
+ */
+public interface BillingSnapshotVisitor extends ReportVisitor {
+    void visit(BillingSnapshot snapshot);
+}
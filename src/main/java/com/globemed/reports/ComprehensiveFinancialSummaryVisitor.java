@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -14,16 +15,16 @@ import java.util.*;
 public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
     private final StringBuilder reportContent = new StringBuilder();
     private final Map<String, PatientFinancialData> patientData = new HashMap<>();
-    private final Map<String, Double> serviceRevenue = new HashMap<>();
+    private final Map<String, Long> serviceRevenueCents = new HashMap<>();
     private final Map<String, Integer> serviceCount = new HashMap<>();
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     // System-wide totals
-    private double systemTotalBilled = 0;
-    private double systemTotalCollected = 0;
-    private double systemTotalPatientPaid = 0;
-    private double systemTotalInsurancePaid = 0;
-    private double systemTotalOutstanding = 0;
+    private long systemTotalBilledCents = 0;
+    private long systemTotalCollectedCents = 0;
+    private long systemTotalPatientPaidCents = 0;
+    private long systemTotalInsurancePaidCents = 0;
+    private long systemTotalOutstandingCents = 0;
     private int totalPatients = 0;
     private int totalBills = 0;
 
@@ -44,11 +45,11 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
         totalBills++;
 
         // Use correct MedicalBill methods for accurate calculations
-        systemTotalBilled += bill.getAmount();
-        systemTotalPatientPaid += bill.getAmountPaid();
-        systemTotalInsurancePaid += bill.getInsurancePaidAmount();
-        systemTotalCollected = systemTotalPatientPaid + systemTotalInsurancePaid;
-        systemTotalOutstanding += bill.getRemainingBalance();
+        systemTotalBilledCents += bill.getAmountCents();
+        systemTotalPatientPaidCents += bill.getAmountPaidCents();
+        systemTotalInsurancePaidCents += bill.getInsurancePaidCents();
+        systemTotalCollectedCents = systemTotalPatientPaidCents + systemTotalInsurancePaidCents;
+        systemTotalOutstandingCents += bill.getRemainingBalanceCents();
 
         // Track per-patient data
         PatientFinancialData data = patientData.get(bill.getPatientId());
@@ -58,11 +59,31 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
 
         // Track service revenue (use actual collected amount, not billed)
         String serviceName = bill.getServiceDescription();
-        double serviceCollected = bill.getTotalCollected();
-        serviceRevenue.put(serviceName, serviceRevenue.getOrDefault(serviceName, 0.0) + serviceCollected);
+        serviceRevenueCents.merge(serviceName, bill.getTotalCollectedCents(), Long::sum);
         serviceCount.put(serviceName, serviceCount.getOrDefault(serviceName, 0) + 1);
     }
 
+    @Override
+    public ReportVisitor createPartial() {
+        return new ComprehensiveFinancialSummaryVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        ComprehensiveFinancialSummaryVisitor other = (ComprehensiveFinancialSummaryVisitor) partial;
+        systemTotalBilledCents += other.systemTotalBilledCents;
+        systemTotalPatientPaidCents += other.systemTotalPatientPaidCents;
+        systemTotalInsurancePaidCents += other.systemTotalInsurancePaidCents;
+        systemTotalCollectedCents = systemTotalPatientPaidCents + systemTotalInsurancePaidCents;
+        systemTotalOutstandingCents += other.systemTotalOutstandingCents;
+        totalPatients += other.totalPatients;
+        totalBills += other.totalBills;
+        other.patientData.forEach((patientId, data) ->
+                patientData.merge(patientId, data, PatientFinancialData::merge));
+        other.serviceRevenueCents.forEach((service, cents) -> serviceRevenueCents.merge(service, cents, Long::sum));
+        other.serviceCount.forEach((service, count) -> serviceCount.merge(service, count, Integer::sum));
+    }
+
     @Override
     public String getReport() {
         generateSystemOverview();
@@ -87,13 +108,13 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
         reportContent.append(repeatString("-", 60)).append("\n");
         reportContent.append(String.format("Total Patients: %d\n", totalPatients));
         reportContent.append(String.format("Total Bills: %d\n", totalBills));
-        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", systemTotalBilled));
-        reportContent.append(String.format("Total Amount Collected: $%,.2f\n", systemTotalCollected));
-        reportContent.append(String.format("Total Outstanding: $%,.2f\n", systemTotalOutstanding));
+        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", Money.toDouble(systemTotalBilledCents)));
+        reportContent.append(String.format("Total Amount Collected: $%,.2f\n", Money.toDouble(systemTotalCollectedCents)));
+        reportContent.append(String.format("Total Outstanding: $%,.2f\n", Money.toDouble(systemTotalOutstandingCents)));
 
-        double avgBilledPerPatient = totalPatients > 0 ? systemTotalBilled / totalPatients : 0;
-        double avgCollectedPerPatient = totalPatients > 0 ? systemTotalCollected / totalPatients : 0;
-        double avgBillAmount = totalBills > 0 ? systemTotalBilled / totalBills : 0;
+        double avgBilledPerPatient = totalPatients > 0 ? Money.toDouble(systemTotalBilledCents) / totalPatients : 0;
+        double avgCollectedPerPatient = totalPatients > 0 ? Money.toDouble(systemTotalCollectedCents) / totalPatients : 0;
+        double avgBillAmount = totalBills > 0 ? Money.toDouble(systemTotalBilledCents) / totalBills : 0;
 
         reportContent.append(String.format("Average Billed per Patient: $%,.2f\n", avgBilledPerPatient));
         reportContent.append(String.format("Average Collected per Patient: $%,.2f\n", avgCollectedPerPatient));
@@ -105,21 +126,21 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
         reportContent.append("💰 FINANCIAL PERFORMANCE\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        double collectionRate = systemTotalBilled > 0 ? (systemTotalCollected / systemTotalBilled) * 100 : 0;
-        double outstandingRate = systemTotalBilled > 0 ? (systemTotalOutstanding / systemTotalBilled) * 100 : 0;
+        double collectionRate = systemTotalBilledCents > 0 ? ((double) systemTotalCollectedCents / systemTotalBilledCents) * 100 : 0;
+        double outstandingRate = systemTotalBilledCents > 0 ? ((double) systemTotalOutstandingCents / systemTotalBilledCents) * 100 : 0;
 
         reportContent.append(String.format("Collection Rate: %.1f%%\n", collectionRate));
         reportContent.append(String.format("Outstanding Rate: %.1f%%\n", outstandingRate));
 
         // Payment source breakdown
-        if (systemTotalCollected > 0) {
-            double insurancePercentage = (systemTotalInsurancePaid / systemTotalCollected) * 100;
-            double patientPercentage = (systemTotalPatientPaid / systemTotalCollected) * 100;
+        if (systemTotalCollectedCents > 0) {
+            double insurancePercentage = ((double) systemTotalInsurancePaidCents / systemTotalCollectedCents) * 100;
+            double patientPercentage = ((double) systemTotalPatientPaidCents / systemTotalCollectedCents) * 100;
 
             reportContent.append(String.format("Insurance Payments: $%,.2f (%.1f%%)\n",
-                    systemTotalInsurancePaid, insurancePercentage));
+                    Money.toDouble(systemTotalInsurancePaidCents), insurancePercentage));
             reportContent.append(String.format("Patient Direct Payments: $%,.2f (%.1f%%)\n",
-                    systemTotalPatientPaid, patientPercentage));
+                    Money.toDouble(systemTotalPatientPaidCents), patientPercentage));
         }
 
         // Performance indicators
@@ -163,12 +184,12 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
                 "Service", "Count", "Revenue", "Avg/Service"));
         reportContent.append(repeatString("-", 70)).append("\n");
 
-        serviceRevenue.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+        serviceRevenueCents.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .limit(10)
                 .forEach(entry -> {
                     String service = entry.getKey();
-                    double revenue = entry.getValue();
+                    double revenue = Money.toDouble(entry.getValue());
                     int count = serviceCount.get(service);
                     double average = count > 0 ? revenue / count : 0;
 
@@ -182,9 +203,9 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
         reportContent.append("💳 PAYMENT SOURCE ANALYSIS\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        if (systemTotalCollected > 0) {
-            double insuranceRatio = systemTotalInsurancePaid / systemTotalCollected;
-            double patientRatio = systemTotalPatientPaid / systemTotalCollected;
+        if (systemTotalCollectedCents > 0) {
+            double insuranceRatio = (double) systemTotalInsurancePaidCents / systemTotalCollectedCents;
+            double patientRatio = (double) systemTotalPatientPaidCents / systemTotalCollectedCents;
 
             reportContent.append(String.format("Insurance Dependency Ratio: %.2f\n", insuranceRatio));
             reportContent.append(String.format("Patient Payment Ratio: %.2f\n", patientRatio));
@@ -207,13 +228,13 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
                 .sum();
 
         if (billsWithInsurance > 0) {
-            double avgInsurancePayment = systemTotalInsurancePaid / billsWithInsurance;
+            double avgInsurancePayment = Money.toDouble(systemTotalInsurancePaidCents) / billsWithInsurance;
             reportContent.append(String.format("Average Insurance Payment: $%.2f (%d bills)\n",
                     avgInsurancePayment, billsWithInsurance));
         }
 
         if (billsWithPatientPayments > 0) {
-            double avgPatientPayment = systemTotalPatientPaid / billsWithPatientPayments;
+            double avgPatientPayment = Money.toDouble(systemTotalPatientPaidCents) / billsWithPatientPayments;
             reportContent.append(String.format("Average Patient Payment: $%.2f (%d bills)\n",
                     avgPatientPayment, billsWithPatientPayments));
         }
@@ -232,7 +253,7 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
         reportContent.append(String.format("Revenue Concentration (Top 20%%): %.1f%%\n", revenueConcentration));
 
         // Service diversity
-        reportContent.append(String.format("Service Diversity: %d unique services\n", serviceRevenue.size()));
+        reportContent.append(String.format("Service Diversity: %d unique services\n", serviceRevenueCents.size()));
 
         // Financial health score
         double healthScore = calculateFinancialHealthScore();
@@ -251,10 +272,10 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
         if (revenueConcentration > 60) {
             reportContent.append("  • Diversify patient base to reduce concentration risk\n");
         }
-        if (systemTotalOutstanding / systemTotalBilled > 0.2) {
+        if ((double) systemTotalOutstandingCents / systemTotalBilledCents > 0.2) {
             reportContent.append("  • Improve collection processes for outstanding amounts\n");
         }
-        if (serviceRevenue.size() < 5) {
+        if (serviceRevenueCents.size() < 5) {
             reportContent.append("  • Consider expanding service offerings\n");
         }
 
@@ -275,12 +296,12 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
         int top20Percent = Math.max(1, revenues.size() / 5); // Top 20%
         double top20Revenue = revenues.stream().limit(top20Percent).mapToDouble(Double::doubleValue).sum();
 
-        return systemTotalCollected > 0 ? (top20Revenue / systemTotalCollected) * 100 : 0;
+        return systemTotalCollectedCents > 0 ? (top20Revenue / Money.toDouble(systemTotalCollectedCents)) * 100 : 0;
     }
 
     private double calculateFinancialHealthScore() {
-        double collectionRate = systemTotalBilled > 0 ? (systemTotalCollected / systemTotalBilled) * 100 : 0;
-        double diversityScore = Math.min(100, serviceRevenue.size() * 10); // Max 10 services for full score
+        double collectionRate = systemTotalBilledCents > 0 ? ((double) systemTotalCollectedCents / systemTotalBilledCents) * 100 : 0;
+        double diversityScore = Math.min(100, serviceRevenueCents.size() * 10); // Max 10 services for full score
         double concentrationPenalty = Math.max(0, calculateRevenueConcentration() - 50); // Penalty for >50% concentration
 
         return Math.max(0, Math.min(100, collectionRate * 0.6 + diversityScore * 0.3 - concentrationPenalty * 0.1));
@@ -301,11 +322,11 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
     private static class PatientFinancialData {
         private final String name;
         private final String patientId;
-        private double totalBilled = 0;
-        private double totalCollected = 0;
-        private double totalPatientPaid = 0;
-        private double totalInsurancePaid = 0;
-        private double totalOutstanding = 0;
+        private long totalBilledCents = 0;
+        private long totalCollectedCents = 0;
+        private long totalPatientPaidCents = 0;
+        private long totalInsurancePaidCents = 0;
+        private long totalOutstandingCents = 0;
         private int billCount = 0;
         private int billsWithInsurance = 0;
         private int billsWithPatientPayments = 0;
@@ -317,11 +338,11 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
 
         public void addBill(MedicalBill bill) {
             billCount++;
-            totalBilled += bill.getAmount();
-            totalPatientPaid += bill.getAmountPaid();
-            totalInsurancePaid += bill.getInsurancePaidAmount();
-            totalCollected = totalPatientPaid + totalInsurancePaid;
-            totalOutstanding += bill.getRemainingBalance();
+            totalBilledCents += bill.getAmountCents();
+            totalPatientPaidCents += bill.getAmountPaidCents();
+            totalInsurancePaidCents += bill.getInsurancePaidCents();
+            totalCollectedCents = totalPatientPaidCents + totalInsurancePaidCents;
+            totalOutstandingCents += bill.getRemainingBalanceCents();
 
             if (bill.hasInsuranceCoverage()) {
                 billsWithInsurance++;
@@ -331,12 +352,24 @@ public class ComprehensiveFinancialSummaryVisitor implements ReportVisitor {
             }
         }
 
+        public PatientFinancialData merge(PatientFinancialData other) {
+            billCount += other.billCount;
+            totalBilledCents += other.totalBilledCents;
+            totalPatientPaidCents += other.totalPatientPaidCents;
+            totalInsurancePaidCents += other.totalInsurancePaidCents;
+            totalCollectedCents = totalPatientPaidCents + totalInsurancePaidCents;
+            totalOutstandingCents += other.totalOutstandingCents;
+            billsWithInsurance += other.billsWithInsurance;
+            billsWithPatientPayments += other.billsWithPatientPayments;
+            return this;
+        }
+
         // Getters
         public String getName() { return name; }
         public String getPatientId() { return patientId; }
-        public double getTotalBilled() { return totalBilled; }
-        public double getTotalCollected() { return totalCollected; }
-        public double getTotalOutstanding() { return totalOutstanding; }
+        public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+        public double getTotalCollected() { return Money.toDouble(totalCollectedCents); }
+        public double getTotalOutstanding() { return Money.toDouble(totalOutstandingCents); }
         public int getBillCount() { return billCount; }
         public int getBillsWithInsurance() { return billsWithInsurance; }
         public int getBillsWithPatientPayments() { return billsWithPatientPayments; }
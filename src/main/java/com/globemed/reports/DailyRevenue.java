@@ -0,0 +1,95 @@
+package com.globemed.reports;
+
+import com.globemed.billing.Money;
+import java.time.LocalDate;
+
+/**
+ * One cell of the revenue_daily rollup: the totals of all bills of one service billed on
+ * one day that fall in one status bucket. Revenue reports that implement
+ * {@link RevenueRollupVisitor} are fed these cells instead of every bill.
+ * <p>
+ * Amounts are whole cents (see {@link Money}) and follow the per-bill definitions used by
+ * the reports: collected is patient plus insurance payments, and outstanding sums
+ * {@code MedicalBill.getRemainingBalanceCents()}.
+ */
+public class DailyRevenue {
+    /** Bills with nothing left on the final amount, matching the report's "Paid" filter. */
+    public static final String BUCKET_PAID = "Paid";
+    /** Every other bill, matching the report's "Pending" and "Overdue" filters. */
+    public static final String BUCKET_OPEN = "Open";
+
+    /** Upper bound (inclusive) of the small and medium bill size bands. */
+    public static final double SMALL_BILL_LIMIT = 100;
+    public static final double MEDIUM_BILL_LIMIT = 500;
+    private static final long SMALL_BILL_LIMIT_CENTS = Money.ofDouble(SMALL_BILL_LIMIT);
+    private static final long MEDIUM_BILL_LIMIT_CENTS = Money.ofDouble(MEDIUM_BILL_LIMIT);
+
+    private final LocalDate date;
+    private final String serviceDescription;
+    private final String statusBucket;
+    private final int billCount;
+    private final long billedCents;
+    private final long insurancePaidCents;
+    private final long patientPaidCents;
+    private final long outstandingCents;
+    private final long minCents;
+    private final long minPositiveCents;
+    private final long maxCents;
+    private final int[] sizeBandCounts;
+    private final long[] sizeBandBilledCents;
+
+    /**
+     * @param minPositiveCents The smallest non-zero billed amount, or 0 if every bill is zero.
+     * @param sizeBandCounts Bills per size band: small, medium, large.
+     * @param sizeBandBilledCents Billed amount per size band: small, medium, large.
+     */
+    public DailyRevenue(LocalDate date, String serviceDescription, String statusBucket, int billCount,
+                        long billedCents, long insurancePaidCents, long patientPaidCents, long outstandingCents,
+                        long minCents, long minPositiveCents, long maxCents,
+                        int[] sizeBandCounts, long[] sizeBandBilledCents) {
+        this.date = date;
+        this.serviceDescription = serviceDescription;
+        this.statusBucket = statusBucket;
+        this.billCount = billCount;
+        this.billedCents = billedCents;
+        this.insurancePaidCents = insurancePaidCents;
+        this.patientPaidCents = patientPaidCents;
+        this.outstandingCents = outstandingCents;
+        this.minCents = minCents;
+        this.minPositiveCents = minPositiveCents;
+        this.maxCents = maxCents;
+        this.sizeBandCounts = sizeBandCounts.clone();
+        this.sizeBandBilledCents = sizeBandBilledCents.clone();
+    }
+
+    /**
+     * @return The size band of a billed amount in cents: 0 small, 1 medium, 2 large.
+     */
+    public static int sizeBand(long amountCents) {
+        if (amountCents <= SMALL_BILL_LIMIT_CENTS) return 0;
+        if (amountCents <= MEDIUM_BILL_LIMIT_CENTS) return 1;
+        return 2;
+    }
+
+    public LocalDate getDate() { return date; }
+    public String getServiceDescription() { return serviceDescription; }
+    public String getStatusBucket() { return statusBucket; }
+    public int getBillCount() { return billCount; }
+    public long getBilledCents() { return billedCents; }
+    public long getInsurancePaidCents() { return insurancePaidCents; }
+    public long getPatientPaidCents() { return patientPaidCents; }
+    public long getTotalCollectedCents() { return insurancePaidCents + patientPaidCents; }
+    public long getOutstandingCents() { return outstandingCents; }
+    public long getMinCents() { return minCents; }
+    public long getMinPositiveCents() { return minPositiveCents; }
+    public long getMaxCents() { return maxCents; }
+    public int getSizeBandCount(int band) { return sizeBandCounts[band]; }
+    public long getSizeBandBilledCents(int band) { return sizeBandBilledCents[band]; }
+
+    @Override
+    public String toString() {
+        return String.format("DailyRevenue{%s, %s, %s, bills=%d, billed=%s, collected=%s, outstanding=%s}",
+                date, serviceDescription, statusBucket, billCount, Money.format(billedCents),
+                Money.format(getTotalCollectedCents()), Money.format(outstandingCents));
+    }
+}
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 
 import java.time.LocalDate;
@@ -21,8 +22,8 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
     private final Map<String, String> appointmentToBillMapping = new HashMap<>();
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private double totalSystemRevenue = 0;
-    private double totalSystemCollected = 0;
+    private long totalSystemRevenueCents = 0;
+    private long totalSystemCollectedCents = 0;
     private int totalAppointments = 0;
     private int totalBills = 0;
 
@@ -57,8 +58,8 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         totalBills++;
-        totalSystemRevenue += bill.getAmount();
-        totalSystemCollected += bill.getTotalCollected();
+        totalSystemRevenueCents += bill.getAmountCents();
+        totalSystemCollectedCents += bill.getTotalCollectedCents();
 
         String patientId = bill.getPatientId();
 
@@ -91,6 +92,27 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
         return null;
     }
 
+    @Override
+    public ReportVisitor createPartial() {
+        return new DoctorRevenuePerformanceVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        DoctorRevenuePerformanceVisitor other = (DoctorRevenuePerformanceVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        totalSystemRevenueCents += other.totalSystemRevenueCents;
+        totalSystemCollectedCents += other.totalSystemCollectedCents;
+        totalAppointments += other.totalAppointments;
+        totalBills += other.totalBills;
+        // Bills were already attributed inside the partial, where the patient's appointments were visible
+        appointmentToBillMapping.putAll(other.appointmentToBillMapping);
+        other.doctorPerformance.forEach((doctorId, performance) ->
+                doctorPerformance.merge(doctorId, performance, DoctorPerformance::merge));
+    }
+
     @Override
     public String getReport() {
         generateOverview();
@@ -109,8 +131,8 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
                 doctorPerformance.size() - (doctorPerformance.containsKey("UNASSIGNED") ? 1 : 0)));
         reportContent.append(String.format("Total Appointments: %d\n", totalAppointments));
         reportContent.append(String.format("Total Bills: %d\n", totalBills));
-        reportContent.append(String.format("Total System Revenue: $%,.2f\n", totalSystemRevenue));
-        reportContent.append(String.format("Total System Collected: $%,.2f\n", totalSystemCollected));
+        reportContent.append(String.format("Total System Revenue: $%,.2f\n", Money.toDouble(totalSystemRevenueCents)));
+        reportContent.append(String.format("Total System Collected: $%,.2f\n", Money.toDouble(totalSystemCollectedCents)));
 
         int activeDoctors = (int) doctorPerformance.values().stream()
                 .filter(d -> !"UNASSIGNED".equals(d.getDoctorId()))
@@ -118,7 +140,7 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
 
         if (activeDoctors > 0) {
             reportContent.append(String.format("Average Revenue per Doctor: $%,.2f\n",
-                    totalSystemCollected / activeDoctors));
+                    Money.toDouble(totalSystemCollectedCents) / activeDoctors));
             reportContent.append(String.format("Average Appointments per Doctor: %.1f\n",
                     (double) totalAppointments / activeDoctors));
         }
@@ -138,8 +160,8 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
                 .forEach(doctor -> {
                     double collectionRate = doctor.getTotalBilled() > 0 ?
                             (doctor.getTotalCollected() / doctor.getTotalBilled()) * 100 : 0;
-                    double percentageOfTotal = totalSystemCollected > 0 ?
-                            (doctor.getTotalCollected() / totalSystemCollected) * 100 : 0;
+                    double percentageOfTotal = totalSystemCollectedCents > 0 ?
+                            (doctor.getTotalCollected() / Money.toDouble(totalSystemCollectedCents)) * 100 : 0;
 
                     reportContent.append(String.format("%-12s | %-8d | %-8d | $%-11.2f | $%-11.2f | $%-11.2f | %6.1f%% | %6.1f%%\n",
                             doctor.getDoctorId(),
@@ -164,7 +186,7 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
                     unassigned.getTotalCollected(),
                     unassigned.getTotalOutstanding(),
                     unassigned.getTotalBilled() > 0 ? (unassigned.getTotalCollected() / unassigned.getTotalBilled()) * 100 : 0,
-                    totalSystemCollected > 0 ? (unassigned.getTotalCollected() / totalSystemCollected) * 100 : 0));
+                    totalSystemCollectedCents > 0 ? (unassigned.getTotalCollected() / Money.toDouble(totalSystemCollectedCents)) * 100 : 0));
         }
         reportContent.append("\n");
     }
@@ -354,11 +376,11 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
         private final List<MedicalBill> bills = new ArrayList<>();
         private final Map<String, Integer> appointmentStatusBreakdown = new HashMap<>();
 
-        private double totalBilled = 0;
-        private double totalCollected = 0;
-        private double totalPatientPaid = 0;
-        private double totalInsurancePaid = 0;
-        private double totalOutstanding = 0;
+        private long totalBilledCents = 0;
+        private long totalCollectedCents = 0;
+        private long totalPatientPaidCents = 0;
+        private long totalInsurancePaidCents = 0;
+        private long totalOutstandingCents = 0;
 
         public DoctorPerformance(String doctorId) {
             this.doctorId = doctorId;
@@ -373,28 +395,41 @@ public class DoctorRevenuePerformanceVisitor implements ReportVisitor {
 
         public void addRevenueBill(MedicalBill bill) {
             bills.add(bill);
-            totalBilled += bill.getAmount();
-            totalPatientPaid += bill.getAmountPaid();
-            totalInsurancePaid += bill.getInsurancePaidAmount();
-            totalCollected = totalPatientPaid + totalInsurancePaid;
-            totalOutstanding += bill.getRemainingBalance();
+            totalBilledCents += bill.getAmountCents();
+            totalPatientPaidCents += bill.getAmountPaidCents();
+            totalInsurancePaidCents += bill.getInsurancePaidCents();
+            totalCollectedCents = totalPatientPaidCents + totalInsurancePaidCents;
+            totalOutstandingCents += bill.getRemainingBalanceCents();
+        }
+
+        public DoctorPerformance merge(DoctorPerformance other) {
+            appointments.addAll(other.appointments);
+            bills.addAll(other.bills);
+            other.appointmentStatusBreakdown.forEach((status, count) ->
+                    appointmentStatusBreakdown.merge(status, count, Integer::sum));
+            totalBilledCents += other.totalBilledCents;
+            totalPatientPaidCents += other.totalPatientPaidCents;
+            totalInsurancePaidCents += other.totalInsurancePaidCents;
+            totalCollectedCents = totalPatientPaidCents + totalInsurancePaidCents;
+            totalOutstandingCents += other.totalOutstandingCents;
+            return this;
         }
 
         // Getters
         public String getDoctorId() { return doctorId; }
         public int getAppointmentCount() { return appointments.size(); }
         public int getBillCount() { return bills.size(); }
-        public double getTotalBilled() { return totalBilled; }
-        public double getTotalCollected() { return totalCollected; }
-        public double getTotalOutstanding() { return totalOutstanding; }
+        public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+        public double getTotalCollected() { return Money.toDouble(totalCollectedCents); }
+        public double getTotalOutstanding() { return Money.toDouble(totalOutstandingCents); }
         public Map<String, Integer> getAppointmentStatusBreakdown() { return appointmentStatusBreakdown; }
 
         public double getRevenuePerAppointment() {
-            return appointments.size() > 0 ? totalCollected / appointments.size() : 0;
+            return appointments.size() > 0 ? getTotalCollected() / appointments.size() : 0;
         }
 
         public double getCollectionRate() {
-            return totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+            return getTotalBilled() > 0 ? (getTotalCollected() / getTotalBilled()) * 100 : 0;
         }
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -12,16 +13,16 @@ import java.util.*;
  */
 public class FinancialReportVisitor implements ReportVisitor {
     private final StringBuilder reportContent = new StringBuilder();
-    private final Map<String, Double> serviceRevenue = new HashMap<>();
+    private final Map<String, Long> serviceRevenueCents = new HashMap<>();
     private final Map<String, Integer> serviceCount = new HashMap<>();
-    private final Map<String, Double> paymentStatusAmounts = new HashMap<>();
+    private final Map<String, Long> paymentStatusCents = new HashMap<>();
     private final List<MedicalBill> outstandingBills = new ArrayList<>();
 
-    private double totalBilled = 0;           // Total 'amount' from bills
-    private double totalPatientPaid = 0;      // Total 'amount_paid'
-    private double totalInsurancePaid = 0;    // Total 'insurance_paid_amount'
-    private double totalCollected = 0;        // Patient + Insurance payments
-    private double totalOutstanding = 0;      // Total remaining balance (what patient still owes)
+    private long totalBilledCents = 0;           // Total 'amount' from bills
+    private long totalPatientPaidCents = 0;      // Total 'amount_paid'
+    private long totalInsurancePaidCents = 0;    // Total 'insurance_paid_amount'
+    private long totalCollectedCents = 0;        // Patient + Insurance payments
+    private long totalOutstandingCents = 0;      // Total remaining balance (what patient still owes)
     private int totalBillCount = 0;
 
     private String patientName = "";
@@ -52,23 +53,20 @@ public class FinancialReportVisitor implements ReportVisitor {
         totalBillCount++;
 
         // Use correct MedicalBill methods and calculations
-        totalBilled += bill.getAmount();                    // Original billed amount
-        totalPatientPaid += bill.getAmountPaid();          // Amount paid by patient
-        totalInsurancePaid += bill.getInsurancePaidAmount(); // Amount paid by insurance
-        totalCollected = totalPatientPaid + totalInsurancePaid;
-        totalOutstanding += bill.getRemainingBalance();     // What patient still owes
+        totalBilledCents += bill.getAmountCents();                    // Original billed amount
+        totalPatientPaidCents += bill.getAmountPaidCents();          // Amount paid by patient
+        totalInsurancePaidCents += bill.getInsurancePaidCents(); // Amount paid by insurance
+        totalCollectedCents = totalPatientPaidCents + totalInsurancePaidCents;
+        totalOutstandingCents += bill.getRemainingBalanceCents();     // What patient still owes
 
         // Track service revenue (use actual collected amount)
         String service = bill.getServiceDescription();
-        double serviceCollected = bill.getAmountPaid() + bill.getInsurancePaidAmount();
-        serviceRevenue.put(service, serviceRevenue.getOrDefault(service, 0.0) + serviceCollected);
+        serviceRevenueCents.merge(service, bill.getTotalCollectedCents(), Long::sum);
         serviceCount.put(service, serviceCount.getOrDefault(service, 0) + 1);
 
         // Track payment status based on actual bill status and payment state
         String paymentStatus = determinePaymentStatus(bill);
-        double statusAmount = getAmountForStatus(bill, paymentStatus);
-        paymentStatusAmounts.put(paymentStatus,
-                paymentStatusAmounts.getOrDefault(paymentStatus, 0.0) + statusAmount);
+        paymentStatusCents.merge(paymentStatus, getCentsForStatus(bill, paymentStatus), Long::sum);
 
         // Track outstanding bills (bills with remaining balance)
         if (bill.getRemainingBalance() > 0) {
@@ -93,16 +91,16 @@ public class FinancialReportVisitor implements ReportVisitor {
         return dbStatus != null ? dbStatus : "Pending";
     }
 
-    private double getAmountForStatus(MedicalBill bill, String status) {
+    private long getCentsForStatus(MedicalBill bill, String status) {
         switch (status) {
             case "Paid":
-                return bill.getAmountPaid() + bill.getInsurancePaidAmount();
+                return bill.getTotalCollectedCents();
             case "Partial":
             case "Pending":
             case "Overdue":
-                return bill.getRemainingBalance();
+                return bill.getRemainingBalanceCents();
             default:
-                return bill.getFinalAmount();
+                return bill.getFinalAmountCents();
         }
     }
 
@@ -121,18 +119,18 @@ public class FinancialReportVisitor implements ReportVisitor {
         reportContent.append("📊 FINANCIAL SUMMARY\n");
         reportContent.append(repeatString("-", 60)).append("\n");
         reportContent.append(String.format("Total Bills Generated: %d\n", totalBillCount));
-        reportContent.append(String.format("Total Original Amount: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Patient Payments: $%,.2f\n", totalPatientPaid));
-        reportContent.append(String.format("Total Insurance Payments: $%,.2f\n", totalInsurancePaid));
-        reportContent.append(String.format("Total Collected: $%,.2f\n", totalCollected));
-        reportContent.append(String.format("Total Outstanding: $%,.2f\n", totalOutstanding));
+        reportContent.append(String.format("Total Original Amount: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Patient Payments: $%,.2f\n", Money.toDouble(totalPatientPaidCents)));
+        reportContent.append(String.format("Total Insurance Payments: $%,.2f\n", Money.toDouble(totalInsurancePaidCents)));
+        reportContent.append(String.format("Total Collected: $%,.2f\n", Money.toDouble(totalCollectedCents)));
+        reportContent.append(String.format("Total Outstanding: $%,.2f\n", Money.toDouble(totalOutstandingCents)));
 
-        double collectionRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
         reportContent.append(String.format("Collection Rate: %.1f%%\n", collectionRate));
 
-        if (totalCollected > 0) {
-            double insurancePercentage = (totalInsurancePaid / totalCollected) * 100;
-            double patientPercentage = (totalPatientPaid / totalCollected) * 100;
+        if (totalCollectedCents > 0) {
+            double insurancePercentage = ((double) totalInsurancePaidCents / totalCollectedCents) * 100;
+            double patientPercentage = ((double) totalPatientPaidCents / totalCollectedCents) * 100;
             reportContent.append(String.format("Insurance Coverage: %.1f%% | Patient Direct: %.1f%%\n",
                     insurancePercentage, patientPercentage));
         }
@@ -146,11 +144,11 @@ public class FinancialReportVisitor implements ReportVisitor {
                 "Service", "Count", "Revenue", "Avg/Service"));
         reportContent.append(repeatString("-", 70)).append("\n");
 
-        serviceRevenue.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+        serviceRevenueCents.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .forEach(entry -> {
                     String service = entry.getKey();
-                    double revenue = entry.getValue();
+                    double revenue = Money.toDouble(entry.getValue());
                     int count = serviceCount.get(service);
                     double average = count > 0 ? revenue / count : 0;
 
@@ -164,10 +162,10 @@ public class FinancialReportVisitor implements ReportVisitor {
         reportContent.append("💰 PAYMENT STATUS ANALYSIS\n");
         reportContent.append(repeatString("-", 50)).append("\n");
 
-        paymentStatusAmounts.forEach((status, amount) -> {
-            double percentage = totalBilled > 0 ? (amount / totalBilled) * 100 : 0;
+        paymentStatusCents.forEach((status, cents) -> {
+            double percentage = totalBilledCents > 0 ? cents * 100.0 / totalBilledCents : 0;
             reportContent.append(String.format("%-15s: $%,.2f (%.1f%%)\n",
-                    status, amount, percentage));
+                    status, Money.toDouble(cents), percentage));
         });
         reportContent.append("\n");
     }
@@ -198,9 +196,9 @@ public class FinancialReportVisitor implements ReportVisitor {
         reportContent.append("📈 KEY FINANCIAL METRICS\n");
         reportContent.append(repeatString("-", 50)).append("\n");
 
-        double averageBillAmount = totalBillCount > 0 ? totalBilled / totalBillCount : 0;
-        double averageCollection = totalBillCount > 0 ? totalCollected / totalBillCount : 0;
-        double outstandingRate = totalBilled > 0 ? (totalOutstanding / totalBilled) * 100 : 0;
+        double averageBillAmount = totalBillCount > 0 ? Money.toDouble(totalBilledCents) / totalBillCount : 0;
+        double averageCollection = totalBillCount > 0 ? Money.toDouble(totalCollectedCents) / totalBillCount : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) totalOutstandingCents / totalBilledCents) * 100 : 0;
 
         reportContent.append(String.format("Average Bill Amount: $%.2f\n", averageBillAmount));
         reportContent.append(String.format("Average Collection per Bill: $%.2f\n", averageCollection));
@@ -222,7 +220,7 @@ public class FinancialReportVisitor implements ReportVisitor {
     }
 
     private String getHighestRevenueService() {
-        return serviceRevenue.entrySet().stream()
+        return serviceRevenueCents.entrySet().stream()
                 .max(Map.Entry.comparingByValue())
                 .map(Map.Entry::getKey)
                 .orElse("N/A");
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -10,9 +11,9 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
     private final StringBuilder reportContent = new StringBuilder();
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private double totalInsurancePayments = 0;
-    private double totalPatientPayments = 0;
-    private double totalBilled = 0;
+    private long totalInsurancePaymentsCents = 0;
+    private long totalPatientPaymentsCents = 0;
+    private long totalBilledCents = 0;
     private int insuranceBills = 0;  // Bills with insurance payments
     private int patientBills = 0;    // Bills with patient payments
     private int totalBills = 0;
@@ -35,14 +36,14 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         totalBills++;
-        totalBilled += bill.getAmount();
+        totalBilledCents += bill.getAmountCents();
 
         // Use actual payment amounts from MedicalBill
-        double insurancePayment = bill.getInsurancePaidAmount();
-        double patientPayment = bill.getAmountPaid();
+        long insurancePayment = bill.getInsurancePaidCents();
+        long patientPayment = bill.getAmountPaidCents();
 
-        totalInsurancePayments += insurancePayment;
-        totalPatientPayments += patientPayment;
+        totalInsurancePaymentsCents += insurancePayment;
+        totalPatientPaymentsCents += patientPayment;
 
         // Count bills that have each type of payment
         if (insurancePayment > 0) {
@@ -53,6 +54,25 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
         }
     }
 
+    @Override
+    public ReportVisitor createPartial() {
+        return new InsuranceVsPatientPaymentsVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        InsuranceVsPatientPaymentsVisitor other = (InsuranceVsPatientPaymentsVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        totalInsurancePaymentsCents += other.totalInsurancePaymentsCents;
+        totalPatientPaymentsCents += other.totalPatientPaymentsCents;
+        totalBilledCents += other.totalBilledCents;
+        insuranceBills += other.insuranceBills;
+        patientBills += other.patientBills;
+        totalBills += other.totalBills;
+    }
+
     @Override
     public String getReport() {
         generateOverview();
@@ -64,23 +84,23 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
     }
 
     private void generateOverview() {
-        double totalPayments = totalInsurancePayments + totalPatientPayments;
+        double totalPayments = Money.toDouble(totalInsurancePaymentsCents + totalPatientPaymentsCents);
 
         reportContent.append("💰 PAYMENT OVERVIEW\n");
         reportContent.append(repeatString("-", 50)).append("\n");
         reportContent.append(String.format("Total Bills Analyzed: %d\n", totalBills));
-        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", totalBilled));
+        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", Money.toDouble(totalBilledCents)));
         reportContent.append(String.format("Total Payments Received: $%,.2f\n", totalPayments));
         reportContent.append(String.format("Bills with Insurance: %d\n", insuranceBills));
         reportContent.append(String.format("Bills with Patient Payments: %d\n", patientBills));
 
-        double collectionRate = totalBilled > 0 ? (totalPayments / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? (totalPayments / Money.toDouble(totalBilledCents)) * 100 : 0;
         reportContent.append(String.format("Overall Collection Rate: %.1f%%\n", collectionRate));
         reportContent.append("\n");
     }
 
     private void generatePaymentBreakdown() {
-        double totalPayments = totalInsurancePayments + totalPatientPayments;
+        double totalPayments = Money.toDouble(totalInsurancePaymentsCents + totalPatientPaymentsCents);
 
         reportContent.append("📊 PAYMENT SOURCE BREAKDOWN\n");
         reportContent.append(repeatString("-", 70)).append("\n");
@@ -88,16 +108,16 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
                 "Payment Source", "Bills", "Total Amount", "Average", "% of Total"));
         reportContent.append(repeatString("-", 70)).append("\n");
 
-        double insurancePercentage = totalPayments > 0 ? (totalInsurancePayments / totalPayments) * 100 : 0;
-        double patientPercentage = totalPayments > 0 ? (totalPatientPayments / totalPayments) * 100 : 0;
+        double insurancePercentage = totalPayments > 0 ? (Money.toDouble(totalInsurancePaymentsCents) / totalPayments) * 100 : 0;
+        double patientPercentage = totalPayments > 0 ? (Money.toDouble(totalPatientPaymentsCents) / totalPayments) * 100 : 0;
 
-        double avgInsurance = insuranceBills > 0 ? totalInsurancePayments / insuranceBills : 0;
-        double avgPatient = patientBills > 0 ? totalPatientPayments / patientBills : 0;
+        double avgInsurance = insuranceBills > 0 ? Money.toDouble(totalInsurancePaymentsCents) / insuranceBills : 0;
+        double avgPatient = patientBills > 0 ? Money.toDouble(totalPatientPaymentsCents) / patientBills : 0;
 
         reportContent.append(String.format("%-20s | %-8d | $%-14.2f | $%-11.2f | %7.1f%%\n",
-                "Insurance", insuranceBills, totalInsurancePayments, avgInsurance, insurancePercentage));
+                "Insurance", insuranceBills, Money.toDouble(totalInsurancePaymentsCents), avgInsurance, insurancePercentage));
         reportContent.append(String.format("%-20s | %-8d | $%-14.2f | $%-11.2f | %7.1f%%\n",
-                "Patient Direct", patientBills, totalPatientPayments, avgPatient, patientPercentage));
+                "Patient Direct", patientBills, Money.toDouble(totalPatientPaymentsCents), avgPatient, patientPercentage));
         reportContent.append(repeatString("-", 70)).append("\n");
         reportContent.append(String.format("%-20s | %-8d | $%-14.2f | $%-11.2f | %7.1f%%\n",
                 "TOTAL", Math.max(insuranceBills, patientBills), totalPayments,
@@ -109,8 +129,8 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
         reportContent.append("⚖️ INSURANCE VS PATIENT COMPARISON\n");
         reportContent.append(repeatString("-", 50)).append("\n");
 
-        double avgInsurance = insuranceBills > 0 ? totalInsurancePayments / insuranceBills : 0;
-        double avgPatient = patientBills > 0 ? totalPatientPayments / patientBills : 0;
+        double avgInsurance = insuranceBills > 0 ? Money.toDouble(totalInsurancePaymentsCents) / insuranceBills : 0;
+        double avgPatient = patientBills > 0 ? Money.toDouble(totalPatientPaymentsCents) / patientBills : 0;
 
         reportContent.append(String.format("Average Insurance Payment: $%.2f\n", avgInsurance));
         reportContent.append(String.format("Average Patient Payment: $%.2f\n", avgPatient));
@@ -126,9 +146,9 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
         }
 
         // Payment mix analysis
-        double totalPayments = totalInsurancePayments + totalPatientPayments;
+        double totalPayments = Money.toDouble(totalInsurancePaymentsCents + totalPatientPaymentsCents);
         if (totalPayments > 0) {
-            double insuranceMix = (totalInsurancePayments / totalPayments) * 100;
+            double insuranceMix = (Money.toDouble(totalInsurancePaymentsCents) / totalPayments) * 100;
             reportContent.append(String.format("Payment Mix: %.1f%% Insurance, %.1f%% Patient\n",
                     insuranceMix, 100 - insuranceMix));
         }
@@ -139,8 +159,8 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
         reportContent.append("⚡ COLLECTION EFFICIENCY\n");
         reportContent.append(repeatString("-", 50)).append("\n");
 
-        double insuranceEfficiency = totalBilled > 0 ? (totalInsurancePayments / totalBilled) * 100 : 0;
-        double patientEfficiency = totalBilled > 0 ? (totalPatientPayments / totalBilled) * 100 : 0;
+        double insuranceEfficiency = totalBilledCents > 0 ? ((double) totalInsurancePaymentsCents / totalBilledCents) * 100 : 0;
+        double patientEfficiency = totalBilledCents > 0 ? ((double) totalPatientPaymentsCents / totalBilledCents) * 100 : 0;
 
         reportContent.append(String.format("Insurance Collection Rate: %.1f%%\n", insuranceEfficiency));
         reportContent.append(String.format("Patient Collection Rate: %.1f%%\n", patientEfficiency));
@@ -155,8 +175,8 @@ public class InsuranceVsPatientPaymentsVisitor implements ReportVisitor {
     }
 
     private void generateRecommendations() {
-        double totalPayments = totalInsurancePayments + totalPatientPayments;
-        double insurancePercentage = totalPayments > 0 ? (totalInsurancePayments / totalPayments) * 100 : 0;
+        double totalPayments = Money.toDouble(totalInsurancePaymentsCents + totalPatientPaymentsCents);
+        double insurancePercentage = totalPayments > 0 ? (Money.toDouble(totalInsurancePaymentsCents) / totalPayments) * 100 : 0;
 
         reportContent.append("💡 STRATEGIC RECOMMENDATIONS\n");
         reportContent.append(repeatString("-", 50)).append("\n");
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -11,9 +12,10 @@ import java.util.stream.Collectors;
 
 /**
  * Monthly Revenue Trends Visitor - Fixed to use actual billing dates and accurate calculations
- * Analyzes revenue trends over time based on bill dates and payment patterns
+ * Analyzes revenue trends over time based on bill dates and payment patterns.
+ * Can be built from individual bills or from the daily revenue rollup.
  */
-public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
+public class MonthlyRevenueTrendsVisitor implements RevenueRollupVisitor {
     private final StringBuilder reportContent = new StringBuilder();
     private final Map<String, MonthlyData> monthlyRevenue = new TreeMap<>(); // TreeMap for sorted dates
     private final Map<String, MonthlyData> monthlyBilled = new TreeMap<>();
@@ -21,12 +23,16 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
     private final DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
     private final DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("MMM yyyy");
 
-    private double totalRevenue = 0;
-    private double totalBilled = 0;
+    private long totalRevenueCents = 0;
+    private long totalBilledCents = 0;
     private int totalBills = 0;
 
     @Override
     public void visit(PatientRecord patient) {
+        appendHeader();
+    }
+
+    private void appendHeader() {
         if (reportContent.length() == 0) {
             reportContent.append(repeatString("=", 90)).append("\n");
             reportContent.append("    MONTHLY REVENUE TRENDS REPORT\n");
@@ -45,8 +51,8 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         totalBills++;
-        totalBilled += bill.getAmount();
-        totalRevenue += bill.getTotalCollected();
+        totalBilledCents += bill.getAmountCents();
+        totalRevenueCents += bill.getTotalCollectedCents();
 
         // Extract month from billing date
         LocalDateTime billedDateTime = bill.getBilledDateTime();
@@ -55,19 +61,58 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
 
         // Track monthly billing amounts
         MonthlyData billedData = monthlyBilled.getOrDefault(monthKey, new MonthlyData(monthKey, displayMonth));
-        billedData.addBilledAmount(bill.getAmount());
+        billedData.addBilledAmount(bill.getAmountCents());
         monthlyBilled.put(monthKey, billedData);
 
         // Track monthly collected amounts
         MonthlyData collectedData = monthlyRevenue.getOrDefault(monthKey, new MonthlyData(monthKey, displayMonth));
-        collectedData.addCollectedAmount(bill.getTotalCollected());
-        collectedData.addPatientPayment(bill.getAmountPaid());
-        collectedData.addInsurancePayment(bill.getInsurancePaidAmount());
-        collectedData.addOutstanding(bill.getRemainingBalance());
+        collectedData.addCollectedAmount(bill.getTotalCollectedCents());
+        collectedData.addPatientPayment(bill.getAmountPaidCents());
+        collectedData.addInsurancePayment(bill.getInsurancePaidCents());
+        collectedData.addOutstanding(bill.getRemainingBalanceCents());
         collectedData.incrementBillCount();
         monthlyRevenue.put(monthKey, collectedData);
     }
 
+    @Override
+    public void visit(DailyRevenue cell) {
+        appendHeader();
+        totalBills += cell.getBillCount();
+        totalBilledCents += cell.getBilledCents();
+        totalRevenueCents += cell.getTotalCollectedCents();
+
+        String monthKey = cell.getDate().format(monthFormatter);
+        String displayMonth = cell.getDate().format(displayFormatter);
+
+        monthlyBilled.computeIfAbsent(monthKey, key -> new MonthlyData(key, displayMonth))
+                .addBilledAmount(cell.getBilledCents());
+
+        MonthlyData collectedData = monthlyRevenue.computeIfAbsent(monthKey, key -> new MonthlyData(key, displayMonth));
+        collectedData.addCollectedAmount(cell.getTotalCollectedCents());
+        collectedData.addPatientPayment(cell.getPatientPaidCents());
+        collectedData.addInsurancePayment(cell.getInsurancePaidCents());
+        collectedData.addOutstanding(cell.getOutstandingCents());
+        collectedData.addBillCount(cell.getBillCount());
+    }
+
+    @Override
+    public ReportVisitor createPartial() {
+        return new MonthlyRevenueTrendsVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        MonthlyRevenueTrendsVisitor other = (MonthlyRevenueTrendsVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        totalRevenueCents += other.totalRevenueCents;
+        totalBilledCents += other.totalBilledCents;
+        totalBills += other.totalBills;
+        other.monthlyBilled.forEach((monthKey, data) -> monthlyBilled.merge(monthKey, data, MonthlyData::merge));
+        other.monthlyRevenue.forEach((monthKey, data) -> monthlyRevenue.merge(monthKey, data, MonthlyData::merge));
+    }
+
     @Override
     public String getReport() {
         generateOverview();
@@ -86,14 +131,14 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
                 getEarliestMonth(), getLatestMonth()));
         reportContent.append(String.format("Total Months Analyzed: %d\n", monthlyRevenue.size()));
         reportContent.append(String.format("Total Bills: %d\n", totalBills));
-        reportContent.append(String.format("Total Billed: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Collected: $%,.2f\n", totalRevenue));
+        reportContent.append(String.format("Total Billed: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Collected: $%,.2f\n", Money.toDouble(totalRevenueCents)));
 
-        double collectionRate = totalBilled > 0 ? (totalRevenue / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalRevenueCents / totalBilledCents) * 100 : 0;
         reportContent.append(String.format("Overall Collection Rate: %.1f%%\n", collectionRate));
 
         if (monthlyRevenue.size() > 0) {
-            double avgMonthlyRevenue = totalRevenue / monthlyRevenue.size();
+            double avgMonthlyRevenue = Money.toDouble(totalRevenueCents) / monthlyRevenue.size();
             double avgMonthlyBills = (double) totalBills / monthlyRevenue.size();
             reportContent.append(String.format("Average Monthly Revenue: $%,.2f\n", avgMonthlyRevenue));
             reportContent.append(String.format("Average Monthly Bills: %.1f\n", avgMonthlyBills));
@@ -129,8 +174,8 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
 
         reportContent.append(repeatString("-", 110)).append("\n");
         reportContent.append(String.format("%-10s | %-8d | $%-11.2f | $%-11.2f | %-12s | %-12s | %-12s | %6.1f%%\n",
-                "TOTAL", totalBills, totalBilled, totalRevenue, "-", "-", "-",
-                totalBilled > 0 ? (totalRevenue / totalBilled) * 100 : 0));
+                "TOTAL", totalBills, Money.toDouble(totalBilledCents), Money.toDouble(totalRevenueCents), "-", "-", "-",
+                totalBilledCents > 0 ? ((double) totalRevenueCents / totalBilledCents) * 100 : 0));
         reportContent.append("\n");
     }
 
@@ -270,7 +315,7 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
                     .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
                     .forEach(entry -> {
                         double avgRevenue = entry.getValue();
-                        double percentageOfTotal = totalRevenue > 0 ? (avgRevenue / (totalRevenue / monthlyRevenue.size())) * 100 : 0;
+                        double percentageOfTotal = totalRevenueCents > 0 ? (avgRevenue / (Money.toDouble(totalRevenueCents) / monthlyRevenue.size())) * 100 : 0;
                         reportContent.append(String.format("  %s: $%,.2f avg (%.0f%% of average)\n",
                                 monthNames[entry.getKey()], avgRevenue, percentageOfTotal));
                     });
@@ -369,11 +414,11 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
     private static class MonthlyData {
         private final String monthKey;
         private final String displayMonth;
-        private double totalCollected = 0;
-        private double totalBilled = 0;
-        private double patientPayments = 0;
-        private double insurancePayments = 0;
-        private double outstanding = 0;
+        private long totalCollectedCents = 0;
+        private long totalBilledCents = 0;
+        private long patientPaymentsCents = 0;
+        private long insurancePaymentsCents = 0;
+        private long outstandingCents = 0;
         private int billCount = 0;
 
         public MonthlyData(String monthKey, String displayMonth) {
@@ -381,21 +426,31 @@ public class MonthlyRevenueTrendsVisitor implements ReportVisitor {
             this.displayMonth = displayMonth;
         }
 
-        public void addCollectedAmount(double amount) { totalCollected += amount; }
-        public void addBilledAmount(double amount) { totalBilled += amount; }
-        public void addPatientPayment(double amount) { patientPayments += amount; }
-        public void addInsurancePayment(double amount) { insurancePayments += amount; }
-        public void addOutstanding(double amount) { outstanding += amount; }
+        public void addCollectedAmount(long cents) { totalCollectedCents += cents; }
+        public void addBilledAmount(long cents) { totalBilledCents += cents; }
+        public void addPatientPayment(long cents) { patientPaymentsCents += cents; }
+        public void addInsurancePayment(long cents) { insurancePaymentsCents += cents; }
+        public void addOutstanding(long cents) { outstandingCents += cents; }
         public void incrementBillCount() { billCount++; }
+        public void addBillCount(int count) { billCount += count; }
+        public MonthlyData merge(MonthlyData other) {
+            totalCollectedCents += other.totalCollectedCents;
+            totalBilledCents += other.totalBilledCents;
+            patientPaymentsCents += other.patientPaymentsCents;
+            insurancePaymentsCents += other.insurancePaymentsCents;
+            outstandingCents += other.outstandingCents;
+            billCount += other.billCount;
+            return this;
+        }
 
         // Getters
         public String getMonthKey() { return monthKey; }
         public String getDisplayMonth() { return displayMonth; }
-        public double getTotalCollected() { return totalCollected; }
-        public double getTotalBilled() { return totalBilled; }
-        public double getPatientPayments() { return patientPayments; }
-        public double getInsurancePayments() { return insurancePayments; }
-        public double getOutstanding() { return outstanding; }
+        public double getTotalCollected() { return Money.toDouble(totalCollectedCents); }
+        public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+        public double getPatientPayments() { return Money.toDouble(patientPaymentsCents); }
+        public double getInsurancePayments() { return Money.toDouble(insurancePaymentsCents); }
+        public double getOutstanding() { return Money.toDouble(outstandingCents); }
         public int getBillCount() { return billCount; }
     }
 }
\ No newline at end of file
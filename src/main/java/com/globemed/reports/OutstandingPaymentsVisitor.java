@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -10,12 +11,12 @@ import java.util.*;
 public class OutstandingPaymentsVisitor implements ReportVisitor {
     private final StringBuilder reportContent = new StringBuilder();
     private final List<OutstandingBill> outstandingBills = new ArrayList<>();
-    private final Map<String, Double> statusBreakdown = new HashMap<>();
+    private final Map<String, Long> statusBreakdownCents = new HashMap<>();
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private double totalOutstanding = 0;
+    private long totalOutstandingCents = 0;
     private int totalOutstandingCount = 0;
-    private double totalOriginalAmount = 0;
+    private long totalOriginalAmountCents = 0;
 
     @Override
     public void visit(PatientRecord patient) {
@@ -29,19 +30,34 @@ public class OutstandingPaymentsVisitor implements ReportVisitor {
 
     @Override
     public void visit(MedicalBill bill) {
-        double remainingBalance = bill.getRemainingBalance();
-        if (remainingBalance > 0) { // Has outstanding amount
-            totalOutstanding += remainingBalance;
-            totalOriginalAmount += bill.getAmount();
+        long remainingCents = bill.getRemainingBalanceCents();
+        if (remainingCents > 0) { // Has outstanding amount
+            totalOutstandingCents += remainingCents;
+            totalOriginalAmountCents += bill.getAmountCents();
             totalOutstandingCount++;
             outstandingBills.add(new OutstandingBill(bill));
 
             // Track by status
             String status = bill.getStatus();
-            statusBreakdown.put(status, statusBreakdown.getOrDefault(status, 0.0) + remainingBalance);
+            statusBreakdownCents.merge(status, remainingCents, Long::sum);
         }
     }
 
+    @Override
+    public ReportVisitor createPartial() {
+        return new OutstandingPaymentsVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        OutstandingPaymentsVisitor other = (OutstandingPaymentsVisitor) partial;
+        totalOutstandingCents += other.totalOutstandingCents;
+        totalOriginalAmountCents += other.totalOriginalAmountCents;
+        totalOutstandingCount += other.totalOutstandingCount;
+        outstandingBills.addAll(other.outstandingBills);
+        other.statusBreakdownCents.forEach((status, cents) -> statusBreakdownCents.merge(status, cents, Long::sum));
+    }
+
     @Override
     public String getReport() {
         generateHeader();
@@ -65,12 +81,12 @@ public class OutstandingPaymentsVisitor implements ReportVisitor {
         reportContent.append("📊 OUTSTANDING PAYMENTS SUMMARY\n");
         reportContent.append(repeatString("-", 50)).append("\n");
         reportContent.append(String.format("Total Outstanding Bills: %d\n", totalOutstandingCount));
-        reportContent.append(String.format("Total Outstanding Amount: $%,.2f\n", totalOutstanding));
-        reportContent.append(String.format("Total Original Amount: $%,.2f\n", totalOriginalAmount));
+        reportContent.append(String.format("Total Outstanding Amount: $%,.2f\n", Money.toDouble(totalOutstandingCents)));
+        reportContent.append(String.format("Total Original Amount: $%,.2f\n", Money.toDouble(totalOriginalAmountCents)));
         reportContent.append(String.format("Average Outstanding per Bill: $%,.2f\n",
-                totalOutstandingCount > 0 ? totalOutstanding / totalOutstandingCount : 0));
+                totalOutstandingCount > 0 ? Money.toDouble(totalOutstandingCents) / totalOutstandingCount : 0));
 
-        double outstandingRate = totalOriginalAmount > 0 ? (totalOutstanding / totalOriginalAmount) * 100 : 0;
+        double outstandingRate = totalOriginalAmountCents > 0 ? ((double) totalOutstandingCents / totalOriginalAmountCents) * 100 : 0;
         reportContent.append(String.format("Outstanding Rate: %.1f%%\n", outstandingRate));
         reportContent.append("\n");
     }
@@ -79,12 +95,12 @@ public class OutstandingPaymentsVisitor implements ReportVisitor {
         reportContent.append("📋 OUTSTANDING BY STATUS\n");
         reportContent.append(repeatString("-", 50)).append("\n");
 
-        statusBreakdown.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+        statusBreakdownCents.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .forEach(entry -> {
-                    double percentage = totalOutstanding > 0 ? (entry.getValue() / totalOutstanding) * 100 : 0;
+                    double percentage = totalOutstandingCents > 0 ? entry.getValue() * 100.0 / totalOutstandingCents : 0;
                     reportContent.append(String.format("%-15s: $%,.2f (%.1f%%)\n",
-                            entry.getKey(), entry.getValue(), percentage));
+                            entry.getKey(), Money.toDouble(entry.getValue()), percentage));
                 });
         reportContent.append("\n");
     }
@@ -134,7 +150,7 @@ public class OutstandingPaymentsVisitor implements ReportVisitor {
         });
 
         for (int i = 0; i < 4; i++) {
-            double percentage = totalOutstanding > 0 ? (ageCategories[i] / totalOutstanding) * 100 : 0;
+            double percentage = totalOutstandingCents > 0 ? (ageCategories[i] / Money.toDouble(totalOutstandingCents)) * 100 : 0;
             reportContent.append(String.format("%-12s: %3d bills | $%8.2f | %5.1f%%\n",
                     ageLabels[i], ageCounts[i], ageCategories[i], percentage));
         }
@@ -0,0 +1,136 @@
+package com.globemed.reports;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Runs a report visitor over the data set on a fork-join pool.
+ * <p>
+ * The data source is read on the calling thread and cut into chunks of whole patient
+ * groups. Each chunk is visited by a worker into its own partial visitor (see
+ * {@link ReportVisitor#createPartial()}), and the partials are merged back into the
+ * caller's visitor in data order. At most two chunks per worker are in flight, so memory
+ * stays bounded while the database read overlaps with the visiting.
+ * <p>
+ * Visitors that do not support partials are fed directly on the calling thread.
+ */
+public class ParallelReportEngine {
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    /**
+     * Something that can push every patient group of a report to a consumer.
+     */
+    @FunctionalInterface
+    public interface DataSource {
+        /**
+         * @return true if the whole data set was delivered, false if loading failed.
+         */
+        boolean forEach(Consumer<PatientReportData> sink);
+    }
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+
+    public ParallelReportEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelReportEngine(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = Math.max(2, pool.getParallelism() * 2);
+    }
+
+    /**
+     * Feeds every patient group from the source to the visitor.
+     *
+     * @param visitor The report visitor; on success it holds the merged result.
+     * @param source The data source.
+     * @return The value returned by the data source.
+     */
+    public boolean run(ReportVisitor visitor, DataSource source) {
+        if (visitor.createPartial() == null) {
+            return source.forEach(group -> group.accept(visitor));
+        }
+
+        ChunkedRun run = new ChunkedRun(visitor);
+        boolean loaded;
+        try {
+            loaded = source.forEach(run);
+            run.flush();
+        } catch (RuntimeException e) {
+            run.cancel();
+            throw e;
+        }
+        if (!loaded) {
+            run.cancel();
+            return false;
+        }
+        run.mergeAll();
+        return true;
+    }
+
+    /**
+     * Collects groups into chunks and keeps the submitted partials in submission order.
+     */
+    private class ChunkedRun implements Consumer<PatientReportData> {
+        private final ReportVisitor root;
+        private final Deque<ForkJoinTask<ReportVisitor>> inFlight = new ArrayDeque<>();
+        private List<PatientReportData> chunk = new ArrayList<>(chunkSize);
+
+        ChunkedRun(ReportVisitor root) {
+            this.root = root;
+        }
+
+        @Override
+        public void accept(PatientReportData group) {
+            chunk.add(group);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<PatientReportData> groups = chunk;
+            ReportVisitor partial = root.createPartial();
+            chunk = new ArrayList<>(chunkSize);
+
+            inFlight.addLast(pool.submit(() -> {
+                for (PatientReportData group : groups) {
+                    group.accept(partial);
+                }
+                return partial;
+            }));
+
+            // Backpressure: fold finished work in before reading further ahead
+            while (inFlight.size() > maxChunksInFlight) {
+                root.merge(inFlight.removeFirst().join());
+            }
+        }
+
+        void mergeAll() {
+            while (!inFlight.isEmpty()) {
+                root.merge(inFlight.removeFirst().join());
+            }
+        }
+
+        void cancel() {
+            for (ForkJoinTask<ReportVisitor> task : inFlight) {
+                task.cancel(true);
+            }
+            inFlight.clear();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -14,17 +15,17 @@ import java.util.*;
 public class PatientPaymentHistoryVisitor implements ReportVisitor {
     private final StringBuilder reportContent = new StringBuilder();
     private final List<PaymentRecord> paymentHistory = new ArrayList<>();
-    private final Map<String, Double> servicePayments = new HashMap<>();
+    private final Map<String, Long> servicePaymentCents = new HashMap<>();
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private String patientName = "";
     private String patientId = "";
-    private double totalBilled = 0;
-    private double totalPatientPaid = 0;
-    private double totalInsurancePaid = 0;
-    private double totalCollected = 0;
-    private double totalOutstanding = 0;
+    private long totalBilledCents = 0;
+    private long totalPatientPaidCents = 0;
+    private long totalInsurancePaidCents = 0;
+    private long totalCollectedCents = 0;
+    private long totalOutstandingCents = 0;
     private int fullyPaidBills = 0;
     private int partiallyPaidBills = 0;
     private int unpaidBills = 0;
@@ -46,11 +47,11 @@ public class PatientPaymentHistoryVisitor implements ReportVisitor {
 
     @Override
     public void visit(MedicalBill bill) {
-        totalBilled += bill.getAmount();
-        totalPatientPaid += bill.getAmountPaid();
-        totalInsurancePaid += bill.getInsurancePaidAmount();
-        totalCollected = totalPatientPaid + totalInsurancePaid;
-        totalOutstanding += bill.getRemainingBalance();
+        totalBilledCents += bill.getAmountCents();
+        totalPatientPaidCents += bill.getAmountPaidCents();
+        totalInsurancePaidCents += bill.getInsurancePaidCents();
+        totalCollectedCents = totalPatientPaidCents + totalInsurancePaidCents;
+        totalOutstandingCents += bill.getRemainingBalanceCents();
 
         // Categorize payment status
         if (bill.isFullyPaid()) {
@@ -63,8 +64,7 @@ public class PatientPaymentHistoryVisitor implements ReportVisitor {
 
         // Track payments by service type
         String service = bill.getServiceDescription();
-        double serviceCollected = bill.getTotalCollected();
-        servicePayments.put(service, servicePayments.getOrDefault(service, 0.0) + serviceCollected);
+        servicePaymentCents.merge(service, bill.getTotalCollectedCents(), Long::sum);
 
         paymentHistory.add(new PaymentRecord(bill));
     }
@@ -84,18 +84,18 @@ public class PatientPaymentHistoryVisitor implements ReportVisitor {
         reportContent.append("💰 PAYMENT SUMMARY\n");
         reportContent.append(repeatString("-", 60)).append("\n");
         reportContent.append(String.format("Total Bills: %d\n", paymentHistory.size()));
-        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Patient Payments: $%,.2f\n", totalPatientPaid));
-        reportContent.append(String.format("Total Insurance Payments: $%,.2f\n", totalInsurancePaid));
-        reportContent.append(String.format("Total Amount Collected: $%,.2f\n", totalCollected));
-        reportContent.append(String.format("Total Outstanding Balance: $%,.2f\n", totalOutstanding));
+        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Patient Payments: $%,.2f\n", Money.toDouble(totalPatientPaidCents)));
+        reportContent.append(String.format("Total Insurance Payments: $%,.2f\n", Money.toDouble(totalInsurancePaidCents)));
+        reportContent.append(String.format("Total Amount Collected: $%,.2f\n", Money.toDouble(totalCollectedCents)));
+        reportContent.append(String.format("Total Outstanding Balance: $%,.2f\n", Money.toDouble(totalOutstandingCents)));
 
-        double collectionRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
         reportContent.append(String.format("Overall Collection Rate: %.1f%%\n", collectionRate));
 
-        if (totalCollected > 0) {
-            double patientPaymentRatio = (totalPatientPaid / totalCollected) * 100;
-            double insurancePaymentRatio = (totalInsurancePaid / totalCollected) * 100;
+        if (totalCollectedCents > 0) {
+            double patientPaymentRatio = ((double) totalPatientPaidCents / totalCollectedCents) * 100;
+            double insurancePaymentRatio = ((double) totalInsurancePaidCents / totalCollectedCents) * 100;
             reportContent.append(String.format("Patient Payment Ratio: %.1f%%\n", patientPaymentRatio));
             reportContent.append(String.format("Insurance Payment Ratio: %.1f%%\n", insurancePaymentRatio));
         }
@@ -157,12 +157,12 @@ public class PatientPaymentHistoryVisitor implements ReportVisitor {
                 "Service Type", "Amount Paid", "% of Total"));
         reportContent.append(repeatString("-", 70)).append("\n");
 
-        servicePayments.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+        servicePaymentCents.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .forEach(entry -> {
-                    double percentage = totalCollected > 0 ? (entry.getValue() / totalCollected) * 100 : 0;
+                    double percentage = totalCollectedCents > 0 ? entry.getValue() * 100.0 / totalCollectedCents : 0;
                     reportContent.append(String.format("%-35s | $%-14.2f | %13.1f%%\n",
-                            truncateString(entry.getKey(), 35), entry.getValue(), percentage));
+                            truncateString(entry.getKey(), 35), Money.toDouble(entry.getValue()), percentage));
                 });
         reportContent.append("\n");
     }
@@ -172,9 +172,9 @@ public class PatientPaymentHistoryVisitor implements ReportVisitor {
         reportContent.append(repeatString("-", 60)).append("\n");
 
         // Calculate averages
-        double avgBillAmount = paymentHistory.size() > 0 ? totalBilled / paymentHistory.size() : 0;
-        double avgPatientPayment = paymentHistory.size() > 0 ? totalPatientPaid / paymentHistory.size() : 0;
-        double avgInsurancePayment = paymentHistory.size() > 0 ? totalInsurancePaid / paymentHistory.size() : 0;
+        double avgBillAmount = paymentHistory.size() > 0 ? Money.toDouble(totalBilledCents) / paymentHistory.size() : 0;
+        double avgPatientPayment = paymentHistory.size() > 0 ? Money.toDouble(totalPatientPaidCents) / paymentHistory.size() : 0;
+        double avgInsurancePayment = paymentHistory.size() > 0 ? Money.toDouble(totalInsurancePaidCents) / paymentHistory.size() : 0;
 
         reportContent.append(String.format("Average Bill Amount: $%.2f\n", avgBillAmount));
         reportContent.append(String.format("Average Patient Payment: $%.2f\n", avgPatientPayment));
@@ -215,7 +215,7 @@ public class PatientPaymentHistoryVisitor implements ReportVisitor {
         reportContent.append("💡 PAYMENT RECOMMENDATIONS\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        double outstandingRate = totalBilled > 0 ? (totalOutstanding / totalBilled) * 100 : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) totalOutstandingCents / totalBilledCents) * 100 : 0;
 
         if (outstandingRate > 30) {
             reportContent.append("🔴 HIGH OUTSTANDING BALANCE:\n");
@@ -232,7 +232,7 @@ public class PatientPaymentHistoryVisitor implements ReportVisitor {
             reportContent.append("  • Consider loyalty/discount programs\n");
         }
 
-        if (totalInsurancePaid < totalPatientPaid && totalInsurancePaid > 0) {
+        if (totalInsurancePaidCents < totalPatientPaidCents && totalInsurancePaidCents > 0) {
             reportContent.append("  • Review insurance coverage optimization\n");
         }
 
@@ -0,0 +1,47 @@
+package com.globemed.reports;
+
+import com.globemed.appointment.Appointment;
+import com.globemed.billing.MedicalBill;
+import com.globemed.patient.PatientRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One patient together with that patient's appointments and bills.
+ * This is the unit of work the parallel report engine hands to worker threads;
+ * accepting a visitor visits the patient, then the appointments, then the bills,
+ * exactly as a sequential walk would.
+ */
+public class PatientReportData implements Visitable {
+    private final PatientRecord patient;
+    private final List<Appointment> appointments = new ArrayList<>();
+    private final List<MedicalBill> bills = new ArrayList<>();
+
+    public PatientReportData(PatientRecord patient) {
+        this.patient = patient;
+    }
+
+    public void addAppointment(Appointment appointment) {
+        appointments.add(appointment);
+    }
+
+    public void addBill(MedicalBill bill) {
+        bills.add(bill);
+    }
+
+    public PatientRecord getPatient() { return patient; }
+    public List<Appointment> getAppointments() { return appointments; }
+    public List<MedicalBill> getBills() { return bills; }
+
+    @Override
+    public void accept(ReportVisitor visitor) {
+        patient.accept(visitor);
+        for (Appointment appointment : appointments) {
+            appointment.accept(visitor);
+        }
+        for (MedicalBill bill : bills) {
+            bill.accept(visitor);
+        }
+    }
+}
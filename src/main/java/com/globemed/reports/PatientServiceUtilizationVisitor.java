@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -22,8 +23,8 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
 
     private String patientName = "";
     private String patientId = "";
-    private double totalSpent = 0;
-    private double totalBilled = 0;
+    private long totalSpentCents = 0;
+    private long totalBilledCents = 0;
     private int totalServices = 0;
     private boolean headerGenerated = false; // Flag to prevent duplicate headers
 
@@ -66,8 +67,8 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
         if (bill.getPatientId().equals(this.patientId)) {
             bills.add(bill);
             totalServices++;
-            totalBilled += bill.getAmount();
-            totalSpent += bill.getTotalCollected();
+            totalBilledCents += bill.getAmountCents();
+            totalSpentCents += bill.getTotalCollectedCents();
 
             String serviceName = bill.getServiceDescription();
             ServiceUtilization utilization = serviceUsage.getOrDefault(serviceName,
@@ -101,11 +102,11 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
         reportContent.append(String.format("Total Services Billed: %d\n", totalServices));
         reportContent.append(String.format("Unique Service Types: %d\n", serviceUsage.size()));
         reportContent.append(String.format("Unique Doctors Visited: %d\n", doctorVisits.size()));
-        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Amount Paid: $%,.2f\n", totalSpent));
+        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Amount Paid: $%,.2f\n", Money.toDouble(totalSpentCents)));
 
-        double avgServiceCost = totalServices > 0 ? totalBilled / totalServices : 0;
-        double avgAppointmentCost = appointments.size() > 0 ? totalBilled / appointments.size() : 0;
+        double avgServiceCost = totalServices > 0 ? Money.toDouble(totalBilledCents) / totalServices : 0;
+        double avgAppointmentCost = appointments.size() > 0 ? Money.toDouble(totalBilledCents) / appointments.size() : 0;
 
         reportContent.append(String.format("Average Cost per Service: $%,.2f\n", avgServiceCost));
         reportContent.append(String.format("Average Cost per Appointment: $%,.2f\n", avgAppointmentCost));
@@ -191,7 +192,7 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
         serviceUsage.values().stream()
                 .sorted((s1, s2) -> Integer.compare(s2.getUsageCount(), s1.getUsageCount()))
                 .forEach(service -> {
-                    double percentage = totalBilled > 0 ? (service.getTotalBilled() / totalBilled) * 100 : 0;
+                    double percentage = totalBilledCents > 0 ? (service.getTotalBilled() / Money.toDouble(totalBilledCents)) * 100 : 0;
                     reportContent.append(String.format("%-35s | %-6d | $%-11.2f | $%-11.2f | $%-11.2f | $%-11.2f | %6.1f%%\n",
                             truncateString(service.getServiceName(), 35),
                             service.getUsageCount(),
@@ -280,13 +281,13 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
         reportContent.append("💊 HEALTHCARE VALUE ANALYSIS\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        if (totalBilled == 0) {
+        if (totalBilledCents == 0) {
             reportContent.append("No billing data available for value analysis.\n\n");
             return;
         }
 
-        double collectionRate = totalBilled > 0 ? (totalSpent / totalBilled) * 100 : 0;
-        double outstandingRate = totalBilled > 0 ? ((totalBilled - totalSpent) / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalSpentCents / totalBilledCents) * 100 : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) (totalBilledCents - totalSpentCents) / totalBilledCents) * 100 : 0;
 
         reportContent.append(String.format("Payment Compliance: %.1f%%\n", collectionRate));
         reportContent.append(String.format("Outstanding Rate: %.1f%%\n", outstandingRate));
@@ -301,7 +302,7 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
         }
 
         // Cost efficiency
-        double costPerAppointment = appointments.size() > 0 ? totalBilled / appointments.size() : 0;
+        double costPerAppointment = appointments.size() > 0 ? Money.toDouble(totalBilledCents) / appointments.size() : 0;
         if (costPerAppointment > 500) {
             reportContent.append("Higher cost utilization pattern\n");
         } else if (costPerAppointment > 200) {
@@ -340,7 +341,7 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
         }
 
         // Payment-based recommendations
-        double outstandingRate = totalBilled > 0 ? ((totalBilled - totalSpent) / totalBilled) * 100 : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) (totalBilledCents - totalSpentCents) / totalBilledCents) * 100 : 0;
         if (outstandingRate > 20) {
             reportContent.append("  • Address outstanding balances\n");
             reportContent.append("  • Consider payment plan options\n");
@@ -381,9 +382,9 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
     private static class ServiceUtilization {
         private final String serviceName;
         private int usageCount = 0;
-        private double totalBilled = 0;
-        private double totalPaid = 0;
-        private double totalOutstanding = 0;
+        private long totalBilledCents = 0;
+        private long totalPaidCents = 0;
+        private long totalOutstandingCents = 0;
 
         public ServiceUtilization(String serviceName) {
             this.serviceName = serviceName;
@@ -391,18 +392,18 @@ public class PatientServiceUtilizationVisitor implements ReportVisitor {
 
         public void addService(MedicalBill bill) {
             usageCount++;
-            totalBilled += bill.getAmount();
-            totalPaid += bill.getTotalCollected();
-            totalOutstanding += bill.getRemainingBalance();
+            totalBilledCents += bill.getAmountCents();
+            totalPaidCents += bill.getTotalCollectedCents();
+            totalOutstandingCents += bill.getRemainingBalanceCents();
         }
 
         public String getServiceName() { return serviceName; }
         public int getUsageCount() { return usageCount; }
-        public double getTotalBilled() { return totalBilled; }
-        public double getTotalPaid() { return totalPaid; }
-        public double getTotalOutstanding() { return totalOutstanding; }
+        public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+        public double getTotalPaid() { return Money.toDouble(totalPaidCents); }
+        public double getTotalOutstanding() { return Money.toDouble(totalOutstandingCents); }
         public double getAverageCost() {
-            return usageCount > 0 ? totalBilled / usageCount : 0;
+            return usageCount > 0 ? getTotalBilled() / usageCount : 0;
         }
     }
 
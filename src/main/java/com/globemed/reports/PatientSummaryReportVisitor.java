@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -21,9 +22,9 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     private PatientRecord currentPatient;
-    private double totalBilled = 0;
-    private double totalCollected = 0;
-    private double totalOutstanding = 0;
+    private long totalBilledCents = 0;
+    private long totalCollectedCents = 0;
+    private long totalOutstandingCents = 0;
 
     @Override
     public void visit(PatientRecord patient) {
@@ -49,9 +50,9 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         bills.add(bill);
-        totalBilled += bill.getAmount();
-        totalCollected += bill.getTotalCollected();
-        totalOutstanding += bill.getRemainingBalance();
+        totalBilledCents += bill.getAmountCents();
+        totalCollectedCents += bill.getTotalCollectedCents();
+        totalOutstandingCents += bill.getRemainingBalanceCents();
 
         // Track service usage
         String service = bill.getServiceDescription();
@@ -138,12 +139,12 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
     private void generateFinancialSummary() {
         reportContent.append("💰 FINANCIAL SUMMARY\n");
         reportContent.append(repeatString("-", 60)).append("\n");
-        reportContent.append(String.format("Total Billed: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Collected: $%,.2f\n", totalCollected));
-        reportContent.append(String.format("Total Outstanding: $%,.2f\n", totalOutstanding));
+        reportContent.append(String.format("Total Billed: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Collected: $%,.2f\n", Money.toDouble(totalCollectedCents)));
+        reportContent.append(String.format("Total Outstanding: $%,.2f\n", Money.toDouble(totalOutstandingCents)));
 
-        double collectionRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
-        double outstandingRate = totalBilled > 0 ? (totalOutstanding / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) totalOutstandingCents / totalBilledCents) * 100 : 0;
 
         reportContent.append(String.format("Collection Rate: %.1f%%\n", collectionRate));
         reportContent.append(String.format("Outstanding Rate: %.1f%%\n", outstandingRate));
@@ -152,9 +153,9 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
         double totalPatientPaid = bills.stream().mapToDouble(MedicalBill::getAmountPaid).sum();
         double totalInsurancePaid = bills.stream().mapToDouble(MedicalBill::getInsurancePaidAmount).sum();
 
-        if (totalCollected > 0) {
-            double patientPercentage = (totalPatientPaid / totalCollected) * 100;
-            double insurancePercentage = (totalInsurancePaid / totalCollected) * 100;
+        if (totalCollectedCents > 0) {
+            double patientPercentage = (totalPatientPaid / Money.toDouble(totalCollectedCents)) * 100;
+            double insurancePercentage = (totalInsurancePaid / Money.toDouble(totalCollectedCents)) * 100;
             reportContent.append(String.format("Patient Payments: $%,.2f (%.1f%%)\n", totalPatientPaid, patientPercentage));
             reportContent.append(String.format("Insurance Payments: $%,.2f (%.1f%%)\n", totalInsurancePaid, insurancePercentage));
         }
@@ -171,8 +172,8 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
         }
 
         // Average costs
-        double avgBillAmount = bills.size() > 0 ? totalBilled / bills.size() : 0;
-        double avgAppointmentCost = appointments.size() > 0 ? totalBilled / appointments.size() : 0;
+        double avgBillAmount = bills.size() > 0 ? Money.toDouble(totalBilledCents) / bills.size() : 0;
+        double avgAppointmentCost = appointments.size() > 0 ? Money.toDouble(totalBilledCents) / appointments.size() : 0;
 
         reportContent.append(String.format("Average Bill Amount: $%.2f\n", avgBillAmount));
         reportContent.append(String.format("Average Appointment Cost: $%.2f\n", avgAppointmentCost));
@@ -322,7 +323,7 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
         }
 
         // Payment responsibility
-        double paymentResponsibility = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+        double paymentResponsibility = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
         reportContent.append(String.format("Payment Responsibility: %.1f%%", paymentResponsibility));
 
         if (paymentResponsibility >= 95) {
@@ -342,10 +343,10 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
         List<String> actionItems = new ArrayList<>();
 
         // Financial action items
-        if (totalOutstanding > 1000) {
-            actionItems.add("💰 Address significant outstanding balance ($" + String.format("%.2f", totalOutstanding) + ")");
-        } else if (totalOutstanding > 100) {
-            actionItems.add("💳 Follow up on outstanding balance ($" + String.format("%.2f", totalOutstanding) + ")");
+        if (Money.toDouble(totalOutstandingCents) > 1000) {
+            actionItems.add("💰 Address significant outstanding balance ($" + String.format("%.2f", Money.toDouble(totalOutstandingCents)) + ")");
+        } else if (Money.toDouble(totalOutstandingCents) > 100) {
+            actionItems.add("💳 Follow up on outstanding balance ($" + String.format("%.2f", Money.toDouble(totalOutstandingCents)) + ")");
         }
 
         // Healthcare action items
@@ -376,7 +377,7 @@ public class PatientSummaryReportVisitor implements ReportVisitor {
         }
 
         // Payment patterns
-        double outstandingRate = totalBilled > 0 ? (totalOutstanding / totalBilled) * 100 : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) totalOutstandingCents / totalBilledCents) * 100 : 0;
         if (outstandingRate > 25) {
             actionItems.add("💼 Discuss payment plan options");
         }
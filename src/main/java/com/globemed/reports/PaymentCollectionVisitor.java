@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -14,16 +15,16 @@ import java.util.*;
 public class PaymentCollectionVisitor implements ReportVisitor {
     private final StringBuilder reportContent = new StringBuilder();
     private final Map<String, CollectionData> monthlyCollection = new TreeMap<>();
-    private final Map<String, Double> statusCollections = new HashMap<>();
+    private final Map<String, Long> statusCollectedCents = new HashMap<>();
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private final DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
     private final DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("MMM yyyy");
 
-    private double totalBilled = 0;
-    private double totalPatientCollected = 0;
-    private double totalInsuranceCollected = 0;
-    private double totalCollected = 0;
-    private double totalOutstanding = 0;
+    private long totalBilledCents = 0;
+    private long totalPatientCollectedCents = 0;
+    private long totalInsuranceCollectedCents = 0;
+    private long totalCollectedCents = 0;
+    private long totalOutstandingCents = 0;
     private int totalBills = 0;
     private int billsWithPayments = 0;
     private int fullyPaidBills = 0;
@@ -48,11 +49,11 @@ public class PaymentCollectionVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         totalBills++;
-        totalBilled += bill.getAmount();
-        totalPatientCollected += bill.getAmountPaid();
-        totalInsuranceCollected += bill.getInsurancePaidAmount();
-        totalCollected = totalPatientCollected + totalInsuranceCollected;
-        totalOutstanding += bill.getRemainingBalance();
+        totalBilledCents += bill.getAmountCents();
+        totalPatientCollectedCents += bill.getAmountPaidCents();
+        totalInsuranceCollectedCents += bill.getInsurancePaidCents();
+        totalCollectedCents = totalPatientCollectedCents + totalInsuranceCollectedCents;
+        totalOutstandingCents += bill.getRemainingBalanceCents();
 
         if (bill.getTotalCollected() > 0) {
             billsWithPayments++;
@@ -72,8 +73,31 @@ public class PaymentCollectionVisitor implements ReportVisitor {
 
         // Track collections by status
         String status = bill.getStatus();
-        double collected = bill.getTotalCollected();
-        statusCollections.put(status, statusCollections.getOrDefault(status, 0.0) + collected);
+        statusCollectedCents.merge(status, bill.getTotalCollectedCents(), Long::sum);
+    }
+
+    @Override
+    public ReportVisitor createPartial() {
+        return new PaymentCollectionVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        PaymentCollectionVisitor other = (PaymentCollectionVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        totalBills += other.totalBills;
+        totalBilledCents += other.totalBilledCents;
+        totalPatientCollectedCents += other.totalPatientCollectedCents;
+        totalInsuranceCollectedCents += other.totalInsuranceCollectedCents;
+        totalCollectedCents = totalPatientCollectedCents + totalInsuranceCollectedCents;
+        totalOutstandingCents += other.totalOutstandingCents;
+        billsWithPayments += other.billsWithPayments;
+        fullyPaidBills += other.fullyPaidBills;
+        other.monthlyCollection.forEach((monthKey, data) ->
+                monthlyCollection.merge(monthKey, data, CollectionData::merge));
+        other.statusCollectedCents.forEach((status, cents) -> statusCollectedCents.merge(status, cents, Long::sum));
     }
 
     @Override
@@ -94,11 +118,11 @@ public class PaymentCollectionVisitor implements ReportVisitor {
         reportContent.append(String.format("Total Bills Generated: %d\n", totalBills));
         reportContent.append(String.format("Bills with Payments: %d\n", billsWithPayments));
         reportContent.append(String.format("Fully Paid Bills: %d\n", fullyPaidBills));
-        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Amount Collected: $%,.2f\n", totalCollected));
-        reportContent.append(String.format("Total Outstanding: $%,.2f\n", totalOutstanding));
+        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Amount Collected: $%,.2f\n", Money.toDouble(totalCollectedCents)));
+        reportContent.append(String.format("Total Outstanding: $%,.2f\n", Money.toDouble(totalOutstandingCents)));
 
-        double collectionRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
         double paymentRate = totalBills > 0 ? ((double) billsWithPayments / totalBills) * 100 : 0;
         double fullPaymentRate = totalBills > 0 ? ((double) fullyPaidBills / totalBills) * 100 : 0;
 
@@ -123,18 +147,18 @@ public class PaymentCollectionVisitor implements ReportVisitor {
         reportContent.append("⚡ COLLECTION EFFICIENCY\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        double avgBillAmount = totalBills > 0 ? totalBilled / totalBills : 0;
-        double avgCollectionAmount = billsWithPayments > 0 ? totalCollected / billsWithPayments : 0;
-        double avgOutstandingAmount = totalBills > 0 ? totalOutstanding / totalBills : 0;
+        double avgBillAmount = totalBills > 0 ? Money.toDouble(totalBilledCents) / totalBills : 0;
+        double avgCollectionAmount = billsWithPayments > 0 ? Money.toDouble(totalCollectedCents) / billsWithPayments : 0;
+        double avgOutstandingAmount = totalBills > 0 ? Money.toDouble(totalOutstandingCents) / totalBills : 0;
 
         reportContent.append(String.format("Average Bill Amount: $%.2f\n", avgBillAmount));
         reportContent.append(String.format("Average Collection Amount: $%.2f\n", avgCollectionAmount));
         reportContent.append(String.format("Average Outstanding Amount: $%.2f\n", avgOutstandingAmount));
 
         // Collection efficiency metrics
-        if (totalCollected > 0) {
-            double patientCollectionRatio = (totalPatientCollected / totalCollected) * 100;
-            double insuranceCollectionRatio = (totalInsuranceCollected / totalCollected) * 100;
+        if (totalCollectedCents > 0) {
+            double patientCollectionRatio = ((double) totalPatientCollectedCents / totalCollectedCents) * 100;
+            double insuranceCollectionRatio = ((double) totalInsuranceCollectedCents / totalCollectedCents) * 100;
 
             reportContent.append(String.format("Patient Collection Ratio: %.1f%%\n", patientCollectionRatio));
             reportContent.append(String.format("Insurance Collection Ratio: %.1f%%\n", insuranceCollectionRatio));
@@ -142,8 +166,8 @@ public class PaymentCollectionVisitor implements ReportVisitor {
 
         // Days Sales Outstanding (simplified calculation)
         if (monthlyCollection.size() > 0) {
-            double avgMonthlyBilling = totalBilled / monthlyCollection.size();
-            double dso = avgMonthlyBilling > 0 ? (totalOutstanding / avgMonthlyBilling) * 30 : 0;
+            double avgMonthlyBilling = Money.toDouble(totalBilledCents) / monthlyCollection.size();
+            double dso = avgMonthlyBilling > 0 ? (Money.toDouble(totalOutstandingCents) / avgMonthlyBilling) * 30 : 0;
             reportContent.append(String.format("Estimated Days Sales Outstanding: %.0f days\n", dso));
         }
         reportContent.append("\n");
@@ -204,20 +228,20 @@ public class PaymentCollectionVisitor implements ReportVisitor {
         int insurancePaymentCount = (int) monthlyCollection.values().stream()
                 .mapToLong(CollectionData::getBillsWithInsurancePayments).sum();
 
-        if (totalCollected > 0) {
-            double patientPercentage = (totalPatientCollected / totalCollected) * 100;
-            double insurancePercentage = (totalInsuranceCollected / totalCollected) * 100;
+        if (totalCollectedCents > 0) {
+            double patientPercentage = ((double) totalPatientCollectedCents / totalCollectedCents) * 100;
+            double insurancePercentage = ((double) totalInsuranceCollectedCents / totalCollectedCents) * 100;
 
-            double avgPatientPayment = patientPaymentCount > 0 ? totalPatientCollected / patientPaymentCount : 0;
-            double avgInsurancePayment = insurancePaymentCount > 0 ? totalInsuranceCollected / insurancePaymentCount : 0;
+            double avgPatientPayment = patientPaymentCount > 0 ? Money.toDouble(totalPatientCollectedCents) / patientPaymentCount : 0;
+            double avgInsurancePayment = insurancePaymentCount > 0 ? Money.toDouble(totalInsuranceCollectedCents) / insurancePaymentCount : 0;
 
             reportContent.append(String.format("%-20s | $%-14.2f | %13.1f%% | $%-11.2f\n",
-                    "Patient Direct", totalPatientCollected, patientPercentage, avgPatientPayment));
+                    "Patient Direct", Money.toDouble(totalPatientCollectedCents), patientPercentage, avgPatientPayment));
             reportContent.append(String.format("%-20s | $%-14.2f | %13.1f%% | $%-11.2f\n",
-                    "Insurance", totalInsuranceCollected, insurancePercentage, avgInsurancePayment));
+                    "Insurance", Money.toDouble(totalInsuranceCollectedCents), insurancePercentage, avgInsurancePayment));
             reportContent.append(repeatString("-", 70)).append("\n");
             reportContent.append(String.format("%-20s | $%-14.2f | %13.1f%% | $%-11.2f\n",
-                    "TOTAL", totalCollected, 100.0, totalCollected / Math.max(1, billsWithPayments)));
+                    "TOTAL", Money.toDouble(totalCollectedCents), 100.0, Money.toDouble(totalCollectedCents) / Math.max(1, billsWithPayments)));
         }
         reportContent.append("\n");
     }
@@ -228,12 +252,12 @@ public class PaymentCollectionVisitor implements ReportVisitor {
         reportContent.append(String.format("%-15s | %-15s | %-15s\n", "Status", "Amount Collected", "% of Total"));
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        statusCollections.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+        statusCollectedCents.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .forEach(entry -> {
-                    double percentage = totalCollected > 0 ? (entry.getValue() / totalCollected) * 100 : 0;
+                    double percentage = totalCollectedCents > 0 ? entry.getValue() * 100.0 / totalCollectedCents : 0;
                     reportContent.append(String.format("%-15s | $%-14.2f | %13.1f%%\n",
-                            entry.getKey(), entry.getValue(), percentage));
+                            entry.getKey(), Money.toDouble(entry.getValue()), percentage));
                 });
         reportContent.append("\n");
     }
@@ -243,9 +267,9 @@ public class PaymentCollectionVisitor implements ReportVisitor {
         reportContent.append(repeatString("-", 60)).append("\n");
 
         // Collection KPIs
-        double netCollectionRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+        double netCollectionRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
         double firstPassResolutionRate = totalBills > 0 ? ((double) fullyPaidBills / totalBills) * 100 : 0;
-        double patientResponsibilityRate = totalCollected > 0 ? (totalPatientCollected / totalCollected) * 100 : 0;
+        double patientResponsibilityRate = totalCollectedCents > 0 ? ((double) totalPatientCollectedCents / totalCollectedCents) * 100 : 0;
 
         reportContent.append(String.format("Net Collection Rate: %.1f%%\n", netCollectionRate));
         reportContent.append(String.format("First Pass Resolution: %.1f%%\n", firstPassResolutionRate));
@@ -276,8 +300,8 @@ public class PaymentCollectionVisitor implements ReportVisitor {
         reportContent.append("💡 COLLECTION IMPROVEMENT RECOMMENDATIONS\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        double collectionRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
-        double outstandingRate = totalBilled > 0 ? (totalOutstanding / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) totalOutstandingCents / totalBilledCents) * 100 : 0;
 
         if (collectionRate < 85) {
             reportContent.append("🔴 CRITICAL COLLECTION ISSUES:\n");
@@ -304,7 +328,7 @@ public class PaymentCollectionVisitor implements ReportVisitor {
             reportContent.append("  • Implement payment plans for large balances\n");
         }
 
-        if (totalInsuranceCollected < totalPatientCollected) {
+        if (totalInsuranceCollectedCents < totalPatientCollectedCents) {
             reportContent.append("  • Review insurance billing and follow-up processes\n");
             reportContent.append("  • Improve insurance authorization procedures\n");
         }
@@ -329,10 +353,10 @@ public class PaymentCollectionVisitor implements ReportVisitor {
     private static class CollectionData {
         private final String monthKey;
         private final String displayMonth;
-        private double totalBilled = 0;
-        private double totalCollected = 0;
-        private double patientCollected = 0;
-        private double insuranceCollected = 0;
+        private long totalBilledCents = 0;
+        private long totalCollectedCents = 0;
+        private long patientCollectedCents = 0;
+        private long insuranceCollectedCents = 0;
         private int billCount = 0;
         private int fullyPaidCount = 0;
         private int billsWithPatientPayments = 0;
@@ -345,10 +369,10 @@ public class PaymentCollectionVisitor implements ReportVisitor {
 
         public void addBill(MedicalBill bill) {
             billCount++;
-            totalBilled += bill.getAmount();
-            patientCollected += bill.getAmountPaid();
-            insuranceCollected += bill.getInsurancePaidAmount();
-            totalCollected = patientCollected + insuranceCollected;
+            totalBilledCents += bill.getAmountCents();
+            patientCollectedCents += bill.getAmountPaidCents();
+            insuranceCollectedCents += bill.getInsurancePaidCents();
+            totalCollectedCents = patientCollectedCents + insuranceCollectedCents;
 
             if (bill.isFullyPaid()) {
                 fullyPaidCount++;
@@ -363,13 +387,25 @@ public class PaymentCollectionVisitor implements ReportVisitor {
             }
         }
 
+        public CollectionData merge(CollectionData other) {
+            billCount += other.billCount;
+            totalBilledCents += other.totalBilledCents;
+            patientCollectedCents += other.patientCollectedCents;
+            insuranceCollectedCents += other.insuranceCollectedCents;
+            totalCollectedCents = patientCollectedCents + insuranceCollectedCents;
+            fullyPaidCount += other.fullyPaidCount;
+            billsWithPatientPayments += other.billsWithPatientPayments;
+            billsWithInsurancePayments += other.billsWithInsurancePayments;
+            return this;
+        }
+
         // Getters
         public String getMonthKey() { return monthKey; }
         public String getDisplayMonth() { return displayMonth; }
-        public double getTotalBilled() { return totalBilled; }
-        public double getTotalCollected() { return totalCollected; }
-        public double getPatientCollected() { return patientCollected; }
-        public double getInsuranceCollected() { return insuranceCollected; }
+        public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+        public double getTotalCollected() { return Money.toDouble(totalCollectedCents); }
+        public double getPatientCollected() { return Money.toDouble(patientCollectedCents); }
+        public double getInsuranceCollected() { return Money.toDouble(insuranceCollectedCents); }
         public int getBillCount() { return billCount; }
         public int getFullyPaidCount() { return fullyPaidCount; }
         public int getBillsWithPatientPayments() { return billsWithPatientPayments; }
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -16,7 +17,7 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
     private final Map<String, PaymentMethodData> paymentMethods = new HashMap<>();
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private double totalPayments = 0;
+    private long totalPaymentsCents = 0;
     private int totalTransactions = 0;
     private int totalBills = 0;
 
@@ -46,10 +47,10 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
             String patientPaymentMethod = determinePatientPaymentMethod(bill);
             PaymentMethodData patientData = paymentMethods.getOrDefault(patientPaymentMethod,
                     new PaymentMethodData(patientPaymentMethod));
-            patientData.addPayment(bill.getAmountPaid(), bill);
+            patientData.addPayment(bill.getAmountPaidCents(), bill);
             paymentMethods.put(patientPaymentMethod, patientData);
 
-            totalPayments += bill.getAmountPaid();
+            totalPaymentsCents += bill.getAmountPaidCents();
             totalTransactions++;
         }
 
@@ -58,10 +59,10 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
             String insuranceMethod = "Insurance";
             PaymentMethodData insuranceData = paymentMethods.getOrDefault(insuranceMethod,
                     new PaymentMethodData(insuranceMethod));
-            insuranceData.addPayment(bill.getInsurancePaidAmount(), bill);
+            insuranceData.addPayment(bill.getInsurancePaidCents(), bill);
             paymentMethods.put(insuranceMethod, insuranceData);
 
-            totalPayments += bill.getInsurancePaidAmount();
+            totalPaymentsCents += bill.getInsurancePaidCents();
             totalTransactions++;
         }
     }
@@ -89,6 +90,23 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
         }
     }
 
+    @Override
+    public ReportVisitor createPartial() {
+        return new PaymentMethodsAnalysisVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        PaymentMethodsAnalysisVisitor other = (PaymentMethodsAnalysisVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        totalPaymentsCents += other.totalPaymentsCents;
+        totalTransactions += other.totalTransactions;
+        totalBills += other.totalBills;
+        other.paymentMethods.forEach((method, data) -> paymentMethods.merge(method, data, PaymentMethodData::merge));
+    }
+
     @Override
     public String getReport() {
         generateOverview();
@@ -105,9 +123,9 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
         reportContent.append(String.format("Total Payment Methods: %d\n", paymentMethods.size()));
         reportContent.append(String.format("Total Payment Transactions: %d\n", totalTransactions));
         reportContent.append(String.format("Total Bills Processed: %d\n", totalBills));
-        reportContent.append(String.format("Total Payments Processed: $%,.2f\n", totalPayments));
+        reportContent.append(String.format("Total Payments Processed: $%,.2f\n", Money.toDouble(totalPaymentsCents)));
 
-        double avgTransaction = totalTransactions > 0 ? totalPayments / totalTransactions : 0;
+        double avgTransaction = totalTransactions > 0 ? Money.toDouble(totalPaymentsCents) / totalTransactions : 0;
         double paymentRate = totalBills > 0 ? ((double) totalTransactions / totalBills) * 100 : 0;
 
         reportContent.append(String.format("Average Transaction Amount: $%,.2f\n", avgTransaction));
@@ -125,7 +143,7 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
         paymentMethods.values().stream()
                 .sorted((p1, p2) -> Double.compare(p2.getTotalAmount(), p1.getTotalAmount()))
                 .forEach(method -> {
-                    double percentage = totalPayments > 0 ? (method.getTotalAmount() / totalPayments) * 100 : 0;
+                    double percentage = totalPaymentsCents > 0 ? (method.getTotalAmount() / Money.toDouble(totalPaymentsCents)) * 100 : 0;
                     reportContent.append(String.format("%-20s | %-8d | $%-14.2f | $%-11.2f | $%-11.2f | $%-11.2f | %6.1f%%\n",
                             method.getMethodName(),
                             method.getTransactionCount(),
@@ -138,8 +156,8 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
 
         reportContent.append(repeatString("-", 100)).append("\n");
         reportContent.append(String.format("%-20s | %-8d | $%-14.2f | $%-11.2f | %-12s | %-12s | %6.1f%%\n",
-                "TOTAL", totalTransactions, totalPayments,
-                totalTransactions > 0 ? totalPayments / totalTransactions : 0, "-", "-", 100.0));
+                "TOTAL", totalTransactions, Money.toDouble(totalPaymentsCents),
+                totalTransactions > 0 ? Money.toDouble(totalPaymentsCents) / totalTransactions : 0, "-", "-", 100.0));
         reportContent.append("\n");
     }
 
@@ -286,35 +304,44 @@ public class PaymentMethodsAnalysisVisitor implements ReportVisitor {
     // PaymentMethodData helper class
     private static class PaymentMethodData {
         private final String methodName;
-        private double totalAmount = 0;
+        private long totalAmountCents = 0;
         private int transactionCount = 0;
-        private double minAmount = Double.MAX_VALUE;
-        private double maxAmount = 0;
+        private long minCents = Long.MAX_VALUE;
+        private long maxCents = 0;
         private final List<Double> amounts = new ArrayList<>();
 
         public PaymentMethodData(String methodName) {
             this.methodName = methodName;
         }
 
-        public void addPayment(double amount, MedicalBill bill) {
-            totalAmount += amount;
+        public void addPayment(long cents, MedicalBill bill) {
+            totalAmountCents += cents;
             transactionCount++;
-            amounts.add(amount);
+            amounts.add(Money.toDouble(cents));
+
+            if (cents < minCents) minCents = cents;
+            if (cents > maxCents) maxCents = cents;
+        }
 
-            if (amount < minAmount) minAmount = amount;
-            if (amount > maxAmount) maxAmount = amount;
+        public PaymentMethodData merge(PaymentMethodData other) {
+            totalAmountCents += other.totalAmountCents;
+            transactionCount += other.transactionCount;
+            amounts.addAll(other.amounts);
+            minCents = Math.min(minCents, other.minCents);
+            maxCents = Math.max(maxCents, other.maxCents);
+            return this;
         }
 
         public String getMethodName() { return methodName; }
-        public double getTotalAmount() { return totalAmount; }
+        public double getTotalAmount() { return Money.toDouble(totalAmountCents); }
         public int getTransactionCount() { return transactionCount; }
         public double getAverageAmount() {
-            return transactionCount > 0 ? totalAmount / transactionCount : 0;
+            return transactionCount > 0 ? getTotalAmount() / transactionCount : 0;
         }
         public double getMinAmount() {
-            return minAmount == Double.MAX_VALUE ? 0 : minAmount;
+            return minCents == Long.MAX_VALUE ? 0 : Money.toDouble(minCents);
         }
-        public double getMaxAmount() { return maxAmount; }
+        public double getMaxAmount() { return Money.toDouble(maxCents); }
 
         public double getSuccessRate() {
             // Simplified success rate - in reality, this would track failed transactions
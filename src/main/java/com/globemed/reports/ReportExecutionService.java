@@ -0,0 +1,111 @@
+package com.globemed.reports;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs report generation on a small bounded pool of background threads so the Swing
+ * event dispatch thread stays responsive while a report scans the database.
+ * <p>
+ * Listener callbacks are delivered through the callback executor, which defaults to
+ * {@link SwingUtilities#invokeLater}, so listeners may touch Swing components directly.
+ * Exactly one of {@code onCompleted}, {@code onFailed} or {@code onCancelled} is delivered
+ * per task.
+ */
+public class ReportExecutionService {
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+    /**
+     * The work of one report: load the data, visit it and return the finished text.
+     */
+    @FunctionalInterface
+    public interface ReportJob {
+        String run(ReportTask task) throws Exception;
+    }
+
+    /**
+     * Receives progress and the outcome of a report.
+     */
+    public interface Listener {
+        void onProgress(long itemsProcessed, String stage);
+        void onCompleted(String reportContent);
+        void onFailed(Exception error);
+        void onCancelled();
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Executor callbackExecutor;
+
+    public ReportExecutionService() {
+        this(DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY, SwingUtilities::invokeLater);
+    }
+
+    public ReportExecutionService(int workers, int queueCapacity, Executor callbackExecutor) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "report-worker-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Queues a report for background execution.
+     *
+     * @param reportName Name used in progress messages and errors.
+     * @param job The report work.
+     * @param listener Receives progress and the outcome on the callback executor.
+     * @return A handle that can be used to cancel the report.
+     * @throws RejectedExecutionException if too many reports are already queued.
+     */
+    public ReportTask submit(String reportName, ReportJob job, Listener listener) {
+        ReportTask task = new ReportTask(reportName, listener, this);
+        task.setFuture(executor.submit(() -> execute(task, job, listener)));
+        return task;
+    }
+
+    private void execute(ReportTask task, ReportJob job, Listener listener) {
+        long start = System.currentTimeMillis();
+        try {
+            task.setStage("Generating " + task.getReportName() + "...");
+            String content = job.run(task);
+            task.checkCancelled();
+            System.out.println("Report '" + task.getReportName() + "' generated in "
+                    + (System.currentTimeMillis() - start) + " ms (" + task.getItemsProcessed() + " items)");
+            task.finish(() -> listener.onCompleted(content));
+        } catch (CancellationException e) {
+            System.out.println("Report '" + task.getReportName() + "' cancelled after "
+                    + task.getItemsProcessed() + " items");
+            task.finish(listener::onCancelled);
+        } catch (Exception e) {
+            if (task.isCancelled()) {
+                // Interrupting a cancelled job often surfaces as an I/O or SQL error
+                task.finish(listener::onCancelled);
+            } else {
+                System.err.println("Error generating report '" + task.getReportName() + "': " + e.getMessage());
+                e.printStackTrace();
+                task.finish(() -> listener.onFailed(e));
+            }
+        }
+    }
+
+    void deliver(Runnable callback) {
+        callbackExecutor.execute(callback);
+    }
+
+    /**
+     * Cancels queued and running reports and stops the worker threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,106 @@
+package com.globemed.reports;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handle for one report running on the {@link ReportExecutionService}.
+ * <p>
+ * The UI holds it to cancel the report; the report job uses it to publish progress
+ * and to notice cancellation. Jobs should call {@link #itemProcessed()} once per unit
+ * of work (e.g. per patient), which throws {@link CancellationException} as soon as
+ * the report has been cancelled so the scan stops mid-way.
+ */
+public class ReportTask {
+    /** Progress is published to the listener once every this many items. */
+    static final int PROGRESS_INTERVAL = 50;
+
+    private final String reportName;
+    private final ReportExecutionService.Listener listener;
+    private final ReportExecutionService service;
+    private final AtomicLong itemsProcessed = new AtomicLong();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile String stage = "Queued";
+    private volatile Future<?> future;
+
+    ReportTask(String reportName, ReportExecutionService.Listener listener, ReportExecutionService service) {
+        this.reportName = reportName;
+        this.listener = listener;
+        this.service = service;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public String getReportName() { return reportName; }
+    public long getItemsProcessed() { return itemsProcessed.get(); }
+    public String getStage() { return stage; }
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * Requests cancellation. The job stops at its next progress checkpoint and the
+     * listener receives {@code onCancelled()} instead of a result.
+     */
+    public void cancel() {
+        cancelled = true;
+        Future<?> running = future;
+        if (running != null && running.cancel(true)) {
+            // Report back right away; whatever the worker produces afterwards is discarded
+            finish(listener::onCancelled);
+        }
+    }
+
+    /**
+     * Delivers the task's outcome unless one has already been delivered.
+     */
+    void finish(Runnable outcome) {
+        if (finished.compareAndSet(false, true)) {
+            service.deliver(outcome);
+        }
+    }
+
+    /**
+     * Throws if the report has been cancelled or its thread interrupted.
+     */
+    public void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            cancelled = true;
+            throw new CancellationException("Report '" + reportName + "' was cancelled");
+        }
+    }
+
+    /**
+     * Records one processed item and publishes progress every {@value #PROGRESS_INTERVAL} items.
+     * Safe to call from several threads.
+     */
+    public void itemProcessed() {
+        checkCancelled();
+        long count = itemsProcessed.incrementAndGet();
+        if (count % PROGRESS_INTERVAL == 0) {
+            publishProgress();
+        }
+    }
+
+    /**
+     * Publishes a new stage description, e.g. "Loading bills...".
+     */
+    public void setStage(String stage) {
+        checkCancelled();
+        this.stage = stage;
+        publishProgress();
+    }
+
+    private void publishProgress() {
+        long count = itemsProcessed.get();
+        String message = stage;
+        service.deliver(() -> {
+            if (!cancelled && !finished.get()) {
+                listener.onProgress(count, message);
+            }
+        });
+    }
+}
@@ -15,4 +15,28 @@ public interface ReportVisitor {
 
     // Method to retrieve the final generated report
     String getReport();
-}
\ No newline at end of file
+
+    /**
+     * Creates an empty visitor of the same kind that a worker thread can fill with
+     * one partition of the data. The partial is later folded back in with {@link #merge}.
+     * <p>
+     * Partitions are always whole patient groups (a patient followed by that patient's
+     * appointments and bills), so per-patient state never spans two partials.
+     *
+     * @return A fresh partial visitor, or null if this report must be visited sequentially.
+     */
+    default ReportVisitor createPartial() {
+        return null;
+    }
+
+    /**
+     * Folds a partial produced by {@link #createPartial()} into this visitor.
+     * Partials are merged in data order, so order-sensitive state (lists, report text)
+     * ends up the same as a sequential walk.
+     *
+     * @param partial A visitor previously returned by this visitor's createPartial().
+     */
+    default void merge(ReportVisitor partial) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support parallel merging");
+    }
+}
@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -9,26 +10,31 @@ import java.util.*;
 
 /**
  * Revenue Analysis Visitor - Fixed to match actual database schema
- * Provides detailed revenue insights, trends, and performance analysis
+ * Provides detailed revenue insights, trends, and performance analysis.
+ * Can be built from individual bills or from the daily revenue rollup.
  */
-public class RevenueAnalysisVisitor implements ReportVisitor {
+public class RevenueAnalysisVisitor implements RevenueRollupVisitor {
     private final StringBuilder reportContent = new StringBuilder();
-    private final Map<String, Double> serviceRevenue = new HashMap<>();
+    private final Map<String, Long> serviceRevenueCents = new HashMap<>();
     private final Map<String, Integer> serviceVolume = new HashMap<>();
     private final Map<String, RevenueMetrics> serviceMetrics = new HashMap<>();
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private double totalBilled = 0;
-    private double totalCollected = 0;
-    private double totalPatientRevenue = 0;
-    private double totalInsuranceRevenue = 0;
-    private double totalOutstanding = 0;
-    private double highestBill = 0;
-    private double lowestBill = Double.MAX_VALUE;
+    private long totalBilledCents = 0;
+    private long totalCollectedCents = 0;
+    private long totalPatientRevenueCents = 0;
+    private long totalInsuranceRevenueCents = 0;
+    private long totalOutstandingCents = 0;
+    private long highestBillCents = 0;
+    private long lowestBillCents = Long.MAX_VALUE;
     private int totalBills = 0;
 
     @Override
     public void visit(PatientRecord patient) {
+        appendHeader();
+    }
+
+    private void appendHeader() {
         if (reportContent.length() == 0) {
             reportContent.append(repeatString("=", 90)).append("\n");
             reportContent.append("    COMPREHENSIVE REVENUE ANALYSIS REPORT\n");
@@ -47,26 +53,25 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         totalBills++;
-        double billedAmount = bill.getAmount();
-        double collectedAmount = bill.getTotalCollected();
+        long billedCents = bill.getAmountCents();
 
-        totalBilled += billedAmount;
-        totalCollected += collectedAmount;
-        totalPatientRevenue += bill.getAmountPaid();
-        totalInsuranceRevenue += bill.getInsurancePaidAmount();
-        totalOutstanding += bill.getRemainingBalance();
+        totalBilledCents += billedCents;
+        totalCollectedCents += bill.getTotalCollectedCents();
+        totalPatientRevenueCents += bill.getAmountPaidCents();
+        totalInsuranceRevenueCents += bill.getInsurancePaidCents();
+        totalOutstandingCents += bill.getRemainingBalanceCents();
 
         // Track highest and lowest bills
-        if (billedAmount > highestBill) {
-            highestBill = billedAmount;
+        if (billedCents > highestBillCents) {
+            highestBillCents = billedCents;
         }
-        if (billedAmount < lowestBill && billedAmount > 0) {
-            lowestBill = billedAmount;
+        if (billedCents < lowestBillCents && billedCents > 0) {
+            lowestBillCents = billedCents;
         }
 
         // Track service revenue and metrics
         String service = bill.getServiceDescription();
-        serviceRevenue.put(service, serviceRevenue.getOrDefault(service, 0.0) + collectedAmount);
+        serviceRevenueCents.merge(service, bill.getTotalCollectedCents(), Long::sum);
         serviceVolume.put(service, serviceVolume.getOrDefault(service, 0) + 1);
 
         // Update service metrics
@@ -75,6 +80,53 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         serviceMetrics.put(service, metrics);
     }
 
+    @Override
+    public void visit(DailyRevenue cell) {
+        appendHeader();
+        totalBills += cell.getBillCount();
+        totalBilledCents += cell.getBilledCents();
+        totalCollectedCents += cell.getTotalCollectedCents();
+        totalPatientRevenueCents += cell.getPatientPaidCents();
+        totalInsuranceRevenueCents += cell.getInsurancePaidCents();
+        totalOutstandingCents += cell.getOutstandingCents();
+
+        if (cell.getBillCount() > 0) {
+            highestBillCents = Math.max(highestBillCents, cell.getMaxCents());
+        }
+        if (cell.getMinPositiveCents() > 0 && cell.getMinPositiveCents() < lowestBillCents) {
+            lowestBillCents = cell.getMinPositiveCents();
+        }
+
+        String service = cell.getServiceDescription();
+        serviceRevenueCents.merge(service, cell.getTotalCollectedCents(), Long::sum);
+        serviceVolume.merge(service, cell.getBillCount(), Integer::sum);
+        serviceMetrics.computeIfAbsent(service, RevenueMetrics::new).addCell(cell);
+    }
+
+    @Override
+    public ReportVisitor createPartial() {
+        return new RevenueAnalysisVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        RevenueAnalysisVisitor other = (RevenueAnalysisVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        totalBills += other.totalBills;
+        totalBilledCents += other.totalBilledCents;
+        totalCollectedCents += other.totalCollectedCents;
+        totalPatientRevenueCents += other.totalPatientRevenueCents;
+        totalInsuranceRevenueCents += other.totalInsuranceRevenueCents;
+        totalOutstandingCents += other.totalOutstandingCents;
+        highestBillCents = Math.max(highestBillCents, other.highestBillCents);
+        lowestBillCents = Math.min(lowestBillCents, other.lowestBillCents);
+        other.serviceRevenueCents.forEach((service, cents) -> serviceRevenueCents.merge(service, cents, Long::sum));
+        other.serviceVolume.forEach((service, volume) -> serviceVolume.merge(service, volume, Integer::sum));
+        other.serviceMetrics.forEach((service, metrics) -> serviceMetrics.merge(service, metrics, RevenueMetrics::merge));
+    }
+
     @Override
     public String getReport() {
         generateRevenueOverview();
@@ -92,23 +144,23 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         reportContent.append("💰 REVENUE OVERVIEW\n");
         reportContent.append(repeatString("-", 60)).append("\n");
         reportContent.append(String.format("Total Bills Analyzed: %d\n", totalBills));
-        reportContent.append(String.format("Total Billed Amount: $%,.2f\n", totalBilled));
-        reportContent.append(String.format("Total Collected Revenue: $%,.2f\n", totalCollected));
-        reportContent.append(String.format("Total Outstanding: $%,.2f\n", totalOutstanding));
+        reportContent.append(String.format("Total Billed Amount: $%,.2f\n", Money.toDouble(totalBilledCents)));
+        reportContent.append(String.format("Total Collected Revenue: $%,.2f\n", Money.toDouble(totalCollectedCents)));
+        reportContent.append(String.format("Total Outstanding: $%,.2f\n", Money.toDouble(totalOutstandingCents)));
 
-        double revenueRealizationRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+        double revenueRealizationRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
         reportContent.append(String.format("Revenue Realization Rate: %.1f%%\n", revenueRealizationRate));
 
-        reportContent.append(String.format("Highest Single Bill: $%,.2f\n", highestBill));
+        reportContent.append(String.format("Highest Single Bill: $%,.2f\n", Money.toDouble(highestBillCents)));
         reportContent.append(String.format("Lowest Single Bill: $%,.2f\n",
-                lowestBill == Double.MAX_VALUE ? 0 : lowestBill));
+                lowestBillCents == Long.MAX_VALUE ? 0 : Money.toDouble(lowestBillCents)));
 
-        double avgBillAmount = totalBills > 0 ? totalBilled / totalBills : 0;
-        double avgRevenuePerBill = totalBills > 0 ? totalCollected / totalBills : 0;
+        double avgBillAmount = totalBills > 0 ? Money.toDouble(totalBilledCents) / totalBills : 0;
+        double avgRevenuePerBill = totalBills > 0 ? Money.toDouble(totalCollectedCents) / totalBills : 0;
 
         reportContent.append(String.format("Average Bill Amount: $%,.2f\n", avgBillAmount));
         reportContent.append(String.format("Average Revenue per Bill: $%,.2f\n", avgRevenuePerBill));
-        reportContent.append(String.format("Number of Services: %d\n", serviceRevenue.size()));
+        reportContent.append(String.format("Number of Services: %d\n", serviceRevenueCents.size()));
         reportContent.append("\n");
     }
 
@@ -117,19 +169,19 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         reportContent.append(repeatString("-", 70)).append("\n");
 
         // Revenue source breakdown
-        if (totalCollected > 0) {
-            double patientRevenuePercentage = (totalPatientRevenue / totalCollected) * 100;
-            double insuranceRevenuePercentage = (totalInsuranceRevenue / totalCollected) * 100;
+        if (totalCollectedCents > 0) {
+            double patientRevenuePercentage = ((double) totalPatientRevenueCents / totalCollectedCents) * 100;
+            double insuranceRevenuePercentage = ((double) totalInsuranceRevenueCents / totalCollectedCents) * 100;
 
             reportContent.append(String.format("Patient Direct Revenue: $%,.2f (%.1f%%)\n",
-                    totalPatientRevenue, patientRevenuePercentage));
+                    Money.toDouble(totalPatientRevenueCents), patientRevenuePercentage));
             reportContent.append(String.format("Insurance Revenue: $%,.2f (%.1f%%)\n",
-                    totalInsuranceRevenue, insuranceRevenuePercentage));
+                    Money.toDouble(totalInsuranceRevenueCents), insuranceRevenuePercentage));
         }
 
         // Collection efficiency
-        double collectionEfficiency = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
-        double outstandingRate = totalBilled > 0 ? (totalOutstanding / totalBilled) * 100 : 0;
+        double collectionEfficiency = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
+        double outstandingRate = totalBilledCents > 0 ? ((double) totalOutstandingCents / totalBilledCents) * 100 : 0;
 
         reportContent.append(String.format("Collection Efficiency: %.1f%%\n", collectionEfficiency));
         reportContent.append(String.format("Outstanding Rate: %.1f%%\n", outstandingRate));
@@ -146,9 +198,9 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         }
 
         // Revenue mix analysis
-        if (totalInsuranceRevenue > totalPatientRevenue * 2) {
+        if (totalInsuranceRevenueCents > totalPatientRevenueCents * 2) {
             reportContent.append("Revenue Mix: Insurance-dependent model\n");
-        } else if (totalPatientRevenue > totalInsuranceRevenue * 2) {
+        } else if (totalPatientRevenueCents > totalInsuranceRevenueCents * 2) {
             reportContent.append("Revenue Mix: Patient-pay model\n");
         } else {
             reportContent.append("Revenue Mix: Balanced insurance/patient model\n");
@@ -168,7 +220,7 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
 
         for (int i = 0; i < sortedServices.size(); i++) {
             RevenueMetrics metrics = sortedServices.get(i);
-            double percentage = totalCollected > 0 ? (metrics.getTotalRevenue() / totalCollected) * 100 : 0;
+            double percentage = totalCollectedCents > 0 ? (metrics.getTotalRevenue() / Money.toDouble(totalCollectedCents)) * 100 : 0;
 
             reportContent.append(String.format("%-30s | %-6d | $%-11.2f | $%-11.2f | %10.1f%% | $%-11.2f | %6.1f%% | %-6d\n",
                     truncateString(metrics.getServiceName(), 30),
@@ -187,28 +239,28 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         reportContent.append("📈 KEY REVENUE METRICS\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        double averageServiceRevenue = serviceRevenue.size() > 0 ? totalCollected / serviceRevenue.size() : 0;
+        double averageServiceRevenue = serviceRevenueCents.size() > 0 ? Money.toDouble(totalCollectedCents) / serviceRevenueCents.size() : 0;
 
         // Revenue concentration analysis (Pareto analysis)
-        List<Double> sortedRevenues = serviceRevenue.values().stream()
+        List<Long> sortedRevenues = serviceRevenueCents.values().stream()
                 .sorted(Collections.reverseOrder())
                 .toList();
 
         int top20PercentCount = Math.max(1, (int) Math.ceil(sortedRevenues.size() * 0.2));
-        double top20PercentRevenue = sortedRevenues.stream()
+        long top20PercentRevenueCents = sortedRevenues.stream()
                 .limit(top20PercentCount)
-                .mapToDouble(Double::doubleValue)
+                .mapToLong(Long::longValue)
                 .sum();
 
-        double revenueConcentration = totalCollected > 0 ? (top20PercentRevenue / totalCollected) * 100 : 0;
+        double revenueConcentration = totalCollectedCents > 0 ? top20PercentRevenueCents * 100.0 / totalCollectedCents : 0;
 
         reportContent.append(String.format("Average Revenue per Service: $%,.2f\n", averageServiceRevenue));
         reportContent.append(String.format("Revenue Concentration (80/20 Rule): %.1f%%\n", revenueConcentration));
-        reportContent.append(String.format("Service Diversity Index: %d services\n", serviceRevenue.size()));
+        reportContent.append(String.format("Service Diversity Index: %d services\n", serviceRevenueCents.size()));
 
         // Find top performing services
-        List<String> topServices = serviceRevenue.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+        List<String> topServices = serviceRevenueCents.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .limit(3)
                 .map(Map.Entry::getKey)
                 .toList();
@@ -216,15 +268,15 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         reportContent.append("\n🎯 TOP REVENUE GENERATORS:\n");
         for (int i = 0; i < topServices.size(); i++) {
             String service = topServices.get(i);
-            double revenue = serviceRevenue.get(service);
-            double percentage = totalCollected > 0 ? (revenue / totalCollected) * 100 : 0;
+            long revenueCents = serviceRevenueCents.get(service);
+            double percentage = totalCollectedCents > 0 ? revenueCents * 100.0 / totalCollectedCents : 0;
             reportContent.append(String.format("%d. %s: $%,.2f (%.1f%%)\n",
-                    i + 1, service, revenue, percentage));
+                    i + 1, service, Money.toDouble(revenueCents), percentage));
         }
 
         // Revenue efficiency metrics
-        double revenuePerService = serviceRevenue.size() > 0 ? totalCollected / serviceRevenue.size() : 0;
-        double revenuePerBill = totalBills > 0 ? totalCollected / totalBills : 0;
+        double revenuePerService = serviceRevenueCents.size() > 0 ? Money.toDouble(totalCollectedCents) / serviceRevenueCents.size() : 0;
+        double revenuePerBill = totalBills > 0 ? Money.toDouble(totalCollectedCents) / totalBills : 0;
 
         reportContent.append(String.format("\nRevenue Efficiency per Service Type: $%.2f\n", revenuePerService));
         reportContent.append(String.format("Revenue Efficiency per Bill: $%.2f\n", revenuePerBill));
@@ -237,32 +289,26 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
 
         // Bill amount distribution
         int smallBills = 0, mediumBills = 0, largeBills = 0;
-        double smallTotal = 0, mediumTotal = 0, largeTotal = 0;
+        long smallCents = 0, mediumCents = 0, largeCents = 0;
 
         for (RevenueMetrics metrics : serviceMetrics.values()) {
-            for (double amount : metrics.getBillAmounts()) {
-                if (amount <= 100) {
-                    smallBills++;
-                    smallTotal += amount;
-                } else if (amount <= 500) {
-                    mediumBills++;
-                    mediumTotal += amount;
-                } else {
-                    largeBills++;
-                    largeTotal += amount;
-                }
-            }
+            smallBills += metrics.getSizeBandCount(0);
+            smallCents += metrics.getSizeBandBilledCents(0);
+            mediumBills += metrics.getSizeBandCount(1);
+            mediumCents += metrics.getSizeBandBilledCents(1);
+            largeBills += metrics.getSizeBandCount(2);
+            largeCents += metrics.getSizeBandBilledCents(2);
         }
 
         reportContent.append("Bill Size Distribution:\n");
-        reportContent.append(String.format("Small Bills (≤$100): %d bills, $%.2f total\n", smallBills, smallTotal));
-        reportContent.append(String.format("Medium Bills ($101-$500): %d bills, $%.2f total\n", mediumBills, mediumTotal));
-        reportContent.append(String.format("Large Bills (>$500): %d bills, $%.2f total\n", largeBills, largeTotal));
+        reportContent.append(String.format("Small Bills (≤$100): %d bills, $%.2f total\n", smallBills, Money.toDouble(smallCents)));
+        reportContent.append(String.format("Medium Bills ($101-$500): %d bills, $%.2f total\n", mediumBills, Money.toDouble(mediumCents)));
+        reportContent.append(String.format("Large Bills (>$500): %d bills, $%.2f total\n", largeBills, Money.toDouble(largeCents)));
 
         // Revenue quartile analysis
-        double q1Revenue = totalCollected * 0.25;
-        double q2Revenue = totalCollected * 0.5;
-        double q3Revenue = totalCollected * 0.75;
+        double q1Revenue = Money.toDouble(totalCollectedCents) * 0.25;
+        double q2Revenue = Money.toDouble(totalCollectedCents) * 0.5;
+        double q3Revenue = Money.toDouble(totalCollectedCents) * 0.75;
 
         reportContent.append(String.format("\nRevenue Quartiles:\n"));
         reportContent.append(String.format("Q1 (25%%): $%.2f\n", q1Revenue));
@@ -312,7 +358,7 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         reportContent.append("💡 STRATEGIC REVENUE RECOMMENDATIONS\n");
         reportContent.append(repeatString("-", 60)).append("\n");
 
-        double collectionRate = totalBilled > 0 ? (totalCollected / totalBilled) * 100 : 0;
+        double collectionRate = totalBilledCents > 0 ? ((double) totalCollectedCents / totalBilledCents) * 100 : 0;
 
         // Collection improvement recommendations
         if (collectionRate < 85) {
@@ -327,8 +373,8 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
         }
 
         // Service portfolio recommendations
-        List<String> topServices = serviceRevenue.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+        List<String> topServices = serviceRevenueCents.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .limit(3)
                 .map(Map.Entry::getKey)
                 .toList();
@@ -339,7 +385,7 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
                 reportContent.append(String.format("    - %s\n", service)));
 
         // Revenue diversification
-        if (serviceRevenue.size() < 5) {
+        if (serviceRevenueCents.size() < 5) {
             reportContent.append("  • Consider expanding service offerings\n");
         }
 
@@ -368,17 +414,17 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
     }
 
     private double calculateRevenueConcentration() {
-        List<Double> sortedRevenues = serviceRevenue.values().stream()
+        List<Long> sortedRevenues = serviceRevenueCents.values().stream()
                 .sorted(Collections.reverseOrder())
                 .toList();
 
         int top20PercentCount = Math.max(1, (int) Math.ceil(sortedRevenues.size() * 0.2));
-        double top20PercentRevenue = sortedRevenues.stream()
+        long top20PercentRevenueCents = sortedRevenues.stream()
                 .limit(top20PercentCount)
-                .mapToDouble(Double::doubleValue)
+                .mapToLong(Long::longValue)
                 .sum();
 
-        return totalCollected > 0 ? (top20PercentRevenue / totalCollected) * 100 : 0;
+        return totalCollectedCents > 0 ? top20PercentRevenueCents * 100.0 / totalCollectedCents : 0;
     }
 
     private String repeatString(String str, int count) {
@@ -393,11 +439,13 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
     // RevenueMetrics helper class
     private static class RevenueMetrics {
         private final String serviceName;
-        private double totalBilled = 0;
-        private double totalRevenue = 0;
-        private double totalOutstanding = 0;
+        private long totalBilledCents = 0;
+        private long totalRevenueCents = 0;
+        private long totalOutstandingCents = 0;
         private int volume = 0;
-        private final List<Double> billAmounts = new ArrayList<>();
+        // Bills and billed amount per DailyRevenue size band: small, medium, large
+        private final int[] sizeBandCounts = new int[3];
+        private final long[] sizeBandBilledCents = new long[3];
 
         public RevenueMetrics(String serviceName) {
             this.serviceName = serviceName;
@@ -405,25 +453,51 @@ public class RevenueAnalysisVisitor implements ReportVisitor {
 
         public void addBill(MedicalBill bill) {
             volume++;
-            totalBilled += bill.getAmount();
-            totalRevenue += bill.getTotalCollected();
-            totalOutstanding += bill.getRemainingBalance();
-            billAmounts.add(bill.getAmount());
+            totalBilledCents += bill.getAmountCents();
+            totalRevenueCents += bill.getTotalCollectedCents();
+            totalOutstandingCents += bill.getRemainingBalanceCents();
+            int band = DailyRevenue.sizeBand(bill.getAmountCents());
+            sizeBandCounts[band]++;
+            sizeBandBilledCents[band] += bill.getAmountCents();
+        }
+
+        public void addCell(DailyRevenue cell) {
+            volume += cell.getBillCount();
+            totalBilledCents += cell.getBilledCents();
+            totalRevenueCents += cell.getTotalCollectedCents();
+            totalOutstandingCents += cell.getOutstandingCents();
+            for (int band = 0; band < sizeBandCounts.length; band++) {
+                sizeBandCounts[band] += cell.getSizeBandCount(band);
+                sizeBandBilledCents[band] += cell.getSizeBandBilledCents(band);
+            }
+        }
+
+        public RevenueMetrics merge(RevenueMetrics other) {
+            volume += other.volume;
+            totalBilledCents += other.totalBilledCents;
+            totalRevenueCents += other.totalRevenueCents;
+            totalOutstandingCents += other.totalOutstandingCents;
+            for (int band = 0; band < sizeBandCounts.length; band++) {
+                sizeBandCounts[band] += other.sizeBandCounts[band];
+                sizeBandBilledCents[band] += other.sizeBandBilledCents[band];
+            }
+            return this;
         }
 
         public String getServiceName() { return serviceName; }
-        public double getTotalBilled() { return totalBilled; }
-        public double getTotalRevenue() { return totalRevenue; }
-        public double getTotalOutstanding() { return totalOutstanding; }
+        public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+        public double getTotalRevenue() { return Money.toDouble(totalRevenueCents); }
+        public double getTotalOutstanding() { return Money.toDouble(totalOutstandingCents); }
         public int getVolume() { return volume; }
-        public List<Double> getBillAmounts() { return billAmounts; }
+        public int getSizeBandCount(int band) { return sizeBandCounts[band]; }
+        public long getSizeBandBilledCents(int band) { return sizeBandBilledCents[band]; }
 
         public double getAverageRevenue() {
-            return volume > 0 ? totalRevenue / volume : 0;
+            return volume > 0 ? getTotalRevenue() / volume : 0;
         }
 
         public double getCollectionRate() {
-            return totalBilled > 0 ? (totalRevenue / totalBilled) * 100 : 0;
+            return getTotalBilled() > 0 ? (getTotalRevenue() / getTotalBilled()) * 100 : 0;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.globemed.reports;
+
+/**
+ * A report that only needs day, service and status totals of bills, so it can be built
+ * from the pre-aggregated revenue_daily rollup instead of the billing ledger.
+ * <p>
+ * A visitor is fed either bills or rollup cells for one report, never both. Each cell
+ * must have the same effect on the report as visiting the bills it summarizes.
+ */
+public interface RevenueRollupVisitor extends ReportVisitor {
+    void visit(DailyRevenue cell);
+}
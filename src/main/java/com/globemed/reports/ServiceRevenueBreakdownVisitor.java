@@ -2,6 +2,7 @@ package com.globemed.reports;
 
 import com.globemed.appointment.Appointment;
 import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
 import com.globemed.patient.PatientRecord;
 
 import java.time.LocalDate;
@@ -10,20 +11,25 @@ import java.util.*;
 
 /**
  * Service Revenue Breakdown Visitor - Fixed to match actual database schema
- * Provides detailed analysis of revenue by service type with comprehensive metrics
+ * Provides detailed analysis of revenue by service type with comprehensive metrics.
+ * Can be built from individual bills or from the daily revenue rollup.
  */
-public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
+public class ServiceRevenueBreakdownVisitor implements RevenueRollupVisitor {
     private final StringBuilder reportContent = new StringBuilder();
     private final Map<String, ServiceData> serviceDetails = new HashMap<>();
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private double totalSystemBilled = 0;
-    private double totalSystemRevenue = 0;
-    private double totalSystemOutstanding = 0;
+    private long totalSystemBilledCents = 0;
+    private long totalSystemRevenueCents = 0;
+    private long totalSystemOutstandingCents = 0;
     private int totalBills = 0;
 
     @Override
     public void visit(PatientRecord patient) {
+        appendHeader();
+    }
+
+    private void appendHeader() {
         if (reportContent.length() == 0) {
             reportContent.append(repeatString("=", 100)).append("\n");
             reportContent.append("    COMPREHENSIVE SERVICE REVENUE BREAKDOWN REPORT\n");
@@ -42,9 +48,9 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
     @Override
     public void visit(MedicalBill bill) {
         totalBills++;
-        totalSystemBilled += bill.getAmount();
-        totalSystemRevenue += bill.getTotalCollected();
-        totalSystemOutstanding += bill.getRemainingBalance();
+        totalSystemBilledCents += bill.getAmountCents();
+        totalSystemRevenueCents += bill.getTotalCollectedCents();
+        totalSystemOutstandingCents += bill.getRemainingBalanceCents();
 
         String serviceName = bill.getServiceDescription();
         ServiceData data = serviceDetails.getOrDefault(serviceName, new ServiceData(serviceName));
@@ -52,6 +58,35 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
         serviceDetails.put(serviceName, data);
     }
 
+    @Override
+    public void visit(DailyRevenue cell) {
+        appendHeader();
+        totalBills += cell.getBillCount();
+        totalSystemBilledCents += cell.getBilledCents();
+        totalSystemRevenueCents += cell.getTotalCollectedCents();
+        totalSystemOutstandingCents += cell.getOutstandingCents();
+
+        serviceDetails.computeIfAbsent(cell.getServiceDescription(), ServiceData::new).addCell(cell);
+    }
+
+    @Override
+    public ReportVisitor createPartial() {
+        return new ServiceRevenueBreakdownVisitor();
+    }
+
+    @Override
+    public void merge(ReportVisitor partial) {
+        ServiceRevenueBreakdownVisitor other = (ServiceRevenueBreakdownVisitor) partial;
+        if (reportContent.length() == 0) {
+            reportContent.append(other.reportContent);
+        }
+        totalBills += other.totalBills;
+        totalSystemBilledCents += other.totalSystemBilledCents;
+        totalSystemRevenueCents += other.totalSystemRevenueCents;
+        totalSystemOutstandingCents += other.totalSystemOutstandingCents;
+        other.serviceDetails.forEach((service, data) -> serviceDetails.merge(service, data, ServiceData::merge));
+    }
+
     @Override
     public String getReport() {
         generateSystemOverview();
@@ -68,12 +103,12 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
         reportContent.append(repeatString("-", 60)).append("\n");
         reportContent.append(String.format("Total Services Offered: %d\n", serviceDetails.size()));
         reportContent.append(String.format("Total Bills Generated: %d\n", totalBills));
-        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", totalSystemBilled));
-        reportContent.append(String.format("Total Revenue Collected: $%,.2f\n", totalSystemRevenue));
-        reportContent.append(String.format("Total Outstanding: $%,.2f\n", totalSystemOutstanding));
+        reportContent.append(String.format("Total Amount Billed: $%,.2f\n", Money.toDouble(totalSystemBilledCents)));
+        reportContent.append(String.format("Total Revenue Collected: $%,.2f\n", Money.toDouble(totalSystemRevenueCents)));
+        reportContent.append(String.format("Total Outstanding: $%,.2f\n", Money.toDouble(totalSystemOutstandingCents)));
 
-        double systemCollectionRate = totalSystemBilled > 0 ? (totalSystemRevenue / totalSystemBilled) * 100 : 0;
-        double avgRevenuePerService = serviceDetails.size() > 0 ? totalSystemRevenue / serviceDetails.size() : 0;
+        double systemCollectionRate = totalSystemBilledCents > 0 ? ((double) totalSystemRevenueCents / totalSystemBilledCents) * 100 : 0;
+        double avgRevenuePerService = serviceDetails.size() > 0 ? Money.toDouble(totalSystemRevenueCents) / serviceDetails.size() : 0;
         double avgBillsPerService = serviceDetails.size() > 0 ? (double) totalBills / serviceDetails.size() : 0;
 
         reportContent.append(String.format("System Collection Rate: %.1f%%\n", systemCollectionRate));
@@ -101,7 +136,7 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
         serviceDetails.values().stream()
                 .sorted((s1, s2) -> Double.compare(s2.getTotalRevenue(), s1.getTotalRevenue()))
                 .forEach(service -> {
-                    double percentage = totalSystemRevenue > 0 ? (service.getTotalRevenue() / totalSystemRevenue) * 100 : 0;
+                    double percentage = totalSystemRevenueCents > 0 ? (service.getTotalRevenue() / Money.toDouble(totalSystemRevenueCents)) * 100 : 0;
                     reportContent.append(String.format("%-35s | %-6d | $%-11.2f | $%-11.2f | $%-11.2f | $%-11.2f | $%-7.2f | $%-7.2f | %6.1f%%\n",
                             truncateString(service.getServiceName(), 35),
                             service.getBillCount(),
@@ -128,7 +163,7 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
                 .sorted((s1, s2) -> Double.compare(s2.getTotalRevenue(), s1.getTotalRevenue()))
                 .limit(5)
                 .forEach(service -> {
-                    double percentage = totalSystemRevenue > 0 ? (service.getTotalRevenue() / totalSystemRevenue) * 100 : 0;
+                    double percentage = totalSystemRevenueCents > 0 ? (service.getTotalRevenue() / Money.toDouble(totalSystemRevenueCents)) * 100 : 0;
                     reportContent.append(String.format("  %s: $%,.2f (%.1f%% of total)\n",
                             service.getServiceName(), service.getTotalRevenue(), percentage));
                 });
@@ -221,7 +256,7 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
                 .mapToDouble(ServiceData::getTotalRevenue)
                 .sum();
 
-        double revenueConcentration = totalSystemRevenue > 0 ? (top20Revenue / totalSystemRevenue) * 100 : 0;
+        double revenueConcentration = totalSystemRevenueCents > 0 ? (top20Revenue / Money.toDouble(totalSystemRevenueCents)) * 100 : 0;
         reportContent.append(String.format("Revenue Concentration (Top 20%%): %.1f%%\n", revenueConcentration));
         reportContent.append("\n");
     }
@@ -348,8 +383,8 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
                 .toList();
 
         if (!sortedByRevenue.isEmpty()) {
-            double topServicePercentage = totalSystemRevenue > 0 ?
-                    (sortedByRevenue.get(0).getTotalRevenue() / totalSystemRevenue) * 100 : 0;
+            double topServicePercentage = totalSystemRevenueCents > 0 ?
+                    (sortedByRevenue.get(0).getTotalRevenue() / Money.toDouble(totalSystemRevenueCents)) * 100 : 0;
 
             if (topServicePercentage > 40) {
                 reportContent.append("  • High revenue concentration risk - diversify service mix\n");
@@ -378,15 +413,14 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
     // Enhanced ServiceData class with comprehensive metrics
     private static class ServiceData {
         private final String serviceName;
-        private double totalBilled = 0;
-        private double totalRevenue = 0;
-        private double totalOutstanding = 0;
-        private double patientRevenue = 0;
-        private double insuranceRevenue = 0;
+        private long totalBilledCents = 0;
+        private long totalRevenueCents = 0;
+        private long totalOutstandingCents = 0;
+        private long patientRevenueCents = 0;
+        private long insuranceRevenueCents = 0;
         private int billCount = 0;
-        private double minAmount = Double.MAX_VALUE;
-        private double maxAmount = 0;
-        private final List<Double> amounts = new ArrayList<>();
+        private long minCents = Long.MAX_VALUE;
+        private long maxCents = 0;
 
         public ServiceData(String serviceName) {
             this.serviceName = serviceName;
@@ -394,38 +428,62 @@ public class ServiceRevenueBreakdownVisitor implements ReportVisitor {
 
         public void addBill(MedicalBill bill) {
             billCount++;
-            double billedAmount = bill.getAmount();
-            double collectedAmount = bill.getTotalCollected();
+            long billedCents = bill.getAmountCents();
 
-            totalBilled += billedAmount;
-            totalRevenue += collectedAmount;
-            totalOutstanding += bill.getRemainingBalance();
-            patientRevenue += bill.getAmountPaid();
-            insuranceRevenue += bill.getInsurancePaidAmount();
+            totalBilledCents += billedCents;
+            totalRevenueCents += bill.getTotalCollectedCents();
+            totalOutstandingCents += bill.getRemainingBalanceCents();
+            patientRevenueCents += bill.getAmountPaidCents();
+            insuranceRevenueCents += bill.getInsurancePaidCents();
 
-            amounts.add(billedAmount);
+            if (billedCents < minCents) minCents = billedCents;
+            if (billedCents > maxCents) maxCents = billedCents;
+        }
+
+        public void addCell(DailyRevenue cell) {
+            if (cell.getBillCount() == 0) {
+                return;
+            }
+            billCount += cell.getBillCount();
+            totalBilledCents += cell.getBilledCents();
+            totalRevenueCents += cell.getTotalCollectedCents();
+            totalOutstandingCents += cell.getOutstandingCents();
+            patientRevenueCents += cell.getPatientPaidCents();
+            insuranceRevenueCents += cell.getInsurancePaidCents();
+
+            minCents = Math.min(minCents, cell.getMinCents());
+            maxCents = Math.max(maxCents, cell.getMaxCents());
+        }
 
-            if (billedAmount < minAmount) minAmount = billedAmount;
-            if (billedAmount > maxAmount) maxAmount = billedAmount;
+        public ServiceData merge(ServiceData other) {
+            billCount += other.billCount;
+            totalBilledCents += other.totalBilledCents;
+            totalRevenueCents += other.totalRevenueCents;
+            totalOutstandingCents += other.totalOutstandingCents;
+            patientRevenueCents += other.patientRevenueCents;
+            insuranceRevenueCents += other.insuranceRevenueCents;
+            minCents = Math.min(minCents, other.minCents);
+            maxCents = Math.max(maxCents, other.maxCents);
+            return this;
         }
 
         // Getters
         public String getServiceName() { return serviceName; }
-        public double getTotalBilled() { return totalBilled; }
-        public double getTotalRevenue() { return totalRevenue; }
-        public double getTotalOutstanding() { return totalOutstanding; }
-        public double getPatientRevenue() { return patientRevenue; }
-        public double getInsuranceRevenue() { return insuranceRevenue; }
+        public double getTotalBilled() { return Money.toDouble(totalBilledCents); }
+        public double getTotalRevenue() { return Money.toDouble(totalRevenueCents); }
+        public double getTotalOutstanding() { return Money.toDouble(totalOutstandingCents); }
+        public double getPatientRevenue() { return Money.toDouble(patientRevenueCents); }
+        public double getInsuranceRevenue() { return Money.toDouble(insuranceRevenueCents); }
         public int getBillCount() { return billCount; }
-        public double getMinAmount() { return minAmount == Double.MAX_VALUE ? 0 : minAmount; }
-        public double getMaxAmount() { return maxAmount; }
+        public double getMinAmount() { return minCents == Long.MAX_VALUE ? 0 : Money.toDouble(minCents); }
+        public double getMaxAmount() { return Money.toDouble(maxCents); }
 
         public double getAverageRevenue() {
-            return billCount > 0 ? totalRevenue / billCount : 0;
+            return billCount > 0 ? getTotalRevenue() / billCount : 0;
         }
 
         public double getCollectionRate() {
-            return totalBilled > 0 ? (totalRevenue / totalBilled) * 100 : 0;
+            return getTotalBilled() > 0 ? (getTotalRevenue() / getTotalBilled()) * 100 : 0;
         }
 
         public double getEfficiencyScore() {
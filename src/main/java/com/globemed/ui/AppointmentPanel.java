@@ -22,12 +22,14 @@ public class AppointmentPanel extends JPanel {
     public final JSpinner dateSpinner; // Initialized in constructor
     public final JButton viewScheduleButton = new JButton("View Selected Day Appointments");
     public final JButton viewAllAppointmentsButton = new JButton("View All Appointments");
+    public final JButton findFreeSlotsButton = new JButton("Find Free Slots");
     public final JTable appointmentsTable = new JTable();
     public final DefaultTableModel appointmentsTableModel = new DefaultTableModel();
     public final JTextField patientIdField = new JTextField(10);
     public final JSpinner timeSpinner; // Initialized in constructor
     public final JTextField reasonField = new JTextField(20);
     public final JButton bookAppointmentButton = new JButton("Book Appointment");
+    public final JButton bookRecurringButton = new JButton("Book Recurring...");
     public final JButton updateAppointmentButton = new JButton("Update Appointment Reason");
     public final JButton cancelAppointmentButton = new JButton("Cancel Appointment");
     public final JButton markAsDoneSelectedButton = new JButton("Mark as Done");
@@ -129,6 +131,7 @@ public class AppointmentPanel extends JPanel {
         dateSelectionSubPanel.add(viewScheduleButton);
         dateAndActionPanel.add(dateSelectionSubPanel);
         dateAndActionPanel.add(viewAllAppointmentsButton);
+        dateAndActionPanel.add(findFreeSlotsButton);
         centerPanel.add(dateAndActionPanel, BorderLayout.NORTH);
 
         // --- Schedule Display Panel with action buttons ---
@@ -190,7 +193,10 @@ public class AppointmentPanel extends JPanel {
         gbc.gridx = 1; gbc.gridy = 1; bookingPanel.add(timeSpinner, gbc);
         gbc.gridx = 2; gbc.gridy = 0; bookingPanel.add(new JLabel("Reason:"), gbc);
         gbc.gridx = 3; gbc.gridy = 0; gbc.gridwidth = 2; bookingPanel.add(reasonField, gbc);
-        gbc.gridx = 3; gbc.gridy = 1; gbc.gridwidth = 2; bookingPanel.add(bookAppointmentButton, gbc);
+        JPanel bookingButtonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        bookingButtonsPanel.add(bookAppointmentButton);
+        bookingButtonsPanel.add(bookRecurringButton);
+        gbc.gridx = 3; gbc.gridy = 1; gbc.gridwidth = 2; bookingPanel.add(bookingButtonsPanel, gbc);
 
         centerPanel.add(bookingPanel, BorderLayout.SOUTH);
 
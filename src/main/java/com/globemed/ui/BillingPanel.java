@@ -1,6 +1,7 @@
 package com.globemed.ui;
 
 import com.globemed.billing.MedicalBill; // Import MedicalBill
+import com.globemed.billing.PatientAccount;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableCellRenderer; // For custom renderer
@@ -21,12 +22,15 @@ public class BillingPanel extends JPanel {
     public final JButton printBillButton = new JButton("Print Selected Bill");
     public final JButton deleteBillButton = new JButton("Delete Selected Bill");
     public final JButton payNowButton = new JButton("Pay Now");
+    public final JLabel accountSummaryLabel = new JLabel(" ");
+    public final JButton rebuildSummariesButton = new JButton("Rebuild Billing Summaries");
 
     // --- Create New Bill Components ---
     public final JTextField createPatientIdField = new JTextField(15);
     public final JTextField serviceField = new JTextField(30);
     public final JTextField amountField = new JTextField(10);
     public final JButton processBillButton = new JButton("Process New Bill");
+    public final JButton importBillsButton = new JButton("Import Bills (CSV)...");
 
     public BillingPanel() {
         setLayout(new BorderLayout(10, 20));
@@ -42,6 +46,8 @@ public class BillingPanel extends JPanel {
         searchBarPanel.add(new JLabel("Search by Patient ID:"));
         searchBarPanel.add(searchPatientIdField);
         searchBarPanel.add(searchBillsButton);
+        searchBarPanel.add(Box.createHorizontalStrut(20));
+        searchBarPanel.add(accountSummaryLabel);
         topPanel.add(searchBarPanel, BorderLayout.NORTH);
 
         // Results table
@@ -72,6 +78,7 @@ public class BillingPanel extends JPanel {
         resultsActionPanel.add(viewLogButton);
         resultsActionPanel.add(printBillButton);
         resultsActionPanel.add(deleteBillButton);
+        resultsActionPanel.add(rebuildSummariesButton);
         topPanel.add(resultsActionPanel, BorderLayout.SOUTH);
 
         add(topPanel, BorderLayout.CENTER);
@@ -93,9 +100,12 @@ public class BillingPanel extends JPanel {
         gbc.gridx = 0; gbc.gridy = 1; createPanel.add(new JLabel("Service Description:"), gbc);
         gbc.gridx = 1; gbc.gridy = 1; gbc.gridwidth = 3; gbc.fill = GridBagConstraints.HORIZONTAL; createPanel.add(serviceField, gbc);
 
-        // Row 2 (Button)
+        // Row 2 (Buttons)
+        JPanel createButtonsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        createButtonsPanel.add(processBillButton);
+        createButtonsPanel.add(importBillsButton);
         gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 4; gbc.fill = GridBagConstraints.NONE; gbc.anchor = GridBagConstraints.CENTER;
-        createPanel.add(processBillButton, gbc);
+        createPanel.add(createButtonsPanel, gbc);
 
         add(createPanel, BorderLayout.SOUTH);
 
@@ -145,6 +155,21 @@ public class BillingPanel extends JPanel {
         billsTable.repaint(); // Ensure repaint after model change
     }
 
+    /**
+     * Shows the patient's account totals next to the search bar, or clears them when null.
+     */
+    public void setAccountSummary(PatientAccount account) {
+        if (account == null) {
+            accountSummaryLabel.setText(" ");
+            return;
+        }
+        String oldestOpen = account.getOldestOpenBillDateTime() != null
+                ? account.getOldestOpenBillDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) : "-";
+        accountSummaryLabel.setText(String.format("Billed: $%.2f | Insurance: $%.2f | Paid: $%.2f | Outstanding: $%.2f (%d open, oldest %s)",
+                account.getTotalBilled(), account.getInsurancePaid(), account.getPatientPaid(),
+                account.getOutstanding(), account.getOpenBillCount(), oldestOpen));
+    }
+
     // Helper method to get the selected MedicalBill from the table
     public MedicalBill getSelectedBillFromTable(List<MedicalBill> allBills) {
         int selectedRow = billsTable.getSelectedRow();
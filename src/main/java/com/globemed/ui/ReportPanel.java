@@ -35,10 +35,12 @@ public class ReportPanel extends JPanel {
     public final JButton exportPdfButton = new JButton("Export PDF");
     public final JButton exportExcelButton = new JButton("Export Excel");
     public final JButton refreshFiltersButton = new JButton("Refresh Filters");
+    public final JButton cancelReportButton = new JButton("Cancel");
 
     // --- Report Display ---
     public final JTextArea reportArea = new JTextArea(30, 100);
     public final JLabel reportStatusLabel = new JLabel("Ready to generate reports");
+    public final JProgressBar reportProgressBar = new JProgressBar();
 
     public ReportPanel() {
         setLayout(new BorderLayout(10, 10));
@@ -273,6 +275,9 @@ public class ReportPanel extends JPanel {
         JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         reportStatusLabel.setFont(reportStatusLabel.getFont().deriveFont(Font.ITALIC));
         statusPanel.add(reportStatusLabel);
+        reportProgressBar.setPreferredSize(new Dimension(160, 16));
+        reportProgressBar.setVisible(false);
+        statusPanel.add(reportProgressBar);
         panel.add(statusPanel, BorderLayout.WEST);
 
         // Right: Action Buttons
@@ -288,6 +293,7 @@ public class ReportPanel extends JPanel {
         generateReportButton.setFont(generateReportButton.getFont().deriveFont(Font.BOLD));
 
         buttonsPanel.add(generateReportButton);
+        buttonsPanel.add(cancelReportButton);
         buttonsPanel.add(Box.createHorizontalStrut(16));
         buttonsPanel.add(printReportButton);
         buttonsPanel.add(exportPdfButton);
@@ -305,6 +311,7 @@ public class ReportPanel extends JPanel {
         printReportButton.setEnabled(false);
         exportPdfButton.setEnabled(false);
         exportExcelButton.setEnabled(false);
+        cancelReportButton.setEnabled(false);
 
         // Set default selections
         reportCategoryComboBox.setSelectedItem("Financial Reports");
@@ -370,6 +377,35 @@ public class ReportPanel extends JPanel {
         reportStatusLabel.setText(status);
     }
 
+    /**
+     * Switches the panel between idle and "report running" states.
+     * While running, the progress bar is shown and only Cancel is enabled. Leaving the running
+     * state does not re-enable Generate: that depends on permissions and the selected patient,
+     * so the controller decides.
+     */
+    public void setReportRunning(boolean running) {
+        if (running) {
+            generateReportButton.setEnabled(false);
+        }
+        cancelReportButton.setEnabled(running);
+        reportProgressBar.setIndeterminate(running);
+        reportProgressBar.setStringPainted(running);
+        reportProgressBar.setString("");
+        reportProgressBar.setVisible(running);
+        if (running) {
+            enableExportButtons(false);
+        }
+    }
+
+    /**
+     * Shows report progress. The total is not known up front while streaming,
+     * so the bar stays indeterminate and shows a running count instead.
+     */
+    public void setReportProgress(long itemsProcessed, String stage) {
+        reportProgressBar.setString(itemsProcessed > 0 ? itemsProcessed + " patients" : "");
+        setReportStatus(stage);
+    }
+
     public void enableExportButtons(boolean enabled) {
         printReportButton.setEnabled(enabled);
         exportPdfButton.setEnabled(enabled);
@@ -0,0 +1,42 @@
+package com.globemed.utils;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared out by key hash.
+ * <p>
+ * Operations on the same key always get the same lock, so they are serialized, while
+ * operations on different keys usually get different locks and run in parallel. Memory
+ * stays constant no matter how many keys are seen, at the cost of occasional contention
+ * between unrelated keys that hash to the same stripe.
+ */
+public class StripedLocks {
+    private final Lock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripeCount The number of locks; rounded up to a power of two.
+     */
+    public StripedLocks(int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return The lock guarding the given key.
+     */
+    public Lock get(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16; // spread high bits so short string keys don't cluster
+        return stripes[hash & mask];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
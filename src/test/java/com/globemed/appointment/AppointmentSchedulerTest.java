@@ -0,0 +1,200 @@
+package com.globemed.appointment;
+
+import com.globemed.db.SchedulingDAO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AppointmentScheduler's concurrent and recurring booking paths.
+ */
+class AppointmentSchedulerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+    /**
+     * An in-memory schedule whose check-then-insert is deliberately not atomic, so any
+     * double booking would come from missing locking in the scheduler.
+     */
+    private static class RacyScheduleDAO extends SchedulingDAO {
+        final Map<String, List<LocalDateTime>> booked = new ConcurrentHashMap<>();
+        int rangeQueries;
+        int batches;
+
+        @Override
+        public LocalDateTime findConflictingAppointment(String doctorId, LocalDateTime start, Duration length) {
+            for (LocalDateTime existing : new ArrayList<>(booked.getOrDefault(doctorId, Collections.emptyList()))) {
+                if (start.isAfter(existing.minus(length)) && start.isBefore(existing.plus(length))) {
+                    return existing;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean createAppointmentIfSlotFree(Appointment appointment, Duration length) {
+            Thread.yield(); // widen the window between the caller's check and this insert
+            booked.computeIfAbsent(appointment.getDoctorId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(appointment.getAppointmentDateTime());
+            return true;
+        }
+
+        @Override
+        public List<Appointment> getActiveAppointmentsForDoctorBetween(String doctorId, LocalDateTime from, LocalDateTime to) {
+            rangeQueries++;
+            List<Appointment> result = new ArrayList<>();
+            for (LocalDateTime start : booked.getOrDefault(doctorId, Collections.emptyList())) {
+                if (!start.isBefore(from) && start.isBefore(to)) {
+                    result.add(new Appointment("P000", doctorId, start, "Existing"));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean createAppointmentsIfSlotsFree(List<Appointment> appointments, Duration length) {
+            batches++;
+            for (Appointment appointment : appointments) {
+                createAppointmentIfSlotFree(appointment, length);
+            }
+            return true;
+        }
+    }
+
+    @Test
+    void testConcurrentBookingsNeverOverlap() throws Exception {
+        RacyScheduleDAO dao = new RacyScheduleDAO();
+        AppointmentScheduler scheduler = new AppointmentScheduler(dao);
+        List<Doctor> doctors = List.of(new Doctor("D001", "Dr. A", "General"), new Doctor("D002", "Dr. B", "General"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Doctor doctor = doctors.get(i % doctors.size());
+            LocalDateTime requested = DAY.atTime(9, 0).plusMinutes(5L * (i % 48));
+            futures.add(pool.submit(() -> {
+                start.await();
+                return scheduler.bookAppointment("P001", doctor, requested, "Checkup", "");
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (Doctor doctor : doctors) {
+            List<LocalDateTime> slots = new ArrayList<>(dao.booked.get(doctor.getDoctorId()));
+            Collections.sort(slots);
+            assertFalse(slots.isEmpty());
+            for (int i = 1; i < slots.size(); i++) {
+                long gap = Duration.between(slots.get(i - 1), slots.get(i)).toMinutes();
+                assertTrue(gap >= 30, "Double booking for " + doctor.getDoctorId() + " at " + slots.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testSameSlotIsBookedExactlyOnce() throws Exception {
+        RacyScheduleDAO dao = new RacyScheduleDAO();
+        AppointmentScheduler scheduler = new AppointmentScheduler(dao);
+        Doctor doctor = new Doctor("D001", "Dr. A", "General");
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return scheduler.bookAppointment("P001", doctor, DAY.atTime(10, 0), "Checkup", "");
+            }));
+        }
+        start.countDown();
+        int successes = 0;
+        for (Future<String> future : futures) {
+            if (future.get(10, TimeUnit.SECONDS).equals("Appointment booked successfully!")) {
+                successes++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, successes);
+        assertEquals(1, dao.booked.get("D001").size());
+    }
+
+    @Test
+    void testDifferentDoctorsBookInParallel() throws Exception {
+        CountDownLatch bothInside = new CountDownLatch(2);
+        SchedulingDAO dao = new RacyScheduleDAO() {
+            @Override
+            public boolean createAppointmentIfSlotFree(Appointment appointment, Duration length) {
+                bothInside.countDown();
+                try {
+                    // Only completes if the other doctor's booking is not blocked behind this one
+                    return bothInside.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        };
+        AppointmentScheduler scheduler = new AppointmentScheduler(dao);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        // D001 and D003 hash to different stripes
+        Future<String> first = pool.submit(() ->
+                scheduler.bookAppointment("P001", new Doctor("D001", "Dr. A", "General"), DAY.atTime(10, 0), "Checkup", ""));
+        Future<String> second = pool.submit(() ->
+                scheduler.bookAppointment("P002", new Doctor("D003", "Dr. C", "General"), DAY.atTime(10, 0), "Checkup", ""));
+
+        assertEquals("Appointment booked successfully!", first.get(10, TimeUnit.SECONDS));
+        assertEquals("Appointment booked successfully!", second.get(10, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    void testRecurringSeriesIsCheckedWithOneQueryAndSavedInOneBatch() {
+        RacyScheduleDAO dao = new RacyScheduleDAO();
+        AppointmentScheduler scheduler = new AppointmentScheduler(dao);
+        Doctor doctor = new Doctor("D001", "Dr. A", "Physiotherapy");
+        RecurrenceRule weekly = new RecurrenceRule(DAY.atTime(10, 0), RecurrenceRule.Frequency.WEEKLY, 1, 6);
+
+        String result = scheduler.bookRecurringAppointments("P001", doctor, weekly, "Physio", "");
+
+        assertEquals("6 appointments booked successfully!", result);
+        assertEquals(weekly.occurrences(), dao.booked.get("D001"));
+        assertEquals(1, dao.rangeQueries);
+        assertEquals(1, dao.batches);
+    }
+
+    @Test
+    void testRecurringSeriesWithAConflictBooksNothing() {
+        RacyScheduleDAO dao = new RacyScheduleDAO();
+        AppointmentScheduler scheduler = new AppointmentScheduler(dao);
+        Doctor doctor = new Doctor("D001", "Dr. A", "Physiotherapy");
+        dao.booked.put("D001", Collections.synchronizedList(new ArrayList<>(List.of(DAY.plusWeeks(2).atTime(10, 20)))));
+        RecurrenceRule weekly = new RecurrenceRule(DAY.atTime(10, 0), RecurrenceRule.Frequency.WEEKLY, 1, 4);
+
+        String result = scheduler.bookRecurringAppointments("P001", doctor, weekly, "Physio", "");
+
+        assertTrue(result.startsWith("Booking failed: 1 of 4 appointments conflict"), result);
+        assertTrue(result.contains(DAY.plusWeeks(2) + " 10:00"), result);
+        assertEquals(1, dao.booked.get("D001").size());
+        assertEquals(0, dao.batches);
+    }
+}
\ No newline at end of file
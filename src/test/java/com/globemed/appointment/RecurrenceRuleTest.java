@@ -0,0 +1,43 @@
+package com.globemed.appointment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecurrenceRule.
+ */
+class RecurrenceRuleTest {
+
+    @Test
+    void testFortnightlyOccurrences() {
+        RecurrenceRule rule = new RecurrenceRule(LocalDateTime.of(2025, 9, 1, 10, 0), RecurrenceRule.Frequency.WEEKLY, 2, 3);
+
+        assertEquals(List.of(
+                LocalDateTime.of(2025, 9, 1, 10, 0),
+                LocalDateTime.of(2025, 9, 15, 10, 0),
+                LocalDateTime.of(2025, 9, 29, 10, 0)), rule.occurrences());
+    }
+
+    @Test
+    void testMonthlySeriesKeepsItsDayOfMonth() {
+        RecurrenceRule rule = new RecurrenceRule(LocalDateTime.of(2025, 1, 31, 9, 30), RecurrenceRule.Frequency.MONTHLY, 1, 3);
+
+        assertEquals(List.of(
+                LocalDateTime.of(2025, 1, 31, 9, 30),
+                LocalDateTime.of(2025, 2, 28, 9, 30),
+                LocalDateTime.of(2025, 3, 31, 9, 30)), rule.occurrences());
+    }
+
+    @Test
+    void testRejectsInvalidCountAndInterval() {
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 10, 0);
+        assertThrows(IllegalArgumentException.class, () -> new RecurrenceRule(start, RecurrenceRule.Frequency.DAILY, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new RecurrenceRule(start, RecurrenceRule.Frequency.DAILY, 1, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecurrenceRule(start, RecurrenceRule.Frequency.DAILY, 1, RecurrenceRule.MAX_OCCURRENCES + 1));
+    }
+}
@@ -0,0 +1,122 @@
+package com.globemed.appointment;
+
+import com.globemed.db.SchedulingDAO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SlotAvailabilityEngine.
+ */
+class SlotAvailabilityEngineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+    private static class FixedScheduleDAO extends SchedulingDAO {
+        final List<Doctor> doctors = new ArrayList<>();
+        final List<Appointment> appointments = new ArrayList<>();
+        int rangeQueries;
+
+        @Override
+        public List<Doctor> getAllDoctors() {
+            return new ArrayList<>(doctors);
+        }
+
+        @Override
+        public List<Appointment> getActiveAppointmentsBetween(LocalDateTime from, LocalDateTime to) {
+            rangeQueries++;
+            List<Appointment> result = new ArrayList<>();
+            for (Appointment appointment : appointments) {
+                LocalDateTime start = appointment.getAppointmentDateTime();
+                if (!start.isBefore(from) && start.isBefore(to)) {
+                    result.add(appointment);
+                }
+            }
+            return result;
+        }
+
+        void book(String doctorId, LocalDateTime start) {
+            appointments.add(new Appointment("P001", doctorId, start, "Checkup"));
+        }
+    }
+
+    private static List<LocalDateTime> starts(List<SlotAvailabilityEngine.FreeSlot> slots) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (SlotAvailabilityEngine.FreeSlot slot : slots) {
+            starts.add(slot.getStart());
+        }
+        return starts;
+    }
+
+    @Test
+    void testSlotOnBoundaryBlocksOneSlotAndOffsetBlocksTwo() throws Exception {
+        FixedScheduleDAO dao = new FixedScheduleDAO();
+        dao.doctors.add(new Doctor("D001", "Dr. A", "Cardiology"));
+        dao.book("D001", DAY.atTime(9, 0));   // blocks 09:00
+        dao.book("D001", DAY.atTime(10, 15)); // blocks 10:00 and 10:30
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine(dao, LocalTime.of(9, 0), LocalTime.of(12, 0));
+
+        List<SlotAvailabilityEngine.FreeSlot> slots = engine.findFreeSlots("Cardiology", DAY.atStartOfDay(), 1, 10);
+
+        assertEquals(List.of(DAY.atTime(9, 30), DAY.atTime(11, 0), DAY.atTime(11, 30)), starts(slots));
+    }
+
+    @Test
+    void testSearchesAllDoctorsOfSpecialtyInTimeOrder() throws Exception {
+        FixedScheduleDAO dao = new FixedScheduleDAO();
+        dao.doctors.add(new Doctor("D001", "Dr. A", "Cardiology"));
+        dao.doctors.add(new Doctor("D002", "Dr. B", "cardiology "));
+        dao.doctors.add(new Doctor("D003", "Dr. C", "Dermatology"));
+        dao.book("D001", DAY.atTime(9, 0));
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine(dao, LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        List<SlotAvailabilityEngine.FreeSlot> slots = engine.findFreeSlots("Cardiology", DAY.atStartOfDay(), 1, 10);
+
+        assertEquals(3, slots.size());
+        assertEquals("D002", slots.get(0).getDoctor().getDoctorId());
+        assertEquals(DAY.atTime(9, 0), slots.get(0).getStart());
+        assertEquals("D001", slots.get(1).getDoctor().getDoctorId());
+        assertEquals(DAY.atTime(9, 30), slots.get(1).getStart());
+        assertEquals("D002", slots.get(2).getDoctor().getDoctorId());
+    }
+
+    @Test
+    void testFullyBookedDaysAreSkippedWithOneQuery() throws Exception {
+        FixedScheduleDAO dao = new FixedScheduleDAO();
+        dao.doctors.add(new Doctor("D001", "Dr. A", "Cardiology"));
+        for (int day = 0; day < 3; day++) {
+            dao.book("D001", DAY.plusDays(day).atTime(9, 0));
+            dao.book("D001", DAY.plusDays(day).atTime(9, 30));
+        }
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine(dao, LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        List<SlotAvailabilityEngine.FreeSlot> slots = engine.findFreeSlots(null, DAY.atStartOfDay(), 14, 1);
+
+        assertEquals(List.of(DAY.plusDays(3).atTime(9, 0)), starts(slots));
+        assertEquals(1, dao.rangeQueries);
+    }
+
+    @Test
+    void testSlotsBeforeSearchStartAreSkipped() throws Exception {
+        FixedScheduleDAO dao = new FixedScheduleDAO();
+        dao.doctors.add(new Doctor("D001", "Dr. A", "Cardiology"));
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine(dao, LocalTime.of(9, 0), LocalTime.of(11, 0));
+
+        List<SlotAvailabilityEngine.FreeSlot> slots = engine.findFreeSlots(null, DAY.atTime(9, 40), 1, 10);
+
+        assertEquals(List.of(DAY.atTime(10, 0), DAY.atTime(10, 30)), starts(slots));
+    }
+
+    @Test
+    void testRejectsOpeningHoursThatDoNotFitABitmap() {
+        FixedScheduleDAO dao = new FixedScheduleDAO();
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlotAvailabilityEngine(dao, LocalTime.of(9, 0), LocalTime.of(9, 0)));
+    }
+}
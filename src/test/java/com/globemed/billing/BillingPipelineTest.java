@@ -0,0 +1,200 @@
+package com.globemed.billing;
+
+import com.globemed.insurance.InsurancePlan;
+import com.globemed.patient.PatientRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BillingPipeline.
+ */
+class BillingPipelineTest {
+
+    /**
+     * Hands out IDs like the billing table's auto increment and remembers every batch.
+     */
+    private static class RecordingWriter implements BillingPipeline.BatchWriter {
+        final AtomicInteger nextId = new AtomicInteger(1);
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public boolean saveBills(List<MedicalBill> bills) {
+            batchSizes.add(bills.size());
+            for (MedicalBill bill : bills) {
+                bill.setBillId(nextId.getAndIncrement());
+            }
+            return true;
+        }
+    }
+
+    private static List<BillProcessingRequest> requests(int count) {
+        PatientRecord insured = new PatientRecord("P001", "Insured Patient");
+        insured.setInsurancePlan(new InsurancePlan(1, "Gold", 80));
+        PatientRecord uninsured = new PatientRecord("P002", "Uninsured Patient");
+
+        List<BillProcessingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PatientRecord patient = i % 2 == 0 ? insured : uninsured;
+            double amount = i % 10 == 9 ? 0 : 100; // every tenth bill fails validation
+            requests.add(new BillProcessingRequest(new MedicalBill(patient.getPatientId(), "Consultation", amount), patient));
+        }
+        return requests;
+    }
+
+    private static BillingPipeline pipeline(BillingPipeline.BatchWriter writer, int queueCapacity, int batchSize) {
+        return new BillingPipeline(writer, queueCapacity, batchSize, 2)
+                .addStage("Validation", new ValidationHandler(), 2)
+                .addStage("Insurance", new InsuranceHandler(), 3);
+    }
+
+    @Test
+    void testEveryBillIsValidatedInsuredAndSavedInBatches() throws Exception {
+        RecordingWriter writer = new RecordingWriter();
+
+        BillingPipeline.RunResult result = pipeline(writer, 16, 25).run(requests(500));
+
+        assertEquals(450, result.getSaved().size());
+        assertEquals(50, result.getRejected().size());
+        assertTrue(result.getFailed().isEmpty());
+
+        Set<Integer> ids = new HashSet<>();
+        for (MedicalBill bill : result.getSaved()) {
+            assertTrue(ids.add(bill.getBillId()), "Duplicate ID " + bill.getBillId());
+            assertEquals("Opened - Pending Payment", bill.getStatus());
+            double expectedInsurance = bill.getPatientId().equals("P001") ? 80.0 : 0.0;
+            assertEquals(expectedInsurance, bill.getInsurancePaidAmount(), 0.001);
+        }
+        for (MedicalBill bill : result.getRejected()) {
+            assertEquals(0, bill.getBillId());
+            assertEquals("Rejected: Invalid Amount", bill.getStatus());
+        }
+
+        assertTrue(writer.batchSizes.stream().allMatch(size -> size <= 25));
+        assertEquals(450, writer.batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void testStageMetricsCountEveryBill() throws Exception {
+        BillingPipeline.RunResult result = pipeline(new RecordingWriter(), 16, 25).run(requests(200));
+
+        List<StageMetrics> metrics = result.getStageMetrics();
+        assertEquals(List.of("Validation", "Insurance", "Persist"),
+                metrics.stream().map(StageMetrics::getName).collect(Collectors.toList()));
+        assertEquals(200, metrics.get(0).getProcessed());
+        assertEquals(20, metrics.get(0).getRejected());
+        assertEquals(180, metrics.get(1).getProcessed());
+        assertEquals(180, metrics.get(2).getProcessed());
+        assertEquals(180, metrics.get(2).getLatency().getCount());
+        assertTrue(metrics.get(2).getBatches() > 0);
+        for (StageMetrics stage : metrics) {
+            assertEquals(0, stage.getQueueDepth());
+        }
+    }
+
+    @Test
+    void testSlowWritesThrottleTheInput() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingWriter writer = new RecordingWriter() {
+            @Override
+            public boolean saveBills(List<MedicalBill> bills) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                return super.saveBills(bills);
+            }
+        };
+        AtomicInteger pulled = new AtomicInteger();
+        List<BillProcessingRequest> source = requests(1000);
+        Iterable<BillProcessingRequest> counting = () -> new Iterator<>() {
+            final Iterator<BillProcessingRequest> delegate = source.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public BillProcessingRequest next() {
+                pulled.incrementAndGet();
+                return delegate.next();
+            }
+        };
+
+        BillingPipeline pipeline = pipeline(writer, 4, 5);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<BillingPipeline.RunResult> run = caller.submit(() -> pipeline.run(counting));
+
+        // With the database stuck, only the queues and in-flight bills can be pulled from the source
+        Thread.sleep(300);
+        int pulledWhileBlocked = pulled.get();
+        assertTrue(pulledWhileBlocked < 50, "Pulled " + pulledWhileBlocked + " bills while saves were blocked");
+        assertFalse(run.isDone());
+
+        release.countDown();
+        BillingPipeline.RunResult result = run.get(10, TimeUnit.SECONDS);
+        caller.shutdown();
+
+        assertEquals(900, result.getSaved().size());
+        assertTrue(result.getStageMetrics().get(0).getBlockedMillis() > 0);
+    }
+
+    @Test
+    void testFailedBatchIsRetriedBillByBill() throws Exception {
+        RecordingWriter writer = new RecordingWriter() {
+            @Override
+            public boolean saveBills(List<MedicalBill> bills) {
+                // One bill violates a constraint, so any batch containing it is rolled back
+                for (MedicalBill bill : bills) {
+                    if (bill.getServiceDescription().equals("Bad")) {
+                        return false;
+                    }
+                }
+                return super.saveBills(bills);
+            }
+        };
+        PatientRecord patient = new PatientRecord("P001", "Patient");
+        List<BillProcessingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(new BillProcessingRequest(new MedicalBill("P001", i == 4 ? "Bad" : "Consultation", 50), patient));
+        }
+
+        BillingPipeline.RunResult result = new BillingPipeline(writer, 16, 10, 1).run(requests);
+
+        assertEquals(9, result.getSaved().size());
+        assertEquals(1, result.getFailed().size());
+        assertEquals("Error - Failed to Save", result.getFailed().get(0).getStatus());
+        assertEquals(1, result.getStageMetrics().get(0).getFailed());
+    }
+
+    @Test
+    void testHandlerExceptionFailsOnlyThatBill() throws Exception {
+        List<BillProcessingRequest> requests = requests(20);
+        // No patient record: the insurance handler cannot look up the plan
+        requests.set(3, new BillProcessingRequest(new MedicalBill("P404", "Consultation", 100), null));
+
+        BillingPipeline.RunResult result = pipeline(new RecordingWriter(), 4, 5).run(requests);
+
+        assertEquals(17, result.getSaved().size());
+        assertEquals(1, result.getFailed().size());
+        assertEquals("Error - Insurance Failed", result.getFailed().get(0).getStatus());
+        assertEquals(1, result.getStageMetrics().get(1).getFailed());
+    }
+}
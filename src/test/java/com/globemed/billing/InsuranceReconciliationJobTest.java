@@ -0,0 +1,87 @@
+package com.globemed.billing;
+
+import com.globemed.db.BillingDAO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InsuranceReconciliationJob.
+ */
+class InsuranceReconciliationJobTest {
+
+    /**
+     * Serves fixed candidates and pretends bill 3 received a payment before the update ran.
+     */
+    private static class FakeBillingDAO extends BillingDAO {
+        final List<MedicalBill> candidates = new ArrayList<>();
+        final List<Collection<MedicalBill>> updateCalls = new ArrayList<>();
+
+        @Override
+        public List<MedicalBill> getBillsMissingInsurancePayment() {
+            return new ArrayList<>(candidates);
+        }
+
+        @Override
+        public List<MedicalBill> applyInsuranceCorrections(Collection<MedicalBill> bills) {
+            updateCalls.add(new ArrayList<>(bills));
+            List<MedicalBill> updated = new ArrayList<>();
+            for (MedicalBill bill : bills) {
+                if (bill.getBillId() != 3) {
+                    updated.add(bill);
+                }
+            }
+            return updated;
+        }
+    }
+
+    private static MedicalBill bill(int id, double amount, double finalAmount) {
+        return new MedicalBill(id, "P001", "Consultation", amount, "Opened - Pending Payment", null, finalAmount, null, 0, 0);
+    }
+
+    @Test
+    void testCandidatesAreFixedInOneBatchAndReported() {
+        FakeBillingDAO dao = new FakeBillingDAO();
+        dao.candidates.add(bill(1, 100, 40));
+        dao.candidates.add(bill(2, 250, 50));
+        dao.candidates.add(bill(3, 80, 20));
+
+        InsuranceReconciliationJob.Report report = new InsuranceReconciliationJob(dao).runOnce();
+
+        assertEquals(1, dao.updateCalls.size());
+        assertEquals(3, dao.updateCalls.get(0).size());
+        assertEquals(3, report.getCandidates());
+        assertEquals(2, report.getCorrected().size());
+        assertEquals(1, report.getSkipped());
+        assertEquals(60.0, report.getCorrected().get(0).getInsurancePaidAmount(), 0.001);
+        assertEquals(200.0, report.getCorrected().get(1).getInsurancePaidAmount(), 0.001);
+        assertEquals("Reconciliation", report.getCorrected().get(0).getPendingEvents().get(0).getStage());
+        assertTrue(report.toString().contains("Bill #2 (P001): insurance paid set to $200.00"), report.toString());
+    }
+
+    @Test
+    void testNothingToFixWritesNothing() {
+        FakeBillingDAO dao = new FakeBillingDAO();
+        InsuranceReconciliationJob job = new InsuranceReconciliationJob(dao);
+
+        InsuranceReconciliationJob.Report report = job.runOnce();
+
+        assertTrue(dao.updateCalls.isEmpty());
+        assertEquals(0, report.getCandidates());
+        assertSame(report, job.getLastReport());
+    }
+
+    @Test
+    void testMissingInsuranceShareMatchesTheCandidateRule() {
+        assertEquals(6000, InsuranceReconciliationJob.missingInsuranceCents(bill(1, 100, 40)));
+        assertEquals(0, InsuranceReconciliationJob.missingInsuranceCents(bill(2, 100, 100)));
+
+        MedicalBill recorded = bill(3, 100, 40);
+        recorded.setInsurancePaidCents(6000);
+        assertEquals(0, InsuranceReconciliationJob.missingInsuranceCents(recorded));
+    }
+}
@@ -0,0 +1,65 @@
+package com.globemed.billing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MedicalBill's buffered processing log and cent amounts.
+ */
+class MedicalBillTest {
+
+    @Test
+    void testLogEntriesAreBufferedWithTheirStage() {
+        MedicalBill bill = new MedicalBill("P001", "Consultation", 100);
+        bill.addLog("Validation", "Bill passed initial validation.");
+        bill.addPatientPayment(40);
+
+        List<BillEvent> events = bill.getPendingEvents();
+        assertEquals(3, events.size());
+        assertEquals("Created", events.get(0).getStage());
+        assertEquals("Validation", events.get(1).getStage());
+        assertEquals("Payment", events.get(2).getStage());
+        assertTrue(bill.getProcessingLog().contains("- Bill passed initial validation.\n"));
+    }
+
+    @Test
+    void testSavedEventsAreDroppedButLaterOnesKept() {
+        MedicalBill bill = new MedicalBill("P001", "Consultation", 100);
+        List<BillEvent> written = bill.getPendingEvents();
+        // Added while the save was in flight
+        bill.addLog("Finalization", "Bill successfully saved to database with ID: 7");
+
+        bill.eventsSaved(written.size());
+
+        assertEquals(1, bill.getPendingEvents().size());
+        assertEquals("Finalization", bill.getPendingEvents().get(0).getStage());
+    }
+
+    @Test
+    void testLoadedBillKeepsItsLegacyLogAheadOfNewEntries() {
+        MedicalBill bill = new MedicalBill(7, "P001", "Consultation", 100, "Paid", "Bill created.\n", 100, null, 100, 0);
+        assertTrue(bill.getPendingEvents().isEmpty());
+
+        bill.addLog("Payment", "Refund issued.");
+
+        assertEquals("Bill created.\n- Refund issued.\n", bill.getProcessingLog());
+    }
+
+    @Test
+    void testPaymentsAreSummedInWholeCents() {
+        MedicalBill bill = new MedicalBill("P001", "Consultation", 0.3);
+        for (int i = 0; i < 3; i++) {
+            bill.addPatientPayment(0.1);
+        }
+        bill.updateStatusBasedOnPayments();
+
+        assertEquals(30, bill.getAmountPaidCents());
+        assertEquals(0, bill.getRemainingBalanceCents());
+        assertEquals(0.3, bill.getTotalCollected());
+        assertEquals("Paid", bill.getStatus());
+        assertTrue(bill.getProcessingLog().contains("Patient payment of $0.10 received."));
+    }
+}
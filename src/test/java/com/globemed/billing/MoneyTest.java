@@ -0,0 +1,61 @@
+package com.globemed.billing;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the fixed-point cent arithmetic.
+ */
+class MoneyTest {
+
+    @Test
+    void testDoublesAreRoundedToTheNearestCent() {
+        assertEquals(30, Money.ofDouble(0.1 + 0.2));
+        assertEquals(1005, Money.ofDouble(10.045));
+        assertEquals(-250, Money.ofDouble(-2.5));
+        assertEquals(12.34, Money.toDouble(1234));
+        assertEquals(new BigDecimal("12.34"), Money.toDecimal(1234));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-1234.50", Money.format(-123450));
+    }
+
+    @Test
+    void testHalfCentsRoundAwayFromZeroOnBothSides() {
+        assertEquals(101, Money.ofDouble(1.005));
+        assertEquals(-13, Money.ofDouble(-0.125));
+        assertEquals(-1005, Money.ofDouble(-10.045));
+        assertEquals(-235, Money.ofDouble(-2.345));
+    }
+
+    @Test
+    void testParseReadsTypedAmountsWithoutADouble() {
+        assertEquals(1250, Money.parse(" 12.5 "));
+        assertEquals(101, Money.parse("1.005"));
+        assertEquals(-301, Money.parse("-3.005"));
+        assertEquals(0, Money.parse("0"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12,50"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e30"));
+    }
+
+    @Test
+    void testPercentOfRoundsHalfAwayFromZeroOnce() {
+        assertEquals(8000, Money.percentOf(10000, 80));
+        assertEquals(3, Money.percentOf(5, 50));
+        assertEquals(-3, Money.percentOf(-5, 50));
+        assertEquals(2, Money.percentOf(5, 49.99));
+        assertEquals(3333, Money.percentOf(10001, 33.33));
+        assertEquals(0, Money.percentOf(10000, 0));
+        assertEquals(10000, Money.percentOf(10000, 100));
+    }
+
+    @Test
+    void testRemainingIsNeverNegative() {
+        assertEquals(2500, Money.remaining(10000, 7500));
+        assertEquals(0, Money.remaining(10000, 10000));
+        assertEquals(0, Money.remaining(10000, 12000));
+    }
+}
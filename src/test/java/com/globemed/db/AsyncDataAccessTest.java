@@ -0,0 +1,128 @@
+package com.globemed.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncDataAccess.
+ * Callbacks run inline on the worker thread instead of on the EDT.
+ */
+class AsyncDataAccessTest {
+
+    @BeforeEach
+    void setUp() {
+        AsyncDataAccess.setCallbackExecutor(Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        AsyncDataAccess.setCallbackExecutor(SwingUtilities::invokeLater);
+    }
+
+    @Test
+    void testLoadRunsOffCallingThreadAndDeliversResult() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        AsyncDataAccess.load(() -> {
+            assertNotSame(caller, Thread.currentThread());
+            return "row";
+        }, result -> {
+            results.add(result);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("row"), results);
+    }
+
+    @Test
+    void testErrorIsUnwrapped() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+        AsyncDataAccess.load(() -> {
+            throw new IllegalStateException("connection refused");
+        }, result -> fail("should not succeed"), error -> {
+            errors.add(error);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, errors.get(0));
+        assertEquals("connection refused", errors.get(0).getMessage());
+    }
+
+    @Test
+    void testLatestDropsSupersededResult() throws Exception {
+        AsyncDataAccess.Latest<String> latest = AsyncDataAccess.latest();
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        CountDownLatch slowFinished = new CountDownLatch(1);
+        CountDownLatch fastDelivered = new CountDownLatch(1);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+
+        latest.load(() -> {
+            slowStarted.countDown();
+            try {
+                releaseSlow.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowFinished.countDown();
+            return "stale";
+        }, delivered::add);
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+        latest.load(() -> "fresh", result -> {
+            delivered.add(result);
+            fastDelivered.countDown();
+        });
+        assertTrue(fastDelivered.await(5, TimeUnit.SECONDS));
+
+        // Let the stale query finish; its result must never be delivered
+        releaseSlow.countDown();
+        assertTrue(slowFinished.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        assertEquals(List.of("fresh"), delivered);
+    }
+
+    @Test
+    void testCancelDropsPendingResult() throws Exception {
+        AsyncDataAccess.Latest<String> latest = AsyncDataAccess.latest();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+
+        latest.load(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+            return "stale";
+        }, delivered::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        latest.cancel();
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        assertTrue(delivered.isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package com.globemed.db;
+
+import com.globemed.billing.MedicalBill;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap retained by a full bill load with and without the shared symbol table.
+ * <p>
+ * Rows come from a synthetic result set shaped like the getAllBills() query. Like the JDBC
+ * driver, it returns a fresh String for every column read, so the "plain" run retains one
+ * service description and status per bill while the "interned" run retains one per
+ * distinct value. Not a unit test; run it after {@code mvn test-compile} with
+ * <pre>
+ * java -cp target/classes:target/test-classes com.globemed.db.BillLoadingHeapBenchmark [rows]
+ * </pre>
+ */
+public class BillLoadingHeapBenchmark {
+    private static final String[] SERVICES = {
+            "General Consultation", "X-Ray", "Blood Test", "MRI Scan", "Surgery",
+            "Physiotherapy Session", "Cardiology Consultation", "Dental Cleaning"};
+    private static final String[] STATUSES = {"Paid", "Pending", "Partially Paid", "Overdue"};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        // Warm up so class loading and JIT do not skew the first measurement
+        load(1_000, new SymbolTable("warmup", 0, 0));
+        load(1_000, new SymbolTable("warmup", 4_096, SymbolTable.DEFAULT_MAX_LENGTH));
+
+        long plain = retainedBytes(rows, new SymbolTable("disabled", 0, 0));
+        SymbolTable symbols = new SymbolTable("benchmark", 4_096, SymbolTable.DEFAULT_MAX_LENGTH);
+        long interned = retainedBytes(rows, symbols);
+
+        System.out.printf("Bills loaded:         %,d%n", rows);
+        System.out.printf("Retained, plain:      %,d bytes (%.1f per bill)%n", plain, (double) plain / rows);
+        System.out.printf("Retained, interned:   %,d bytes (%.1f per bill)%n", interned, (double) interned / rows);
+        System.out.printf("Reduction:            %.1f%%%n", plain > 0 ? (plain - interned) * 100.0 / plain : 0);
+        System.out.println(symbols.getMetrics());
+    }
+
+    private static long retainedBytes(int rows, SymbolTable symbols) throws Exception {
+        long before = usedHeap();
+        List<MedicalBill> bills = load(rows, symbols);
+        long after = usedHeap();
+        if (bills.size() != rows) {
+            throw new IllegalStateException("Expected " + rows + " bills, got " + bills.size());
+        }
+        return after - before;
+    }
+
+    /**
+     * Maps every row the way getAllBills() does.
+     */
+    private static List<MedicalBill> load(int rows, SymbolTable symbols) throws Exception {
+        ResultSet rs = syntheticBills(rows);
+        List<MedicalBill> bills = new ArrayList<>();
+        while (rs.next()) {
+            bills.add(BillingDAO.createBillFromResultSet(rs, symbols));
+        }
+        return bills;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * A forward-only result set over generated billing rows.
+     */
+    private static ResultSet syntheticBills(int rows) {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int[] row = {0};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    int i = row[0];
+                    switch (method.getName()) {
+                        case "next":
+                            return ++row[0] <= rows;
+                        case "getInt":
+                            return "version".equals(args[0]) ? 0 : i;
+                        case "getDouble":
+                            return 25.0 + i % 400;
+                        case "getTimestamp":
+                            return Timestamp.valueOf(start.plusMinutes(i * 17L));
+                        case "getString":
+                            switch ((String) args[0]) {
+                                case "patient_id": return String.format("P%05d", i % 20_000);
+                                case "service_description": return new String(SERVICES[i % SERVICES.length]);
+                                case "status": return new String(STATUSES[i % STATUSES.length]);
+                                default: return null;
+                            }
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
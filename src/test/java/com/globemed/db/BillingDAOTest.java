@@ -0,0 +1,318 @@
+package com.globemed.db;
+
+import com.globemed.billing.InsuranceReconciliationJob;
+import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
+import com.globemed.billing.PaymentPosting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BillingDAO's batched saves and payment writes.
+ * These tests use in-memory fake connections that record committed batches, so no database is required.
+ */
+class BillingDAOTest {
+
+    private static final String INSERT_BILL_PREFIX = "INSERT INTO billing (patient_id";
+    private static final String UPSERT_BILL_PREFIX = "INSERT INTO billing (bill_id";
+
+    /** Batches as "sql:size" (bill inserts and upserts by prefix), moved here when their transaction commits. */
+    private final List<String> committedBatches = new ArrayList<>();
+    private int nextGeneratedId = 100;
+    private int insertBatchesBeforeFailure = Integer.MAX_VALUE;
+    private String originalChunkSize;
+    /** The one billing row the payment tests write to, or null when bill reads find nothing. */
+    private StoredRow storedBill;
+
+    /** A billing row, updated the way the payment and insurance correction UPDATEs change it. */
+    private static final class StoredRow {
+        final int billId = 7;
+        final long amountCents;
+        final long finalAmountCents;
+        long amountPaidCents;
+        long insurancePaidCents;
+        String status = "Pending";
+        int version;
+
+        StoredRow(long amountCents, long finalAmountCents) {
+            this.amountCents = amountCents;
+            this.finalAmountCents = finalAmountCents;
+        }
+    }
+
+    private Connection fakeConnection() {
+        List<String> pendingBatches = new ArrayList<>();
+        boolean[] autoCommit = {true};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return fakeStatement((String) args[0], pendingBatches);
+                        case "setAutoCommit":
+                            autoCommit[0] = (Boolean) args[0];
+                            return null;
+                        case "getAutoCommit":
+                            return autoCommit[0];
+                        case "commit":
+                            committedBatches.addAll(pendingBatches);
+                            pendingBatches.clear();
+                            return null;
+                        case "rollback":
+                            pendingBatches.clear();
+                            return null;
+                        case "isValid":
+                            return true;
+                        case "isClosed":
+                            return false;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private PreparedStatement fakeStatement(String sql, List<String> pendingBatches) {
+        int[] batched = {0};
+        List<Integer> generatedKeys = new ArrayList<>();
+        Map<Integer, Object> parameters = new HashMap<>();
+        List<Map<Integer, Object>> batchParameters = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setInt":
+                        case "setString":
+                        case "setBigDecimal":
+                            parameters.put((Integer) args[0], args[1]);
+                            return null;
+                        case "addBatch":
+                            batched[0]++;
+                            batchParameters.add(new HashMap<>(parameters));
+                            return null;
+                        case "executeBatch":
+                            if (sql.startsWith(INSERT_BILL_PREFIX)) {
+                                if (insertBatchesBeforeFailure-- == 0) {
+                                    throw new SQLException("Simulated insert failure");
+                                }
+                                for (int i = 0; i < batched[0]; i++) {
+                                    generatedKeys.add(nextGeneratedId++);
+                                }
+                            }
+                            pendingBatches.add(label(sql) + ":" + batched[0]);
+                            int[] counts = new int[batched[0]];
+                            for (int i = 0; i < counts.length; i++) {
+                                counts[i] = applyToStoredBill(sql, batchParameters.get(i));
+                            }
+                            batched[0] = 0;
+                            batchParameters.clear();
+                            return counts;
+                        case "getGeneratedKeys":
+                            return resultSet(generatedKeys);
+                        case "executeQuery":
+                            return storedBill != null && sql.startsWith("SELECT bill_id")
+                                    ? storedBillResultSet(storedBill) : resultSet(List.of());
+                        case "executeUpdate":
+                            return applyToStoredBill(sql, parameters);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * Applies a payment or insurance correction UPDATE to the stored bill, evaluating its status
+     * the way MySQL would for the CASE the statement carries.
+     * @return The number of rows changed.
+     */
+    private int applyToStoredBill(String sql, Map<Integer, Object> parameters) {
+        StoredRow row = storedBill;
+        if (row == null) {
+            return 0;
+        }
+        if (sql.startsWith("UPDATE billing SET amount_paid = amount_paid + ?")) {
+            row.amountPaidCents += cents(parameters.get(1));
+            row.status = row.amountPaidCents + row.insurancePaidCents >= row.amountCents ? "Paid" : "Partially Paid";
+        } else if (sql.startsWith("UPDATE billing SET insurance_paid_amount = ?")) {
+            if (!parameters.containsValue(row.billId) || row.insurancePaidCents != 0) {
+                return 0;
+            }
+            row.insurancePaidCents = cents(parameters.get(1));
+            if (sql.contains("status = CASE WHEN amount_paid + ? >= amount THEN 'Paid' WHEN amount_paid + ? > 0 THEN 'Partially Paid'")) {
+                if (row.amountPaidCents + cents(parameters.get(2)) >= row.amountCents) {
+                    row.status = "Paid";
+                } else if (row.amountPaidCents + cents(parameters.get(3)) > 0) {
+                    row.status = "Partially Paid";
+                }
+            }
+        } else {
+            return 0;
+        }
+        row.version++;
+        return 1;
+    }
+
+    private static long cents(Object decimal) {
+        return Money.ofDecimal((BigDecimal) decimal);
+    }
+
+    private static ResultSet storedBillResultSet(StoredRow row) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("bill_id", row.billId);
+        columns.put("patient_id", "P001");
+        columns.put("service_description", "Consultation");
+        columns.put("status", row.status);
+        columns.put("billed_datetime", Timestamp.valueOf(LocalDateTime.of(2025, 8, 1, 10, 0)));
+        columns.put("version", row.version);
+        columns.put("amount", Money.toDecimal(row.amountCents));
+        columns.put("final_amount", Money.toDecimal(row.finalAmountCents));
+        columns.put("amount_paid", Money.toDecimal(row.amountPaidCents));
+        columns.put("insurance_paid_amount", Money.toDecimal(row.insurancePaidCents));
+        boolean[] read = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("next")) {
+                        boolean hasRow = !read[0];
+                        read[0] = true;
+                        return hasRow;
+                    }
+                    if (method.getName().startsWith("get") && args != null && args[0] instanceof String) {
+                        return columns.get(args[0]);
+                    }
+                    return method.getName().equals("wasNull") ? false : null;
+                });
+    }
+
+    private static String label(String sql) {
+        return sql.startsWith(INSERT_BILL_PREFIX) ? INSERT_BILL_PREFIX
+                : sql.startsWith(UPSERT_BILL_PREFIX) ? UPSERT_BILL_PREFIX : sql;
+    }
+
+    private static ResultSet resultSet(List<Integer> firstColumn) {
+        int[] row = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++row[0] < firstColumn.size();
+                        case "getInt":
+                            return row[0] < firstColumn.size() ? firstColumn.get(row[0]) : 0;
+                        case "getLong":
+                            return 0L;
+                        case "getDouble":
+                            return 0.0;
+                        case "getBoolean":
+                        case "wasNull":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static MedicalBill newBill(String patientId) {
+        return new MedicalBill(patientId, "Consultation", 100.0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        originalChunkSize = System.getProperty("db.batch.chunkSize");
+        System.setProperty("db.batch.chunkSize", "2");
+        DatabaseManager.usePool(new ConnectionPool(this::fakeConnection, 0, 2, 1000, 60_000, 0, 60_000, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseManager.closeConnection();
+        if (originalChunkSize != null) {
+            System.setProperty("db.batch.chunkSize", originalChunkSize);
+        } else {
+            System.clearProperty("db.batch.chunkSize");
+        }
+    }
+
+    @Test
+    void testNewBillsAreInsertedOneChunkPerTransaction() {
+        List<MedicalBill> bills = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bills.add(newBill("P00" + i));
+        }
+
+        assertTrue(new BillingDAO().saveBills(bills));
+
+        List<String> inserts = committedBatches.stream().filter(b -> b.startsWith(INSERT_BILL_PREFIX)).toList();
+        assertEquals(List.of(INSERT_BILL_PREFIX + ":2", INSERT_BILL_PREFIX + ":2", INSERT_BILL_PREFIX + ":1"), inserts);
+        for (int i = 0; i < bills.size(); i++) {
+            assertEquals(100 + i, bills.get(i).getBillId(), "Generated IDs should map to bills in insert order");
+        }
+    }
+
+    @Test
+    void testStoredBillsAreUpsertedAndKeepTheirIds() {
+        MedicalBill first = newBill("P001");
+        MedicalBill stored = new MedicalBill(7, "P002", "X-Ray", 250.0, "Paid", null, 250.0,
+                LocalDateTime.of(2025, 8, 1, 10, 0), 250.0);
+        MedicalBill second = newBill("P003");
+
+        assertTrue(new BillingDAO().saveBills(List.of(first, stored, second)));
+
+        assertEquals(100, first.getBillId());
+        assertEquals(7, stored.getBillId());
+        assertEquals(101, second.getBillId(), "IDs should skip stored bills, not shift onto them");
+        assertTrue(committedBatches.contains(UPSERT_BILL_PREFIX + ":1"));
+    }
+
+    @Test
+    void testFailedChunkLeavesItsBillsAndLaterOnesUnsaved() {
+        List<MedicalBill> bills = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bills.add(newBill("P00" + i));
+        }
+        insertBatchesBeforeFailure = 1;
+
+        assertFalse(new BillingDAO().saveBills(bills));
+
+        assertEquals(List.of(INSERT_BILL_PREFIX + ":2"),
+                committedBatches.stream().filter(b -> b.startsWith(INSERT_BILL_PREFIX)).toList());
+        assertEquals(100, bills.get(0).getBillId());
+        assertEquals(101, bills.get(1).getBillId());
+        for (MedicalBill bill : bills.subList(2, 5)) {
+            assertEquals(0, bill.getBillId(), "Bills from the failed chunk onward should keep no ID");
+        }
+    }
+
+    @Test
+    void testInsuranceCorrectionSettlesABillWhosePatientSharePaidItFirst() {
+        storedBill = new StoredRow(10000, 2000);
+        BillingDAO dao = new BillingDAO();
+
+        // The bill screen shows the missing insurance share before it is stored, so the patient pays only their part
+        PaymentPosting posting = dao.postPayment(storedBill.billId, 2000, PaymentPosting.Source.PATIENT, null);
+        assertTrue(posting.isPosted());
+        assertEquals("Partially Paid", storedBill.status, "With no insurance stored yet, the payment cannot settle the bill");
+
+        MedicalBill missing = dao.getBillById(storedBill.billId);
+        missing.setInsurancePaidCents(InsuranceReconciliationJob.missingInsuranceCents(missing));
+        assertEquals(List.of(missing), dao.applyInsuranceCorrections(List.of(missing)));
+
+        assertEquals(8000, storedBill.insurancePaidCents);
+        assertEquals("Paid", storedBill.status);
+    }
+}
@@ -0,0 +1,233 @@
+package com.globemed.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConnectionPool.
+ * These tests use in-memory fake connections, so no database is required.
+ */
+class ConnectionPoolTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger physicallyClosed = new AtomicInteger();
+    private final AtomicInteger statementsPrepared = new AtomicInteger();
+    private final AtomicInteger statementsClosed = new AtomicInteger();
+    private ConnectionPool pool;
+
+    private Connection fakeConnection() {
+        opened.incrementAndGet();
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            closed[0] = true;
+                            physicallyClosed.incrementAndGet();
+                            return null;
+                        case "isClosed":
+                            return closed[0];
+                        case "isValid":
+                        case "getAutoCommit":
+                            return !closed[0];
+                        case "prepareStatement":
+                            return fakeStatement();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private PreparedStatement fakeStatement() {
+        statementsPrepared.incrementAndGet();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        statementsClosed.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+
+    private ConnectionPool newPool(int min, int max, long timeoutMillis, long leakThresholdMillis, long housekeepingMillis) {
+        return newPool(min, max, timeoutMillis, leakThresholdMillis, housekeepingMillis, 0);
+    }
+
+    private ConnectionPool newPool(int min, int max, long timeoutMillis, long leakThresholdMillis,
+                                   long housekeepingMillis, int statementCacheSize) {
+        return new ConnectionPool(this::fakeConnection, min, max, timeoutMillis, 60_000,
+                leakThresholdMillis, housekeepingMillis, statementCacheSize);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testClosedConnectionIsReused() throws SQLException {
+        pool = newPool(0, 2, 1000, 0, 60_000);
+
+        Connection first = pool.borrow();
+        first.close();
+        Connection second = pool.borrow();
+        second.close();
+
+        assertEquals(1, opened.get(), "Closing a pooled connection should return it for reuse");
+        assertEquals(0, physicallyClosed.get());
+        assertTrue(first.isClosed(), "The returned proxy should report itself closed");
+    }
+
+    @Test
+    void testBorrowTimesOutWhenPoolExhausted() throws SQLException {
+        pool = newPool(0, 1, 100, 0, 60_000);
+
+        Connection held = pool.borrow();
+        assertThrows(SQLTimeoutException.class, () -> pool.borrow());
+        assertEquals(1, pool.getMetrics().getBorrowTimeouts());
+        assertEquals(1, pool.getMetrics().getActiveConnections());
+        held.close();
+    }
+
+    @Test
+    void testWaitersAreServedInArrivalOrder() throws Exception {
+        pool = newPool(0, 1, 5000, 0, 60_000);
+        Connection held = pool.borrow();
+
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            final int id = i;
+            Thread t = new Thread(() -> {
+                try {
+                    Connection conn = pool.borrow();
+                    order.add(id);
+                    conn.close();
+                } catch (SQLException e) {
+                    fail(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            t.start();
+            // Wait until this thread is queued before starting the next one
+            while (pool.getMetrics().getWaitingThreads() <= i) {
+                Thread.sleep(5);
+            }
+        }
+
+        held.close();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2), order, "Waiters should be served first-in, first-out");
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void testLeakDetectionReportsLongHeldConnections() throws Exception {
+        pool = newPool(0, 2, 1000, 50, 25);
+
+        Connection leaked = pool.borrow();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (pool.getMetrics().getLeaksDetected() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, pool.getMetrics().getLeaksDetected());
+        leaked.close();
+    }
+
+    @Test
+    void testMetricsTrackBorrowLatency() throws SQLException {
+        pool = newPool(0, 3, 1000, 0, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            pool.borrow().close();
+        }
+        PoolMetrics metrics = pool.getMetrics();
+        assertEquals(5, metrics.getTotalBorrows());
+        assertEquals(5, metrics.getBorrowLatency().getCount());
+        assertEquals(0, metrics.getActiveConnections());
+        assertEquals(1, metrics.getIdleConnections());
+    }
+
+    @Test
+    void testShutdownClosesIdleConnections() throws SQLException {
+        pool = newPool(0, 2, 1000, 0, 60_000);
+
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+        a.close();
+        pool.shutdown();
+        assertEquals(1, physicallyClosed.get());
+        b.close();
+        assertEquals(2, physicallyClosed.get(), "Connections returned after shutdown should be closed");
+        assertThrows(SQLException.class, () -> pool.borrow());
+    }
+
+    @Test
+    void testStatementCacheReusesStatementsAcrossBorrows() throws SQLException {
+        pool = newPool(0, 1, 1000, 0, 60_000, 8);
+        String sql = "SELECT * FROM patients WHERE patient_id = ?";
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = pool.borrow();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, "P00" + i);
+            }
+        }
+
+        assertEquals(1, statementsPrepared.get(), "The same SQL should only be prepared once per connection");
+        assertEquals(0, statementsClosed.get(), "Cached statements should stay open between uses");
+        PoolMetrics metrics = pool.getMetrics();
+        assertEquals(2, metrics.getStatementCacheHits());
+        assertEquals(1, metrics.getStatementCacheMisses());
+    }
+
+    @Test
+    void testStatementCacheEvictsLeastRecentlyUsed() throws SQLException {
+        pool = newPool(0, 1, 1000, 0, 60_000, 2);
+
+        try (Connection conn = pool.borrow()) {
+            conn.prepareStatement("SELECT 1").close();
+            conn.prepareStatement("SELECT 2").close();
+            conn.prepareStatement("SELECT 1").close(); // "SELECT 2" is now least recently used
+            conn.prepareStatement("SELECT 3").close();
+            conn.prepareStatement("SELECT 1").close();
+        }
+
+        PoolMetrics metrics = pool.getMetrics();
+        assertEquals(1, metrics.getStatementCacheEvictions());
+        assertEquals(2, metrics.getStatementCacheHits());
+        assertEquals(1, statementsClosed.get(), "The evicted statement should be closed");
+    }
+
+    @Test
+    void testNestedUseOfSameSqlGetsSeparateStatement() throws SQLException {
+        pool = newPool(0, 1, 1000, 0, 60_000, 8);
+
+        try (Connection conn = pool.borrow();
+             PreparedStatement outer = conn.prepareStatement("SELECT 1");
+             PreparedStatement inner = conn.prepareStatement("SELECT 1")) {
+            assertNotSame(outer, inner);
+        }
+        assertEquals(2, statementsPrepared.get());
+    }
+}
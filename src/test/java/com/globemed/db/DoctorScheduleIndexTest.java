@@ -0,0 +1,136 @@
+package com.globemed.db;
+
+import com.globemed.appointment.Appointment;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DoctorScheduleIndex.
+ */
+class DoctorScheduleIndexTest {
+
+    private static final Duration HALF_HOUR = Duration.ofMinutes(30);
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+    private static Appointment appointment(int id, String doctorId, LocalDateTime start, String status) {
+        Appointment appointment = new Appointment("P001", doctorId, start, "Checkup");
+        appointment.setAppointmentId(id);
+        appointment.setStatus(status);
+        return appointment;
+    }
+
+    @Test
+    void testStartsWithinHalfAnHourConflict() throws Exception {
+        List<Appointment> day = List.of(appointment(1, "D001", DAY.atTime(10, 0), "Scheduled"));
+        DoctorScheduleIndex index = new DoctorScheduleIndex((doctorId, date) -> day, 60_000);
+
+        assertEquals(DAY.atTime(10, 0), index.findConflict("D001", DAY.atTime(9, 45), HALF_HOUR, 0));
+        assertEquals(DAY.atTime(10, 0), index.findConflict("D001", DAY.atTime(10, 15), HALF_HOUR, 0));
+        assertNull(index.findConflict("D001", DAY.atTime(9, 30), HALF_HOUR, 0));
+        assertNull(index.findConflict("D001", DAY.atTime(10, 30), HALF_HOUR, 0));
+    }
+
+    @Test
+    void testDayIsLoadedOnceWithinTtl() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicLong now = new AtomicLong(0);
+        DoctorScheduleIndex index = new DoctorScheduleIndex((doctorId, date) -> {
+            loads.incrementAndGet();
+            return new ArrayList<>();
+        }, 1_000, now::get);
+
+        index.findConflict("D001", DAY.atTime(10, 0), HALF_HOUR, 0);
+        index.findConflict("D001", DAY.atTime(14, 0), HALF_HOUR, 0);
+        assertEquals(1, loads.get());
+
+        now.set(1_000);
+        index.findConflict("D001", DAY.atTime(10, 0), HALF_HOUR, 0);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testCheckNearMidnightLoadsBothDays() throws Exception {
+        List<LocalDate> loaded = new ArrayList<>();
+        DoctorScheduleIndex index = new DoctorScheduleIndex((doctorId, date) -> {
+            loaded.add(date);
+            return date.equals(DAY.plusDays(1))
+                    ? List.of(appointment(1, "D001", DAY.plusDays(1).atStartOfDay(), "Scheduled"))
+                    : List.of();
+        }, 60_000);
+
+        assertNotNull(index.findConflict("D001", DAY.atTime(23, 45), HALF_HOUR, 0));
+        assertEquals(List.of(DAY, DAY.plusDays(1)), loaded);
+    }
+
+    @Test
+    void testWritesKeepIndexInSync() throws Exception {
+        DoctorScheduleIndex index = new DoctorScheduleIndex((doctorId, date) -> new ArrayList<>(), 60_000);
+        assertNull(index.findConflict("D001", DAY.atTime(10, 0), HALF_HOUR, 0));
+
+        Appointment booked = appointment(7, "D001", DAY.atTime(10, 0), "Scheduled");
+        index.appointmentSaved(booked);
+        assertNotNull(index.findConflict("D001", DAY.atTime(10, 10), HALF_HOUR, 0));
+
+        // Rescheduling moves the slot
+        booked.setAppointmentDateTime(DAY.atTime(15, 0));
+        index.appointmentSaved(booked);
+        assertNull(index.findConflict("D001", DAY.atTime(10, 10), HALF_HOUR, 0));
+        assertNotNull(index.findConflict("D001", DAY.atTime(15, 10), HALF_HOUR, 0));
+
+        // Canceling frees it
+        booked.setStatus("Canceled");
+        index.appointmentSaved(booked);
+        assertNull(index.findConflict("D001", DAY.atTime(15, 10), HALF_HOUR, 0));
+
+        booked.setStatus("Scheduled");
+        index.appointmentSaved(booked);
+        index.appointmentDeleted(7);
+        assertNull(index.findConflict("D001", DAY.atTime(15, 10), HALF_HOUR, 0));
+    }
+
+    @Test
+    void testPrefetchReadBeforeACancelDoesNotRestoreTheSlot() throws Exception {
+        Appointment booked = appointment(7, "D001", DAY.atTime(10, 0), "Scheduled");
+        List<Appointment> staleDay = List.of(appointment(7, "D001", DAY.atTime(10, 0), "Scheduled"));
+        DoctorScheduleIndex index = new DoctorScheduleIndex((doctorId, date) -> staleDay, 60_000);
+        assertNotNull(index.findConflict("D001", DAY.atTime(10, 0), HALF_HOUR, 0));
+
+        // A prefetch reads the day, the appointment is canceled, then the prefetch hands in its read
+        long readVersion = index.version("D001");
+        booked.setStatus("Canceled");
+        index.appointmentSaved(booked);
+        index.dayLoadedIfCurrent("D001", DAY, staleDay, readVersion);
+        assertNull(index.findConflict("D001", DAY.atTime(10, 0), HALF_HOUR, 0));
+
+        // A read that raced no write is taken
+        index.dayLoadedIfCurrent("D001", DAY, List.of(appointment(8, "D001", DAY.atTime(14, 0), "Scheduled")),
+                index.version("D001"));
+        assertNotNull(index.findConflict("D001", DAY.atTime(14, 10), HALF_HOUR, 0));
+    }
+
+    @Test
+    void testCanceledAppointmentsDoNotBlockSlots() throws Exception {
+        List<Appointment> day = List.of(appointment(1, "D001", DAY.atTime(10, 0), "Canceled"));
+        DoctorScheduleIndex index = new DoctorScheduleIndex((doctorId, date) -> day, 60_000);
+
+        assertNull(index.findConflict("D001", DAY.atTime(10, 0), HALF_HOUR, 0));
+    }
+
+    @Test
+    void testIgnoredAppointmentDoesNotConflictWithItself() throws Exception {
+        List<Appointment> day = List.of(appointment(3, "D001", DAY.atTime(10, 0), "Scheduled"));
+        DoctorScheduleIndex index = new DoctorScheduleIndex((doctorId, date) -> day, 60_000);
+
+        assertNull(index.findConflict("D001", DAY.atTime(10, 15), HALF_HOUR, 3));
+        assertNotNull(index.findConflict("D001", DAY.atTime(10, 15), HALF_HOUR, 4));
+    }
+}
@@ -0,0 +1,28 @@
+package com.globemed.db;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the fixed-bucket latency histogram.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void testCopyIsNotAffectedByLaterRecords() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(40_000);      // 40us
+        histogram.record(2_000_000);   // 2ms
+
+        LatencyHistogram copy = histogram.copy();
+        histogram.record(900_000_000); // 900ms
+
+        assertEquals(2, copy.getCount());
+        assertEquals(2.0, copy.getMaxMillis(), 0.001);
+        assertEquals(1.02, copy.getMeanMillis(), 0.001);
+        assertEquals(2.5, copy.getPercentileMillis(99), 0.001);
+        assertEquals(3, histogram.getCount());
+        assertEquals(900.0, histogram.getMaxMillis(), 0.001);
+    }
+}
@@ -0,0 +1,63 @@
+package com.globemed.db;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LruCache.
+ */
+class LruCacheTest {
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        LruCache<String, String> cache = new LruCache<>("test", 2);
+        cache.putIfCurrent("P001", "Alice", cache.version());
+        cache.putIfCurrent("P002", "Bob", cache.version());
+
+        assertEquals("Alice", cache.get("P001")); // P002 is now least recently used
+        cache.putIfCurrent("P003", "Carol", cache.version());
+
+        assertNull(cache.get("P002"));
+        assertEquals("Alice", cache.get("P001"));
+        assertEquals("Carol", cache.get("P003"));
+
+        CacheMetrics metrics = cache.getMetrics();
+        assertEquals(2, metrics.getSize());
+        assertEquals(1, metrics.getEvictions());
+        assertEquals(3, metrics.getHits());
+        assertEquals(1, metrics.getMisses());
+    }
+
+    @Test
+    void testInvalidateRemovesEntry() {
+        LruCache<String, String> cache = new LruCache<>("test", 10);
+        cache.putIfCurrent("P001", "Alice", cache.version());
+
+        cache.invalidate("P001");
+
+        assertNull(cache.get("P001"));
+        assertEquals(1, cache.getMetrics().getInvalidations());
+    }
+
+    @Test
+    void testReadRacingAnInvalidationIsNotCached() {
+        LruCache<String, String> cache = new LruCache<>("test", 10);
+
+        long readVersion = cache.version();
+        // An update lands between the database read and the cache put
+        cache.invalidate("P001");
+        cache.putIfCurrent("P001", "Alice (stale)", readVersion);
+
+        assertNull(cache.get("P001"));
+    }
+
+    @Test
+    void testZeroSizeDisablesCaching() {
+        LruCache<String, String> cache = new LruCache<>("test", 0);
+        cache.putIfCurrent("P001", "Alice", cache.version());
+
+        assertNull(cache.get("P001"));
+        assertEquals(0, cache.getMetrics().getSize());
+    }
+}
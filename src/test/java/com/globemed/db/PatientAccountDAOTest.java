@@ -0,0 +1,82 @@
+package com.globemed.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for how bill writes move the patient_accounts totals.
+ */
+class PatientAccountDAOTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 8, 4, 9, 0);
+    private static final LocalDateTime TUESDAY = LocalDateTime.of(2025, 8, 5, 9, 0);
+
+    private static BillWriteScope.StoredBill bill(int id, String patientId, LocalDateTime billed,
+                                                  long amount, long finalAmount, long paid, long insurance) {
+        return new BillWriteScope.StoredBill(id, patientId, billed, "Consultation", amount, finalAmount, paid, insurance);
+    }
+
+    @Test
+    void testNewBillIsAddedToItsPatient() {
+        SortedMap<String, PatientAccountDAO.AccountChange> changes = PatientAccountDAO.changesOf(
+                List.of(), List.of(bill(1, "P001", MONDAY, 10000, 2000, 0, 8000)));
+
+        PatientAccountDAO.AccountChange change = changes.get("P001");
+        assertEquals(10000, change.billedCents);
+        assertEquals(8000, change.insurancePaidCents);
+        assertEquals(0, change.patientPaidCents);
+        assertEquals(2000, change.outstandingCents);
+        assertEquals(1, change.openBills);
+        assertEquals(MONDAY, change.earliestOpenAdded);
+        assertNull(change.earliestOpenRemoved);
+    }
+
+    @Test
+    void testClosingPaymentOnlyMovesPaidAndOutstanding() {
+        SortedMap<String, PatientAccountDAO.AccountChange> changes = PatientAccountDAO.changesOf(
+                List.of(bill(1, "P001", MONDAY, 10000, 2000, 500, 8000)),
+                List.of(bill(1, "P001", MONDAY, 10000, 2000, 2000, 8000)));
+
+        PatientAccountDAO.AccountChange change = changes.get("P001");
+        assertEquals(0, change.billedCents);
+        assertEquals(0, change.insurancePaidCents);
+        assertEquals(1500, change.patientPaidCents);
+        assertEquals(-1500, change.outstandingCents);
+        assertEquals(-1, change.openBills);
+        assertEquals(MONDAY, change.earliestOpenRemoved, "A closed bill may have been the oldest open one");
+        assertNull(change.earliestOpenAdded);
+    }
+
+    @Test
+    void testPartialPaymentKeepsTheOldestOpenBill() {
+        SortedMap<String, PatientAccountDAO.AccountChange> changes = PatientAccountDAO.changesOf(
+                List.of(bill(1, "P001", MONDAY, 10000, 10000, 0, 0)),
+                List.of(bill(1, "P001", MONDAY, 10000, 10000, 2500, 0)));
+
+        PatientAccountDAO.AccountChange change = changes.get("P001");
+        assertEquals(-2500, change.outstandingCents);
+        assertEquals(0, change.openBills);
+        assertNull(change.earliestOpenRemoved, "A bill still open at the same time needs no lookup");
+    }
+
+    @Test
+    void testDeletedBillIsSubtractedPerPatient() {
+        SortedMap<String, PatientAccountDAO.AccountChange> changes = PatientAccountDAO.changesOf(
+                List.of(bill(1, "P002", TUESDAY, 4000, 4000, 0, 0), bill(2, "P001", MONDAY, 3000, 3000, 3000, 0)),
+                List.of());
+
+        assertEquals(List.of("P001", "P002"), List.copyOf(changes.keySet()), "Changes are applied in lock order");
+        assertEquals(-4000, changes.get("P002").billedCents);
+        assertEquals(-4000, changes.get("P002").outstandingCents);
+        assertEquals(-1, changes.get("P002").openBills);
+        assertEquals(TUESDAY, changes.get("P002").earliestOpenRemoved);
+        assertEquals(-3000, changes.get("P001").patientPaidCents);
+        assertEquals(0, changes.get("P001").openBills);
+        assertNull(changes.get("P001").earliestOpenRemoved);
+    }
+}
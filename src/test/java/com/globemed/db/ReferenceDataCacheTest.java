@@ -0,0 +1,97 @@
+package com.globemed.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReferenceDataCache.
+ * A fake loader counts database reads and a manual clock drives expiry.
+ */
+class ReferenceDataCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ReferenceDataCache<String> newCache(long ttlMillis) {
+        return new ReferenceDataCache<>("test", ttlMillis, () -> "snapshot-" + loads.incrementAndGet(), now::get);
+    }
+
+    @Test
+    void testSnapshotIsServedFromMemoryUntilTtlExpires() throws SQLException {
+        ReferenceDataCache<String> cache = newCache(5_000);
+
+        assertEquals("snapshot-1", cache.get());
+        assertEquals("snapshot-1", cache.get());
+        now.addAndGet(4_999);
+        assertEquals("snapshot-1", cache.get());
+        now.addAndGet(1);
+        assertEquals("snapshot-2", cache.get());
+
+        CacheMetrics metrics = cache.getMetrics();
+        assertEquals(2, metrics.getHits());
+        assertEquals(2, metrics.getMisses());
+        assertEquals(0.5, metrics.getHitRate(), 0.0001);
+    }
+
+    @Test
+    void testInvalidateForcesReload() throws SQLException {
+        ReferenceDataCache<String> cache = newCache(60_000);
+
+        assertEquals("snapshot-1", cache.get());
+        cache.invalidate();
+        assertEquals("snapshot-2", cache.get());
+        assertEquals("snapshot-2", cache.get());
+
+        assertEquals(1, cache.getMetrics().getInvalidations());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testLoadRacingAnInvalidationIsNotKept() throws SQLException {
+        AtomicReference<ReferenceDataCache<String>> cache = new AtomicReference<>();
+        cache.set(new ReferenceDataCache<>("test", 60_000, () -> {
+            int load = loads.incrementAndGet();
+            if (load == 1) {
+                cache.get().invalidate(); // A write lands while the first snapshot is being read
+            }
+            return "snapshot-" + load;
+        }, now::get));
+
+        assertEquals("snapshot-1", cache.get().get());
+        assertEquals("snapshot-2", cache.get().get());
+        assertEquals("snapshot-2", cache.get().get());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+        ReferenceDataCache<String> cache = new ReferenceDataCache<>("test", 60_000, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new SQLException("Communications link failure");
+            }
+            return "snapshot";
+        }, now::get);
+
+        assertThrows(SQLException.class, cache::get);
+        assertEquals("snapshot", cache.get());
+        assertEquals("snapshot", cache.get());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testZeroTtlDisablesCaching() throws SQLException {
+        ReferenceDataCache<String> cache = newCache(0);
+
+        cache.get();
+        cache.get();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getMetrics().getHits());
+    }
+}
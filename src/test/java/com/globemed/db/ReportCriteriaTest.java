@@ -0,0 +1,81 @@
+package com.globemed.db;
+
+import com.globemed.reports.DailyRevenue;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReportCriteria SQL generation.
+ */
+class ReportCriteriaTest {
+
+    @Test
+    void testAllCriteriaAddsNoConditions() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM billing WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+
+        ReportCriteria.all().appendBillConditions(sql, params, "");
+
+        assertEquals("SELECT * FROM billing WHERE 1 = 1", sql.toString());
+        assertTrue(params.isEmpty());
+    }
+
+    @Test
+    void testDateRangeIsHalfOpenAndSargable() {
+        ReportCriteria criteria = new ReportCriteria(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 31), null, null);
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        criteria.appendAppointmentConditions(sql, params, "a.");
+
+        assertEquals(" AND a.appointment_datetime >= ? AND a.appointment_datetime < ?", sql.toString());
+        assertEquals(Timestamp.valueOf("2025-08-01 00:00:00"), params.get(0));
+        assertEquals(Timestamp.valueOf("2025-09-01 00:00:00"), params.get(1), "The end date should be inclusive");
+    }
+
+    @Test
+    void testServiceAndStatusFiltersArePushedDown() {
+        ReportCriteria criteria = new ReportCriteria(null, null, "X-Ray", ReportCriteria.STATUS_PAID);
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        criteria.appendBillConditions(sql, params, "b.");
+
+        assertEquals(" AND b.service_description = ? AND COALESCE(b.final_amount, 0) = 0", sql.toString());
+        assertEquals(List.of("X-Ray"), params);
+    }
+
+    @Test
+    void testOpenBalancesOnlyPrunesThroughPatientAccounts() {
+        ReportCriteria criteria = new ReportCriteria(null, null, "X-Ray", null).withOpenBalancesOnly();
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        criteria.appendBillConditions(sql, params, "b.");
+
+        assertEquals(" AND b.service_description = ?" +
+                " AND b.patient_id IN (SELECT patient_id FROM patient_accounts WHERE outstanding > 0)" +
+                " AND COALESCE(b.final_amount, 0) > COALESCE(b.amount_paid, 0)", sql.toString());
+        assertEquals(List.of("X-Ray"), params);
+        assertFalse(new ReportCriteria(null, null, "X-Ray", null).isOpenBalancesOnly(), "The original criteria should be unchanged");
+    }
+
+    @Test
+    void testRollupConditionsUseDaysAndStatusBuckets() {
+        ReportCriteria criteria = new ReportCriteria(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 31), "X-Ray", ReportCriteria.STATUS_OVERDUE);
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        criteria.appendRollupConditions(sql, params);
+
+        assertEquals(" AND revenue_date >= ? AND revenue_date <= ? AND service_description = ? AND status_bucket = ?", sql.toString());
+        assertEquals(List.of(Date.valueOf("2025-08-01"), Date.valueOf("2025-08-31"), "X-Ray", DailyRevenue.BUCKET_OPEN), params);
+    }
+}
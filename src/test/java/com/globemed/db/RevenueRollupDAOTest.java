@@ -0,0 +1,95 @@
+package com.globemed.db;
+
+import com.globemed.reports.DailyRevenue;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for how bill writes move the revenue_daily cells.
+ */
+class RevenueRollupDAOTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 8, 4, 9, 0);
+    private static final RevenueRollupDAO.Cell MONDAY_OPEN =
+            new RevenueRollupDAO.Cell(LocalDate.of(2025, 8, 4), "Consultation", DailyRevenue.BUCKET_OPEN);
+    private static final RevenueRollupDAO.Cell MONDAY_PAID =
+            new RevenueRollupDAO.Cell(LocalDate.of(2025, 8, 4), "Consultation", DailyRevenue.BUCKET_PAID);
+
+    private static BillWriteScope.StoredBill bill(int id, long amount, long finalAmount, long paid, long insurance) {
+        return new BillWriteScope.StoredBill(id, "P001", MONDAY, "Consultation", amount, finalAmount, paid, insurance);
+    }
+
+    @Test
+    void testNewBillIsAddedWithItsAmountAsMinAndMax() {
+        SortedMap<RevenueRollupDAO.Cell, RevenueRollupDAO.CellChange> changes = RevenueRollupDAO.changesOf(
+                List.of(), List.of(bill(1, 25000, 5000, 0, 20000)));
+
+        RevenueRollupDAO.CellChange change = changes.get(MONDAY_OPEN);
+        assertEquals(1, change.billCount);
+        assertEquals(25000, change.billedCents);
+        assertEquals(20000, change.insurancePaidCents);
+        assertEquals(5000, change.outstandingCents);
+        assertArrayEquals(new int[]{0, 1, 0}, change.sizeBandCounts);
+        assertArrayEquals(new long[]{0, 25000, 0}, change.sizeBandBilledCents);
+        assertEquals(25000L, change.minAddedCents);
+        assertEquals(25000L, change.minPositiveAddedCents);
+        assertEquals(25000L, change.maxAddedCents);
+        assertFalse(change.amountRemoved);
+    }
+
+    @Test
+    void testPaymentIsAPureDeltaWithoutMinMaxReadBack() {
+        SortedMap<RevenueRollupDAO.Cell, RevenueRollupDAO.CellChange> changes = RevenueRollupDAO.changesOf(
+                List.of(bill(1, 25000, 5000, 0, 20000)), List.of(bill(1, 25000, 5000, 3000, 20000)));
+
+        assertEquals(List.of(MONDAY_OPEN), List.copyOf(changes.keySet()));
+        RevenueRollupDAO.CellChange change = changes.get(MONDAY_OPEN);
+        assertEquals(0, change.billCount);
+        assertEquals(0, change.billedCents);
+        assertEquals(3000, change.patientPaidCents);
+        assertEquals(-3000, change.outstandingCents);
+        assertArrayEquals(new int[]{0, 0, 0}, change.sizeBandCounts);
+        assertNull(change.minAddedCents);
+        assertFalse(change.amountRemoved, "A payment must not read the cell's other bills");
+    }
+
+    @Test
+    void testBillMovingBucketsLeavesOneCellAndJoinsTheOther() {
+        SortedMap<RevenueRollupDAO.Cell, RevenueRollupDAO.CellChange> changes = RevenueRollupDAO.changesOf(
+                List.of(bill(1, 8000, 8000, 0, 0)), List.of(bill(1, 8000, 0, 0, 8000)));
+
+        RevenueRollupDAO.CellChange open = changes.get(MONDAY_OPEN);
+        assertEquals(-1, open.billCount);
+        assertEquals(-8000, open.billedCents);
+        assertEquals(-8000, open.outstandingCents);
+        assertTrue(open.amountRemoved);
+
+        RevenueRollupDAO.CellChange paid = changes.get(MONDAY_PAID);
+        assertEquals(1, paid.billCount);
+        assertEquals(8000, paid.insurancePaidCents);
+        assertArrayEquals(new int[]{1, 0, 0}, paid.sizeBandCounts);
+        assertEquals(8000L, paid.maxAddedCents);
+        assertFalse(paid.amountRemoved);
+    }
+
+    @Test
+    void testDeletedBillIsSubtractedAndItsCellReadBack() {
+        SortedMap<RevenueRollupDAO.Cell, RevenueRollupDAO.CellChange> changes = RevenueRollupDAO.changesOf(
+                List.of(bill(1, 0, 0, 0, 0), bill(2, 60000, 60000, 0, 0)), List.of());
+
+        RevenueRollupDAO.CellChange paid = changes.get(MONDAY_PAID);
+        assertEquals(-1, paid.billCount);
+        assertTrue(paid.amountRemoved);
+        RevenueRollupDAO.CellChange open = changes.get(MONDAY_OPEN);
+        assertEquals(-60000, open.billedCents);
+        assertArrayEquals(new long[]{0, 0, -60000}, open.sizeBandBilledCents);
+        assertTrue(open.amountRemoved);
+        assertNull(open.minPositiveAddedCents);
+    }
+}
@@ -0,0 +1,96 @@
+package com.globemed.db;
+
+import com.globemed.appointment.Appointment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ScheduleWindowCache.
+ */
+class ScheduleWindowCacheTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 9, 1);
+
+    private final List<LocalDate> loadedWindows = new ArrayList<>();
+    private final List<Runnable> prefetches = new ArrayList<>();
+
+    private List<Appointment> loadWindow(String doctorId, LocalDate from, LocalDate to) {
+        loadedWindows.add(from);
+        List<Appointment> appointments = new ArrayList<>();
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            Appointment appointment = new Appointment("P001", doctorId, day.atTime(10, 0), "Checkup");
+            appointment.setAppointmentId(day.getDayOfYear());
+            appointments.add(appointment);
+        }
+        return appointments;
+    }
+
+    @Test
+    void testWeekIsLoadedOnceForEveryDayInIt() throws Exception {
+        ScheduleWindowCache cache = new ScheduleWindowCache(16, 60_000, this::loadWindow, prefetches::add);
+
+        for (int i = 0; i < 7; i++) {
+            LocalDate day = MONDAY.plusDays(i);
+            List<Appointment> appointments = cache.getDay("D001", day);
+            assertEquals(1, appointments.size());
+            assertEquals(day, appointments.get(0).getAppointmentDateTime().toLocalDate());
+        }
+
+        assertEquals(List.of(MONDAY), loadedWindows);
+    }
+
+    @Test
+    void testAdjacentWeeksArePrefetched() throws Exception {
+        ScheduleWindowCache cache = new ScheduleWindowCache(16, 60_000, this::loadWindow, prefetches::add);
+
+        cache.getDay("D001", MONDAY.plusDays(3));
+        assertEquals(2, prefetches.size());
+        prefetches.forEach(Runnable::run);
+        assertEquals(List.of(MONDAY, MONDAY.minusWeeks(1), MONDAY.plusWeeks(1)), loadedWindows);
+
+        // Paging into the next week is now served from memory
+        cache.getDay("D001", MONDAY.plusWeeks(1));
+        assertEquals(3, loadedWindows.size());
+    }
+
+    @Test
+    void testCallersGetCopies() throws Exception {
+        ScheduleWindowCache cache = new ScheduleWindowCache(16, 60_000, this::loadWindow, prefetches::add);
+
+        cache.getDay("D001", MONDAY).get(0).setStatus("Canceled");
+
+        assertEquals("Scheduled", cache.getDay("D001", MONDAY).get(0).getStatus());
+    }
+
+    @Test
+    void testInvalidationAndExpiryForceReload() throws Exception {
+        AtomicLong now = new AtomicLong();
+        ScheduleWindowCache cache = new ScheduleWindowCache(16, 1_000, this::loadWindow, prefetches::add, now::get);
+
+        cache.getDay("D001", MONDAY);
+        cache.invalidate("D001", MONDAY.plusDays(4));
+        cache.getDay("D001", MONDAY);
+        assertEquals(2, loadedWindows.size());
+
+        cache.invalidateDoctor("D002");
+        cache.getDay("D001", MONDAY);
+        assertEquals(2, loadedWindows.size());
+
+        now.set(1_000);
+        cache.getDay("D001", MONDAY);
+        assertEquals(3, loadedWindows.size());
+    }
+
+    @Test
+    void testWindowsStartOnMonday() {
+        assertEquals(MONDAY, ScheduleWindowCache.windowStart(MONDAY));
+        assertEquals(MONDAY, ScheduleWindowCache.windowStart(MONDAY.plusDays(6)));
+        assertEquals(MONDAY.plusWeeks(1), ScheduleWindowCache.windowStart(MONDAY.plusDays(7)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.globemed.db;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the row mapper symbol table.
+ */
+class SymbolTableTest {
+
+    @Test
+    void testEqualValuesShareOneInstance() {
+        SymbolTable symbols = new SymbolTable("test", 16, SymbolTable.DEFAULT_MAX_LENGTH);
+
+        String first = symbols.intern(new String("Paid"));
+        String second = symbols.intern(new String("Paid"));
+
+        assertEquals("Paid", second);
+        assertSame(first, second);
+        assertEquals(1, symbols.size());
+        assertEquals(1, symbols.getMetrics().getHits());
+        assertEquals(1, symbols.getMetrics().getMisses());
+    }
+
+    @Test
+    void testNullAndLongValuesAreNotInterned() {
+        SymbolTable symbols = new SymbolTable("test", 16, 8);
+        String longValue = new String("Follow-up after surgery");
+
+        assertNull(symbols.intern(null));
+        assertSame(longValue, symbols.intern(longValue));
+        assertEquals(0, symbols.size());
+    }
+
+    @Test
+    void testFullTableReturnsNewValuesUnchanged() {
+        SymbolTable symbols = new SymbolTable("test", 2, SymbolTable.DEFAULT_MAX_LENGTH);
+        String paid = symbols.intern(new String("Paid"));
+        symbols.intern("Pending");
+
+        String overdue = new String("Overdue");
+        assertSame(overdue, symbols.intern(overdue));
+        assertNotSame(overdue, symbols.intern(new String("Overdue")));
+        assertSame(paid, symbols.intern(new String("Paid")));
+        assertEquals(2, symbols.size());
+    }
+
+    @Test
+    void testZeroSizeDisablesInterning() {
+        SymbolTable symbols = new SymbolTable("test", 0, SymbolTable.DEFAULT_MAX_LENGTH);
+        String value = new String("Paid");
+
+        assertSame(value, symbols.intern(value));
+        assertNotSame(value, symbols.intern(new String("Paid")));
+    }
+}
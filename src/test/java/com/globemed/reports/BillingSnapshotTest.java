@@ -0,0 +1,102 @@
+package com.globemed.reports;
+
+import com.globemed.billing.MedicalBill;
+import com.globemed.billing.Money;
+import com.globemed.patient.PatientRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the columnar billing snapshot and the reports computed from it.
+ */
+class BillingSnapshotTest {
+
+    private static final String[] SERVICES = {"Consultation", "X-Ray", "Blood Test", "MRI Scan"};
+
+    /**
+     * Bills spread over the last 200 days, paid, partly paid and unpaid, some with insurance.
+     * Amounts are multiples of 4, so every share is a multiple of 0.5 and sums are exact.
+     */
+    private static List<MedicalBill> sampleBills() {
+        List<MedicalBill> bills = new ArrayList<>();
+        LocalDateTime now = LocalDate.now().atTime(10, 0);
+        for (int i = 0; i < 300; i++) {
+            double amount = 20 + (i * 37 % 97) * 12;
+            double insurance = i % 4 == 0 ? amount / 4 : 0;
+            double finalAmount = amount - insurance;
+            double paid = i % 3 == 0 ? finalAmount : (i % 3 == 1 ? finalAmount / 2 : 0);
+            bills.add(new MedicalBill(i + 1, String.format("P%03d", i % 23), SERVICES[i % SERVICES.length], amount,
+                    paid == finalAmount ? "Paid" : "Pending", "", paid == finalAmount ? 0 : finalAmount,
+                    now.minusDays(i * 7 % 200), paid, insurance));
+        }
+        return bills;
+    }
+
+    private static BillingSnapshot snapshotOf(List<MedicalBill> bills) {
+        BillingSnapshot.Builder builder = new BillingSnapshot.Builder();
+        bills.forEach(builder::add);
+        return builder.build();
+    }
+
+    @Test
+    void testColumnsAndDictionaries() {
+        List<MedicalBill> bills = sampleBills();
+        BillingSnapshot snapshot = snapshotOf(bills);
+
+        assertEquals(bills.size(), snapshot.size());
+        assertEquals(SERVICES.length, snapshot.cardinality(BillingSnapshot.Dimension.SERVICE));
+        assertEquals(23, snapshot.cardinality(BillingSnapshot.Dimension.PATIENT));
+        assertEquals(2, snapshot.cardinality(BillingSnapshot.Dimension.STATUS));
+        assertEquals("Consultation", snapshot.valueOf(BillingSnapshot.Dimension.SERVICE, 0));
+
+        double billed = bills.stream().mapToDouble(MedicalBill::getAmount).sum();
+        double outstanding = bills.stream().mapToDouble(MedicalBill::getRemainingBalance).sum();
+        assertEquals(Money.ofDouble(billed), snapshot.sum(BillingSnapshot.Measure.BILLED));
+        assertEquals(Money.ofDouble(outstanding), snapshot.sum(BillingSnapshot.Measure.OUTSTANDING));
+    }
+
+    @Test
+    void testGroupingOperators() {
+        BillingSnapshot snapshot = new BillingSnapshot.Builder()
+                .add("P1", "X-Ray", "Pending", LocalDate.of(2025, 1, 1), 10000, 10000, 2500, 0)
+                .add("P2", "MRI Scan", "Paid", LocalDate.of(2025, 2, 10), 50000, 0, 30000, 20000)
+                .add("P1", "X-Ray", "Pending", (int) LocalDate.of(2025, 3, 1).toEpochDay(), 4000, 4000, 0, 0) // as loaded from SQL
+                .build();
+
+        int[] ages = snapshot.ages(LocalDate.of(2025, 3, 31));
+        assertArrayEquals(new int[]{89, 49, 30}, ages);
+        assertArrayEquals(new int[]{2, 1, 0}, snapshot.bucketize(ages, new int[]{30, 60, 90}));
+
+        int[] patients = snapshot.filterPositive(snapshot.groups(BillingSnapshot.Dimension.PATIENT),
+                BillingSnapshot.Measure.OUTSTANDING);
+        assertArrayEquals(new int[]{0, -1, 0}, patients);
+        assertArrayEquals(new int[]{2, 0}, snapshot.countBy(patients, 2));
+        assertArrayEquals(new long[]{11500, 0}, snapshot.sumBy(BillingSnapshot.Measure.OUTSTANDING, patients, 2));
+        assertArrayEquals(new long[]{119, 0}, snapshot.sumBy(ages, patients, 2));
+        assertArrayEquals(new int[]{89, Integer.MIN_VALUE}, snapshot.maxBy(ages, patients, 2));
+
+        int[] services = snapshot.groups(BillingSnapshot.Dimension.SERVICE);
+        assertArrayEquals(new long[]{14000, 50000}, snapshot.sumBy(BillingSnapshot.Measure.BILLED, services, 2));
+        assertEquals(20000, snapshot.sum(BillingSnapshot.Measure.INSURANCE_PAID));
+    }
+
+    @Test
+    void testAgedReceivablesFromSnapshotMatchesLedger() {
+        List<MedicalBill> bills = sampleBills();
+
+        AgedReceivablesVisitor fromLedger = new AgedReceivablesVisitor();
+        fromLedger.visit(new PatientRecord("P000", "Patient"));
+        bills.forEach(fromLedger::visit);
+
+        AgedReceivablesVisitor fromSnapshot = new AgedReceivablesVisitor();
+        fromSnapshot.visit(snapshotOf(bills));
+
+        assertEquals(fromLedger.getReport(), fromSnapshot.getReport());
+    }
+}
@@ -0,0 +1,111 @@
+package com.globemed.reports;
+
+import com.globemed.appointment.Appointment;
+import com.globemed.billing.MedicalBill;
+import com.globemed.patient.PatientRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ParallelReportEngine.
+ * The parallel run must produce exactly the same report as a sequential walk.
+ */
+class ParallelReportEngineTest {
+
+    private static final String[] SERVICES = {"Consultation", "X-Ray", "Blood Test", "MRI Scan"};
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Builds a deterministic data set. Amounts are multiples of 0.25 so floating point
+     * sums are exact regardless of the order in which partials are merged.
+     */
+    private List<PatientReportData> sampleData(int patientCount) {
+        List<PatientReportData> groups = new ArrayList<>();
+        int billId = 1;
+        for (int p = 0; p < patientCount; p++) {
+            String patientId = String.format("P%04d", p);
+            PatientReportData group = new PatientReportData(new PatientRecord(patientId, "Patient " + p));
+            group.addAppointment(new Appointment(patientId, "D00" + (p % 3), LocalDateTime.of(2025, 1 + p % 12, 10, 9, 0), "Checkup"));
+            for (int b = 0; b < 3; b++) {
+                double amount = 50 + ((p * 7 + b * 13) % 40) * 12.25;
+                double paid = (p + b) % 3 == 0 ? amount : ((p + b) % 3 == 1 ? amount / 2 : 0);
+                double finalAmount = amount - paid;
+                group.addBill(new MedicalBill(billId++, patientId, SERVICES[(p + b) % SERVICES.length], amount,
+                        finalAmount == 0 ? "Paid" : "Pending", "", finalAmount,
+                        LocalDateTime.of(2025, 1 + (p + b) % 12, 1 + b, 12, 0), paid, 0));
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private void assertSameAsSequential(Supplier<ReportVisitor> factory, List<PatientReportData> data) {
+        ReportVisitor sequential = factory.get();
+        data.forEach(group -> group.accept(sequential));
+
+        ReportVisitor parallel = factory.get();
+        boolean loaded = new ParallelReportEngine(pool, 7).run(parallel, sink -> {
+            data.forEach(sink);
+            return true;
+        });
+
+        assertTrue(loaded);
+        assertEquals(sequential.getReport(), parallel.getReport());
+    }
+
+    @Test
+    void testParallelRunMatchesSequentialWalk() {
+        List<PatientReportData> data = sampleData(100);
+
+        assertSameAsSequential(InsuranceVsPatientPaymentsVisitor::new, data);
+        assertSameAsSequential(MonthlyRevenueTrendsVisitor::new, data);
+        assertSameAsSequential(OutstandingPaymentsVisitor::new, data);
+        assertSameAsSequential(AgedReceivablesVisitor::new, data);
+    }
+
+    @Test
+    void testVisitorWithoutPartialsIsVisitedDirectly() {
+        ReportVisitor visitor = new PatientSummaryReportVisitor();
+        assertNull(visitor.createPartial());
+        assertThrows(UnsupportedOperationException.class, () -> visitor.merge(visitor));
+
+        List<Thread> threads = new ArrayList<>();
+        ReportVisitor recording = new ReportVisitor() {
+            @Override public void visit(PatientRecord patient) { threads.add(Thread.currentThread()); }
+            @Override public void visit(Appointment appointment) { }
+            @Override public void visit(MedicalBill bill) { }
+            @Override public String getReport() { return ""; }
+        };
+        new ParallelReportEngine(pool, 2).run(recording, sink -> {
+            sampleData(5).forEach(sink);
+            return true;
+        });
+
+        assertEquals(5, threads.size());
+        assertTrue(threads.stream().allMatch(t -> t == Thread.currentThread()));
+    }
+
+    @Test
+    void testFailedLoadIsReported() {
+        ReportVisitor visitor = new RevenueAnalysisVisitor();
+        boolean loaded = new ParallelReportEngine(pool, 4).run(visitor, sink -> {
+            sampleData(10).forEach(sink);
+            return false;
+        });
+        assertFalse(loaded);
+    }
+}
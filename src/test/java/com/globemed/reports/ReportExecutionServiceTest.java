@@ -0,0 +1,98 @@
+package com.globemed.reports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReportExecutionService and ReportTask.
+ * Callbacks run inline instead of on the EDT so the tests can observe them directly.
+ */
+class ReportExecutionServiceTest {
+
+    private final ReportExecutionService service = new ReportExecutionService(2, 4, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    /**
+     * Records every callback and releases a latch when the outcome arrives.
+     */
+    private static class RecordingListener implements ReportExecutionService.Listener {
+        final List<String> outcomes = new CopyOnWriteArrayList<>();
+        final List<Long> progress = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String content;
+
+        @Override public void onProgress(long itemsProcessed, String stage) { progress.add(itemsProcessed); }
+        @Override public void onCompleted(String reportContent) { content = reportContent; outcome("completed"); }
+        @Override public void onFailed(Exception error) { outcome("failed: " + error.getMessage()); }
+        @Override public void onCancelled() { outcome("cancelled"); }
+
+        private void outcome(String outcome) {
+            outcomes.add(outcome);
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(5, TimeUnit.SECONDS), "report did not finish");
+        }
+    }
+
+    @Test
+    void testCompletedReportPublishesProgressAndContent() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        service.submit("Test Report", task -> {
+            for (int i = 0; i < 120; i++) {
+                task.itemProcessed();
+            }
+            return "report body";
+        }, listener);
+
+        listener.await();
+        assertEquals(List.of("completed"), listener.outcomes);
+        assertEquals("report body", listener.content);
+        assertTrue(listener.progress.contains(50L));
+        assertTrue(listener.progress.contains(100L));
+    }
+
+    @Test
+    void testFailureIsReported() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        service.submit("Test Report", task -> {
+            throw new IllegalStateException("database unavailable");
+        }, listener);
+
+        listener.await();
+        assertEquals(List.of("failed: database unavailable"), listener.outcomes);
+    }
+
+    @Test
+    void testCancelStopsScanMidWay() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        CountDownLatch started = new CountDownLatch(1);
+        ReportTask task = service.submit("Test Report", t -> {
+            started.countDown();
+            while (true) {
+                t.itemProcessed();
+                Thread.onSpinWait();
+            }
+        }, listener);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        task.cancel();
+
+        listener.await();
+        assertTrue(task.isCancelled());
+        assertEquals(List.of("cancelled"), listener.outcomes);
+        assertNull(listener.content);
+    }
+}
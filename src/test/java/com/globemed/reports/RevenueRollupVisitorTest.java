@@ -0,0 +1,121 @@
+package com.globemed.reports;
+
+import com.globemed.billing.MedicalBill;
+import com.globemed.patient.PatientRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the revenue reports' rollup path.
+ * A report built from daily rollup cells must match the report built from the bills.
+ */
+class RevenueRollupVisitorTest {
+
+    private static final String[] SERVICES = {"Consultation", "X-Ray", "Blood Test", "MRI Scan"};
+
+    /**
+     * Bills over several months, with every size band, paid, partly paid and unpaid bills
+     * and some insurance. Amounts are multiples of 4, so every share is a multiple of 0.5
+     * and sums are exact in any order.
+     */
+    private static List<MedicalBill> sampleBills() {
+        List<MedicalBill> bills = new ArrayList<>();
+        for (int i = 0; i < 240; i++) {
+            double amount = 20 + (i * 37 % 97) * 12;
+            double insurance = i % 4 == 0 ? amount / 4 : 0;
+            double finalAmount = amount - insurance;
+            double paid = i % 3 == 0 ? finalAmount : (i % 3 == 1 ? finalAmount / 2 : 0);
+            // Fully paid bills are stored with nothing left on the final amount
+            double storedFinal = paid == finalAmount ? 0 : finalAmount;
+            bills.add(new MedicalBill(i + 1, String.format("P%03d", i % 30), SERVICES[i % SERVICES.length], amount,
+                    storedFinal == 0 ? "Paid" : "Pending", "", storedFinal,
+                    LocalDateTime.of(2025, 1 + i % 6, 1 + i % 5, 9 + i % 8, 0), paid, insurance));
+        }
+        return bills;
+    }
+
+    /**
+     * Aggregates bills the way the revenue_daily rollup does, ordered by day, service and bucket.
+     */
+    private static List<DailyRevenue> rollup(List<MedicalBill> bills) {
+        Map<String, List<MedicalBill>> cells = new TreeMap<>();
+        for (MedicalBill bill : bills) {
+            String bucket = bill.getFinalAmount() == 0 ? DailyRevenue.BUCKET_PAID : DailyRevenue.BUCKET_OPEN;
+            String key = bill.getBilledDateTime().toLocalDate() + "|" + bill.getServiceDescription() + "|" + bucket;
+            cells.computeIfAbsent(key, k -> new ArrayList<>()).add(bill);
+        }
+
+        List<DailyRevenue> result = new ArrayList<>();
+        cells.forEach((key, cellBills) -> {
+            String[] parts = key.split("\\|");
+            long billed = 0, insurance = 0, patient = 0, outstanding = 0;
+            long min = Long.MAX_VALUE, minPositive = 0, max = 0;
+            int[] bandCounts = new int[3];
+            long[] bandBilled = new long[3];
+            for (MedicalBill bill : cellBills) {
+                long amount = bill.getAmountCents();
+                billed += amount;
+                insurance += bill.getInsurancePaidCents();
+                patient += bill.getAmountPaidCents();
+                outstanding += bill.getRemainingBalanceCents();
+                min = Math.min(min, amount);
+                max = Math.max(max, amount);
+                if (amount > 0 && (minPositive == 0 || amount < minPositive)) {
+                    minPositive = amount;
+                }
+                int band = DailyRevenue.sizeBand(amount);
+                bandCounts[band]++;
+                bandBilled[band] += amount;
+            }
+            result.add(new DailyRevenue(LocalDate.parse(parts[0]), parts[1], parts[2], cellBills.size(),
+                    billed, insurance, patient, outstanding, min, minPositive, max, bandCounts, bandBilled));
+        });
+        return result;
+    }
+
+    private static void assertRollupMatchesLedger(Supplier<RevenueRollupVisitor> factory) {
+        List<MedicalBill> bills = sampleBills();
+
+        RevenueRollupVisitor fromLedger = factory.get();
+        fromLedger.visit(new PatientRecord("P000", "Patient"));
+        bills.forEach(fromLedger::visit);
+
+        RevenueRollupVisitor fromRollup = factory.get();
+        rollup(bills).forEach(fromRollup::visit);
+
+        assertEquals(fromLedger.getReport(), fromRollup.getReport());
+    }
+
+    @Test
+    void testMonthlyRevenueTrendsFromRollupMatchesLedger() {
+        assertRollupMatchesLedger(MonthlyRevenueTrendsVisitor::new);
+    }
+
+    @Test
+    void testRevenueAnalysisFromRollupMatchesLedger() {
+        assertRollupMatchesLedger(RevenueAnalysisVisitor::new);
+    }
+
+    @Test
+    void testServiceRevenueBreakdownFromRollupMatchesLedger() {
+        assertRollupMatchesLedger(ServiceRevenueBreakdownVisitor::new);
+    }
+
+    @Test
+    void testRollupIsMuchSmallerThanTheLedger() {
+        List<MedicalBill> bills = sampleBills();
+        List<DailyRevenue> cells = rollup(bills);
+
+        assertTrue(cells.size() < bills.size() / 2, "Expected far fewer cells than bills, got " + cells.size());
+        assertEquals(bills.size(), cells.stream().mapToInt(DailyRevenue::getBillCount).sum());
+    }
+}